@@ -72,6 +72,34 @@ class ConfigurationCacheEncryptionIntegrationTest extends AbstractConfigurationC
         "AES/GCM/NoPadding"      | EncryptionKind.ENV_VAR
     }
 
+    def "configuration cache can be loaded without errors using #compression compression and encryption from #source"() {
+        given:
+        def additionalOpts = [
+            "-Dorg.gradle.configuration-cache.internal.compression=${compression}"
+        ]
+        def configurationCache = newConfigurationCacheFixture()
+        runWithEncryption(source, ["help"], additionalOpts)
+
+        when:
+        runWithEncryption(source, ["help"], additionalOpts)
+
+        then:
+        configurationCache.assertStateLoaded()
+
+        when: "the compression changes"
+        runWithEncryption(source, ["help"], [])
+
+        then: "the entry written with the previous compression can still be read"
+        configurationCache.assertStateLoaded()
+
+        where:
+        compression | source
+        "lz4"       | EncryptionKind.KEYSTORE
+        "lz4"       | EncryptionKind.NONE
+        "zstd"      | EncryptionKind.ENV_VAR
+        "zstd"      | EncryptionKind.NONE
+    }
+
     def "configuration cache encryption enablement is #enabled if kind=#kind"() {
         given:
         def configurationCache = newConfigurationCacheFixture()
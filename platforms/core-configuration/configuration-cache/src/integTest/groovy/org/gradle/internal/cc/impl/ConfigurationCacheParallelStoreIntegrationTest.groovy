@@ -132,4 +132,43 @@ class ConfigurationCacheParallelStoreIntegrationTest extends AbstractConfigurati
         output.contains("[org.gradle.configurationcache] reading task graph in parallel")
     }
 
+    def "restores the work of projects with different numbers of tasks"() {
+        given:
+        def configurationCache = newConfigurationCacheFixture()
+        settingsFile << """
+            include 'small', 'large'
+        """
+        file("small/build.gradle") << """
+            task t
+        """
+        file("large/build.gradle") << """
+            def previous = null
+            (1..20).each { i ->
+                def dependency = previous
+                tasks.register("t\$i") {
+                    if (dependency != null) {
+                        dependsOn(dependency)
+                    }
+                }
+                previous = "t\$i"
+            }
+            task t {
+                dependsOn(previous, ':small:t')
+            }
+        """
+
+        when:
+        configurationCacheRun(ENABLE_PARALLEL_CACHE, ":large:t")
+
+        then:
+        configurationCache.assertStateStored()
+        result.assertTasksExecuted(":small:t", *(1..20).collect { ":large:t$it" }, ":large:t")
+
+        when:
+        configurationCacheRun(ENABLE_PARALLEL_CACHE, ":large:t")
+
+        then:
+        configurationCache.assertStateLoaded()
+        result.assertTasksExecuted(":small:t", *(1..20).collect { ":large:t$it" }, ":large:t")
+    }
 }
@@ -0,0 +1,123 @@
+/*
+ * Copyright 2025 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.internal.cc.impl.io;
+
+import org.gradle.internal.serialize.kryo.KryoBackedDecoder;
+import org.gradle.internal.serialize.kryo.KryoBackedEncoder;
+import org.gradle.util.internal.EncryptionAlgorithm;
+import org.gradle.util.internal.SupportedEncryptionAlgorithm;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import javax.crypto.KeyGenerator;
+import javax.crypto.SecretKey;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Locale;
+
+/**
+ * Compares the compressions of configuration cache state files, with and without encryption.
+ * <p>
+ * The state imitates a work graph: per task, a type reference, a few properties with paths into the project,
+ * and some flags and numbers. Strings are written inline, as when string deduplication is disabled.
+ * The size of the stored state is printed during setup.
+ */
+@Fork(1)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@State(Scope.Benchmark)
+public class StateCompressionBenchmark {
+
+    @Param({"none", "lz4", "zstd"})
+    String compression;
+
+    @Param({"false", "true"})
+    boolean encrypted;
+
+    @Param({"100000"})
+    int taskCount;
+
+    private StateCompression stateCompression;
+    private EncryptionAlgorithm encryptionAlgorithm;
+    private SecretKey key;
+    private byte[] stored;
+
+    @Setup(Level.Trial)
+    public void setup() throws Exception {
+        stateCompression = StateCompression.valueOf(compression.toUpperCase(Locale.ROOT));
+        encryptionAlgorithm = SupportedEncryptionAlgorithm.getDefault();
+        key = KeyGenerator.getInstance(encryptionAlgorithm.getAlgorithm()).generateKey();
+        stored = store();
+        System.out.printf(">>> State of %d tasks is %d bytes long with %s compression%s%n", taskCount, stored.length, compression, encrypted ? " and encryption" : "");
+    }
+
+    @Benchmark
+    public byte[] store() throws Exception {
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        try (KryoBackedEncoder encoder = new KryoBackedEncoder(stateCompression.compress(maybeEncrypt(output)))) {
+            encoder.writeSmallInt(taskCount);
+            for (int i = 0; i < taskCount; i++) {
+                int project = i / 100;
+                String projectDir = "/home/user/workspace/project/subproject" + project;
+                encoder.writeSmallInt(i % 37);
+                encoder.writeString(":subproject" + project + ":task" + i);
+                encoder.writeString(projectDir + "/src/main/java");
+                encoder.writeString(projectDir + "/build/classes/java/main");
+                encoder.writeString("org.gradle.api.tasks.compile.JavaCompile");
+                encoder.writeBoolean(i % 3 == 0);
+                encoder.writeLong(i * 31L);
+                encoder.writeSmallInt(i % 5);
+            }
+        }
+        return output.toByteArray();
+    }
+
+    @Benchmark
+    public void load(Blackhole blackhole) throws Exception {
+        try (KryoBackedDecoder decoder = new KryoBackedDecoder(stateCompression.decompress(maybeDecrypt(new ByteArrayInputStream(stored))))) {
+            int count = decoder.readSmallInt();
+            for (int i = 0; i < count; i++) {
+                blackhole.consume(decoder.readSmallInt());
+                blackhole.consume(decoder.readString());
+                blackhole.consume(decoder.readString());
+                blackhole.consume(decoder.readString());
+                blackhole.consume(decoder.readString());
+                blackhole.consume(decoder.readBoolean());
+                blackhole.consume(decoder.readLong());
+                blackhole.consume(decoder.readSmallInt());
+            }
+        }
+    }
+
+    private OutputStream maybeEncrypt(OutputStream output) throws Exception {
+        return encrypted ? encryptionAlgorithm.encryptedStream(output, key) : output;
+    }
+
+    private InputStream maybeDecrypt(InputStream input) throws Exception {
+        return encrypted ? encryptionAlgorithm.decryptedStream(input, key) : input;
+    }
+}
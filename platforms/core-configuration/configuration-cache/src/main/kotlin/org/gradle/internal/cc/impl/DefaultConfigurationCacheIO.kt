@@ -29,7 +29,9 @@ import org.gradle.internal.cc.base.serialize.withGradleIsolate
 import org.gradle.internal.cc.impl.cacheentry.EntryDetails
 import org.gradle.internal.cc.impl.cacheentry.ModelKey
 import org.gradle.internal.cc.impl.initialization.ConfigurationCacheStartParameter
+import org.gradle.internal.cc.impl.io.readStateFileHeader
 import org.gradle.internal.cc.impl.io.safeWrap
+import org.gradle.internal.cc.impl.io.writeStateFileHeader
 import org.gradle.internal.cc.impl.problems.ConfigurationCacheProblems
 import org.gradle.internal.cc.impl.serialize.Codecs
 import org.gradle.internal.cc.impl.serialize.DefaultClassDecoder
@@ -424,12 +426,19 @@ class DefaultConfigurationCacheIO internal constructor(
         }
 
     private
-    fun outputStreamFor(stateType: StateType, outputStream: () -> OutputStream) =
-        maybeEncrypt(stateType, outputStream, encryptionService::outputStream)
+    fun outputStreamFor(stateType: StateType, outputStream: () -> OutputStream): OutputStream =
+        safeWrap(outputStream) { output ->
+            val compression = startParameter.compression
+            output.writeStateFileHeader(compression)
+            compression.compress(maybeEncrypt(stateType, { output }, encryptionService::outputStream))
+        }
 
     private
-    fun inputStreamFor(stateType: StateType, inputStream: () -> InputStream) =
-        maybeEncrypt(stateType, inputStream, encryptionService::inputStream)
+    fun inputStreamFor(stateType: StateType, inputStream: () -> InputStream): InputStream =
+        safeWrap(inputStream) { input ->
+            val compression = input.readStateFileHeader()
+            compression.decompress(maybeEncrypt(stateType, { input }, encryptionService::inputStream))
+        }
 
     private
     fun <I : Closeable, O : I> maybeEncrypt(stateType: StateType, inner: () -> I, outer: (I) -> O): I =
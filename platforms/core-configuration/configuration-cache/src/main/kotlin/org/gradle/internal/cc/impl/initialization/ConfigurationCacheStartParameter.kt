@@ -26,8 +26,10 @@ import org.gradle.internal.buildoption.InternalOptions
 import org.gradle.internal.buildtree.BuildModelParameters
 import org.gradle.internal.cc.impl.ConfigurationCacheLoggingParameters
 import org.gradle.internal.cc.impl.Workarounds
+import org.gradle.internal.cc.impl.io.StateCompression
 import org.gradle.internal.deprecation.DeprecationLogger
 import org.gradle.internal.extensions.core.getInternalFlag
+import org.gradle.internal.extensions.core.getInternalString
 import org.gradle.internal.extensions.stdlib.unsafeLazy
 import org.gradle.internal.service.scopes.Scope
 import org.gradle.internal.service.scopes.ServiceScope
@@ -96,6 +98,16 @@ class ConfigurationCacheStartParameter internal constructor(
      */
     val isParallelLoad = options.getInternalFlag("org.gradle.configuration-cache.internal.parallel-load", true)
 
+    /**
+     * The compression applied to the configuration cache state files, one of `none`, `lz4` or `zstd`.
+     *
+     * The default is `none`.
+     */
+    internal
+    val compression: StateCompression by unsafeLazy {
+        StateCompression.forName(options.getInternalString("org.gradle.configuration-cache.internal.compression", "none"))
+    }
+
     val gradleProperties: Map<String, Any?>
         get() = startParameter.projectProperties
             .filterKeys { !Workarounds.isIgnoredStartParameterProperty(it) }
@@ -0,0 +1,124 @@
+/*
+ * Copyright 2025 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.internal.cc.impl.io
+
+import io.airlift.compress.lz4.Lz4HadoopStreams
+import io.airlift.compress.zstd.ZstdInputStream
+import io.airlift.compress.zstd.ZstdOutputStream
+import org.gradle.api.InvalidUserDataException
+import java.io.EOFException
+import java.io.IOException
+import java.io.InputStream
+import java.io.OutputStream
+
+
+/**
+ * Compression of configuration cache state files.
+ *
+ * State files are compressed before they are encrypted, as encrypted data does not compress.
+ * Each state file starts with a [header][writeStateFileHeader], written in the clear ahead of the encrypted content,
+ * that identifies the compression the file was written with.
+ * This way, a state file can be read no matter what compression is currently configured.
+ *
+ * The identifiers are persisted in the state files, so they must never change.
+ */
+internal
+enum class StateCompression(val id: Int) {
+
+    NONE(0) {
+        override fun compress(output: OutputStream): OutputStream = output
+        override fun decompress(input: InputStream): InputStream = input
+    },
+
+    LZ4(1) {
+        private
+        val streams = Lz4HadoopStreams()
+
+        override fun compress(output: OutputStream): OutputStream = streams.createOutputStream(output)
+        override fun decompress(input: InputStream): InputStream = streams.createInputStream(input)
+    },
+
+    ZSTD(2) {
+        override fun compress(output: OutputStream): OutputStream = ZstdOutputStream(output)
+        override fun decompress(input: InputStream): InputStream = ZstdInputStream(input)
+    };
+
+    abstract fun compress(output: OutputStream): OutputStream
+
+    abstract fun decompress(input: InputStream): InputStream
+
+    companion object {
+
+        fun forName(name: String): StateCompression =
+            values().find { it.name.equals(name, ignoreCase = true) }
+                ?: throw InvalidUserDataException(
+                    "Unsupported configuration cache compression: $name. " +
+                        "Supported values are: ${values().joinToString { it.name.lowercase() }}"
+                )
+
+        fun forId(id: Int): StateCompression? =
+            values().find { it.id == id }
+    }
+}
+
+
+private
+val STATE_FILE_MAGIC = byteArrayOf('G'.code.toByte(), 'C'.code.toByte(), 'C'.code.toByte(), 'S'.code.toByte())
+
+
+private
+const val STATE_FILE_FORMAT_VERSION: Byte = 1
+
+
+private
+const val STATE_FILE_HEADER_LENGTH = 6
+
+
+/**
+ * Writes the magic bytes, the format version and the id of the given compression.
+ */
+internal
+fun OutputStream.writeStateFileHeader(compression: StateCompression) {
+    write(STATE_FILE_MAGIC + byteArrayOf(STATE_FILE_FORMAT_VERSION, compression.id.toByte()))
+}
+
+
+/**
+ * Reads the header written by [writeStateFileHeader] and returns the compression the rest of the file was written with.
+ */
+internal
+fun InputStream.readStateFileHeader(): StateCompression {
+    val header = ByteArray(STATE_FILE_HEADER_LENGTH)
+    var read = 0
+    while (read < header.size) {
+        val count = read(header, read, header.size - read)
+        if (count < 0) {
+            throw EOFException("Configuration cache state file is truncated")
+        }
+        read += count
+    }
+    if (!header.copyOfRange(0, STATE_FILE_MAGIC.size).contentEquals(STATE_FILE_MAGIC)) {
+        throw IOException("Configuration cache state file does not start with a known header")
+    }
+    val version = header[4]
+    if (version != STATE_FILE_FORMAT_VERSION) {
+        throw IOException("Unsupported configuration cache state file format version $version")
+    }
+    val id = header[5].toInt()
+    return StateCompression.forId(id)
+        ?: throw IOException("Configuration cache state file was compressed with an unknown compression (id $id)")
+}
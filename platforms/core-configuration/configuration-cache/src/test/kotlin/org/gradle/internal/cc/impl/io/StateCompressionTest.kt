@@ -0,0 +1,100 @@
+/*
+ * Copyright 2025 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.internal.cc.impl.io
+
+import org.gradle.util.internal.SupportedEncryptionAlgorithm
+import org.hamcrest.CoreMatchers.equalTo
+import org.hamcrest.CoreMatchers.not
+import org.hamcrest.MatcherAssert.assertThat
+import org.junit.Assert.assertThrows
+import org.junit.Test
+import java.io.ByteArrayInputStream
+import java.io.ByteArrayOutputStream
+import java.io.IOException
+import javax.crypto.KeyGenerator
+
+
+class StateCompressionTest {
+
+    private
+    val content = (1..1000).joinToString("\n") { "/home/user/project/subproject$it/build/classes" }.toByteArray()
+
+    private
+    val encryptionAlgorithm = SupportedEncryptionAlgorithm.getDefault()
+
+    private
+    val key = KeyGenerator.getInstance(encryptionAlgorithm.algorithm).generateKey()
+
+    @Test
+    fun `reads state written with any compression`() {
+        StateCompression.values().forEach { compression ->
+            assertThat(read(write(compression, encrypted = false), encrypted = false), equalTo(content))
+        }
+    }
+
+    @Test
+    fun `compresses before encrypting`() {
+        StateCompression.values().forEach { compression ->
+            val written = write(compression, encrypted = true)
+            assertThat(read(written, encrypted = true), equalTo(content))
+            if (compression != StateCompression.NONE) {
+                assertThat(written.size < content.size, equalTo(true))
+            }
+        }
+    }
+
+    @Test
+    fun `header identifies the compression`() {
+        val lz4 = write(StateCompression.LZ4, encrypted = true)
+        val zstd = write(StateCompression.ZSTD, encrypted = true)
+        assertThat(ByteArrayInputStream(lz4).readStateFileHeader(), equalTo(StateCompression.LZ4))
+        assertThat(ByteArrayInputStream(zstd).readStateFileHeader(), equalTo(StateCompression.ZSTD))
+        assertThat(lz4.copyOfRange(0, 6).toList(), not(equalTo(zstd.copyOfRange(0, 6).toList())))
+    }
+
+    @Test
+    fun `fails to read state without a header`() {
+        val exception = assertThrows(IOException::class.java) {
+            ByteArrayInputStream(content).readStateFileHeader()
+        }
+        assertThat(exception.message, equalTo("Configuration cache state file does not start with a known header"))
+    }
+
+    @Test
+    fun `compression is selected by name`() {
+        assertThat(StateCompression.forName("lz4"), equalTo(StateCompression.LZ4))
+        assertThat(StateCompression.forName("ZSTD"), equalTo(StateCompression.ZSTD))
+        assertThat(StateCompression.forName("none"), equalTo(StateCompression.NONE))
+    }
+
+    private
+    fun write(compression: StateCompression, encrypted: Boolean): ByteArray {
+        val output = ByteArrayOutputStream()
+        output.writeStateFileHeader(compression)
+        val encrypting = if (encrypted) encryptionAlgorithm.encryptedStream(output, key) else output
+        compression.compress(encrypting).use { it.write(content) }
+        return output.toByteArray()
+    }
+
+    private
+    fun read(bytes: ByteArray, encrypted: Boolean): ByteArray {
+        val input = ByteArrayInputStream(bytes)
+        val compression = input.readStateFileHeader()
+        val decrypting = if (encrypted) encryptionAlgorithm.decryptedStream(input, key) else input
+        return compression.decompress(decrypting).use { it.readBytes() }
+    }
+}
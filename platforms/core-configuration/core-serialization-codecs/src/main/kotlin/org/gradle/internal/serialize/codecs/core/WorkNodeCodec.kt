@@ -203,17 +203,20 @@ class WorkNodeCodec(
         nodes: List<Node>,
         idForNode: IdForNode
     ): (ActionNode) -> List<Node>? {
-        val groupedNodes = nodes.groupBy(NodeOwner::of)
-        writeCollection(groupedNodes.keys) { nodeOwner ->
+        // Each group is stored to its own segment. The segments with the most nodes take the longest to store and load,
+        // so they come first in the index, which is also the order in which they are scheduled.
+        val groupedNodes = nodes.groupBy(NodeOwner::of).entries.sortedByDescending { it.value.size }
+        writeCollection(groupedNodes) { (nodeOwner, groupNodes) ->
             val groupPath = nodeOwner.path()
             writeString(groupPath.path)
+            writeSmallInt(groupNodes.size)
         }
 
         val batchedActionNodeSuccessors =
             AtomicReference<PersistentList<Iterable<PostExecutionNodes>>>(PersistentList.of())
 
         runBuildOperations(parallelStore, "saving task graph") {
-            groupedNodes.entries.map { (nodeOwner, groupNodes) ->
+            groupedNodes.map { (nodeOwner, groupNodes) ->
                 val groupPath = nodeOwner.path()
                 OperationInfo(displayName = "Storing configuration for $groupPath", context = groupPath) {
                     contextSource.writeContextFor(this, groupPath).useToRun {
@@ -240,28 +243,21 @@ class WorkNodeCodec(
 
     private
     fun ReadContext.readNodes(nodeIdCount: Int): NodeForId {
-        val batchedGroupNodes = AtomicReference<PersistentList<List<NodeWithId>>>(PersistentList.of())
-        val groupPaths = readCollectionInto<Path, MutableList<Path>>(::ArrayList) {
-            Path.path(readString())
+        val segments = readList {
+            NodeSegment(Path.path(readString()), readSmallInt())
         }
 
+        // Every node has a distinct id, so the segments can fill in their nodes concurrently
+        val nodesById = arrayOfNulls<Node>(nodeIdCount)
         runBuildOperations(parallel = parallelLoad, message = "reading task graph") {
-            groupPaths.map { groupPath ->
-                OperationInfo(displayName = "Loading configuration for $groupPath", context = groupPath) {
-                    contextSource.readContextFor(this@readNodes, groupPath).readWith(Unit) {
-                        val nodesInGroup = readGroupedNodes()
-                        batchedGroupNodes.updateAndGet {
-                            it.plus(nodesInGroup)
-                        }
+            segments.map { segment ->
+                OperationInfo(displayName = "Loading configuration for ${segment.path}", context = segment.path) {
+                    contextSource.readContextFor(this@readNodes, segment.path).readWith(Unit) {
+                        readGroupedNodesInto(nodesById, segment.nodeCount)
                     }
                 }
             }
         }
-
-        val nodesById = batchedGroupNodes.get()
-            .combineInto(Array<Node?>(nodeIdCount) { null }) { (node, id) ->
-                this[id] = node
-            }
         return { id: Int -> nodesById[id]!! }
     }
 
@@ -294,10 +290,13 @@ class WorkNodeCodec(
         return this
     }
 
+    /**
+     * The nodes of a [NodeOwner], stored to their own state file.
+     */
     private
-    data class NodeWithId(
-        val node: Node,
-        val id: Int
+    data class NodeSegment(
+        val path: Path,
+        val nodeCount: Int
     )
 
     /**
@@ -339,21 +338,22 @@ class WorkNodeCodec(
     }
 
     private
-    suspend fun ReadContext.readGroupedNodes(): List<NodeWithId> {
+    suspend fun ReadContext.readGroupedNodesInto(nodesById: Array<Node?>, expectedSize: Int) {
         val size = readSmallInt()
-        val nodes = ArrayList<NodeWithId>(size)
+        require(size == expectedSize) {
+            "Expected $expectedSize nodes in segment, found $size."
+        }
         repeat(size) {
             val nodeId = readSmallInt()
             val node = readNode()
-            nodes.add(NodeWithId(node, nodeId))
+            nodesById[nodeId] = node
             if (node is LocalTaskNode) {
                 val prepareNodeId = readSmallInt()
                 val prepareNode = node.prepareNode
                 prepareNode.require()
-                nodes.add(NodeWithId(prepareNode, prepareNodeId))
+                nodesById[prepareNodeId] = prepareNode
             }
         }
-        return nodes
     }
 
     private
@@ -228,7 +228,8 @@ PersistentCache createPersistentCache(File buildCacheDir, CacheCleanupStrategy c
 
         @Provides
         FileAccessTracker createFileAccessTracker(File buildCacheDir, FileAccessTimeJournal fileAccessTimeJournal) {
-            return new SingleDepthFileAccessTracker(fileAccessTimeJournal, buildCacheDir, 1);
+            // Entries are stored in shard directories
+            return new SingleDepthFileAccessTracker(fileAccessTimeJournal, buildCacheDir, 2);
         }
 
         @Provides
@@ -241,7 +242,7 @@ File createBuildCacheDir() throws IOException {
 
     @Provides
     CacheCleanupStrategy createCacheCleanupStrategy(FileAccessTimeJournal fileAccessTimeJournal, CacheCleanupStrategyFactory factory) {
-        SingleDepthFilesFinder filesFinder = new SingleDepthFilesFinder(1);
+        SingleDepthFilesFinder filesFinder = new SingleDepthFilesFinder(2);
         Supplier<Long> removeUnusedEntriesOlderThan = TimestampSuppliers.daysAgo(1);
         LeastRecentlyUsedCacheCleanup cleanupAction = new LeastRecentlyUsedCacheCleanup(filesFinder, fileAccessTimeJournal, removeUnusedEntriesOlderThan);
         return factory.daily(cleanupAction);
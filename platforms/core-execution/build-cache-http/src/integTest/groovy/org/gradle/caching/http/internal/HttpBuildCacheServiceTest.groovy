@@ -24,6 +24,7 @@ import org.gradle.caching.BuildCacheEntryWriter
 import org.gradle.caching.BuildCacheException
 import org.gradle.caching.BuildCacheServiceFactory
 import org.gradle.caching.http.HttpBuildCache
+import org.gradle.caching.internal.BatchingBuildCacheService
 import org.gradle.caching.internal.TestBuildCacheKey
 import org.gradle.internal.resource.transport.http.DefaultSslContextFactory
 import org.gradle.internal.resource.transport.http.HttpClientHelper
@@ -336,6 +337,114 @@ class HttpBuildCacheServiceTest extends Specification {
         server.authenticationAttempts == ['Basic'] as Set
     }
 
+    def "loads a batch of hits and misses"() {
+        def hit = new TestBuildCacheKey(1)
+        def miss = new TestBuildCacheKey(2)
+        def otherHit = new TestBuildCacheKey(3)
+        def srcFile = tempDir.file("cached.zip")
+        srcFile.text = "Data"
+        def otherSrcFile = tempDir.file("other.zip")
+        otherSrcFile.text = "Other"
+        server.expectGet("/cache/${hit.hashCode}", srcFile)
+        server.expectGetMissing("/cache/${miss.hashCode}")
+        server.expectGet("/cache/${otherHit.hashCode}", otherSrcFile)
+
+        when:
+        def received = [:]
+        def found = cache.loadAll([hit, miss, otherHit], { key, input -> received[key] = input.text } as BatchingBuildCacheService.EntryReader)
+
+        then:
+        found == [hit, otherHit] as Set
+        received == [(hit): "Data", (otherHit): "Other"]
+    }
+
+    def "loading a batch follows redirects"() {
+        def hit = new TestBuildCacheKey(1)
+        def miss = new TestBuildCacheKey(2)
+        def srcFile = tempDir.file("cached.zip")
+        srcFile.text = "Data"
+        server.expectGetRedirected("/cache/${hit.hashCode}", "/redirect/cache/${hit.hashCode}")
+        server.expectGet("/redirect/cache/${hit.hashCode}", srcFile)
+        server.expectGetMissing("/cache/${miss.hashCode}")
+
+        when:
+        def received = [:]
+        def found = cache.loadAll([hit, miss], { key, input -> received[key] = input.text } as BatchingBuildCacheService.EntryReader)
+
+        then:
+        found == [hit] as Set
+        received == [(hit): "Data"]
+    }
+
+    def "loading a batch stops at the first server error"() {
+        def hit = new TestBuildCacheKey(1)
+        def broken = new TestBuildCacheKey(2)
+        def notRequested = new TestBuildCacheKey(3)
+        def srcFile = tempDir.file("cached.zip")
+        srcFile.text = "Data"
+        server.expectGet("/cache/${hit.hashCode}", srcFile)
+        server.expectGetBroken("/cache/${broken.hashCode}")
+
+        when:
+        cache.loadAll([hit, broken, notRequested], { key, input -> input.text } as BatchingBuildCacheService.EntryReader)
+
+        then:
+        BuildCacheException exception = thrown()
+        exception.message == "Loading entry from '${server.uri}/cache/${broken.hashCode}' response status 500: broken"
+    }
+
+    def "checks a batch of entries with HEAD requests"() {
+        def hit = new TestBuildCacheKey(1)
+        def miss = new TestBuildCacheKey(2)
+        def srcFile = tempDir.file("cached.zip")
+        srcFile.text = "Data"
+        server.expectHead("/cache/${hit.hashCode}", srcFile)
+        server.expectHeadMissing("/cache/${miss.hashCode}")
+
+        expect:
+        cache.containsAll([hit, miss]) == [hit] as Set
+    }
+
+    def "checking a batch of entries reports server errors"() {
+        def hit = new TestBuildCacheKey(1)
+        def broken = new TestBuildCacheKey(2)
+        def srcFile = tempDir.file("cached.zip")
+        srcFile.text = "Data"
+        server.expectHead("/cache/${hit.hashCode}", srcFile)
+        server.expectHeadBroken("/cache/${broken.hashCode}")
+
+        when:
+        cache.containsAll([hit, broken])
+
+        then:
+        BuildCacheException exception = thrown()
+        exception.message == "Checking entry at '${server.uri}/cache/${broken.hashCode}' response status 500: broken"
+    }
+
+    def "checking entries follows redirects"() {
+        def srcFile = tempDir.file("cached.zip")
+        srcFile.text = "Data"
+        server.expectHeadRedirected("/cache/${key.hashCode}", "/redirect/cache/${key.hashCode}")
+        server.expectHead("/redirect/cache/${key.hashCode}", srcFile)
+
+        expect:
+        cache.containsAll([key]) == [key] as Set
+    }
+
+    def "does preemptive authentication for HEAD requests"() {
+        config.credentials.username = 'user'
+        config.credentials.password = 'password'
+        server.authenticationScheme = AuthScheme.BASIC
+
+        def srcFile = tempDir.file("cached.zip")
+        srcFile.text = "Data"
+        server.expectHead("/cache/${key.hashCode}", config.credentials.username, config.credentials.password, srcFile)
+
+        expect:
+        cache.containsAll([key]) == [key] as Set
+        server.authenticationAttempts == ['Basic'] as Set
+    }
+
     private HttpResourceInteraction expectError(int httpCode, String method) {
         server.expect("/cache/${key.hashCode}", false, [method], new HttpServer.ActionSupport("return ${httpCode} broken") {
             @Override
@@ -22,6 +22,7 @@
 import org.apache.http.StatusLine;
 import org.apache.http.client.ClientProtocolException;
 import org.apache.http.client.methods.HttpGet;
+import org.apache.http.client.methods.HttpHead;
 import org.apache.http.client.methods.HttpPut;
 import org.apache.http.client.utils.URIBuilder;
 import org.apache.http.entity.AbstractHttpEntity;
@@ -31,7 +32,7 @@
 import org.gradle.caching.BuildCacheEntryWriter;
 import org.gradle.caching.BuildCacheException;
 import org.gradle.caching.BuildCacheKey;
-import org.gradle.caching.BuildCacheService;
+import org.gradle.caching.internal.BatchingBuildCacheService;
 import org.gradle.internal.UncheckedException;
 import org.gradle.internal.resource.transport.http.HttpClientHelper;
 import org.gradle.internal.resource.transport.http.HttpClientResponse;
@@ -43,12 +44,17 @@
 import java.io.OutputStream;
 import java.net.URI;
 import java.net.URISyntaxException;
+import java.util.Collection;
+import java.util.LinkedHashSet;
 import java.util.Set;
 
 /**
  * Build cache implementation that delegates to a service accessible via HTTP.
+ *
+ * <p>The HTTP build cache protocol has no way to request several entries at once, so batches are looked up with one request per entry.
+ * The requests of a batch are sent one after the other over a kept-alive connection, without waiting for a worker to ask for each entry.</p>
  */
-public class HttpBuildCacheService implements BuildCacheService {
+public class HttpBuildCacheService implements BatchingBuildCacheService {
     private static final Logger LOGGER = LoggerFactory.getLogger(HttpBuildCacheService.class);
     static final String BUILD_CACHE_CONTENT_TYPE = "application/vnd.gradle.build-cache-artifact.v2";
 
@@ -77,6 +83,21 @@ public HttpBuildCacheService(HttpClientHelper httpClientHelper, URI url, HttpBui
 
     @Override
     public boolean load(BuildCacheKey key, BuildCacheEntryReader reader) throws BuildCacheException {
+        return loadEntry(key, reader);
+    }
+
+    @Override
+    public Set<BuildCacheKey> loadAll(Collection<? extends BuildCacheKey> keys, EntryReader reader) throws BuildCacheException {
+        Set<BuildCacheKey> found = new LinkedHashSet<>();
+        for (BuildCacheKey key : keys) {
+            if (loadEntry(key, input -> reader.readFrom(key, input))) {
+                found.add(key);
+            }
+        }
+        return found;
+    }
+
+    private boolean loadEntry(BuildCacheKey key, BuildCacheEntryReader reader) throws BuildCacheException {
         final URI uri = root.resolve("./" + key.getHashCode());
         HttpGet httpGet = new HttpGet(uri);
         httpGet.addHeader(HttpHeaders.ACCEPT, BUILD_CACHE_CONTENT_TYPE + ", */*");
@@ -102,6 +123,42 @@ public boolean load(BuildCacheKey key, BuildCacheEntryReader reader) throws Buil
         }
     }
 
+    @Override
+    public Set<BuildCacheKey> containsAll(Collection<? extends BuildCacheKey> keys) throws BuildCacheException {
+        Set<BuildCacheKey> found = new LinkedHashSet<>();
+        for (BuildCacheKey key : keys) {
+            if (contains(key)) {
+                found.add(key);
+            }
+        }
+        return found;
+    }
+
+    private boolean contains(BuildCacheKey key) throws BuildCacheException {
+        final URI uri = root.resolve("./" + key.getHashCode());
+        HttpHead httpHead = new HttpHead(uri);
+        httpHead.addHeader(HttpHeaders.ACCEPT, BUILD_CACHE_CONTENT_TYPE + ", */*");
+        requestCustomizer.customize(httpHead);
+
+        try (HttpClientResponse response = httpClientHelper.performHttpRequest(httpHead)) {
+            StatusLine statusLine = response.getStatusLine();
+            if (LOGGER.isDebugEnabled()) {
+                LOGGER.debug("Response for HEAD {}: {}", safeUri(uri), statusLine);
+            }
+            int statusCode = statusLine.getStatusCode();
+            if (isHttpSuccess(statusCode)) {
+                return true;
+            } else if (statusCode == HttpStatus.SC_NOT_FOUND) {
+                return false;
+            } else {
+                String defaultMessage = String.format("Checking entry at '%s' response status %d: %s", safeUri(uri), statusCode, statusLine.getReasonPhrase());
+                return throwHttpStatusCodeException(statusCode, defaultMessage);
+            }
+        } catch (IOException e) {
+            throw wrap(e);
+        }
+    }
+
     @Override
     public void store(BuildCacheKey key, BuildCacheEntryWriter writer) throws BuildCacheException {
         final URI uri = root.resolve(key.getHashCode());
@@ -28,18 +28,41 @@ class DirectoryBuildCacheCleanupIntegrationTest extends AbstractBuildCacheCleanu
 
     @Override
     void createBuildCacheEntry(String key, File value, long timestamp) {
-        File cacheFile = cacheDir.file(key)
+        File cacheFile = cacheDir.file(DirectoryBuildCache.getRelativeEntryPath(key))
+        cacheFile.parentFile.mkdirs()
         Files.copy(value.toPath(), cacheFile.toPath())
         writeLastFileAccessTimeToJournal(cacheFile, timestamp)
     }
 
     @Override
     boolean existsBuildCacheEntry(String key) {
-        cacheDir.file(key).exists()
+        cacheDir.file(DirectoryBuildCache.getRelativeEntryPath(key)).exists()
     }
 
     @Override
     AbstractIntegrationSpec withEnabledBuildCache() {
         withBuildCache()
     }
+
+    def "cleans up entries stored outside of shard directories by older Gradle versions"() {
+        executer.requireIsolatedDaemons()
+        requireOwnGradleUserHomeDir()
+        run()
+        run '--stop'
+
+        when:
+        def trashFile = temporaryFolder.file("0" * hashStringLength).createFile()
+        def newLegacyEntry = cacheDir.file("0" * hashStringLength)
+        def oldLegacyEntry = cacheDir.file("1" * hashStringLength)
+        Files.copy(trashFile.toPath(), newLegacyEntry.toPath())
+        Files.copy(trashFile.toPath(), oldLegacyEntry.toPath())
+        writeLastFileAccessTimeToJournal(newLegacyEntry, System.currentTimeMillis())
+        writeLastFileAccessTimeToJournal(oldLegacyEntry, daysAgo(8))
+        markCacheLastCleaned(twoDaysAgo())
+        run()
+
+        then:
+        newLegacyEntry.exists()
+        !oldLegacyEntry.exists()
+    }
 }
@@ -0,0 +1,215 @@
+/*
+ * Copyright 2025 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.caching.local.internal;
+
+import org.apache.commons.io.FileUtils;
+import org.gradle.cache.PersistentCache;
+import org.gradle.cache.internal.DefaultCacheBuilder;
+import org.gradle.cache.internal.DefaultCacheFactory;
+import org.gradle.cache.internal.DefaultFileLockManager;
+import org.gradle.cache.internal.ProcessMetaDataProvider;
+import org.gradle.cache.internal.locklistener.DefaultFileLockContentionHandler;
+import org.gradle.cache.internal.locklistener.InetAddressProvider;
+import org.gradle.internal.concurrent.DefaultExecutorFactory;
+import org.gradle.internal.file.impl.SingleDepthFileAccessTracker;
+import org.gradle.internal.file.nio.ModificationTimeFileAccessTimeJournal;
+import org.gradle.internal.hash.HashCode;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Group;
+import org.openjdk.jmh.annotations.GroupThreads;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.File;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.UnknownHostException;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+
+import static org.gradle.cache.FileLockManager.LockMode.OnDemand;
+
+/**
+ * Measures loads and stores to a {@link DirectoryBuildCache} that is used by multiple threads and processes at the same time.
+ * <p>
+ * The number of threads in this process is controlled by JMH (use {@code -t} to override the default),
+ * while {@link #processes} controls how many processes in total use the cache.
+ * The additional processes load and store entries in a loop for as long as the benchmark is running.
+ */
+@Fork(1)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@State(Scope.Benchmark)
+public class DirectoryBuildCacheContentionBenchmark {
+    private static final int ENTRY_COUNT = 1024;
+    private static final int ENTRY_SIZE = 16 * 1024;
+
+    @Param({"1", "2", "4"})
+    int processes;
+
+    private File cacheDir;
+    private CacheAccess cacheAccess;
+    private final List<Process> otherProcesses = new ArrayList<>();
+
+    @Setup(Level.Trial)
+    public void setupTrial() throws IOException {
+        cacheDir = Files.createTempDirectory("directory-build-cache-contention-").toFile();
+        cacheAccess = new CacheAccess(cacheDir);
+        for (int idx = 0; idx < ENTRY_COUNT; idx++) {
+            cacheAccess.store(idx);
+        }
+        String java = Paths.get(System.getProperty("java.home"), "bin", "java").toString();
+        for (int idx = 1; idx < processes; idx++) {
+            otherProcesses.add(new ProcessBuilder(java, "-cp", System.getProperty("java.class.path"), DirectoryBuildCacheContentionBenchmark.class.getName(), cacheDir.getAbsolutePath())
+                .redirectOutput(ProcessBuilder.Redirect.INHERIT)
+                .redirectError(ProcessBuilder.Redirect.INHERIT)
+                .start());
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDownTrial() throws Exception {
+        for (Process process : otherProcesses) {
+            process.destroy();
+        }
+        for (Process process : otherProcesses) {
+            process.waitFor();
+        }
+        otherProcesses.clear();
+        cacheAccess.close();
+        FileUtils.forceDelete(cacheDir);
+    }
+
+    @Benchmark
+    @Threads(8)
+    public boolean load() {
+        return cacheAccess.load(ThreadLocalRandom.current().nextInt(ENTRY_COUNT));
+    }
+
+    @Benchmark
+    @Group("loadAndStore")
+    @GroupThreads(6)
+    public boolean loadWhileStoring() {
+        return cacheAccess.load(ThreadLocalRandom.current().nextInt(ENTRY_COUNT));
+    }
+
+    @Benchmark
+    @Group("loadAndStore")
+    @GroupThreads(2)
+    public void storeWhileLoading() {
+        cacheAccess.store(ThreadLocalRandom.current().nextInt(ENTRY_COUNT));
+    }
+
+    /**
+     * Entry point for the additional processes using the cache.
+     */
+    public static void main(String[] args) throws IOException {
+        CacheAccess cacheAccess = new CacheAccess(new File(args[0]));
+        while (true) {
+            int entry = ThreadLocalRandom.current().nextInt(ENTRY_COUNT);
+            if (ThreadLocalRandom.current().nextInt(4) == 0) {
+                cacheAccess.store(entry);
+            } else {
+                cacheAccess.load(entry);
+            }
+        }
+    }
+
+    private static class CacheAccess {
+        private final DefaultExecutorFactory executorFactory = new DefaultExecutorFactory();
+        private final DefaultFileLockContentionHandler fileLockContentionHandler;
+        private final DefaultCacheFactory cacheFactory;
+        private final DirectoryBuildCache cache;
+        private final byte[] content = new byte[ENTRY_SIZE];
+
+        CacheAccess(File cacheDir) {
+            this.fileLockContentionHandler = new DefaultFileLockContentionHandler(executorFactory, new LoopbackInetAddressProvider());
+            this.cacheFactory = new DefaultCacheFactory(new DefaultFileLockManager(new BenchmarkProcessMetaDataProvider(), fileLockContentionHandler), executorFactory);
+            PersistentCache persistentCache = new DefaultCacheBuilder(cacheFactory, cacheDir)
+                .withDisplayName("Build cache")
+                .withInitialLockMode(OnDemand)
+                .open();
+            this.cache = new DirectoryBuildCache(persistentCache, new SingleDepthFileAccessTracker(new ModificationTimeFileAccessTimeJournal(), cacheDir, 2), ".failed");
+            ThreadLocalRandom.current().nextBytes(content);
+        }
+
+        boolean load(int entry) {
+            return cache.load(key(entry), input -> {
+                byte[] buffer = new byte[8192];
+                //noinspection StatementWithEmptyBody
+                while (input.read(buffer) >= 0) {
+                }
+            });
+        }
+
+        void store(int entry) {
+            cache.store(key(entry), output -> output.write(content));
+        }
+
+        void close() {
+            cache.close();
+            cacheFactory.close();
+            fileLockContentionHandler.stop();
+            executorFactory.stop();
+        }
+
+        private static HashCode key(int entry) {
+            return HashCode.fromString(String.format("%016x%016x", entry * 0x9E3779B97F4A7C15L, entry));
+        }
+    }
+
+    private static class BenchmarkProcessMetaDataProvider implements ProcessMetaDataProvider {
+        @Override
+        public String getProcessIdentifier() {
+            return ManagementFactory.getRuntimeMXBean().getName();
+        }
+
+        @Override
+        public String getProcessDisplayName() {
+            return "directory-build-cache-contention-benchmark";
+        }
+    }
+
+    private static class LoopbackInetAddressProvider implements InetAddressProvider {
+        @Override
+        public InetAddress getWildcardBindingAddress() {
+            return new InetSocketAddress(0).getAddress();
+        }
+
+        @Override
+        public InetAddress getCommunicationAddress() {
+            try {
+                return InetAddress.getByName(null);
+            } catch (UnknownHostException e) {
+                throw new RuntimeException(e);
+            }
+        }
+    }
+}
@@ -17,6 +17,7 @@
 package org.gradle.caching.local.internal;
 
 import com.google.common.io.Closer;
+import com.google.common.util.concurrent.Striped;
 import org.apache.commons.io.FileUtils;
 import org.gradle.cache.PersistentCache;
 import org.gradle.internal.UncheckedException;
@@ -38,17 +39,37 @@
 import java.nio.file.StandardCopyOption;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.locks.ReadWriteLock;
-import java.util.concurrent.locks.ReentrantReadWriteLock;
 import java.util.function.Consumer;
 
+/**
+ * A build cache that stores entries as files in a directory.
+ * <p>
+ * Entries are sharded into sub-directories named after the first {@value #SHARD_PREFIX_LENGTH} characters of their key,
+ * inside the {@value #SHARDED_ENTRIES_DIRECTORY} directory, see {@link #getRelativeEntryPath(String)}.
+ * Older Gradle versions store entries directly in the cache directory and treat the {@value #SHARDED_ENTRIES_DIRECTORY}
+ * directory as a single entry, so they never see the shards. Entries stored by older versions are still loaded, but not moved.
+ * <p>
+ * Loads and stores only lock out operations on the same entry in this process.
+ * The cross-process file lock of the cache is only held to keep garbage collection in other processes from running at the same time.
+ */
 @NullMarked
 public class DirectoryBuildCache implements BuildCacheTempFileStore, Closeable, LocalBuildCache {
 
+    /**
+     * The number of characters of the key used as the name of the shard directory of an entry.
+     */
+    public static final int SHARD_PREFIX_LENGTH = 2;
+
+    /**
+     * The directory containing the shard directories.
+     */
+    public static final String SHARDED_ENTRIES_DIRECTORY = "v2";
+
     private final PersistentCache persistentCache;
     private final BuildCacheTempFileStore tempFileStore;
     private final FileAccessTracker fileAccessTracker;
     private final String failedFileSuffix;
-    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Striped<ReadWriteLock> locks = Striped.readWriteLock(Runtime.getRuntime().availableProcessors() * 4);
 
     public DirectoryBuildCache(PersistentCache persistentCache, FileAccessTracker fileAccessTracker, String failedFileSuffix) {
         this.persistentCache = persistentCache;
@@ -90,17 +111,18 @@ public void loadLocally(HashCode key, Consumer<? super File> reader) {
         // We need to lock other processes out here because garbage collection can be under way in another process
         persistentCache.withFileLock(() -> {
             // Additional locking necessary because of https://github.com/gradle/gradle/issues/3537
+            ReadWriteLock lock = locks.get(key);
             lock.readLock().lock();
             try {
-                loadInsideLock(key, reader);
+                File file = getCacheEntryFile(key);
+                loadInsideLock(file.exists() ? file : getLegacyCacheEntryFile(key), reader);
             } finally {
                 lock.readLock().unlock();
             }
         });
     }
 
-    private void loadInsideLock(HashCode key, Consumer<? super File> reader) {
-        File file = getCacheEntryFile(key);
+    private void loadInsideLock(File file, Consumer<? super File> reader) {
         if (!file.exists()) {
             return;
         }
@@ -146,6 +168,7 @@ public void storeLocally(HashCode key, File file) {
         // We need to lock other processes out here because garbage collection can be under way in another process
         persistentCache.withFileLock(() -> {
             // Additional locking necessary because of https://github.com/gradle/gradle/issues/3537
+            ReadWriteLock lock = locks.get(key);
             lock.writeLock().lock();
             try {
                 storeInsideLock(key, file);
@@ -157,7 +180,14 @@ public void storeLocally(HashCode key, File file) {
 
     private void storeInsideLock(HashCode key, File sourceFile) {
         File targetFile = getCacheEntryFile(key);
+        moveIntoShard(key, sourceFile, targetFile);
+        fileAccessTracker.markAccessed(targetFile);
+    }
+
+    private static void moveIntoShard(HashCode key, File sourceFile, File targetFile) {
         try {
+            // Garbage collection removes empty shard directories, so we need to make sure the shard exists every time
+            Files.createDirectories(targetFile.getParentFile().toPath());
             Files.move(sourceFile.toPath(), targetFile.toPath(), StandardCopyOption.ATOMIC_MOVE);
         } catch (FileAlreadyExistsException ignore) {
             // We already have the file in the build cache
@@ -167,7 +197,6 @@ private void storeInsideLock(HashCode key, File sourceFile) {
         } catch (IOException e) {
             throw new UncheckedIOException(String.format("Couldn't move cache entry '%s' into local cache: %s", key, e), e);
         }
-        fileAccessTracker.markAccessed(targetFile);
     }
 
     @Override
@@ -181,6 +210,17 @@ public void close() {
     }
 
     private File getCacheEntryFile(HashCode key) {
+        return new File(persistentCache.getBaseDir(), getRelativeEntryPath(key.toString()));
+    }
+
+    private File getLegacyCacheEntryFile(HashCode key) {
         return new File(persistentCache.getBaseDir(), key.toString());
     }
+
+    /**
+     * Returns the path of the entry with the given key, relative to the cache directory.
+     */
+    public static String getRelativeEntryPath(String key) {
+        return SHARDED_ENTRIES_DIRECTORY + "/" + key.substring(0, SHARD_PREFIX_LENGTH) + "/" + key;
+    }
 }
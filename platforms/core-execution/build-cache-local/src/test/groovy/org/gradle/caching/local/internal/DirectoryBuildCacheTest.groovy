@@ -25,6 +25,9 @@ import org.gradle.util.UsesNativeServices
 import org.junit.Rule
 import spock.lang.Specification
 
+import java.util.concurrent.CountDownLatch
+import java.util.concurrent.TimeUnit
+
 @UsesNativeServices
 @CleanupTestDirectory
 class DirectoryBuildCacheTest extends Specification {
@@ -136,4 +139,73 @@ class DirectoryBuildCacheTest extends Specification {
         // as `Files.move()` and `File.renameTo()` can either fail or replace the
         // already existing file; it's up to the implementation.
     }
+
+    def "stores entries in shard directories"() {
+        when:
+        cache.store(key) { output ->
+            output.write("foo".getBytes())
+        }
+
+        then:
+        cacheDir.file(DirectoryBuildCache.SHARDED_ENTRIES_DIRECTORY, hashCode.substring(0, DirectoryBuildCache.SHARD_PREFIX_LENGTH), hashCode).text == "foo"
+        !cacheDir.file(hashCode).exists()
+    }
+
+    def "loads entry stored outside of shard directories by older Gradle versions in place"() {
+        given:
+        def legacyFile = cacheDir.file(hashCode)
+        legacyFile.text = "foo"
+
+        when:
+        def loaded = cache.load(key) { input ->
+            assert input.text == "foo"
+        }
+
+        then:
+        loaded
+        1 * fileAccessTracker.markAccessed(legacyFile)
+        legacyFile.text == "foo"
+        !cacheDir.file(DirectoryBuildCache.getRelativeEntryPath(hashCode)).exists()
+    }
+
+    def "does not report missing entry as loaded"() {
+        when:
+        def loaded = cache.load(key) { input ->
+            assert false
+        }
+
+        then:
+        !loaded
+        0 * fileAccessTracker.markAccessed(_)
+    }
+
+    def "can store entry while another entry is being loaded"() {
+        // Make sure the entries do not share a lock stripe
+        def otherKey = (1..100).collect { TestHashCodes.hashCodeFrom(it) }.find { cache.locks.get(it) != cache.locks.get(key) }
+        cache.store(otherKey) { output ->
+            output.write("other".getBytes())
+        }
+        def loadStarted = new CountDownLatch(1)
+        def storeFinished = new CountDownLatch(1)
+        def storeFinishedWhileLoading = false
+
+        when:
+        def loader = new Thread({
+            cache.load(otherKey) { input ->
+                loadStarted.countDown()
+                storeFinishedWhileLoading = storeFinished.await(10, TimeUnit.SECONDS)
+            }
+        })
+        loader.start()
+        assert loadStarted.await(10, TimeUnit.SECONDS)
+        cache.store(key) { output ->
+            output.write("foo".getBytes())
+        }
+        storeFinished.countDown()
+        loader.join()
+
+        then:
+        storeFinishedWhileLoading
+        cacheDir.file(DirectoryBuildCache.getRelativeEntryPath(hashCode)).text == "foo"
+    }
 }
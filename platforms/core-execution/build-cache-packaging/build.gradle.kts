@@ -17,6 +17,7 @@ dependencies {
 
     implementation(projects.wrapperShared)
 
+    implementation(libs.aircompressor)
     implementation(libs.commonsCompress)
     implementation(libs.commonsIo)
     implementation(libs.jspecify)
@@ -0,0 +1,52 @@
+/*
+ * Copyright 2025 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.caching.internal.packaging;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+
+/**
+ * Compresses and decompresses the contents of build cache entries.
+ * <p>
+ * Entries record the identifier of the codec that wrote them, so that they can be read back
+ * regardless of the codec that is configured for writing.
+ */
+public interface BuildCacheEntryCodec {
+
+    /**
+     * The identifier stored in the header of entries written by this codec.
+     */
+    byte getId();
+
+    /**
+     * The name used to select this codec.
+     */
+    String getName();
+
+    /**
+     * Wraps the given stream so that data written to the result is compressed.
+     * Closing the returned stream must close the given stream.
+     */
+    OutputStream compress(OutputStream output) throws IOException;
+
+    /**
+     * Wraps the given stream so that data read from the result is decompressed.
+     * Closing the returned stream must close the given stream.
+     */
+    InputStream decompress(InputStream input) throws IOException;
+}
@@ -0,0 +1,111 @@
+/*
+ * Copyright 2025 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.caching.internal.packaging.impl;
+
+import io.airlift.compress.lz4.Lz4HadoopStreams;
+import io.airlift.compress.zstd.ZstdInputStream;
+import io.airlift.compress.zstd.ZstdOutputStream;
+import org.gradle.caching.internal.packaging.BuildCacheEntryCodec;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.stream.Collectors;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * The codecs shipped with Gradle.
+ * <p>
+ * The identifiers are persisted in cache entries, so they must never change.
+ */
+public enum BuildCacheEntryCodecs implements BuildCacheEntryCodec {
+    NONE(0) {
+        @Override
+        public OutputStream compress(OutputStream output) {
+            return output;
+        }
+
+        @Override
+        public InputStream decompress(InputStream input) {
+            return input;
+        }
+    },
+    GZIP(1) {
+        @Override
+        public OutputStream compress(OutputStream output) throws IOException {
+            return new GZIPOutputStream(output);
+        }
+
+        @Override
+        public InputStream decompress(InputStream input) throws IOException {
+            return new GZIPInputStream(input);
+        }
+    },
+    LZ4(2) {
+        private final Lz4HadoopStreams streams = new Lz4HadoopStreams();
+
+        @Override
+        public OutputStream compress(OutputStream output) {
+            return streams.createOutputStream(output);
+        }
+
+        @Override
+        public InputStream decompress(InputStream input) {
+            return streams.createInputStream(input);
+        }
+    },
+    ZSTD(3) {
+        @Override
+        public OutputStream compress(OutputStream output) throws IOException {
+            return new ZstdOutputStream(output);
+        }
+
+        @Override
+        public InputStream decompress(InputStream input) {
+            return new ZstdInputStream(input);
+        }
+    };
+
+    private final byte id;
+
+    BuildCacheEntryCodecs(int id) {
+        this.id = (byte) id;
+    }
+
+    @Override
+    public byte getId() {
+        return id;
+    }
+
+    @Override
+    public String getName() {
+        return name().toLowerCase(Locale.ROOT);
+    }
+
+    public static BuildCacheEntryCodecs forName(String name) {
+        for (BuildCacheEntryCodecs codec : values()) {
+            if (codec.getName().equals(name.toLowerCase(Locale.ROOT))) {
+                return codec;
+            }
+        }
+        throw new IllegalArgumentException(String.format("Unknown build cache entry compression '%s', supported values are: %s",
+            name, Arrays.stream(values()).map(BuildCacheEntryCodecs::getName).collect(Collectors.joining(", "))));
+    }
+}
@@ -0,0 +1,134 @@
+/*
+ * Copyright 2025 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.caching.internal.packaging.impl;
+
+import com.google.common.collect.ImmutableMap;
+import org.gradle.caching.internal.CacheableEntity;
+import org.gradle.caching.internal.origin.OriginReader;
+import org.gradle.caching.internal.origin.OriginWriter;
+import org.gradle.caching.internal.packaging.BuildCacheEntryCodec;
+import org.gradle.caching.internal.packaging.BuildCacheEntryPacker;
+import org.gradle.internal.snapshot.FileSystemSnapshot;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.PushbackInputStream;
+import java.util.Arrays;
+import java.util.Map;
+
+/**
+ * Compresses entries with a configurable {@link BuildCacheEntryCodec}.
+ * <p>
+ * Entries start with a header that identifies the codec used to write them:
+ * the {@link #MAGIC} bytes, followed by the format version and the id of the codec.
+ * <p>
+ * GZip compressed entries are written without the header, so that they stay readable by
+ * {@link GZipBuildCacheEntryPacker} and older Gradle versions. Such entries are recognized
+ * by the GZip magic bytes when reading.
+ */
+public class CompressingBuildCacheEntryPacker implements BuildCacheEntryPacker {
+    private static final byte[] MAGIC = {'G', 'B', 'C', 'E'};
+    private static final byte FORMAT_VERSION = 1;
+    private static final byte[] GZIP_MAGIC = {(byte) 0x1f, (byte) 0x8b};
+
+    private final BuildCacheEntryPacker delegate;
+    private final BuildCacheEntryCodec writeCodec;
+    private final Map<Byte, BuildCacheEntryCodec> readCodecs;
+
+    public CompressingBuildCacheEntryPacker(BuildCacheEntryPacker delegate, BuildCacheEntryCodec writeCodec) {
+        this(delegate, writeCodec, Arrays.asList(BuildCacheEntryCodecs.values()));
+    }
+
+    public CompressingBuildCacheEntryPacker(BuildCacheEntryPacker delegate, BuildCacheEntryCodec writeCodec, Iterable<? extends BuildCacheEntryCodec> readCodecs) {
+        this.delegate = delegate;
+        this.writeCodec = writeCodec;
+        ImmutableMap.Builder<Byte, BuildCacheEntryCodec> builder = ImmutableMap.builder();
+        builder.put(writeCodec.getId(), writeCodec);
+        for (BuildCacheEntryCodec codec : readCodecs) {
+            if (codec.getId() != writeCodec.getId()) {
+                builder.put(codec.getId(), codec);
+            }
+        }
+        // Fails on duplicate ids
+        this.readCodecs = builder.buildOrThrow();
+    }
+
+    public BuildCacheEntryCodec getWriteCodec() {
+        return writeCodec;
+    }
+
+    @Override
+    public PackResult pack(CacheableEntity entity, Map<String, ? extends FileSystemSnapshot> snapshots, OutputStream output, OriginWriter writeOrigin) throws IOException {
+        if (writeCodec.getId() != BuildCacheEntryCodecs.GZIP.getId()) {
+            output.write(MAGIC);
+            output.write(FORMAT_VERSION);
+            output.write(writeCodec.getId());
+        }
+        try (OutputStream compressedOutput = writeCodec.compress(output)) {
+            return delegate.pack(entity, snapshots, compressedOutput, writeOrigin);
+        }
+    }
+
+    @Override
+    public UnpackResult unpack(CacheableEntity entity, InputStream input, OriginReader readOrigin) throws IOException {
+        PushbackInputStream headerInput = new PushbackInputStream(input, MAGIC.length);
+        BuildCacheEntryCodec codec = readHeader(headerInput);
+        try (InputStream decompressedInput = codec.decompress(headerInput)) {
+            return delegate.unpack(entity, decompressedInput, readOrigin);
+        }
+    }
+
+    private BuildCacheEntryCodec readHeader(PushbackInputStream input) throws IOException {
+        byte[] magic = new byte[MAGIC.length];
+        int read = readFully(input, magic);
+        if (read >= GZIP_MAGIC.length && magic[0] == GZIP_MAGIC[0] && magic[1] == GZIP_MAGIC[1]) {
+            // Entry written without a header
+            input.unread(magic, 0, read);
+            return BuildCacheEntryCodecs.GZIP;
+        }
+        if (read < MAGIC.length || !Arrays.equals(magic, MAGIC)) {
+            throw new IOException("Build cache entry does not start with a known header");
+        }
+        int version = input.read();
+        if (version != FORMAT_VERSION) {
+            throw new IOException(String.format("Unsupported build cache entry format version %d", version));
+        }
+        int id = input.read();
+        if (id < 0) {
+            throw new EOFException("Build cache entry header is truncated");
+        }
+        BuildCacheEntryCodec codec = readCodecs.get((byte) id);
+        if (codec == null) {
+            throw new IOException(String.format("Build cache entry was compressed with an unknown codec (id %d)", id));
+        }
+        return codec;
+    }
+
+    private static int readFully(InputStream input, byte[] buffer) throws IOException {
+        int total = 0;
+        while (total < buffer.length) {
+            int read = input.read(buffer, total, buffer.length - total);
+            if (read < 0) {
+                break;
+            }
+            total += read;
+        }
+        return total;
+    }
+}
@@ -0,0 +1,65 @@
+/*
+ * Copyright 2025 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.caching.internal.packaging.impl;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.Semaphore;
+
+/**
+ * Configures {@link TarBuildCacheEntryPacker} to write unpacked files concurrently.
+ * <p>
+ * The contents of regular files are read from the archive into memory and then written to disk and hashed on the given executor,
+ * while the archive is read further.
+ * At most {@link #getMaxBufferedBytes()} bytes of file contents are held in memory at once,
+ * across all archives being unpacked concurrently with the same settings.
+ * Files larger than that are written directly while reading the archive.
+ */
+public class ParallelUnpackSettings {
+    public static final int DEFAULT_MAX_BUFFERED_BYTES = 64 * 1024 * 1024;
+
+    private final Executor executor;
+    private final int maxBufferedBytes;
+    private final Semaphore bufferedBytes;
+
+    public ParallelUnpackSettings(Executor executor, int maxBufferedBytes) {
+        if (maxBufferedBytes < 1) {
+            throw new IllegalArgumentException("Maximum number of buffered bytes must be positive, but was " + maxBufferedBytes);
+        }
+        this.executor = executor;
+        this.maxBufferedBytes = maxBufferedBytes;
+        this.bufferedBytes = new Semaphore(maxBufferedBytes);
+    }
+
+    public Executor getExecutor() {
+        return executor;
+    }
+
+    public int getMaxBufferedBytes() {
+        return maxBufferedBytes;
+    }
+
+    /**
+     * Reserves the given number of bytes from the shared budget, waiting until they are available.
+     */
+    void acquireBufferedBytes(int bytes) throws InterruptedException {
+        bufferedBytes.acquire(bytes);
+    }
+
+    void releaseBufferedBytes(int bytes) {
+        bufferedBytes.release(bytes);
+    }
+}
@@ -17,6 +17,7 @@
 package org.gradle.caching.internal.packaging.impl;
 
 import com.google.common.base.Strings;
+import com.google.common.base.Throwables;
 import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.Interner;
 import com.google.common.io.CountingOutputStream;
@@ -53,12 +54,14 @@
 import org.jspecify.annotations.Nullable;
 
 import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.InterruptedIOException;
 import java.io.OutputStream;
 import java.io.UncheckedIOException;
 import java.io.UnsupportedEncodingException;
@@ -66,9 +69,16 @@
 import java.net.URLEncoder;
 import java.nio.charset.Charset;
 import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
 import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
@@ -98,6 +108,8 @@ private interface UnixPermissions {
     private final StreamHasher streamHasher;
     private final Interner<String> stringInterner;
     private final BufferProvider bufferProvider;
+    @Nullable
+    private final ParallelUnpackSettings parallelUnpackSettings;
 
     public TarBuildCacheEntryPacker(
         TarPackerFileSystemSupport fileSystemSupport,
@@ -105,12 +117,28 @@ public TarBuildCacheEntryPacker(
         StreamHasher streamHasher,
         Interner<String> stringInterner,
         BufferProvider bufferProvider
+    ) {
+        this(fileSystemSupport, filePermissionAccess, streamHasher, stringInterner, bufferProvider, null);
+    }
+
+    /**
+     * Creates a packer that writes unpacked files concurrently when {@code parallelUnpackSettings} is given.
+     * The unpacked snapshots are the same as the ones created when unpacking sequentially.
+     */
+    public TarBuildCacheEntryPacker(
+        TarPackerFileSystemSupport fileSystemSupport,
+        FilePermissionAccess filePermissionAccess,
+        StreamHasher streamHasher,
+        Interner<String> stringInterner,
+        BufferProvider bufferProvider,
+        @Nullable ParallelUnpackSettings parallelUnpackSettings
     ) {
         this.fileSystemSupport = fileSystemSupport;
         this.filePermissionAccess = filePermissionAccess;
         this.streamHasher = streamHasher;
         this.stringInterner = stringInterner;
         this.bufferProvider = bufferProvider;
+        this.parallelUnpackSettings = parallelUnpackSettings;
     }
 
     @Override
@@ -169,51 +197,63 @@ private static void createTarEntry(String path, long size, int mode, TarArchiveO
     @Override
     public UnpackResult unpack(CacheableEntity entity, InputStream input, OriginReader readOrigin) throws IOException {
         try (TarArchiveInputStream tarInput = new TarArchiveInputStream(input, ENCODING.name())) {
-            return unpack(entity, tarInput, readOrigin);
+            FileUnpacker fileUnpacker = parallelUnpackSettings == null
+                ? new SequentialFileUnpacker()
+                : new ParallelFileUnpacker(parallelUnpackSettings);
+            return unpack(entity, tarInput, readOrigin, fileUnpacker);
         }
     }
 
-    private UnpackResult unpack(CacheableEntity entity, TarArchiveInputStream tarInput, OriginReader readOriginAction) throws IOException {
+    private UnpackResult unpack(CacheableEntity entity, TarArchiveInputStream tarInput, OriginReader readOriginAction, FileUnpacker fileUnpacker) throws IOException {
         ImmutableMap.Builder<String, CacheableTree> treesBuilder = ImmutableMap.builder();
         entity.visitOutputTrees((name, type, root) -> treesBuilder.put(name, new CacheableTree(type, root)));
         ImmutableMap<String, CacheableTree> treesByName = treesBuilder.build();
 
         TarArchiveEntry tarEntry;
         OriginMetadata originMetadata = null;
-        Map<String, FileSystemLocationSnapshot> snapshots = new HashMap<>();
+        Map<String, Supplier<FileSystemLocationSnapshot>> pendingSnapshots = new HashMap<>();
 
-        tarEntry = tarInput.getNextEntry();
         AtomicLong entries = new AtomicLong();
-        while (tarEntry != null) {
-            entries.incrementAndGet();
-            String path = safeEntryName(tarEntry);
+        try {
+            tarEntry = tarInput.getNextEntry();
+            while (tarEntry != null) {
+                entries.incrementAndGet();
+                String path = safeEntryName(tarEntry);
+
+                if (path.equals(METADATA_PATH)) {
+                    // handle origin metadata
+                    originMetadata = readOriginAction.execute(CloseShieldInputStream.wrap(tarInput));
+                    tarEntry = tarInput.getNextEntry();
+                } else {
+                    // handle tree
+                    Matcher matcher = TREE_PATH.matcher(path);
+                    if (!matcher.matches()) {
+                        throw new IllegalStateException("Cached entry format error, invalid contents: " + path);
+                    }
 
-            if (path.equals(METADATA_PATH)) {
-                // handle origin metadata
-                originMetadata = readOriginAction.execute(CloseShieldInputStream.wrap(tarInput));
-                tarEntry = tarInput.getNextEntry();
-            } else {
-                // handle tree
-                Matcher matcher = TREE_PATH.matcher(path);
-                if (!matcher.matches()) {
-                    throw new IllegalStateException("Cached entry format error, invalid contents: " + path);
-                }
+                    String treeName = unescape(matcher.group(2));
+                    CacheableTree tree = treesByName.get(treeName);
+                    if (tree == null) {
+                        throw new IllegalStateException(String.format("No tree '%s' registered", treeName));
+                    }
 
-                String treeName = unescape(matcher.group(2));
-                CacheableTree tree = treesByName.get(treeName);
-                if (tree == null) {
-                    throw new IllegalStateException(String.format("No tree '%s' registered", treeName));
+                    boolean missing = matcher.group(1) != null;
+                    String childPath = matcher.group(3);
+                    tarEntry = unpackTree(treeName, tree.getType(), tree.getRoot(), tarInput, tarEntry, childPath, missing, pendingSnapshots, entries, fileUnpacker);
                 }
-
-                boolean missing = matcher.group(1) != null;
-                String childPath = matcher.group(3);
-                tarEntry = unpackTree(treeName, tree.getType(), tree.getRoot(), tarInput, tarEntry, childPath, missing, snapshots, entries);
             }
+            fileUnpacker.awaitCompletion();
+        } catch (Throwable t) {
+            // Make sure no more files are written once we return
+            fileUnpacker.abort();
+            throw t;
         }
         if (originMetadata == null) {
             throw new IllegalStateException("Cached result format error, no origin metadata was found.");
         }
 
+        Map<String, FileSystemLocationSnapshot> snapshots = new HashMap<>();
+        pendingSnapshots.forEach((treeName, snapshot) -> snapshots.put(treeName, snapshot.get()));
         return new UnpackResult(originMetadata, entries.get(), snapshots);
     }
 
@@ -236,7 +276,7 @@ public File getRoot() {
     }
 
     @Nullable
-    private TarArchiveEntry unpackTree(String treeName, TreeType treeType, File treeRoot, TarArchiveInputStream input, TarArchiveEntry rootEntry, String childPath, boolean missing, Map<String, FileSystemLocationSnapshot> snapshots, AtomicLong entries) throws IOException {
+    private TarArchiveEntry unpackTree(String treeName, TreeType treeType, File treeRoot, TarArchiveInputStream input, TarArchiveEntry rootEntry, String childPath, boolean missing, Map<String, Supplier<FileSystemLocationSnapshot>> snapshots, AtomicLong entries, FileUnpacker fileUnpacker) throws IOException {
         boolean isDirEntry = rootEntry.isDirectory();
         boolean root = Strings.isNullOrEmpty(childPath);
         if (!root) {
@@ -253,8 +293,8 @@ private TarArchiveEntry unpackTree(String treeName, TreeType treeType, File tree
             if (isDirEntry) {
                 throw new IllegalStateException("Should be a file: " + treeName);
             }
-            RegularFileSnapshot fileSnapshot = unpackFile(input, rootEntry, treeRoot, treeRoot.getName());
-            snapshots.put(treeName, fileSnapshot);
+            Supplier<RegularFileSnapshot> fileSnapshot = fileUnpacker.unpack(input, rootEntry, treeRoot, treeRoot.getName());
+            snapshots.put(treeName, fileSnapshot::get);
             return input.getNextEntry();
         }
 
@@ -263,13 +303,13 @@ private TarArchiveEntry unpackTree(String treeName, TreeType treeType, File tree
         }
         chmodUnpackedFile(rootEntry, treeRoot);
 
-        return unpackDirectoryTree(input, rootEntry, snapshots, entries, treeRoot, treeName);
+        return unpackDirectoryTree(input, rootEntry, snapshots, entries, treeRoot, treeName, fileUnpacker);
     }
 
-    private RegularFileSnapshot unpackFile(TarArchiveInputStream input, TarArchiveEntry entry, File file, String fileName) throws IOException {
+    private RegularFileSnapshot unpackFile(InputStream input, int mode, File file, String fileName) throws IOException {
         try (CountingOutputStream output = new CountingOutputStream(new FileOutputStream(file))) {
             HashCode hash = streamHasher.hashCopy(input, output);
-            chmodUnpackedFile(entry, file);
+            chmodUnpackedFile(mode, file);
             String internedAbsolutePath = stringInterner.intern(file.getAbsolutePath());
             String internedFileName = stringInterner.intern(fileName);
             return new RegularFileSnapshot(internedAbsolutePath, internedFileName, hash, DefaultFileMetadata.file(output.getCount(), file.lastModified(), DIRECT));
@@ -277,17 +317,21 @@ private RegularFileSnapshot unpackFile(TarArchiveInputStream input, TarArchiveEn
     }
 
     @Nullable
-    private TarArchiveEntry unpackDirectoryTree(TarArchiveInputStream input, TarArchiveEntry rootEntry, Map<String, FileSystemLocationSnapshot> snapshots, AtomicLong entries, File treeRoot, String treeName) throws IOException {
+    private TarArchiveEntry unpackDirectoryTree(TarArchiveInputStream input, TarArchiveEntry rootEntry, Map<String, Supplier<FileSystemLocationSnapshot>> snapshots, AtomicLong entries, File treeRoot, String treeName, FileUnpacker fileUnpacker) throws IOException {
         RelativePathParser parser = new RelativePathParser(safeEntryName(rootEntry));
 
-        DirectorySnapshotBuilder builder = MerkleDirectorySnapshotBuilder.noSortingRequired();
-        builder.enterDirectory(DIRECT, stringInterner.intern(treeRoot.getAbsolutePath()), stringInterner.intern(treeRoot.getName()), INCLUDE_EMPTY_DIRS);
+        // Files may still be written when we are done reading the tree, so we record the visits and build the snapshot later
+        List<Consumer<DirectorySnapshotBuilder>> visits = new ArrayList<>();
+        Runnable leaveDirectory = () -> visits.add(DirectorySnapshotBuilder::leaveDirectory);
+        String internedRootPath = stringInterner.intern(treeRoot.getAbsolutePath());
+        String internedRootName = stringInterner.intern(treeRoot.getName());
+        visits.add(builder -> builder.enterDirectory(DIRECT, internedRootPath, internedRootName, INCLUDE_EMPTY_DIRS));
 
         TarArchiveEntry entry;
 
         while ((entry = input.getNextEntry()) != null) {
             boolean isDir = entry.isDirectory();
-            boolean outsideOfRoot = parser.nextPath(safeEntryName(entry), isDir, builder::leaveDirectory);
+            boolean outsideOfRoot = parser.nextPath(safeEntryName(entry), isDir, leaveDirectory);
             if (outsideOfRoot) {
                 break;
             }
@@ -299,17 +343,21 @@ private TarArchiveEntry unpackDirectoryTree(TarArchiveInputStream input, TarArch
                 chmodUnpackedFile(entry, file);
                 String internedAbsolutePath = stringInterner.intern(file.getAbsolutePath());
                 String internedName = stringInterner.intern(parser.getName());
-                builder.enterDirectory(DIRECT, internedAbsolutePath, internedName, INCLUDE_EMPTY_DIRS);
+                visits.add(builder -> builder.enterDirectory(DIRECT, internedAbsolutePath, internedName, INCLUDE_EMPTY_DIRS));
             } else {
-                RegularFileSnapshot fileSnapshot = unpackFile(input, entry, file, parser.getName());
-                builder.visitLeafElement(fileSnapshot);
+                Supplier<RegularFileSnapshot> fileSnapshot = fileUnpacker.unpack(input, entry, file, parser.getName());
+                visits.add(builder -> builder.visitLeafElement(fileSnapshot.get()));
             }
         }
 
-        parser.exitToRoot(builder::leaveDirectory);
-        builder.leaveDirectory();
+        parser.exitToRoot(leaveDirectory);
+        leaveDirectory.run();
 
-        snapshots.put(treeName, builder.getResult());
+        snapshots.put(treeName, () -> {
+            DirectorySnapshotBuilder builder = MerkleDirectorySnapshotBuilder.noSortingRequired();
+            visits.forEach(visit -> visit.accept(builder));
+            return builder.getResult();
+        });
         return entry;
     }
 
@@ -323,7 +371,11 @@ private static String safeEntryName(TarArchiveEntry tarEntry) {
     }
 
     private void chmodUnpackedFile(TarArchiveEntry entry, File file) {
-        filePermissionAccess.chmod(file, entry.getMode() & UnixPermissions.PERM_MASK);
+        chmodUnpackedFile(entry.getMode(), file);
+    }
+
+    private void chmodUnpackedFile(int mode, File file) {
+        filePermissionAccess.chmod(file, mode & UnixPermissions.PERM_MASK);
     }
 
     private static String escape(String name) {
@@ -342,6 +394,130 @@ private static String unescape(String name) {
         }
     }
 
+    /**
+     * Writes the regular files of an unpacked entry to disk.
+     */
+    private interface FileUnpacker {
+        /**
+         * Unpacks the current entry of the archive to the given file.
+         * The returned snapshot may only be queried after {@link #awaitCompletion()} returned.
+         */
+        Supplier<RegularFileSnapshot> unpack(TarArchiveInputStream input, TarArchiveEntry entry, File file, String fileName) throws IOException;
+
+        /**
+         * Waits for all files to be written, rethrowing the first failure.
+         */
+        void awaitCompletion() throws IOException;
+
+        /**
+         * Waits for all files that are currently being written, ignoring failures.
+         */
+        void abort();
+    }
+
+    private class SequentialFileUnpacker implements FileUnpacker {
+        @Override
+        public Supplier<RegularFileSnapshot> unpack(TarArchiveInputStream input, TarArchiveEntry entry, File file, String fileName) throws IOException {
+            RegularFileSnapshot snapshot = unpackFile(input, entry.getMode(), file, fileName);
+            return () -> snapshot;
+        }
+
+        @Override
+        public void awaitCompletion() {
+        }
+
+        @Override
+        public void abort() {
+        }
+    }
+
+    private class ParallelFileUnpacker implements FileUnpacker {
+        private final ParallelUnpackSettings settings;
+        private final Executor executor;
+        private final int maxBufferedBytes;
+        private final List<CompletableFuture<RegularFileSnapshot>> pendingFiles = new ArrayList<>();
+        private volatile boolean failed;
+
+        public ParallelFileUnpacker(ParallelUnpackSettings settings) {
+            this.settings = settings;
+            this.executor = settings.getExecutor();
+            this.maxBufferedBytes = settings.getMaxBufferedBytes();
+        }
+
+        @Override
+        public Supplier<RegularFileSnapshot> unpack(TarArchiveInputStream input, TarArchiveEntry entry, File file, String fileName) throws IOException {
+            if (failed) {
+                // Stop reading the archive, and report the failure
+                awaitCompletion();
+            }
+            long size = entry.getSize();
+            int mode = entry.getMode();
+            if (size > maxBufferedBytes) {
+                RegularFileSnapshot snapshot = unpackFile(input, mode, file, fileName);
+                return () -> snapshot;
+            }
+
+            // Also account for empty files, so the number of queued writes is bounded
+            int permits = Math.max((int) size, 1);
+            try {
+                settings.acquireBufferedBytes(permits);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("Interrupted while unpacking " + file.getAbsolutePath());
+            }
+            CompletableFuture<RegularFileSnapshot> pendingFile = new CompletableFuture<>();
+            try {
+                byte[] content = new byte[(int) size];
+                IOUtils.readFully(input, content);
+                executor.execute(() -> {
+                    try {
+                        pendingFile.complete(unpackFile(new ByteArrayInputStream(content), mode, file, fileName));
+                    } catch (Throwable t) {
+                        failed = true;
+                        pendingFile.completeExceptionally(t);
+                    } finally {
+                        settings.releaseBufferedBytes(permits);
+                    }
+                });
+            } catch (IOException | RuntimeException | Error e) {
+                settings.releaseBufferedBytes(permits);
+                throw e;
+            }
+            pendingFiles.add(pendingFile);
+            return pendingFile::join;
+        }
+
+        @Override
+        public void awaitCompletion() throws IOException {
+            Throwable failure = null;
+            for (CompletableFuture<RegularFileSnapshot> pendingFile : pendingFiles) {
+                try {
+                    pendingFile.join();
+                } catch (CompletionException e) {
+                    if (failure == null) {
+                        failure = e.getCause();
+                    }
+                }
+            }
+            if (failure != null) {
+                Throwables.throwIfInstanceOf(failure, IOException.class);
+                Throwables.throwIfUnchecked(failure);
+                throw new RuntimeException(failure);
+            }
+        }
+
+        @Override
+        public void abort() {
+            for (CompletableFuture<RegularFileSnapshot> pendingFile : pendingFiles) {
+                try {
+                    pendingFile.join();
+                } catch (CompletionException ignored) {
+                    // Only the first failure is reported
+                }
+            }
+        }
+    }
+
     private class PackingVisitor implements RelativePathTrackingFileSystemSnapshotHierarchyVisitor {
         private final TarArchiveOutputStream tarOutput;
         private final String treePath;
@@ -0,0 +1,152 @@
+/*
+ * Copyright 2025 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.caching.internal.packaging.impl
+
+import org.gradle.api.internal.file.TestFiles
+import org.gradle.internal.file.Deleter
+import org.gradle.internal.nativeintegration.filesystem.FileSystem
+
+import static org.gradle.internal.file.TreeType.DIRECTORY
+
+class CompressingBuildCacheEntryPackerTest extends AbstractTarBuildCacheEntryPackerSpec {
+    def tarPacker = packer
+
+    @Override
+    protected FilePermissionAccess createFilePermissionAccess() {
+        new FilePermissionAccess() {
+            @Delegate
+            FileSystem fs = TestFiles.fileSystem()
+        }
+    }
+
+    @Override
+    protected Deleter createDeleter() {
+        TestFiles.deleter()
+    }
+
+    def "can pack and unpack directory with #codec codec"() {
+        def sourceOutputDir = temporaryFolder.file("source").createDir()
+        sourceOutputDir.file("subdir/data.txt") << "output" * 1000
+        sourceOutputDir.file("empty.txt").createFile()
+        def targetOutputDir = temporaryFolder.file("target").createDir()
+        packer = new CompressingBuildCacheEntryPacker(tarPacker, codec)
+
+        when:
+        def output = new ByteArrayOutputStream()
+        def packResult = pack output, prop(DIRECTORY, sourceOutputDir)
+        def result = unpack new ByteArrayInputStream(output.toByteArray()), prop(DIRECTORY, targetOutputDir)
+
+        then:
+        result.entries == packResult.entries
+        targetOutputDir.file("subdir/data.txt").text == "output" * 1000
+        targetOutputDir.file("empty.txt").length() == 0
+
+        where:
+        codec << BuildCacheEntryCodecs.values()
+    }
+
+    def "writes header identifying the #codec codec"() {
+        def sourceOutputDir = temporaryFolder.file("source").createDir()
+        sourceOutputDir.file("data.txt") << "output"
+        packer = new CompressingBuildCacheEntryPacker(tarPacker, codec)
+
+        when:
+        def output = new ByteArrayOutputStream()
+        pack output, prop(DIRECTORY, sourceOutputDir)
+
+        then:
+        output.toByteArray()[0..5] == "GBCE".bytes.toList() + [1, codecId]
+
+        where:
+        codec                      | codecId
+        BuildCacheEntryCodecs.NONE | 0
+        BuildCacheEntryCodecs.LZ4  | 2
+        BuildCacheEntryCodecs.ZSTD | 3
+    }
+
+    def "reads GZip entries written without header regardless of codec used for writing"() {
+        def sourceOutputDir = temporaryFolder.file("source").createDir()
+        sourceOutputDir.file("data.txt") << "output"
+        def targetOutputDir = temporaryFolder.file("target").createDir()
+
+        when:
+        packer = new GZipBuildCacheEntryPacker(tarPacker)
+        def output = new ByteArrayOutputStream()
+        pack output, prop(DIRECTORY, sourceOutputDir)
+
+        and:
+        packer = new CompressingBuildCacheEntryPacker(tarPacker, BuildCacheEntryCodecs.ZSTD)
+        unpack new ByteArrayInputStream(output.toByteArray()), prop(DIRECTORY, targetOutputDir)
+
+        then:
+        targetOutputDir.file("data.txt").text == "output"
+    }
+
+    def "reads entries written with a different codec"() {
+        def sourceOutputDir = temporaryFolder.file("source").createDir()
+        sourceOutputDir.file("data.txt") << "output"
+        def targetOutputDir = temporaryFolder.file("target").createDir()
+
+        when:
+        packer = new CompressingBuildCacheEntryPacker(tarPacker, BuildCacheEntryCodecs.LZ4)
+        def output = new ByteArrayOutputStream()
+        pack output, prop(DIRECTORY, sourceOutputDir)
+
+        and:
+        packer = new CompressingBuildCacheEntryPacker(tarPacker, BuildCacheEntryCodecs.GZIP)
+        unpack new ByteArrayInputStream(output.toByteArray()), prop(DIRECTORY, targetOutputDir)
+
+        then:
+        targetOutputDir.file("data.txt").text == "output"
+    }
+
+    def "fails to read entry written with unknown codec"() {
+        packer = new CompressingBuildCacheEntryPacker(tarPacker, BuildCacheEntryCodecs.GZIP)
+        def input = new ByteArrayInputStream(("GBCE".bytes.toList() + [1, 42]) as byte[])
+
+        when:
+        unpack input, prop(DIRECTORY, temporaryFolder.file("target"))
+
+        then:
+        def ex = thrown(IOException)
+        ex.message == "Build cache entry was compressed with an unknown codec (id 42)"
+    }
+
+    def "fails to read entry without known header"() {
+        packer = new CompressingBuildCacheEntryPacker(tarPacker, BuildCacheEntryCodecs.GZIP)
+
+        when:
+        unpack new ByteArrayInputStream("garbage".bytes), prop(DIRECTORY, temporaryFolder.file("target"))
+
+        then:
+        def ex = thrown(IOException)
+        ex.message == "Build cache entry does not start with a known header"
+    }
+
+    def "selects codec by name"() {
+        expect:
+        BuildCacheEntryCodecs.forName("zstd") == BuildCacheEntryCodecs.ZSTD
+        BuildCacheEntryCodecs.forName("LZ4") == BuildCacheEntryCodecs.LZ4
+
+        when:
+        BuildCacheEntryCodecs.forName("brotli")
+
+        then:
+        def ex = thrown(IllegalArgumentException)
+        ex.message == "Unknown build cache entry compression 'brotli', supported values are: none, gzip, lz4, zstd"
+    }
+}
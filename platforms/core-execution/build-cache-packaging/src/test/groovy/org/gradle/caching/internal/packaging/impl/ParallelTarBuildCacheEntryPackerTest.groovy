@@ -0,0 +1,171 @@
+/*
+ * Copyright 2025 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.caching.internal.packaging.impl
+
+import org.gradle.api.internal.file.TestFiles
+import org.gradle.internal.file.BufferProvider
+import org.gradle.internal.file.Deleter
+import org.gradle.internal.file.FileException
+import org.gradle.internal.nativeintegration.filesystem.FileSystem
+import org.gradle.internal.snapshot.SnapshotVisitorUtil
+
+import java.util.concurrent.Callable
+import java.util.concurrent.ExecutorService
+import java.util.concurrent.Executors
+
+import static org.gradle.internal.file.TreeType.DIRECTORY
+import static org.gradle.internal.file.TreeType.FILE
+
+class ParallelTarBuildCacheEntryPackerTest extends AbstractTarBuildCacheEntryPackerSpec {
+    ExecutorService executor = Executors.newFixedThreadPool(4)
+    def sequentialPacker = packer
+    String failChmodFor = null
+
+    def setup() {
+        packer = parallelPacker(ParallelUnpackSettings.DEFAULT_MAX_BUFFERED_BYTES)
+    }
+
+    def cleanup() {
+        executor.shutdownNow()
+    }
+
+    @Override
+    protected FilePermissionAccess createFilePermissionAccess() {
+        def fileSystem = TestFiles.fileSystem()
+        new FilePermissionAccess() {
+            @Override
+            int getUnixMode(File f) throws FileException {
+                fileSystem.getUnixMode(f)
+            }
+
+            @Override
+            void chmod(File file, int mode) throws FileException {
+                if (file.name == failChmodFor) {
+                    throw new FileException(new IOException("Cannot change permissions of ${file.name}"))
+                }
+                fileSystem.chmod(file, mode)
+            }
+        }
+    }
+
+    @Override
+    protected Deleter createDeleter() {
+        TestFiles.deleter()
+    }
+
+    def "unpacks directory to the same snapshot as sequential unpacking with max buffered bytes #maxBufferedBytes"() {
+        def sourceOutputDir = temporaryFolder.file("source").createDir()
+        100.times { dir ->
+            10.times { file ->
+                sourceOutputDir.file("dir-$dir/file-${file}.txt") << "content of $dir/$file\n" * (dir * file)
+            }
+        }
+        sourceOutputDir.file("empty-dir").createDir()
+        sourceOutputDir.file("large.bin") << ("large" * 10_000)
+        def targetOutputDir = temporaryFolder.file("target").createDir()
+        def output = new ByteArrayOutputStream()
+        pack output, prop(DIRECTORY, sourceOutputDir)
+
+        when:
+        packer = sequentialPacker
+        def sequentialSnapshot = unpack(new ByteArrayInputStream(output.toByteArray()), prop(DIRECTORY, targetOutputDir)).snapshots["test"]
+        packer = parallelPacker(maxBufferedBytes)
+        def result = unpack new ByteArrayInputStream(output.toByteArray()), prop(DIRECTORY, targetOutputDir)
+        def parallelSnapshot = result.snapshots["test"]
+
+        then:
+        result.entries == 1 + 1 + 100 + 1000 + 1 + 1
+        parallelSnapshot.hash == sequentialSnapshot.hash
+        SnapshotVisitorUtil.getAbsolutePaths(parallelSnapshot, true) == SnapshotVisitorUtil.getAbsolutePaths(sequentialSnapshot, true)
+        targetOutputDir.file("dir-99/file-9.txt").text == "content of 99/9\n" * (99 * 9)
+        targetOutputDir.file("large.bin").text == "large" * 10_000
+
+        where:
+        maxBufferedBytes << [1, 1024, ParallelUnpackSettings.DEFAULT_MAX_BUFFERED_BYTES]
+    }
+
+    def "unpacks single file tree"() {
+        def sourceOutputFile = temporaryFolder.file("source.txt")
+        sourceOutputFile << "output"
+        def targetOutputFile = temporaryFolder.file("target.txt")
+        def output = new ByteArrayOutputStream()
+        pack output, prop(FILE, sourceOutputFile)
+
+        when:
+        def result = unpack new ByteArrayInputStream(output.toByteArray()), prop(FILE, targetOutputFile)
+
+        then:
+        targetOutputFile.text == "output"
+        result.snapshots["test"].absolutePath == targetOutputFile.absolutePath
+        result.snapshots["test"].hash == streamHasher.hash(new ByteArrayInputStream("output".bytes))
+    }
+
+    def "reports failure to write file"() {
+        def sourceOutputDir = temporaryFolder.file("source").createDir()
+        20.times {
+            sourceOutputDir.file("file-${it}.txt") << "output $it"
+        }
+        def targetOutputDir = temporaryFolder.file("target").createDir()
+        def output = new ByteArrayOutputStream()
+        pack output, prop(DIRECTORY, sourceOutputDir)
+        failChmodFor = "file-7.txt"
+
+        when:
+        unpack new ByteArrayInputStream(output.toByteArray()), prop(DIRECTORY, targetOutputDir)
+
+        then:
+        def e = thrown(FileException)
+        e.cause.message == "Cannot change permissions of file-7.txt"
+    }
+
+    def "concurrent unpacks share the buffered bytes budget"() {
+        def sourceOutputDir = temporaryFolder.file("source").createDir()
+        50.times {
+            sourceOutputDir.file("file-${it}.txt") << "output $it\n" * 20
+        }
+        def output = new ByteArrayOutputStream()
+        pack output, prop(DIRECTORY, sourceOutputDir)
+        def settings = new ParallelUnpackSettings(executor, 1024)
+        packer = parallelPacker(settings)
+        def targetDirs = (0..<4).collect { temporaryFolder.file("target-$it").createDir() }
+        def entities = targetDirs.collect { entity(prop(DIRECTORY, it)) }
+        def unpackers = Executors.newFixedThreadPool(targetDirs.size())
+
+        when:
+        def results = entities.collect { entity ->
+            unpackers.submit({ packer.unpack(entity, new ByteArrayInputStream(output.toByteArray()), readOrigin) } as Callable)
+        }.collect { it.get() }
+
+        then:
+        results*.entries == [1 + 1 + 50] * targetDirs.size()
+        targetDirs.every { it.file("file-49.txt").text == "output 49\n" * 20 }
+        settings.bufferedBytes.availablePermits() == 1024
+
+        cleanup:
+        unpackers?.shutdownNow()
+    }
+
+    private TarBuildCacheEntryPacker parallelPacker(int maxBufferedBytes) {
+        parallelPacker(new ParallelUnpackSettings(executor, maxBufferedBytes))
+    }
+
+    private TarBuildCacheEntryPacker parallelPacker(ParallelUnpackSettings settings) {
+        new TarBuildCacheEntryPacker(fileSystemSupport, filePermissionAccess, streamHasher, stringInterner, Stub(BufferProvider) {
+            getBuffer() >> new byte[4096]
+        }, settings)
+    }
+}
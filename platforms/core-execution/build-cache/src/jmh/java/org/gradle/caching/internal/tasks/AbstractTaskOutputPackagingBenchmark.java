@@ -19,6 +19,7 @@
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
 import org.apache.commons.io.FileUtils;
+import org.gradle.caching.internal.packaging.impl.BuildCacheEntryCodecs;
 import org.openjdk.jmh.annotations.Benchmark;
 import org.openjdk.jmh.annotations.Fork;
 import org.openjdk.jmh.annotations.Level;
@@ -55,6 +56,10 @@ public abstract class AbstractTaskOutputPackagingBenchmark {
         .put("tar.small", new CommonsTarPacker(2))
         .put("tar.large", new CommonsTarPacker(64))
         .put("tar.gz", new GzipPacker(new CommonsTarPacker(4)))
+        .put("tar.codec.none", new CodecPacker(BuildCacheEntryCodecs.NONE, new CommonsTarPacker(4)))
+        .put("tar.codec.gzip", new CodecPacker(BuildCacheEntryCodecs.GZIP, new CommonsTarPacker(4)))
+        .put("tar.codec.lz4", new CodecPacker(BuildCacheEntryCodecs.LZ4, new CommonsTarPacker(4)))
+        .put("tar.codec.zstd", new CodecPacker(BuildCacheEntryCodecs.ZSTD, new CommonsTarPacker(4)))
         .put("zip", new ZipPacker(4))
         .build();
 
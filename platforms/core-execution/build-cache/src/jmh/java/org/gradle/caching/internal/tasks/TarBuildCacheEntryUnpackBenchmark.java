@@ -0,0 +1,231 @@
+/*
+ * Copyright 2025 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.caching.internal.tasks;
+
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.Interners;
+import org.apache.commons.io.FileUtils;
+import org.gradle.caching.internal.CacheableEntity;
+import org.gradle.caching.internal.origin.OriginMetadata;
+import org.gradle.caching.internal.packaging.BuildCacheEntryPacker;
+import org.gradle.caching.internal.packaging.impl.FilePermissionAccess;
+import org.gradle.caching.internal.packaging.impl.ParallelUnpackSettings;
+import org.gradle.caching.internal.packaging.impl.TarBuildCacheEntryPacker;
+import org.gradle.caching.internal.packaging.impl.TarPackerFileSystemSupport;
+import org.gradle.internal.file.FileMetadata.AccessType;
+import org.gradle.internal.file.ThreadLocalBufferProvider;
+import org.gradle.internal.file.TreeType;
+import org.gradle.internal.file.impl.DefaultFileMetadata;
+import org.gradle.internal.hash.DefaultStreamHasher;
+import org.gradle.internal.hash.HashCode;
+import org.gradle.internal.hash.Hashing;
+import org.gradle.internal.hash.StreamHasher;
+import org.gradle.internal.snapshot.DirectorySnapshotBuilder;
+import org.gradle.internal.snapshot.FileSystemLocationSnapshot;
+import org.gradle.internal.snapshot.MerkleDirectorySnapshotBuilder;
+import org.gradle.internal.snapshot.RegularFileSnapshot;
+import org.jspecify.annotations.Nullable;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static org.gradle.internal.snapshot.DirectorySnapshotBuilder.EmptyDirectoryHandlingStrategy.INCLUDE_EMPTY_DIRS;
+
+/**
+ * Compares unpacking build cache entries sequentially and in parallel with {@link TarBuildCacheEntryPacker}.
+ */
+@Fork(1)
+@Warmup(iterations = 3)
+@Measurement(iterations = 7)
+@State(Scope.Benchmark)
+public class TarBuildCacheEntryUnpackBenchmark {
+    private static final String TREE_NAME = "output";
+    private static final OriginMetadata ORIGIN = new OriginMetadata("benchmark", Hashing.signature(TarBuildCacheEntryUnpackBenchmark.class), Duration.ZERO);
+
+    @Param({"many-small-files", "few-large-files"})
+    String shape;
+
+    @Param({"false", "true"})
+    boolean parallel;
+
+    private final StreamHasher streamHasher = new DefaultStreamHasher();
+    private File tempDir;
+    private File targetDir;
+    private byte[] entry;
+    private ExecutorService executor;
+    private BuildCacheEntryPacker packer;
+
+    @Setup(Level.Trial)
+    public void setupTrial() throws IOException {
+        tempDir = Files.createTempDirectory("tar-unpack-benchmark-").toFile();
+        File sourceDir = new File(tempDir, "source");
+        switch (shape) {
+            case "many-small-files":
+                createFiles(sourceDir, 50, 100, 256, 4 * 1024);
+                break;
+            case "few-large-files":
+                createFiles(sourceDir, 1, 8, 4 * 1024 * 1024, 16 * 1024 * 1024);
+                break;
+            default:
+                throw new IllegalArgumentException("Unknown shape: " + shape);
+        }
+
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        createPacker(null).pack(entity(sourceDir), ImmutableMap.of(TREE_NAME, snapshot(sourceDir)), output, outputStream -> {});
+        entry = output.toByteArray();
+        System.out.printf(">>> Entry for %s is %d bytes long%n", shape, entry.length);
+
+        targetDir = new File(tempDir, "target");
+        if (parallel) {
+            executor = Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors());
+            packer = createPacker(new ParallelUnpackSettings(executor, ParallelUnpackSettings.DEFAULT_MAX_BUFFERED_BYTES));
+        } else {
+            packer = createPacker(null);
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDownTrial() throws IOException {
+        if (executor != null) {
+            executor.shutdownNow();
+        }
+        FileUtils.forceDelete(tempDir);
+    }
+
+    @Benchmark
+    public BuildCacheEntryPacker.UnpackResult unpack() throws IOException {
+        return packer.unpack(entity(targetDir), new ByteArrayInputStream(entry), input -> ORIGIN);
+    }
+
+    private static void createFiles(File root, int dirCount, int filesPerDir, int minFileSize, int maxFileSize) throws IOException {
+        Random random = new Random(1234L);
+        for (int dirIdx = 0; dirIdx < dirCount; dirIdx++) {
+            File dir = new File(root, "dir-" + dirIdx);
+            FileUtils.forceMkdir(dir);
+            for (int fileIdx = 0; fileIdx < filesPerDir; fileIdx++) {
+                byte[] content = new byte[minFileSize + random.nextInt(maxFileSize - minFileSize)];
+                random.nextBytes(content);
+                Files.write(new File(dir, "file-" + fileIdx + ".bin").toPath(), content);
+            }
+        }
+    }
+
+    private FileSystemLocationSnapshot snapshot(File root) throws IOException {
+        DirectorySnapshotBuilder builder = MerkleDirectorySnapshotBuilder.sortingRequired();
+        snapshot(root, builder);
+        return builder.getResult();
+    }
+
+    private void snapshot(File file, DirectorySnapshotBuilder builder) throws IOException {
+        if (file.isDirectory()) {
+            builder.enterDirectory(AccessType.DIRECT, file.getAbsolutePath(), file.getName(), INCLUDE_EMPTY_DIRS);
+            File[] children = file.listFiles();
+            Arrays.sort(children);
+            for (File child : children) {
+                snapshot(child, builder);
+            }
+            builder.leaveDirectory();
+        } else {
+            HashCode hash;
+            try (InputStream input = new FileInputStream(file)) {
+                hash = streamHasher.hash(input);
+            }
+            builder.visitLeafElement(new RegularFileSnapshot(file.getAbsolutePath(), file.getName(), hash, DefaultFileMetadata.file(file.length(), file.lastModified(), AccessType.DIRECT)));
+        }
+    }
+
+    private TarBuildCacheEntryPacker createPacker(@Nullable ParallelUnpackSettings parallelUnpackSettings) {
+        return new TarBuildCacheEntryPacker(
+            new CleaningFileSystemSupport(),
+            new DefaultPermissions(),
+            streamHasher,
+            Interners.newStrongInterner(),
+            new ThreadLocalBufferProvider(64 * 1024),
+            parallelUnpackSettings
+        );
+    }
+
+    private static CacheableEntity entity(File root) {
+        return new CacheableEntity() {
+            @Override
+            public String getIdentity() {
+                return "benchmark";
+            }
+
+            @Override
+            public Class<?> getType() {
+                return TarBuildCacheEntryUnpackBenchmark.class;
+            }
+
+            @Override
+            public String getDisplayName() {
+                return "benchmark";
+            }
+
+            @Override
+            public void visitOutputTrees(CacheableTreeVisitor visitor) {
+                visitor.visitOutputTree(TREE_NAME, TreeType.DIRECTORY, root);
+            }
+        };
+    }
+
+    private static class CleaningFileSystemSupport implements TarPackerFileSystemSupport {
+        @Override
+        public void ensureFileIsMissing(File entry) throws IOException {
+            FileUtils.deleteQuietly(entry);
+            FileUtils.forceMkdirParent(entry);
+        }
+
+        @Override
+        public void ensureDirectoryForTree(TreeType type, File root) throws IOException {
+            FileUtils.deleteQuietly(root);
+            FileUtils.forceMkdir(root);
+        }
+    }
+
+    private static class DefaultPermissions implements FilePermissionAccess {
+        @Override
+        @SuppressWarnings("OctalInteger")
+        public int getUnixMode(File f) {
+            return 0644;
+        }
+
+        @Override
+        public void chmod(File file, int mode) {
+        }
+    }
+}
@@ -0,0 +1,59 @@
+/*
+ * Copyright 2025 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.caching.internal;
+
+import org.gradle.caching.BuildCacheException;
+import org.gradle.caching.BuildCacheKey;
+import org.gradle.caching.BuildCacheService;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Collection;
+import java.util.Set;
+
+/**
+ * A build cache service that can look up several entries at once.
+ *
+ * <p>Used to find out about entries before they are needed, so that the latency of the lookups is not paid by the work that needs them.</p>
+ */
+public interface BatchingBuildCacheService extends BuildCacheService {
+    /**
+     * Returns the keys that have an entry in the cache.
+     *
+     * @param keys the cache keys.
+     * @return the subset of the given keys that have an entry in the cache.
+     * @throws BuildCacheException if the cache fails to check the given keys
+     */
+    Set<BuildCacheKey> containsAll(Collection<? extends BuildCacheKey> keys) throws BuildCacheException;
+
+    /**
+     * Loads the entries for the given keys. The {@code reader} is called for each entry found in the cache.
+     *
+     * @param keys the cache keys.
+     * @param reader the reader to read the data of the entries.
+     * @return the subset of the given keys that have an entry in the cache.
+     * @throws BuildCacheException if the cache fails to load the entries for the given keys
+     */
+    Set<BuildCacheKey> loadAll(Collection<? extends BuildCacheKey> keys, EntryReader reader) throws BuildCacheException;
+
+    /**
+     * Reads the entries loaded by {@link #loadAll(Collection, EntryReader)}.
+     */
+    interface EntryReader {
+        void readFrom(BuildCacheKey key, InputStream input) throws IOException;
+    }
+}
@@ -0,0 +1,311 @@
+/*
+ * Copyright 2025 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.caching.internal.controller;
+
+import com.google.common.annotations.VisibleForTesting;
+import org.apache.commons.io.FileUtils;
+import org.gradle.caching.BuildCacheKey;
+import org.gradle.caching.internal.controller.operations.StoreQueueDrainOperationDetails;
+import org.gradle.caching.internal.controller.operations.StoreQueueDrainOperationResult;
+import org.gradle.caching.internal.controller.service.RemoteBuildCacheServiceHandle;
+import org.gradle.caching.internal.operations.BuildCacheRemoteStoreQueuedProgressDetails;
+import org.gradle.caching.local.internal.TemporaryFileFactory;
+import org.gradle.internal.UncheckedException;
+import org.gradle.internal.concurrent.ExecutorFactory;
+import org.gradle.internal.concurrent.ManagedExecutor;
+import org.gradle.internal.operations.BuildOperationContext;
+import org.gradle.internal.operations.BuildOperationDescriptor;
+import org.gradle.internal.operations.BuildOperationProgressEventEmitter;
+import org.gradle.internal.operations.BuildOperationRunner;
+import org.gradle.internal.operations.RunnableBuildOperation;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Uploads entries to the remote build cache in the background, so that the worker that produced an entry
+ * does not have to wait for the upload to finish.
+ * <p>
+ * At most {@link Settings#getMaxConcurrentStores()} uploads run at the same time, and at most {@link Settings#getQueueCapacity()}
+ * uploads can be queued or running.
+ * When the queue is full, submitting a new store blocks until an upload finishes.
+ * <p>
+ * Pending uploads are waited for when the queue is closed.
+ * Uploads that do not finish within {@link Settings#getDrainTimeout()} are cancelled.
+ */
+public class AsyncRemoteStoreQueue implements Closeable {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(AsyncRemoteStoreQueue.class);
+
+    private final RemoteBuildCacheServiceHandle remote;
+    private final TemporaryFileFactory temporaryFileFactory;
+    private final BuildOperationRunner buildOperationRunner;
+    private final BuildOperationProgressEventEmitter buildOperationProgressEventEmitter;
+    private final ManagedExecutor executor;
+    private final Semaphore capacity;
+    private final Duration drainTimeout;
+
+    private final Set<PendingStore> pendingStores = ConcurrentHashMap.newKeySet();
+    private final AtomicInteger submittedStoreCount = new AtomicInteger();
+    private final AtomicInteger maxQueueDepth = new AtomicInteger();
+    private final AtomicLong totalQueueTimeNanos = new AtomicLong();
+    private final AtomicLong totalUploadTimeNanos = new AtomicLong();
+    private final AtomicLong maxUploadTimeNanos = new AtomicLong();
+
+    private volatile boolean closed;
+
+    public AsyncRemoteStoreQueue(
+        RemoteBuildCacheServiceHandle remote,
+        TemporaryFileFactory temporaryFileFactory,
+        BuildOperationRunner buildOperationRunner,
+        BuildOperationProgressEventEmitter buildOperationProgressEventEmitter,
+        Settings settings
+    ) {
+        this.remote = remote;
+        this.temporaryFileFactory = temporaryFileFactory;
+        this.buildOperationRunner = buildOperationRunner;
+        this.buildOperationProgressEventEmitter = buildOperationProgressEventEmitter;
+        this.executor = settings.getExecutorFactory().create("Remote build cache store", settings.getMaxConcurrentStores());
+        this.capacity = new Semaphore(settings.getQueueCapacity());
+        this.drainTimeout = settings.getDrainTimeout();
+    }
+
+    /**
+     * Queues the given entry to be stored in the remote cache.
+     * <p>
+     * The entry is copied, so the caller is free to move or delete the given file once this method returns.
+     * Blocks while the queue is full.
+     */
+    public void submit(BuildCacheKey key, File entryFile) {
+        if (closed) {
+            throw new IllegalStateException("Cannot queue remote store for entry " + key.getHashCode() + " as the queue has been closed.");
+        }
+        try {
+            capacity.acquire();
+        } catch (InterruptedException e) {
+            throw UncheckedException.throwAsUncheckedException(e);
+        }
+        File uploadFile;
+        try {
+            uploadFile = copyForUpload(key, entryFile);
+        } catch (RuntimeException e) {
+            capacity.release();
+            throw e;
+        }
+
+        PendingStore store = new PendingStore(key, uploadFile);
+        pendingStores.add(store);
+        submittedStoreCount.incrementAndGet();
+        int queueDepth = pendingStores.size();
+        maxQueueDepth.accumulateAndGet(queueDepth, Math::max);
+        buildOperationProgressEventEmitter.emitNowIfCurrent(new StoreQueuedProgressDetails(key, queueDepth));
+        executor.execute(store);
+    }
+
+    private File copyForUpload(BuildCacheKey key, File entryFile) {
+        File uploadFile = temporaryFileFactory.createTemporaryFile(key.getHashCode() + "-", ".upload");
+        try {
+            Files.copy(entryFile.toPath(), uploadFile.toPath(), StandardCopyOption.REPLACE_EXISTING);
+            return uploadFile;
+        } catch (IOException e) {
+            FileUtils.deleteQuietly(uploadFile);
+            throw new UncheckedIOException(String.format("Couldn't queue cache entry '%s' for remote store: %s", key.getHashCode(), e), e);
+        }
+    }
+
+    @VisibleForTesting
+    int getPendingStoreCount() {
+        return pendingStores.size();
+    }
+
+    /**
+     * Waits for all queued stores to finish, cancelling the ones that do not finish in time.
+     */
+    @Override
+    public void close() {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        buildOperationRunner.run(new RunnableBuildOperation() {
+            @Override
+            public void run(BuildOperationContext context) {
+                int cancelled = drain();
+                context.setResult(new StoreQueueDrainOperationResult(
+                    submittedStoreCount.get(),
+                    cancelled,
+                    maxQueueDepth.get(),
+                    TimeUnit.NANOSECONDS.toMillis(totalQueueTimeNanos.get()),
+                    TimeUnit.NANOSECONDS.toMillis(totalUploadTimeNanos.get()),
+                    TimeUnit.NANOSECONDS.toMillis(maxUploadTimeNanos.get())
+                ));
+            }
+
+            @Override
+            public BuildOperationDescriptor.Builder description() {
+                return BuildOperationDescriptor.displayName("Wait for pending stores to remote build cache")
+                    .details(new StoreQueueDrainOperationDetails(pendingStores.size()))
+                    .progressDisplayName("Waiting for remote build cache uploads");
+            }
+        });
+    }
+
+    private int drain() {
+        executor.requestStop();
+        boolean terminated;
+        try {
+            terminated = executor.awaitTermination(drainTimeout.toMillis(), TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            cancelPendingStores();
+            throw UncheckedException.throwAsUncheckedException(e);
+        }
+        if (terminated) {
+            return 0;
+        }
+        return cancelPendingStores();
+    }
+
+    private int cancelPendingStores() {
+        executor.shutdownNow();
+        List<PendingStore> cancelled = new ArrayList<>(pendingStores);
+        for (PendingStore store : cancelled) {
+            store.cancel();
+        }
+        if (!cancelled.isEmpty()) {
+            LOGGER.warn("Cancelled {} pending store(s) to the remote build cache that did not complete within {} seconds.", cancelled.size(), drainTimeout.getSeconds());
+        }
+        return cancelled.size();
+    }
+
+    private class PendingStore implements Runnable {
+        private final BuildCacheKey key;
+        private final File file;
+        private final long queuedAt = System.nanoTime();
+        private final AtomicBoolean claimed = new AtomicBoolean();
+
+        PendingStore(BuildCacheKey key, File file) {
+            this.key = key;
+            this.file = file;
+        }
+
+        @Override
+        public void run() {
+            if (!claimed.compareAndSet(false, true)) {
+                // Already cancelled
+                return;
+            }
+            long startedAt = System.nanoTime();
+            totalQueueTimeNanos.addAndGet(startedAt - queuedAt);
+            try {
+                remote.maybeStore(key, file);
+            } finally {
+                long uploadTime = System.nanoTime() - startedAt;
+                totalUploadTimeNanos.addAndGet(uploadTime);
+                maxUploadTimeNanos.accumulateAndGet(uploadTime, Math::max);
+                complete();
+            }
+        }
+
+        void cancel() {
+            if (claimed.compareAndSet(false, true)) {
+                // Never started, so we need to clean up ourselves
+                complete();
+            }
+            // Otherwise the upload is running and has been interrupted, it will clean up once it finishes
+        }
+
+        private void complete() {
+            FileUtils.deleteQuietly(file);
+            pendingStores.remove(this);
+            capacity.release();
+        }
+    }
+
+    private static class StoreQueuedProgressDetails implements BuildCacheRemoteStoreQueuedProgressDetails {
+        private final BuildCacheKey key;
+        private final int queueDepth;
+
+        StoreQueuedProgressDetails(BuildCacheKey key, int queueDepth) {
+            this.key = key;
+            this.queueDepth = queueDepth;
+        }
+
+        @Override
+        public String getCacheKey() {
+            return key.getHashCode();
+        }
+
+        @Override
+        public int getQueueDepth() {
+            return queueDepth;
+        }
+    }
+
+    public static class Settings {
+        public static final Duration DEFAULT_DRAIN_TIMEOUT = Duration.ofMinutes(10);
+
+        private final ExecutorFactory executorFactory;
+        private final int maxConcurrentStores;
+        private final int queueCapacity;
+        private final Duration drainTimeout;
+
+        public Settings(ExecutorFactory executorFactory, int maxConcurrentStores, int queueCapacity, Duration drainTimeout) {
+            if (maxConcurrentStores < 1) {
+                throw new IllegalArgumentException("Maximum number of concurrent remote stores must be at least 1, but was " + maxConcurrentStores);
+            }
+            if (queueCapacity < maxConcurrentStores) {
+                throw new IllegalArgumentException("Remote store queue capacity must be at least the number of concurrent stores (" + maxConcurrentStores + "), but was " + queueCapacity);
+            }
+            this.executorFactory = executorFactory;
+            this.maxConcurrentStores = maxConcurrentStores;
+            this.queueCapacity = queueCapacity;
+            this.drainTimeout = drainTimeout;
+        }
+
+        public ExecutorFactory getExecutorFactory() {
+            return executorFactory;
+        }
+
+        public int getMaxConcurrentStores() {
+            return maxConcurrentStores;
+        }
+
+        public int getQueueCapacity() {
+            return queueCapacity;
+        }
+
+        public Duration getDrainTimeout() {
+            return drainTimeout;
+        }
+    }
+}
@@ -41,4 +41,12 @@ public interface BuildCacheController extends Closeable {
     Optional<BuildCacheLoadResult> load(BuildCacheKey cacheKey, CacheableEntity cacheableEntity);
 
     void store(BuildCacheKey cacheKey, CacheableEntity entity, Map<String, FileSystemSnapshot> snapshots, Duration executionTime);
+
+    /**
+     * Hints that the entry with the given key is likely to be loaded soon, so that it can be looked up ahead of time.
+     * <p>
+     * Callers can only provide keys they already know, such as the key of the previous execution of a task.
+     * Nothing is looked up ahead of time for work that has never been executed with this build's execution history.
+     */
+    void prefetch(BuildCacheKey cacheKey);
 }
@@ -81,6 +81,12 @@ public class DefaultBuildCacheController implements BuildCacheController {
     private final BuildCacheTempFileStore tmp;
     private final PackOperationExecutor packExecutor;
 
+    @Nullable
+    private final AsyncRemoteStoreQueue remoteStoreQueue;
+
+    @Nullable
+    private final RemoteLoadPrefetcher remotePrefetcher;
+
     private boolean closed;
 
     public DefaultBuildCacheController(
@@ -93,6 +99,38 @@ public DefaultBuildCacheController(
         BuildCacheEntryPacker packer,
         OriginMetadataFactory originMetadataFactory,
         Interner<String> stringInterner
+    ) {
+        this(
+            config,
+            buildOperationRunner,
+            buildOperationProgressEventEmitter,
+            temporaryFileFactory,
+            logStackTraces,
+            disableRemoteOnError,
+            packer,
+            originMetadataFactory,
+            stringInterner,
+            null,
+            null
+        );
+    }
+
+    /**
+     * Creates a controller that uploads entries to the remote cache in the background when {@code asyncRemoteStoreSettings} is not {@code null},
+     * and that looks up entries in the remote cache ahead of time when {@code remotePrefetchSettings} is not {@code null}.
+     */
+    public DefaultBuildCacheController(
+        BuildCacheServicesConfiguration config,
+        BuildOperationRunner buildOperationRunner,
+        BuildOperationProgressEventEmitter buildOperationProgressEventEmitter,
+        TemporaryFileFactory temporaryFileFactory,
+        boolean logStackTraces,
+        boolean disableRemoteOnError,
+        BuildCacheEntryPacker packer,
+        OriginMetadataFactory originMetadataFactory,
+        Interner<String> stringInterner,
+        AsyncRemoteStoreQueue.@Nullable Settings asyncRemoteStoreSettings,
+        RemoteLoadPrefetcher.@Nullable Settings remotePrefetchSettings
     ) {
         this.local = toLocalHandle(config.getLocal(), config.isLocalPush(), buildOperationRunner);
         this.remote = toRemoteHandle(config.getBuildPath(), config.getRemote(), config.isRemotePush(), buildOperationRunner, buildOperationProgressEventEmitter, logStackTraces, disableRemoteOnError);
@@ -103,6 +141,12 @@ public DefaultBuildCacheController(
             originMetadataFactory,
             stringInterner
         );
+        this.remoteStoreQueue = asyncRemoteStoreSettings != null && remote.canStore()
+            ? new AsyncRemoteStoreQueue(remote, temporaryFileFactory, buildOperationRunner, buildOperationProgressEventEmitter, asyncRemoteStoreSettings)
+            : null;
+        this.remotePrefetcher = remotePrefetchSettings != null && remote.canLoad()
+            ? new RemoteLoadPrefetcher(remote, local, tmp, remotePrefetchSettings)
+            : null;
     }
 
     @Override
@@ -131,6 +175,9 @@ private Optional<BuildCacheLoadResult> loadRemoteAndStoreResultLocally(BuildCach
         if (!remote.canLoad()) {
             return Optional.empty();
         }
+        if (remotePrefetcher != null && remotePrefetcher.consumeKnownMiss(key)) {
+            return Optional.empty();
+        }
         AtomicReference<Optional<BuildCacheLoadResult>> result = new AtomicReference<>(Optional.empty());
         tmp.withTempFile(((BuildCacheKeyInternal) key).getHashCodeInternal(), file -> {
             Optional<BuildCacheLoadResult> remoteResult;
@@ -154,11 +201,22 @@ public void store(BuildCacheKey key, CacheableEntity entity, Map<String, FileSys
         }
         tmp.withTempFile(((BuildCacheKeyInternal) key).getHashCodeInternal(), file -> {
             packExecutor.pack(file, key, entity, snapshots, executionTime);
-            remote.maybeStore(key, file);
+            if (remoteStoreQueue != null && remote.canStore()) {
+                remoteStoreQueue.submit(key, file);
+            } else {
+                remote.maybeStore(key, file);
+            }
             local.maybeStore(key, file);
         });
     }
 
+    @Override
+    public void prefetch(BuildCacheKey key) {
+        if (remotePrefetcher != null) {
+            remotePrefetcher.prefetch(key);
+        }
+    }
+
     @Override
     public void close() throws IOException {
         if (!closed) {
@@ -166,6 +224,14 @@ public void close() throws IOException {
             Closer closer = Closer.create();
             closer.register(local);
             closer.register(remote);
+            if (remoteStoreQueue != null) {
+                // Registered last so that pending uploads finish before the remote service is closed
+                closer.register(remoteStoreQueue);
+            }
+            if (remotePrefetcher != null) {
+                // Registered last so that lookups in flight finish before the caches are closed
+                closer.register(remotePrefetcher);
+            }
             closer.close();
         }
     }
@@ -47,6 +47,11 @@ public void store(BuildCacheKey cacheKey, CacheableEntity entity, Map<String, Fi
 
     }
 
+    @Override
+    public void prefetch(BuildCacheKey cacheKey) {
+
+    }
+
     @Override
     public void close() {
 
@@ -0,0 +1,181 @@
+/*
+ * Copyright 2025 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.caching.internal.controller;
+
+import org.gradle.caching.BuildCacheKey;
+import org.gradle.caching.internal.BuildCacheKeyInternal;
+import org.gradle.caching.internal.controller.service.LoadTarget;
+import org.gradle.caching.internal.controller.service.LocalBuildCacheServiceHandle;
+import org.gradle.caching.internal.controller.service.RemoteBuildCacheServiceHandle;
+import org.gradle.caching.local.internal.BuildCacheTempFileStore;
+import org.gradle.internal.concurrent.ExecutorFactory;
+import org.gradle.internal.concurrent.ManagedExecutor;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * Looks up entries in the remote build cache before they are needed, several entries per request.
+ * <p>
+ * Entries that are found are stored in the local cache, so that loading them later does not need a request to the remote cache.
+ * When entries cannot be stored locally, only their existence is checked.
+ * Either way, the entries that are missing are remembered, so that the next load of each of them skips the remote cache.
+ * A miss only answers that one load, so that entries stored in the remote cache by someone else later in the build are still found.
+ * <p>
+ * Keys are collected while earlier lookups are in flight, so the more keys are requested at once, the larger the batches get.
+ * <p>
+ * Entries loaded or found missing ahead of time are reported by the same build operations as entries loaded one by one.
+ * <p>
+ * Only the keys passed to {@link #prefetch(BuildCacheKey)} are looked up. The cache key of a task is only known once the task has been fingerprinted,
+ * so the only source of keys is the speculative snapshotting of tasks, which assumes the key of the previous execution of a task is still valid.
+ * Tasks without an execution history, for example on an ephemeral CI agent, are therefore never looked up ahead of time.
+ */
+public class RemoteLoadPrefetcher implements Closeable {
+    private final RemoteBuildCacheServiceHandle remote;
+    private final LocalBuildCacheServiceHandle local;
+    private final BuildCacheTempFileStore tmp;
+    private final ManagedExecutor executor;
+    private final int maxBatchSize;
+
+    private final Queue<BuildCacheKey> pendingKeys = new ConcurrentLinkedQueue<>();
+    private final Set<String> requestedKeys = ConcurrentHashMap.newKeySet();
+    private final Set<String> knownMisses = ConcurrentHashMap.newKeySet();
+    private volatile boolean closed;
+
+    public RemoteLoadPrefetcher(RemoteBuildCacheServiceHandle remote, LocalBuildCacheServiceHandle local, BuildCacheTempFileStore tmp, Settings settings) {
+        this.remote = remote;
+        this.local = local;
+        this.tmp = tmp;
+        this.executor = settings.getExecutorFactory().create("Remote build cache prefetch", settings.getMaxConcurrentRequests());
+        this.maxBatchSize = settings.getMaxBatchSize();
+    }
+
+    /**
+     * Queues the given entry to be looked up. Does nothing when the entry has been requested before.
+     */
+    public void prefetch(BuildCacheKey key) {
+        if (closed || !requestedKeys.add(key.getHashCode())) {
+            return;
+        }
+        pendingKeys.add(key);
+        executor.execute(this::lookUpPendingKeys);
+    }
+
+    /**
+     * Returns whether the given entry was found to be missing from the remote cache, and forgets about the miss.
+     */
+    public boolean consumeKnownMiss(BuildCacheKey key) {
+        return knownMisses.remove(key.getHashCode());
+    }
+
+    private void lookUpPendingKeys() {
+        List<BuildCacheKey> batch = new ArrayList<>();
+        BuildCacheKey key;
+        while (!closed && batch.size() < maxBatchSize && (key = pendingKeys.poll()) != null) {
+            if (!local.contains(key)) {
+                batch.add(key);
+            }
+        }
+        if (batch.isEmpty()) {
+            // Keys have already been taken by other lookups
+            return;
+        }
+        if (local.canStore()) {
+            remote.maybeLoadAll(batch, this::storeLocally)
+                .ifPresent(found -> recordMisses(batch, found));
+        } else {
+            remote.maybeContainsAll(batch)
+                .ifPresent(found -> recordMisses(batch, found));
+        }
+    }
+
+    private void storeLocally(BuildCacheKey key, InputStream input) throws IOException {
+        try {
+            tmp.withTempFile(((BuildCacheKeyInternal) key).getHashCodeInternal(), file -> {
+                try {
+                    new LoadTarget(file).readFrom(input);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+                local.maybeStore(key, file);
+            });
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    private void recordMisses(List<BuildCacheKey> batch, Set<BuildCacheKey> found) {
+        Set<String> foundKeys = new HashSet<>(found.size());
+        for (BuildCacheKey key : found) {
+            foundKeys.add(key.getHashCode());
+        }
+        for (BuildCacheKey key : batch) {
+            if (!foundKeys.contains(key.getHashCode())) {
+                knownMisses.add(key.getHashCode());
+            }
+        }
+    }
+
+    /**
+     * Stops looking up entries, and waits for the lookups in flight to finish.
+     */
+    @Override
+    public void close() {
+        closed = true;
+        pendingKeys.clear();
+        executor.stop();
+    }
+
+    public static class Settings {
+        private final ExecutorFactory executorFactory;
+        private final int maxConcurrentRequests;
+        private final int maxBatchSize;
+
+        public Settings(ExecutorFactory executorFactory, int maxConcurrentRequests, int maxBatchSize) {
+            if (maxConcurrentRequests < 1) {
+                throw new IllegalArgumentException("Maximum number of concurrent remote prefetch requests must be at least 1, but was " + maxConcurrentRequests);
+            }
+            if (maxBatchSize < 1) {
+                throw new IllegalArgumentException("Remote prefetch batch size must be at least 1, but was " + maxBatchSize);
+            }
+            this.executorFactory = executorFactory;
+            this.maxConcurrentRequests = maxConcurrentRequests;
+            this.maxBatchSize = maxBatchSize;
+        }
+
+        public ExecutorFactory getExecutorFactory() {
+            return executorFactory;
+        }
+
+        public int getMaxConcurrentRequests() {
+            return maxConcurrentRequests;
+        }
+
+        public int getMaxBatchSize() {
+            return maxBatchSize;
+        }
+    }
+}
@@ -0,0 +1,75 @@
+/*
+ * Copyright 2025 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.caching.internal.controller.operations;
+
+import org.gradle.caching.internal.operations.BuildCacheRemoteStoreQueueDrainBuildOperationType;
+
+public class StoreQueueDrainOperationResult implements BuildCacheRemoteStoreQueueDrainBuildOperationType.Result {
+
+    private final int submittedStoreCount;
+    private final int cancelledStoreCount;
+    private final int maxQueueDepth;
+    private final long totalQueueTimeMillis;
+    private final long totalUploadTimeMillis;
+    private final long maxUploadTimeMillis;
+
+    public StoreQueueDrainOperationResult(
+        int submittedStoreCount,
+        int cancelledStoreCount,
+        int maxQueueDepth,
+        long totalQueueTimeMillis,
+        long totalUploadTimeMillis,
+        long maxUploadTimeMillis
+    ) {
+        this.submittedStoreCount = submittedStoreCount;
+        this.cancelledStoreCount = cancelledStoreCount;
+        this.maxQueueDepth = maxQueueDepth;
+        this.totalQueueTimeMillis = totalQueueTimeMillis;
+        this.totalUploadTimeMillis = totalUploadTimeMillis;
+        this.maxUploadTimeMillis = maxUploadTimeMillis;
+    }
+
+    @Override
+    public int getSubmittedStoreCount() {
+        return submittedStoreCount;
+    }
+
+    @Override
+    public int getCancelledStoreCount() {
+        return cancelledStoreCount;
+    }
+
+    @Override
+    public int getMaxQueueDepth() {
+        return maxQueueDepth;
+    }
+
+    @Override
+    public long getTotalQueueTimeMillis() {
+        return totalQueueTimeMillis;
+    }
+
+    @Override
+    public long getTotalUploadTimeMillis() {
+        return totalUploadTimeMillis;
+    }
+
+    @Override
+    public long getMaxUploadTimeMillis() {
+        return maxUploadTimeMillis;
+    }
+}
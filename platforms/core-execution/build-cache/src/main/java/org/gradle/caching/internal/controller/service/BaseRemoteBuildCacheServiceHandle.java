@@ -19,13 +19,16 @@
 import org.gradle.caching.BuildCacheEntryReader;
 import org.gradle.caching.BuildCacheKey;
 import org.gradle.caching.BuildCacheService;
+import org.gradle.caching.internal.BatchingBuildCacheService;
 import org.jspecify.annotations.Nullable;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.File;
+import java.util.Collection;
 import java.util.Locale;
 import java.util.Optional;
+import java.util.Set;
 import java.util.function.Function;
 
 public class BaseRemoteBuildCacheServiceHandle implements RemoteBuildCacheServiceHandle {
@@ -62,7 +65,7 @@ public String describeFailure(BuildCacheKey key, BuildCacheServiceRole role) {
     private final boolean logStackTraces;
     private final boolean disableOnError;
 
-    private boolean disabled;
+    private volatile boolean disabled;
 
     public BaseRemoteBuildCacheServiceHandle(
         BuildCacheService service,
@@ -120,6 +123,38 @@ private static Optional<BuildCacheLoadResult> maybeUnpack(LoadTarget loadTarget,
         return Optional.empty();
     }
 
+    @Override
+    public Optional<Set<BuildCacheKey>> maybeLoadAll(Collection<? extends BuildCacheKey> keys, BatchingBuildCacheService.EntryReader reader) {
+        if (!canLoad() || !(service instanceof BatchingBuildCacheService)) {
+            return Optional.empty();
+        }
+        LOGGER.debug("Load {} entries from {} build cache", keys.size(), role.getDisplayName());
+        try {
+            return Optional.of(loadAllInner(keys, reader));
+        } catch (Exception e) {
+            batchFailure("load", keys, e);
+            return Optional.empty();
+        }
+    }
+
+    protected Set<BuildCacheKey> loadAllInner(Collection<? extends BuildCacheKey> keys, BatchingBuildCacheService.EntryReader reader) {
+        return ((BatchingBuildCacheService) service).loadAll(keys, reader);
+    }
+
+    @Override
+    public Optional<Set<BuildCacheKey>> maybeContainsAll(Collection<? extends BuildCacheKey> keys) {
+        if (!canLoad() || !(service instanceof BatchingBuildCacheService)) {
+            return Optional.empty();
+        }
+        LOGGER.debug("Check {} entries in {} build cache", keys.size(), role.getDisplayName());
+        try {
+            return Optional.of(((BatchingBuildCacheService) service).containsAll(keys));
+        } catch (Exception e) {
+            batchFailure("check", keys, e);
+            return Optional.empty();
+        }
+    }
+
     @Override
     public boolean canStore() {
         return pushEnabled && !disabled;
@@ -161,6 +196,17 @@ private void failure(Operation operation, BuildCacheKey key, Throwable failure)
         }
     }
 
+    private void batchFailure(String verb, Collection<? extends BuildCacheKey> keys, Throwable failure) {
+        // Entries are looked up in batches ahead of time, so a failure does not disable the cache.
+        // Should the cache be broken, the lookups of the individual entries fail as well.
+        String description = "Could not " + verb + " " + keys.size() + " entries in " + role.getDisplayName() + " build cache";
+        if (logStackTraces) {
+            LOGGER.warn(description, failure);
+        } else {
+            LOGGER.warn(description + ": " + failure.getMessage());
+        }
+    }
+
     protected void onCacheDisabledDueToFailure(BuildCacheKey key, Operation operation, Throwable failure) {
     }
 
@@ -42,6 +42,11 @@ public Optional<BuildCacheLoadResult> maybeLoad(BuildCacheKey key, Function<File
         return Optional.empty();
     }
 
+    @Override
+    public boolean contains(BuildCacheKey key) {
+        return false;
+    }
+
     @Override
     public boolean canStore() {
         return false;
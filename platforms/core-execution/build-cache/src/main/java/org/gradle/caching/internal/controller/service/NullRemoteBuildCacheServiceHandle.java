@@ -18,10 +18,13 @@
 
 import org.gradle.caching.BuildCacheKey;
 import org.gradle.caching.BuildCacheService;
+import org.gradle.caching.internal.BatchingBuildCacheService;
 import org.jspecify.annotations.Nullable;
 
 import java.io.File;
+import java.util.Collection;
 import java.util.Optional;
+import java.util.Set;
 import java.util.function.Function;
 
 public class NullRemoteBuildCacheServiceHandle implements RemoteBuildCacheServiceHandle {
@@ -44,6 +47,16 @@ public Optional<BuildCacheLoadResult> maybeLoad(BuildCacheKey key, File toFile,
         return Optional.empty();
     }
 
+    @Override
+    public Optional<Set<BuildCacheKey>> maybeLoadAll(Collection<? extends BuildCacheKey> keys, BatchingBuildCacheService.EntryReader reader) {
+        return Optional.empty();
+    }
+
+    @Override
+    public Optional<Set<BuildCacheKey>> maybeContainsAll(Collection<? extends BuildCacheKey> keys) {
+        return Optional.empty();
+    }
+
     @Override
     public boolean canStore() {
         return false;
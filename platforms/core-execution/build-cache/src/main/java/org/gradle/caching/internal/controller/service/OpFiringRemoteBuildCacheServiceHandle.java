@@ -16,9 +16,11 @@
 
 package org.gradle.caching.internal.controller.service;
 
+import com.google.common.io.CountingInputStream;
 import org.gradle.caching.BuildCacheEntryReader;
 import org.gradle.caching.BuildCacheKey;
 import org.gradle.caching.BuildCacheService;
+import org.gradle.caching.internal.BatchingBuildCacheService;
 import org.gradle.caching.internal.controller.operations.LoadOperationDetails;
 import org.gradle.caching.internal.controller.operations.LoadOperationHitResult;
 import org.gradle.caching.internal.controller.operations.LoadOperationMissResult;
@@ -33,6 +35,9 @@
 
 import java.io.IOException;
 import java.io.InputStream;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Set;
 
 public class OpFiringRemoteBuildCacheServiceHandle extends BaseRemoteBuildCacheServiceHandle {
 
@@ -78,6 +83,65 @@ public BuildOperationDescriptor.Builder description() {
         });
     }
 
+    /**
+     * Fires a load operation for each of the entries, as if they had been loaded one by one,
+     * so that entries loaded ahead of time are still reported as loaded from the remote cache.
+     */
+    @Override
+    protected Set<BuildCacheKey> loadAllInner(Collection<? extends BuildCacheKey> keys, BatchingBuildCacheService.EntryReader reader) {
+        Set<BuildCacheKey> found = super.loadAllInner(keys, (key, input) -> loadFound(key, input, reader));
+        Set<String> foundKeys = new HashSet<>(found.size());
+        for (BuildCacheKey key : found) {
+            foundKeys.add(key.getHashCode());
+        }
+        for (BuildCacheKey key : keys) {
+            if (!foundKeys.contains(key.getHashCode())) {
+                buildOperationRunner.run(new RunnableBuildOperation() {
+                    @Override
+                    public void run(BuildOperationContext context) {
+                        context.setResult(LoadOperationMissResult.INSTANCE);
+                    }
+
+                    @Override
+                    public BuildOperationDescriptor.Builder description() {
+                        return loadDescription(key);
+                    }
+                });
+            }
+        }
+        return found;
+    }
+
+    private void loadFound(BuildCacheKey key, InputStream input, BatchingBuildCacheService.EntryReader reader) throws IOException {
+        try {
+            buildOperationRunner.run(new RunnableBuildOperation() {
+                @Override
+                public void run(BuildOperationContext context) {
+                    CountingInputStream countingInput = new CountingInputStream(input);
+                    try {
+                        new OpFiringEntryReader(entryInput -> reader.readFrom(key, entryInput)).readFrom(countingInput);
+                    } catch (IOException e) {
+                        throw new UncheckedWrapper(e);
+                    }
+                    context.setResult(new LoadOperationHitResult(countingInput.getCount()));
+                }
+
+                @Override
+                public BuildOperationDescriptor.Builder description() {
+                    return loadDescription(key);
+                }
+            });
+        } catch (UncheckedWrapper uncheckedWrapper) {
+            throw uncheckedWrapper.getIOException();
+        }
+    }
+
+    private BuildOperationDescriptor.Builder loadDescription(BuildCacheKey key) {
+        return BuildOperationDescriptor.displayName(Operation.LOAD.describe(key, role))
+            .details(new LoadOperationDetails(key))
+            .progressDisplayName("Requesting from remote build cache");
+    }
+
     @Override
     protected void storeInner(final String description, final BuildCacheKey key, final StoreTarget storeTarget) {
         buildOperationRunner.run(new RunnableBuildOperation() {
@@ -19,11 +19,14 @@
 import com.google.common.annotations.VisibleForTesting;
 import org.gradle.caching.BuildCacheKey;
 import org.gradle.caching.BuildCacheService;
+import org.gradle.caching.internal.BatchingBuildCacheService;
 import org.jspecify.annotations.Nullable;
 
 import java.io.Closeable;
 import java.io.File;
+import java.util.Collection;
 import java.util.Optional;
+import java.util.Set;
 import java.util.function.Function;
 
 public interface RemoteBuildCacheServiceHandle extends Closeable {
@@ -41,6 +44,22 @@ public interface RemoteBuildCacheServiceHandle extends Closeable {
      */
     Optional<BuildCacheLoadResult> maybeLoad(BuildCacheKey key, File toFile, Function<File, BuildCacheLoadResult> unpackFunction);
 
+    /**
+     * Loads the entries for the given keys with as few requests as possible, and passes them to the given reader.
+     *
+     * Returns the keys that were found, or an empty result when loading is disabled,
+     * when the service cannot load several entries at once or when the lookup failed.
+     */
+    Optional<Set<BuildCacheKey>> maybeLoadAll(Collection<? extends BuildCacheKey> keys, BatchingBuildCacheService.EntryReader reader);
+
+    /**
+     * Checks which of the given keys have an entry in the cache, with as few requests as possible.
+     *
+     * Returns the keys that were found, or an empty result when loading is disabled,
+     * when the service cannot check several entries at once or when the lookup failed.
+     */
+    Optional<Set<BuildCacheKey>> maybeContainsAll(Collection<? extends BuildCacheKey> keys);
+
     boolean canStore();
 
     /**
@@ -0,0 +1,175 @@
+/*
+ * Copyright 2025 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.caching.internal.controller
+
+import org.gradle.caching.BuildCacheKey
+import org.gradle.caching.internal.TestBuildCacheKey
+import org.gradle.caching.internal.controller.service.RemoteBuildCacheServiceHandle
+import org.gradle.caching.internal.operations.BuildCacheRemoteStoreQueueDrainBuildOperationType
+import org.gradle.caching.local.internal.TemporaryFileFactory
+import org.gradle.internal.concurrent.DefaultExecutorFactory
+import org.gradle.internal.operations.BuildOperationProgressEventEmitter
+import org.gradle.internal.operations.TestBuildOperationRunner
+import org.gradle.test.fixtures.file.TestNameTestDirectoryProvider
+import org.junit.Rule
+import spock.lang.Specification
+import spock.lang.Timeout
+
+import java.nio.file.Files
+import java.time.Duration
+import java.util.concurrent.ConcurrentHashMap
+import java.util.concurrent.CountDownLatch
+import java.util.concurrent.TimeUnit
+
+@Timeout(60)
+class AsyncRemoteStoreQueueTest extends Specification {
+
+    @Rule
+    final TestNameTestDirectoryProvider tmpDir = new TestNameTestDirectoryProvider(getClass())
+
+    def executorFactory = new DefaultExecutorFactory()
+    def operations = new TestBuildOperationRunner()
+    def progressEventEmitter = Mock(BuildOperationProgressEventEmitter)
+    def storedContents = new ConcurrentHashMap<String, String>()
+    def uploadsStarted = new CountDownLatch(1)
+    def releaseUploads = new CountDownLatch(0)
+
+    def remote = Stub(RemoteBuildCacheServiceHandle) {
+        canStore() >> true
+        maybeStore(_ as BuildCacheKey, _ as File) >> { BuildCacheKey key, File file ->
+            storedContents.put(key.hashCode, file.text)
+            uploadsStarted.countDown()
+            releaseUploads.await()
+            true
+        }
+    }
+
+    def cleanup() {
+        executorFactory.stop()
+    }
+
+    AsyncRemoteStoreQueue createQueue(int maxConcurrentStores = 2, int queueCapacity = 4, Duration drainTimeout = Duration.ofSeconds(30)) {
+        new AsyncRemoteStoreQueue(
+            remote,
+            { prefix, suffix -> Files.createTempFile(tmpDir.testDirectory.toPath(), prefix, suffix).toFile() } as TemporaryFileFactory,
+            operations,
+            progressEventEmitter,
+            new AsyncRemoteStoreQueue.Settings(executorFactory, maxConcurrentStores, queueCapacity, drainTimeout)
+        )
+    }
+
+    def "uploads queued entries and waits for them when closed"() {
+        def queue = createQueue()
+        def keys = (1..10).collect { new TestBuildCacheKey(it) }
+
+        when:
+        keys.each { key ->
+            def entry = tmpDir.file("entry-${key.hashCode}")
+            entry.text = "content-${key.hashCode}"
+            queue.submit(key, entry)
+        }
+        queue.close()
+
+        then:
+        storedContents.size() == 10
+        keys.every { storedContents[it.hashCode] == "content-${it.hashCode}" }
+        queue.pendingStoreCount == 0
+        10 * progressEventEmitter.emitNowIfCurrent(_)
+
+        and:
+        def result = operations.log.mostRecentResult(BuildCacheRemoteStoreQueueDrainBuildOperationType)
+        result.submittedStoreCount == 10
+        result.cancelledStoreCount == 0
+        result.maxQueueDepth >= 1
+    }
+
+    def "entry file can be removed once submitted"() {
+        def queue = createQueue()
+        def key = new TestBuildCacheKey(1)
+        def entry = tmpDir.file("entry")
+        entry.text = "content"
+
+        when:
+        queue.submit(key, entry)
+        entry.delete()
+        queue.close()
+
+        then:
+        storedContents[key.hashCode] == "content"
+    }
+
+    def "blocks submitting when queue is full"() {
+        releaseUploads = new CountDownLatch(1)
+        def queue = createQueue(1, 1)
+        def entry = tmpDir.file("entry")
+        entry.text = "content"
+        queue.submit(new TestBuildCacheKey(1), entry)
+        uploadsStarted.await()
+
+        when:
+        def submitted = new CountDownLatch(1)
+        def submitter = Thread.start {
+            queue.submit(new TestBuildCacheKey(2), entry)
+            submitted.countDown()
+        }
+
+        then:
+        !submitted.await(200, TimeUnit.MILLISECONDS)
+        queue.pendingStoreCount == 1
+
+        when:
+        releaseUploads.countDown()
+        submitter.join()
+        queue.close()
+
+        then:
+        submitted.count == 0
+        storedContents.keySet() == [new TestBuildCacheKey(1).hashCode, new TestBuildCacheKey(2).hashCode] as Set
+    }
+
+    def "cancels pending stores that do not complete in time"() {
+        releaseUploads = new CountDownLatch(1)
+        def queue = createQueue(1, 4, Duration.ofMillis(100))
+        def entry = tmpDir.file("entry")
+        entry.text = "content"
+
+        when:
+        (1..3).each { queue.submit(new TestBuildCacheKey(it), entry) }
+        uploadsStarted.await()
+        queue.close()
+
+        then:
+        def result = operations.log.mostRecentResult(BuildCacheRemoteStoreQueueDrainBuildOperationType)
+        result.submittedStoreCount == 3
+        result.cancelledStoreCount == 3
+        storedContents.size() == 1
+
+        cleanup:
+        releaseUploads.countDown()
+    }
+
+    def "cannot submit after close"() {
+        def queue = createQueue()
+        queue.close()
+
+        when:
+        queue.submit(new TestBuildCacheKey(1), tmpDir.file("entry"))
+
+        then:
+        thrown(IllegalStateException)
+    }
+}
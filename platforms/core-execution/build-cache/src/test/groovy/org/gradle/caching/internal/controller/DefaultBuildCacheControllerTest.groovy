@@ -28,6 +28,7 @@ import org.gradle.caching.internal.origin.OriginMetadataFactory
 import org.gradle.caching.internal.packaging.BuildCacheEntryPacker
 import org.gradle.caching.local.internal.LocalBuildCacheService
 import org.gradle.caching.local.internal.TemporaryFileFactory
+import org.gradle.internal.concurrent.DefaultExecutorFactory
 import org.gradle.internal.hash.HashCode
 import org.gradle.internal.operations.NoOpBuildOperationProgressEventEmitter
 import org.gradle.internal.operations.TestBuildOperationRunner
@@ -64,6 +65,9 @@ class DefaultBuildCacheControllerTest extends Specification {
     OriginMetadataFactory originMetadataFactory = Stub(OriginMetadataFactory)
     Interner<String> stringInterner = Stub(Interner)
 
+    AsyncRemoteStoreQueue.Settings asyncRemoteStoreSettings = null
+    RemoteLoadPrefetcher.Settings remotePrefetchSettings = null
+
     def operations = new TestBuildOperationRunner()
     def buildOperationProgressEmitter = new NoOpBuildOperationProgressEventEmitter()
 
@@ -88,7 +92,9 @@ class DefaultBuildCacheControllerTest extends Specification {
             disableRemoteOnError,
             packer,
             originMetadataFactory,
-            stringInterner
+            stringInterner,
+            asyncRemoteStoreSettings,
+            remotePrefetchSettings
         )
     }
 
@@ -276,4 +282,25 @@ class DefaultBuildCacheControllerTest extends Specification {
         1 * local.close()
         1 * remote.close()
     }
+
+    def "waits for remote stores in the background before closing remote when async stores are enabled"() {
+        given:
+        def executorFactory = new DefaultExecutorFactory()
+        asyncRemoteStoreSettings = new AsyncRemoteStoreQueue.Settings(executorFactory, 1, 1, Duration.ofSeconds(30))
+        def controller = getController()
+
+        when:
+        controller.store(key, cacheableEntity, snapshots, executionTime)
+        controller.close()
+
+        then:
+        1 * local.storeLocally(key, _)
+        1 * remote.store(key, _)
+
+        then:
+        1 * remote.close()
+
+        cleanup:
+        executorFactory.stop()
+    }
 }
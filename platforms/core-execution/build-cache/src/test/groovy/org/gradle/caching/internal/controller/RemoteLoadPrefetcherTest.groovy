@@ -0,0 +1,189 @@
+/*
+ * Copyright 2025 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.caching.internal.controller
+
+import org.gradle.caching.internal.TestBuildCacheKey
+import org.gradle.caching.internal.controller.service.LocalBuildCacheServiceHandle
+import org.gradle.caching.internal.controller.service.RemoteBuildCacheServiceHandle
+import org.gradle.caching.local.internal.BuildCacheTempFileStore
+import org.gradle.internal.concurrent.ExecutorFactory
+import org.gradle.internal.concurrent.ManagedExecutor
+import org.gradle.test.fixtures.file.TestNameTestDirectoryProvider
+import org.junit.Rule
+import spock.lang.Specification
+
+import java.util.function.Consumer
+
+class RemoteLoadPrefetcherTest extends Specification {
+
+    @Rule
+    final TestNameTestDirectoryProvider tmpDir = new TestNameTestDirectoryProvider(getClass())
+
+    def remote = Mock(RemoteBuildCacheServiceHandle)
+    def local = Mock(LocalBuildCacheServiceHandle)
+    def tmp = Stub(BuildCacheTempFileStore) {
+        withTempFile(_, _) >> { key, Consumer<File> action -> action.accept(tmpDir.file("tmp-entry")) }
+    }
+    def queuedLookups = []
+    def executor = Stub(ManagedExecutor) {
+        execute(_ as Runnable) >> { Runnable lookup -> queuedLookups << lookup }
+    }
+    def executorFactory = Stub(ExecutorFactory) {
+        create(_ as String, _ as int) >> executor
+    }
+
+    def key1 = new TestBuildCacheKey(1)
+    def key2 = new TestBuildCacheKey(2)
+    def key3 = new TestBuildCacheKey(3)
+
+    def "looks up keys requested while a lookup is pending in a single batch"() {
+        def prefetcher = prefetcher(10)
+
+        when:
+        prefetcher.prefetch(key1)
+        prefetcher.prefetch(key2)
+        prefetcher.prefetch(key1)
+        runQueuedLookups()
+
+        then:
+        _ * local.contains(_) >> false
+        _ * local.canStore() >> true
+        1 * remote.maybeLoadAll([key1, key2], _) >> { keys, reader ->
+            reader.readFrom(key1, new ByteArrayInputStream("entry".bytes))
+            Optional.of([key1] as Set)
+        }
+        1 * local.maybeStore(key1, _ as File)
+        0 * remote._
+
+        and:
+        !prefetcher.consumeKnownMiss(key1)
+        prefetcher.consumeKnownMiss(key2)
+    }
+
+    def "a miss only answers a single lookup"() {
+        def prefetcher = prefetcher(10)
+
+        when:
+        prefetcher.prefetch(key1)
+        runQueuedLookups()
+
+        then:
+        _ * local.contains(_) >> false
+        _ * local.canStore() >> true
+        1 * remote.maybeLoadAll([key1], _) >> Optional.of([] as Set)
+
+        and:
+        prefetcher.consumeKnownMiss(key1)
+        !prefetcher.consumeKnownMiss(key1)
+    }
+
+    def "splits pending keys into batches of the configured size"() {
+        def prefetcher = prefetcher(2)
+
+        when:
+        [key1, key2, key3].each { prefetcher.prefetch(it) }
+        runQueuedLookups()
+
+        then:
+        _ * local.contains(_) >> false
+        _ * local.canStore() >> true
+        1 * remote.maybeLoadAll([key1, key2], _) >> Optional.of([] as Set)
+        1 * remote.maybeLoadAll([key3], _) >> Optional.of([] as Set)
+        0 * remote._
+
+        and:
+        [key1, key2, key3].every { prefetcher.consumeKnownMiss(it) }
+    }
+
+    def "skips keys already present in the local cache"() {
+        def prefetcher = prefetcher(10)
+
+        when:
+        prefetcher.prefetch(key1)
+        prefetcher.prefetch(key2)
+        runQueuedLookups()
+
+        then:
+        1 * local.contains(key1) >> true
+        1 * local.contains(key2) >> false
+        _ * local.canStore() >> true
+        1 * remote.maybeLoadAll([key2], _) >> Optional.of([key2] as Set)
+        0 * remote._
+
+        and:
+        !prefetcher.consumeKnownMiss(key1)
+        !prefetcher.consumeKnownMiss(key2)
+    }
+
+    def "only checks for existence when entries cannot be stored locally"() {
+        def prefetcher = prefetcher(10)
+
+        when:
+        prefetcher.prefetch(key1)
+        prefetcher.prefetch(key2)
+        runQueuedLookups()
+
+        then:
+        _ * local.contains(_) >> false
+        _ * local.canStore() >> false
+        1 * remote.maybeContainsAll([key1, key2]) >> Optional.of([key2] as Set)
+        0 * remote._
+
+        and:
+        prefetcher.consumeKnownMiss(key1)
+        !prefetcher.consumeKnownMiss(key2)
+    }
+
+    def "does not record misses when the batch lookup fails"() {
+        def prefetcher = prefetcher(10)
+
+        when:
+        prefetcher.prefetch(key1)
+        runQueuedLookups()
+
+        then:
+        _ * local.contains(_) >> false
+        _ * local.canStore() >> true
+        1 * remote.maybeLoadAll([key1], _) >> Optional.empty()
+
+        and:
+        !prefetcher.consumeKnownMiss(key1)
+    }
+
+    def "ignores requests after being closed"() {
+        def prefetcher = prefetcher(10)
+
+        when:
+        prefetcher.prefetch(key1)
+        prefetcher.close()
+        prefetcher.prefetch(key2)
+        runQueuedLookups()
+
+        then:
+        0 * remote._
+    }
+
+    private RemoteLoadPrefetcher prefetcher(int maxBatchSize) {
+        new RemoteLoadPrefetcher(remote, local, tmp, new RemoteLoadPrefetcher.Settings(executorFactory, 1, maxBatchSize))
+    }
+
+    private void runQueuedLookups() {
+        def lookups = new ArrayList<Runnable>(queuedLookups)
+        queuedLookups.clear()
+        lookups.each { it.run() }
+    }
+}
@@ -0,0 +1,54 @@
+/*
+ * Copyright 2025 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.caching.internal.controller.service
+
+import org.gradle.caching.internal.BatchingBuildCacheService
+import org.gradle.caching.internal.TestBuildCacheKey
+import org.gradle.caching.internal.operations.BuildCacheRemoteLoadBuildOperationType
+import org.gradle.internal.operations.NoOpBuildOperationProgressEventEmitter
+import org.gradle.internal.operations.TestBuildOperationRunner
+import spock.lang.Specification
+
+class OpFiringRemoteBuildCacheServiceHandleTest extends Specification {
+    def service = Mock(BatchingBuildCacheService)
+    def operations = new TestBuildOperationRunner()
+    def handle = new OpFiringRemoteBuildCacheServiceHandle(":", service, false, BuildCacheServiceRole.REMOTE, operations, new NoOpBuildOperationProgressEventEmitter(), false, true)
+
+    def "fires a load operation for each entry looked up in a batch"() {
+        def hit = new TestBuildCacheKey(1)
+        def miss = new TestBuildCacheKey(2)
+        def loaded = [:]
+
+        when:
+        def found = handle.maybeLoadAll([hit, miss]) { key, input -> loaded[key.hashCode] = input.bytes }
+
+        then:
+        1 * service.loadAll([hit, miss], _) >> { keys, BatchingBuildCacheService.EntryReader reader ->
+            reader.readFrom(hit, new ByteArrayInputStream([1, 2, 3] as byte[]))
+            [hit] as Set
+        }
+        found.get() == [hit] as Set
+        loaded[hit.hashCode] == [1, 2, 3] as byte[]
+
+        and:
+        def loads = operations.log.all(BuildCacheRemoteLoadBuildOperationType)
+        loads*.details*.cacheKey == [hit.hashCode, miss.hashCode]
+        loads[0].result.hit
+        loads[0].result.archiveSize == 3
+        !loads[1].result.hit
+    }
+}
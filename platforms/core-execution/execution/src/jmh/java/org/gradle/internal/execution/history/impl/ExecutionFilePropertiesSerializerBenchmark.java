@@ -0,0 +1,165 @@
+/*
+ * Copyright 2025 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.internal.execution.history.impl;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMultimap;
+import com.google.common.collect.ImmutableSortedMap;
+import com.google.common.collect.Interner;
+import com.google.common.collect.Interners;
+import org.gradle.internal.file.FileMetadata;
+import org.gradle.internal.file.FileType;
+import org.gradle.internal.file.impl.DefaultFileMetadata;
+import org.gradle.internal.fingerprint.FileCollectionFingerprint;
+import org.gradle.internal.fingerprint.FileSystemLocationFingerprint;
+import org.gradle.internal.fingerprint.impl.DefaultFileSystemLocationFingerprint;
+import org.gradle.internal.fingerprint.impl.IgnoredPathFileSystemLocationFingerprint;
+import org.gradle.internal.hash.HashCode;
+import org.gradle.internal.hash.Hashing;
+import org.gradle.internal.serialize.Serializer;
+import org.gradle.internal.serialize.kryo.KryoBackedDecoder;
+import org.gradle.internal.serialize.kryo.KryoBackedEncoder;
+import org.gradle.internal.snapshot.DirectorySnapshot;
+import org.gradle.internal.snapshot.FileSystemLocationSnapshot;
+import org.gradle.internal.snapshot.FileSystemSnapshot;
+import org.gradle.internal.snapshot.RegularFileSnapshot;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Compares the formats of the file properties in the execution history.
+ * <p>
+ * The history entry has a source tree fingerprinted with relative paths, the same tree fingerprinted for a classpath,
+ * and an output directory with one class file per source file.
+ * The encoded size of the entry is printed during setup.
+ * <p>
+ * {@link #readRootHashes} reads the entry and looks at the root hashes only, like an up-to-date check of unchanged inputs does,
+ * while {@link #readAllEntries} also reads the entries of every fingerprint.
+ */
+@Fork(1)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@State(Scope.Benchmark)
+public class ExecutionFilePropertiesSerializerBenchmark {
+    private static final int FILES_PER_DIRECTORY = 50;
+
+    @Param({"per-property", "columnar"})
+    String format;
+
+    @Param({"1000", "100000"})
+    int fileCount;
+
+    private Serializer<ExecutionFileProperties> serializer;
+    private ExecutionFileProperties fileProperties;
+    private byte[] encoded;
+
+    @Setup(Level.Trial)
+    public void setup() throws Exception {
+        Interner<String> stringInterner = Interners.newStrongInterner();
+        switch (format) {
+            case "per-property":
+                serializer = new ExecutionFilePropertiesSerializer(new FileCollectionFingerprintSerializer(stringInterner), new FileSystemSnapshotSerializer(stringInterner));
+                break;
+            case "columnar":
+                serializer = new ColumnarExecutionFilePropertiesSerializer(stringInterner);
+                break;
+            default:
+                throw new IllegalArgumentException(format);
+        }
+        fileProperties = createFileProperties();
+        encoded = write();
+        System.out.printf(">>> Entry with %d files is %d bytes long in the %s format%n", fileCount, encoded.length, format);
+    }
+
+    private ExecutionFileProperties createFileProperties() {
+        String sourceRoot = "/home/user/workspace/project/subproject/src/main/java";
+        String outputRoot = "/home/user/workspace/project/subproject/build/classes/java/main";
+        Map<String, FileSystemLocationFingerprint> sources = new LinkedHashMap<>();
+        Map<String, FileSystemLocationFingerprint> classpath = new LinkedHashMap<>();
+        ImmutableList.Builder<FileSystemLocationSnapshot> outputDirectories = ImmutableList.builder();
+        ImmutableList.Builder<FileSystemLocationSnapshot> outputFiles = ImmutableList.builder();
+        for (int i = 0; i < fileCount; i++) {
+            int directoryIndex = i / FILES_PER_DIRECTORY;
+            String packagePath = "org/gradle/example/feature" + directoryIndex;
+            String relativePath = packagePath + "/Example" + i + ".java";
+            HashCode contentHash = Hashing.hashString("source " + i);
+            sources.put(sourceRoot + "/" + relativePath, new DefaultFileSystemLocationFingerprint(relativePath, FileType.RegularFile, contentHash));
+            classpath.put(sourceRoot + "/" + relativePath, IgnoredPathFileSystemLocationFingerprint.create(FileType.RegularFile, contentHash));
+
+            String className = "Example" + i + ".class";
+            outputFiles.add(new RegularFileSnapshot(outputRoot + "/" + packagePath + "/" + className, className, Hashing.hashString("class " + i), DefaultFileMetadata.file(i, i, FileMetadata.AccessType.DIRECT)));
+            if ((i + 1) % FILES_PER_DIRECTORY == 0 || i == fileCount - 1) {
+                String directoryName = "feature" + directoryIndex;
+                List<FileSystemLocationSnapshot> children = outputFiles.build();
+                outputDirectories.add(new DirectorySnapshot(outputRoot + "/org/gradle/example/" + directoryName, directoryName, FileMetadata.AccessType.DIRECT, Hashing.hashString("directory " + directoryIndex), children));
+                outputFiles = ImmutableList.builder();
+            }
+        }
+        HashCode rootHash = Hashing.hashString("root");
+        FileSystemSnapshot outputs = new DirectorySnapshot(outputRoot, "main", FileMetadata.AccessType.DIRECT, Hashing.hashString("output"), outputDirectories.build());
+        return new ExecutionFileProperties(
+            ImmutableSortedMap.of(
+                "classpath", new SerializableFileCollectionFingerprint(classpath, ImmutableMultimap.of(sourceRoot, rootHash), Hashing.hashString("classpath")),
+                "sources", new SerializableFileCollectionFingerprint(sources, ImmutableMultimap.of(sourceRoot, rootHash), Hashing.hashString("relative"))
+            ),
+            ImmutableSortedMap.of("destinationDirectory", outputs)
+        );
+    }
+
+    @Benchmark
+    public byte[] write() throws Exception {
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        try (KryoBackedEncoder encoder = new KryoBackedEncoder(output)) {
+            serializer.write(encoder, fileProperties);
+        }
+        return output.toByteArray();
+    }
+
+    @Benchmark
+    public void readRootHashes(Blackhole blackhole) throws Exception {
+        for (FileCollectionFingerprint fingerprint : read().getInputFileProperties().values()) {
+            blackhole.consume(fingerprint.getRootHashes());
+        }
+    }
+
+    @Benchmark
+    public void readAllEntries(Blackhole blackhole) throws Exception {
+        for (FileCollectionFingerprint fingerprint : read().getInputFileProperties().values()) {
+            blackhole.consume(fingerprint.getFingerprints().size());
+        }
+    }
+
+    private ExecutionFileProperties read() throws Exception {
+        try (KryoBackedDecoder decoder = new KryoBackedDecoder(new ByteArrayInputStream(encoded))) {
+            return serializer.read(decoder);
+        }
+    }
+}
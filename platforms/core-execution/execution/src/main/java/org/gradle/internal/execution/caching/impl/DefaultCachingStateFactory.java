@@ -48,6 +48,11 @@ public final CachingState createCachingState(BeforeExecutionState beforeExecutio
     public HashCode calculateCacheKey(BeforeExecutionState beforeExecutionState) {
         final Hasher cacheKeyHasher = Hashing.newHasher();
 
+        if (Hashing.defaultFunction() != Hashing.md5()) {
+            // Make sure keys calculated with different hash functions never match
+            cacheKeyHasher.putString(Hashing.defaultFunction().getAlgorithm());
+        }
+
         logger.warn("Appending implementation to build cache key: {}",
             beforeExecutionState.getImplementation());
         beforeExecutionState.getImplementation().appendToHasher(cacheKeyHasher);
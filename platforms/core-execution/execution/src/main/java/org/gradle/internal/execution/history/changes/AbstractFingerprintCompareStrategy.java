@@ -18,6 +18,7 @@
 
 import org.gradle.internal.fingerprint.FileCollectionFingerprint;
 import org.gradle.internal.fingerprint.FileSystemLocationFingerprint;
+import org.gradle.internal.hash.HashCode;
 
 public abstract class AbstractFingerprintCompareStrategy extends CompareStrategy<FileCollectionFingerprint, FileSystemLocationFingerprint> implements FingerprintCompareStrategy {
 
@@ -57,4 +58,14 @@ public AbstractFingerprintCompareStrategy(ChangeDetector<FileSystemLocationFinge
             new TrivialChangeDetector<>(ITEM_COMPARATOR, FINGERPRINT_CHANGE_FACTORY, changeDetector)
         );
     }
+
+    @Override
+    protected boolean hasSameContents(FileCollectionFingerprint previous, FileCollectionFingerprint current) {
+        HashCode previousHash = previous.getHashIfAvailable();
+        if (previousHash == null) {
+            return false;
+        }
+        HashCode currentHash = current.getHashIfAvailable();
+        return previousHash.equals(currentHash);
+    }
 }
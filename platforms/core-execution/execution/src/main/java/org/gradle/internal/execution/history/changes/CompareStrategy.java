@@ -42,9 +42,19 @@ public boolean visitChangesSince(C previous, C current, String propertyTitle, Ch
         if (Iterables.elementsEqual(rootHasher.apply(previous).entries(), rootHasher.apply(current).entries())) {
             return true;
         }
+        if (hasSameContents(previous, current)) {
+            return true;
+        }
         return changeDetector.visitChangesSince(indexer.apply(previous), indexer.apply(current), propertyTitle, visitor);
     }
 
+    /**
+     * Whether the two collections are known to have the same contents without comparing their items one by one.
+     */
+    protected boolean hasSameContents(C previous, C current) {
+        return false;
+    }
+
     public interface ChangeDetector<S> {
         boolean visitChangesSince(Map<String, S> previous, Map<String, S> current, String propertyTitle, ChangeVisitor visitor);
     }
@@ -0,0 +1,370 @@
+/*
+ * Copyright 2025 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.internal.execution.history.impl;
+
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableMultimap;
+import com.google.common.collect.ImmutableSortedMap;
+import com.google.common.collect.Interner;
+import org.gradle.internal.file.FileType;
+import org.gradle.internal.fingerprint.FileCollectionFingerprint;
+import org.gradle.internal.fingerprint.FileSystemLocationFingerprint;
+import org.gradle.internal.fingerprint.impl.DefaultFileSystemLocationFingerprint;
+import org.gradle.internal.fingerprint.impl.IgnoredPathFileSystemLocationFingerprint;
+import org.gradle.internal.hash.HashCode;
+import org.gradle.internal.serialize.AbstractSerializer;
+import org.gradle.internal.serialize.Decoder;
+import org.gradle.internal.serialize.Encoder;
+import org.gradle.internal.serialize.HashCodeSerializer;
+import org.gradle.internal.serialize.kryo.KryoBackedDecoder;
+import org.gradle.internal.serialize.kryo.KryoBackedEncoder;
+import org.gradle.internal.snapshot.FileSystemSnapshot;
+import org.gradle.internal.snapshot.SnapshotVisitResult;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Map;
+
+/**
+ * Writes the fingerprints and snapshots of all properties together, in a compact form.
+ * <ul>
+ *     <li>Each distinct hash is written once, to a {@link HashCodeDictionary} shared by all properties, and is referenced by its index.</li>
+ *     <li>The entries of a fingerprint are written column by column: absolute paths, kinds, content hashes, then normalized paths.
+ *     A path is written as the length of the prefix it shares with the previous path, followed by the rest of the path.
+ *     A normalized path that is a suffix of the absolute path is written as its length.</li>
+ *     <li>The root hashes and the combined hash of a fingerprint are read eagerly, but its entries are only decoded when they are first requested.
+ *     This way, comparing an input property whose root hashes or combined hash did not change does not decode its entries.</li>
+ * </ul>
+ * The data starts with a format version, so that the encoding can evolve.
+ *
+ * @see ExecutionFilePropertiesSerializer
+ */
+public class ColumnarExecutionFilePropertiesSerializer extends AbstractSerializer<ExecutionFileProperties> {
+    private static final byte FORMAT_VERSION = 1;
+
+    private static final byte DIR_FINGERPRINT = 1;
+    private static final byte MISSING_FILE_FINGERPRINT = 2;
+    private static final byte REGULAR_FILE_FINGERPRINT = 3;
+    private static final byte FILE_TYPE_MASK = 0x03;
+
+    private static final byte IGNORED_PATH_NORMALIZATION = 0;
+    private static final byte SUFFIX_PATH_NORMALIZATION = 1 << 2;
+    private static final byte LITERAL_PATH_NORMALIZATION = 2 << 2;
+    private static final byte NORMALIZATION_MASK = 0x03 << 2;
+
+    private final Interner<String> stringInterner;
+    private final FileSystemSnapshotSerializer fileSystemSnapshotSerializer;
+    private final HashCodeSerializer hashCodeSerializer = new HashCodeSerializer();
+
+    public ColumnarExecutionFilePropertiesSerializer(Interner<String> stringInterner) {
+        this.stringInterner = stringInterner;
+        this.fileSystemSnapshotSerializer = new FileSystemSnapshotSerializer(stringInterner);
+    }
+
+    @Override
+    public ExecutionFileProperties read(Decoder decoder) throws Exception {
+        byte version = decoder.readByte();
+        if (version != FORMAT_VERSION) {
+            throw new IOException(String.format("Unsupported execution history format version %d", version));
+        }
+        HashCodeDictionary hashes = HashCodeDictionary.read(decoder);
+        ImmutableSortedMap<String, FileCollectionFingerprint> inputFilesFingerprints = readFingerprints(decoder, hashes);
+        ImmutableSortedMap<String, FileSystemSnapshot> outputFilesSnapshots = readSnapshots(decoder, hashes);
+        return new ExecutionFileProperties(inputFilesFingerprints, outputFilesSnapshots);
+    }
+
+    @Override
+    public void write(Encoder encoder, ExecutionFileProperties value) throws Exception {
+        HashCodeDictionary.Builder hashes = new HashCodeDictionary.Builder();
+        collectHashes(value, hashes);
+
+        encoder.writeByte(FORMAT_VERSION);
+        hashes.write(encoder);
+        writeFingerprints(encoder, value.getInputFileProperties(), hashes);
+        writeSnapshots(encoder, value.getOutputFilesProducedByWork(), hashes);
+    }
+
+    private static void collectHashes(ExecutionFileProperties value, HashCodeDictionary.Builder hashes) {
+        for (FileCollectionFingerprint fingerprint : value.getInputFileProperties().values()) {
+            for (FileSystemLocationFingerprint entry : fingerprint.getFingerprints().values()) {
+                if (entry.getType() == FileType.RegularFile) {
+                    hashes.add(entry.getNormalizedContentHash());
+                }
+            }
+        }
+        for (FileSystemSnapshot snapshot : value.getOutputFilesProducedByWork().values()) {
+            snapshot.accept(entry -> {
+                if (entry.getType() != FileType.Missing) {
+                    hashes.add(entry.getHash());
+                }
+                return SnapshotVisitResult.CONTINUE;
+            });
+        }
+    }
+
+    private ImmutableSortedMap<String, FileCollectionFingerprint> readFingerprints(Decoder decoder, HashCodeDictionary hashes) throws IOException {
+        int count = decoder.readSmallInt();
+        ImmutableSortedMap.Builder<String, FileCollectionFingerprint> builder = ImmutableSortedMap.naturalOrder();
+        for (int fingerprintIdx = 0; fingerprintIdx < count; fingerprintIdx++) {
+            String property = decoder.readString();
+            builder.put(property, readFingerprint(decoder, hashes));
+        }
+        return builder.build();
+    }
+
+    private FileCollectionFingerprint readFingerprint(Decoder decoder, HashCodeDictionary hashes) throws IOException {
+        int entryCount = decoder.readSmallInt();
+        if (entryCount == 0) {
+            return FileCollectionFingerprint.EMPTY;
+        }
+        ImmutableMultimap<String, HashCode> rootHashes = readRootHashes(decoder);
+        HashCode strategyConfigurationHash = hashCodeSerializer.read(decoder);
+        HashCode hash = decoder.readBoolean() ? hashCodeSerializer.read(decoder) : null;
+        byte[] encodedEntries = decoder.readBinary();
+        return SerializableFileCollectionFingerprint.lazy(
+            () -> decodeEntries(entryCount, encodedEntries, hashes),
+            rootHashes,
+            strategyConfigurationHash,
+            hash
+        );
+    }
+
+    private ImmutableMultimap<String, HashCode> readRootHashes(Decoder decoder) throws IOException {
+        int numberOfRoots = decoder.readSmallInt();
+        if (numberOfRoots == 0) {
+            return ImmutableMultimap.of();
+        }
+        ImmutableMultimap.Builder<String, HashCode> builder = ImmutableMultimap.builder();
+        for (int i = 0; i < numberOfRoots; i++) {
+            String absolutePath = stringInterner.intern(decoder.readString());
+            HashCode rootHash = hashCodeSerializer.read(decoder);
+            builder.put(absolutePath, rootHash);
+        }
+        return builder.build();
+    }
+
+    private Map<String, FileSystemLocationFingerprint> decodeEntries(int entryCount, byte[] encodedEntries, HashCodeDictionary hashes) {
+        try (KryoBackedDecoder decoder = new KryoBackedDecoder(new ByteArrayInputStream(encodedEntries))) {
+            String[] absolutePaths = new String[entryCount];
+            String previousPath = "";
+            for (int i = 0; i < entryCount; i++) {
+                String path = readPrefixCompressed(decoder, previousPath);
+                absolutePaths[i] = stringInterner.intern(path);
+                previousPath = path;
+            }
+
+            byte[] kinds = new byte[entryCount];
+            decoder.readBytes(kinds);
+
+            HashCode[] contentHashes = new HashCode[entryCount];
+            for (int i = 0; i < entryCount; i++) {
+                contentHashes[i] = readContentHash(kinds[i], decoder, hashes);
+            }
+
+            ImmutableMap.Builder<String, FileSystemLocationFingerprint> fingerprints = ImmutableMap.builderWithExpectedSize(entryCount);
+            String previousNormalizedPath = "";
+            for (int i = 0; i < entryCount; i++) {
+                String absolutePath = absolutePaths[i];
+                FileType fileType = readFileType(kinds[i]);
+                FileSystemLocationFingerprint fingerprint;
+                switch (kinds[i] & NORMALIZATION_MASK) {
+                    case IGNORED_PATH_NORMALIZATION:
+                        fingerprint = IgnoredPathFileSystemLocationFingerprint.create(fileType, contentHashes[i]);
+                        break;
+                    case SUFFIX_PATH_NORMALIZATION:
+                        int length = decoder.readSmallInt();
+                        String suffix = absolutePath.substring(absolutePath.length() - length);
+                        fingerprint = new DefaultFileSystemLocationFingerprint(stringInterner.intern(suffix), fileType, contentHashes[i]);
+                        break;
+                    case LITERAL_PATH_NORMALIZATION:
+                        String normalizedPath = readPrefixCompressed(decoder, previousNormalizedPath);
+                        previousNormalizedPath = normalizedPath;
+                        fingerprint = new DefaultFileSystemLocationFingerprint(stringInterner.intern(normalizedPath), fileType, contentHashes[i]);
+                        break;
+                    default:
+                        throw new RuntimeException("Unable to read serialized file fingerprint. Unrecognized value found in the data stream.");
+                }
+                fingerprints.put(absolutePath, fingerprint);
+            }
+            return fingerprints.build();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Unable to read serialized file fingerprint", e);
+        }
+    }
+
+    private static HashCode readContentHash(byte kind, Decoder decoder, HashCodeDictionary hashes) throws IOException {
+        switch (readFileType(kind)) {
+            case Directory:
+                return FileSystemLocationFingerprint.DIR_SIGNATURE;
+            case Missing:
+                return FileSystemLocationFingerprint.MISSING_FILE_SIGNATURE;
+            case RegularFile:
+                return hashes.get(decoder.readSmallInt());
+            default:
+                throw new AssertionError();
+        }
+    }
+
+    private static FileType readFileType(byte kind) {
+        switch (kind & FILE_TYPE_MASK) {
+            case DIR_FINGERPRINT:
+                return FileType.Directory;
+            case MISSING_FILE_FINGERPRINT:
+                return FileType.Missing;
+            case REGULAR_FILE_FINGERPRINT:
+                return FileType.RegularFile;
+            default:
+                throw new RuntimeException("Unable to read serialized file fingerprint. Unrecognized value found in the data stream.");
+        }
+    }
+
+    private void writeFingerprints(Encoder encoder, Map<String, FileCollectionFingerprint> fingerprints, HashCodeDictionary.Builder hashes) throws IOException {
+        encoder.writeSmallInt(fingerprints.size());
+        for (Map.Entry<String, FileCollectionFingerprint> entry : fingerprints.entrySet()) {
+            encoder.writeString(entry.getKey());
+            writeFingerprint(encoder, entry.getValue(), hashes);
+        }
+    }
+
+    private void writeFingerprint(Encoder encoder, FileCollectionFingerprint fingerprint, HashCodeDictionary.Builder hashes) throws IOException {
+        Map<String, FileSystemLocationFingerprint> entries = fingerprint.getFingerprints();
+        encoder.writeSmallInt(entries.size());
+        if (entries.isEmpty()) {
+            return;
+        }
+        ImmutableMultimap<String, HashCode> rootHashes = fingerprint.getRootHashes();
+        encoder.writeSmallInt(rootHashes.size());
+        for (Map.Entry<String, HashCode> entry : rootHashes.entries()) {
+            encoder.writeString(entry.getKey());
+            hashCodeSerializer.write(encoder, entry.getValue());
+        }
+        hashCodeSerializer.write(encoder, ((SerializableFileCollectionFingerprint) fingerprint).getStrategyConfigurationHash());
+        HashCode hash = fingerprint.getHashIfAvailable();
+        encoder.writeBoolean(hash != null);
+        if (hash != null) {
+            hashCodeSerializer.write(encoder, hash);
+        }
+        encoder.writeBinary(encodeEntries(entries, hashes));
+    }
+
+    private static byte[] encodeEntries(Map<String, FileSystemLocationFingerprint> entries, HashCodeDictionary.Builder hashes) throws IOException {
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        try (KryoBackedEncoder encoder = new KryoBackedEncoder(output)) {
+            byte[] kinds = new byte[entries.size()];
+            int index = 0;
+            String previousPath = "";
+            for (Map.Entry<String, FileSystemLocationFingerprint> entry : entries.entrySet()) {
+                String absolutePath = entry.getKey();
+                writePrefixCompressed(encoder, previousPath, absolutePath);
+                kinds[index++] = kindOf(absolutePath, entry.getValue());
+                previousPath = absolutePath;
+            }
+
+            encoder.writeBytes(kinds);
+
+            for (FileSystemLocationFingerprint fingerprint : entries.values()) {
+                if (fingerprint.getType() == FileType.RegularFile) {
+                    encoder.writeSmallInt(hashes.indexOf(fingerprint.getNormalizedContentHash()));
+                }
+            }
+
+            index = 0;
+            String previousNormalizedPath = "";
+            for (FileSystemLocationFingerprint fingerprint : entries.values()) {
+                String normalizedPath = fingerprint.getNormalizedPath();
+                switch (kinds[index++] & NORMALIZATION_MASK) {
+                    case SUFFIX_PATH_NORMALIZATION:
+                        encoder.writeSmallInt(normalizedPath.length());
+                        break;
+                    case LITERAL_PATH_NORMALIZATION:
+                        writePrefixCompressed(encoder, previousNormalizedPath, normalizedPath);
+                        previousNormalizedPath = normalizedPath;
+                        break;
+                    default:
+                        break;
+                }
+            }
+        }
+        return output.toByteArray();
+    }
+
+    private static byte kindOf(String absolutePath, FileSystemLocationFingerprint fingerprint) {
+        byte fileType;
+        switch (fingerprint.getType()) {
+            case Directory:
+                fileType = DIR_FINGERPRINT;
+                break;
+            case Missing:
+                fileType = MISSING_FILE_FINGERPRINT;
+                break;
+            case RegularFile:
+                fileType = REGULAR_FILE_FINGERPRINT;
+                break;
+            default:
+                throw new AssertionError();
+        }
+
+        byte normalization;
+        if (fingerprint instanceof DefaultFileSystemLocationFingerprint) {
+            normalization = absolutePath.endsWith(fingerprint.getNormalizedPath())
+                ? SUFFIX_PATH_NORMALIZATION
+                : LITERAL_PATH_NORMALIZATION;
+        } else if (fingerprint instanceof IgnoredPathFileSystemLocationFingerprint) {
+            normalization = IGNORED_PATH_NORMALIZATION;
+        } else {
+            throw new AssertionError();
+        }
+        return (byte) (fileType | normalization);
+    }
+
+    private static String readPrefixCompressed(Decoder decoder, String previous) throws IOException {
+        int sharedPrefixLength = decoder.readSmallInt();
+        String rest = decoder.readString();
+        return sharedPrefixLength == 0 ? rest : previous.substring(0, sharedPrefixLength) + rest;
+    }
+
+    private static void writePrefixCompressed(Encoder encoder, String previous, String value) throws IOException {
+        int maxLength = Math.min(previous.length(), value.length());
+        int sharedPrefixLength = 0;
+        while (sharedPrefixLength < maxLength && previous.charAt(sharedPrefixLength) == value.charAt(sharedPrefixLength)) {
+            sharedPrefixLength++;
+        }
+        encoder.writeSmallInt(sharedPrefixLength);
+        encoder.writeString(value.substring(sharedPrefixLength));
+    }
+
+    private ImmutableSortedMap<String, FileSystemSnapshot> readSnapshots(Decoder decoder, HashCodeDictionary hashes) throws Exception {
+        int count = decoder.readSmallInt();
+        ImmutableSortedMap.Builder<String, FileSystemSnapshot> builder = ImmutableSortedMap.naturalOrder();
+        for (int snapshotIdx = 0; snapshotIdx < count; snapshotIdx++) {
+            String property = decoder.readString();
+            FileSystemSnapshot snapshot = fileSystemSnapshotSerializer.read(decoder, snapshotDecoder -> hashes.get(snapshotDecoder.readSmallInt()));
+            builder.put(property, snapshot);
+        }
+        return builder.build();
+    }
+
+    private void writeSnapshots(Encoder encoder, ImmutableSortedMap<String, FileSystemSnapshot> snapshots, HashCodeDictionary.Builder hashes) throws Exception {
+        encoder.writeSmallInt(snapshots.size());
+        for (Map.Entry<String, FileSystemSnapshot> entry : snapshots.entrySet()) {
+            encoder.writeString(entry.getKey());
+            fileSystemSnapshotSerializer.write(encoder, entry.getValue(), (snapshotEncoder, hash) -> snapshotEncoder.writeSmallInt(hashes.indexOf(hash)));
+        }
+    }
+}
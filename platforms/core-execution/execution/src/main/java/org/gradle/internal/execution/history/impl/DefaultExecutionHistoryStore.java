@@ -29,7 +29,9 @@
 import org.gradle.internal.fingerprint.CurrentFileCollectionFingerprint;
 import org.gradle.internal.fingerprint.FileCollectionFingerprint;
 import org.gradle.internal.hash.ClassLoaderHierarchyHasher;
+import org.gradle.internal.hash.Hashing;
 import org.gradle.internal.serialize.HashCodeSerializer;
+import org.gradle.internal.serialize.Serializer;
 
 import java.util.Optional;
 import java.util.function.Supplier;
@@ -39,6 +41,11 @@
 
 public class DefaultExecutionHistoryStore implements ExecutionHistoryStore {
 
+    /**
+     * Stores the fingerprints and snapshots using {@link ColumnarExecutionFilePropertiesSerializer} when set to {@code true}.
+     */
+    public static final String COLUMNAR_FORMAT_PROPERTY = "org.gradle.unsafe.execution-history.columnar-format";
+
     private final IndexedCache<String, PreviousExecutionState> store;
 
     public DefaultExecutionHistoryStore(
@@ -47,16 +54,30 @@ public DefaultExecutionHistoryStore(
         Interner<String> stringInterner,
         ClassLoaderHierarchyHasher classLoaderHasher
     ) {
+        this(cache, inMemoryCacheDecoratorFactory, stringInterner, classLoaderHasher, false);
+    }
+
+    public DefaultExecutionHistoryStore(
+        Supplier<PersistentCache> cache,
+        InMemoryCacheDecoratorFactory inMemoryCacheDecoratorFactory,
+        Interner<String> stringInterner,
+        ClassLoaderHierarchyHasher classLoaderHasher,
+        boolean columnarFormat
+    ) {
+        Serializer<ExecutionFileProperties> filePropertiesSerializer = columnarFormat
+            ? new ColumnarExecutionFilePropertiesSerializer(stringInterner)
+            : new ExecutionFilePropertiesSerializer(new FileCollectionFingerprintSerializer(stringInterner), new FileSystemSnapshotSerializer(stringInterner));
         DefaultPreviousExecutionStateSerializer serializer = new DefaultPreviousExecutionStateSerializer(
-            new FileCollectionFingerprintSerializer(stringInterner),
-            new FileSystemSnapshotSerializer(stringInterner),
+            filePropertiesSerializer,
             classLoaderHasher,
             new HashCodeSerializer()
         );
+        // Keep the formats apart, as entries do not record which format they were written with
+        String cacheName = columnarFormat ? "executionHistory-columnar" : "executionHistory";
 
         CacheDecorator inMemoryCacheDecorator = inMemoryCacheDecoratorFactory.decorator(10000, false);
         this.store = cache.get().createIndexedCache(
-            IndexedCacheParameters.of("executionHistory", String.class, serializer)
+            IndexedCacheParameters.of(Hashing.qualifyCacheName(cacheName), String.class, serializer)
             .withCacheDecorator(inMemoryCacheDecorator)
         );
     }
@@ -38,8 +38,7 @@
 import java.util.Map;
 
 public class DefaultPreviousExecutionStateSerializer extends AbstractSerializer<PreviousExecutionState> {
-    private final Serializer<FileCollectionFingerprint> fileCollectionFingerprintSerializer;
-    private final Serializer<FileSystemSnapshot> fileSystemSnapshotSerializer;
+    private final Serializer<ExecutionFileProperties> filePropertiesSerializer;
     private final Serializer<ImplementationSnapshot> implementationSnapshotSerializer;
     private final Serializer<ValueSnapshot> valueSnapshotSerializer;
     private final HashCodeSerializer hashCodeSerializer;
@@ -51,8 +50,15 @@ public DefaultPreviousExecutionStateSerializer(
         ClassLoaderHierarchyHasher classLoaderHasher,
         HashCodeSerializer hashCodeSerializer
     ) {
-        this.fileCollectionFingerprintSerializer = fileCollectionFingerprintSerializer;
-        this.fileSystemSnapshotSerializer = fileSystemSnapshotSerializer;
+        this(new ExecutionFilePropertiesSerializer(fileCollectionFingerprintSerializer, fileSystemSnapshotSerializer), classLoaderHasher, hashCodeSerializer);
+    }
+
+    public DefaultPreviousExecutionStateSerializer(
+        Serializer<ExecutionFileProperties> filePropertiesSerializer,
+        ClassLoaderHierarchyHasher classLoaderHasher,
+        HashCodeSerializer hashCodeSerializer
+    ) {
+        this.filePropertiesSerializer = filePropertiesSerializer;
         this.hashCodeSerializer = hashCodeSerializer;
         this.implementationSnapshotSerializer = new ImplementationSnapshotSerializer();
         this.valueSnapshotSerializer = new SnapshotSerializer(classLoaderHasher);
@@ -77,8 +83,7 @@ public PreviousExecutionState read(Decoder decoder) throws Exception {
         ImmutableList<ImplementationSnapshot> taskActionImplementations = taskActionImplementationsBuilder.build();
 
         ImmutableSortedMap<String, ValueSnapshot> inputProperties = readInputProperties(decoder);
-        ImmutableSortedMap<String, FileCollectionFingerprint> inputFilesFingerprints = readFingerprints(decoder);
-        ImmutableSortedMap<String, FileSystemSnapshot> outputFilesSnapshots = readSnapshots(decoder);
+        ExecutionFileProperties fileProperties = filePropertiesSerializer.read(decoder);
 
         boolean successful = decoder.readBoolean();
 
@@ -88,8 +93,8 @@ public PreviousExecutionState read(Decoder decoder) throws Exception {
             taskImplementation,
             taskActionImplementations,
             inputProperties,
-            inputFilesFingerprints,
-            outputFilesSnapshots,
+            fileProperties.getInputFileProperties(),
+            fileProperties.getOutputFilesProducedByWork(),
             successful
         );
     }
@@ -107,8 +112,7 @@ public void write(Encoder encoder, PreviousExecutionState execution) throws Exce
         }
 
         writeInputProperties(encoder, execution.getInputProperties());
-        writeFingerprints(encoder, execution.getInputFileProperties());
-        writeSnapshots(encoder, execution.getOutputFilesProducedByWork());
+        filePropertiesSerializer.write(encoder, new ExecutionFileProperties(execution.getInputFileProperties(), execution.getOutputFilesProducedByWork()));
 
         encoder.writeBoolean(execution.isSuccessful());
     }
@@ -137,44 +141,6 @@ public void writeInputProperties(Encoder encoder, ImmutableMap<String, ValueSnap
         }
     }
 
-    private ImmutableSortedMap<String, FileCollectionFingerprint> readFingerprints(Decoder decoder) throws Exception {
-        int count = decoder.readSmallInt();
-        ImmutableSortedMap.Builder<String, FileCollectionFingerprint> builder = ImmutableSortedMap.naturalOrder();
-        for (int fingerprintIdx = 0; fingerprintIdx < count; fingerprintIdx++) {
-            String property = decoder.readString();
-            FileCollectionFingerprint fingerprint = fileCollectionFingerprintSerializer.read(decoder);
-            builder.put(property, fingerprint);
-        }
-        return builder.build();
-    }
-
-    private void writeFingerprints(Encoder encoder, Map<String, FileCollectionFingerprint> fingerprints) throws Exception {
-        encoder.writeSmallInt(fingerprints.size());
-        for (Map.Entry<String, FileCollectionFingerprint> entry : fingerprints.entrySet()) {
-            encoder.writeString(entry.getKey());
-            fileCollectionFingerprintSerializer.write(encoder, entry.getValue());
-        }
-    }
-
-    private ImmutableSortedMap<String, FileSystemSnapshot> readSnapshots(Decoder decoder) throws Exception {
-        int count = decoder.readSmallInt();
-        ImmutableSortedMap.Builder<String, FileSystemSnapshot> builder = ImmutableSortedMap.naturalOrder();
-        for (int snapshotIdx = 0; snapshotIdx < count; snapshotIdx++) {
-            String property = decoder.readString();
-            FileSystemSnapshot snapshot = fileSystemSnapshotSerializer.read(decoder);
-            builder.put(property, snapshot);
-        }
-        return builder.build();
-    }
-
-    private void writeSnapshots(Encoder encoder, ImmutableSortedMap<String, FileSystemSnapshot> snapshots) throws Exception {
-        encoder.writeSmallInt(snapshots.size());
-        for (Map.Entry<String, FileSystemSnapshot> entry : snapshots.entrySet()) {
-            encoder.writeString(entry.getKey());
-            fileSystemSnapshotSerializer.write(encoder, entry.getValue());
-        }
-    }
-
     private ValueSnapshot readValueSnapshot(Decoder decoder) throws Exception {
         return valueSnapshotSerializer.read(decoder);
     }
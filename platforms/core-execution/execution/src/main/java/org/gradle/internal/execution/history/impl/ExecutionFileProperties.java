@@ -0,0 +1,45 @@
+/*
+ * Copyright 2025 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.internal.execution.history.impl;
+
+import com.google.common.collect.ImmutableSortedMap;
+import org.gradle.internal.fingerprint.FileCollectionFingerprint;
+import org.gradle.internal.snapshot.FileSystemSnapshot;
+
+/**
+ * The file related parts of a {@link org.gradle.internal.execution.history.PreviousExecutionState}: the fingerprints of the input files and the snapshots of the outputs.
+ */
+public class ExecutionFileProperties {
+    private final ImmutableSortedMap<String, FileCollectionFingerprint> inputFileProperties;
+    private final ImmutableSortedMap<String, FileSystemSnapshot> outputFilesProducedByWork;
+
+    public ExecutionFileProperties(
+        ImmutableSortedMap<String, FileCollectionFingerprint> inputFileProperties,
+        ImmutableSortedMap<String, FileSystemSnapshot> outputFilesProducedByWork
+    ) {
+        this.inputFileProperties = inputFileProperties;
+        this.outputFilesProducedByWork = outputFilesProducedByWork;
+    }
+
+    public ImmutableSortedMap<String, FileCollectionFingerprint> getInputFileProperties() {
+        return inputFileProperties;
+    }
+
+    public ImmutableSortedMap<String, FileSystemSnapshot> getOutputFilesProducedByWork() {
+        return outputFilesProducedByWork;
+    }
+}
@@ -0,0 +1,96 @@
+/*
+ * Copyright 2025 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.internal.execution.history.impl;
+
+import com.google.common.collect.ImmutableSortedMap;
+import org.gradle.internal.fingerprint.FileCollectionFingerprint;
+import org.gradle.internal.serialize.AbstractSerializer;
+import org.gradle.internal.serialize.Decoder;
+import org.gradle.internal.serialize.Encoder;
+import org.gradle.internal.serialize.Serializer;
+import org.gradle.internal.snapshot.FileSystemSnapshot;
+
+import java.util.Map;
+
+/**
+ * Writes the fingerprint and the snapshot of each property one after the other, each of them on its own.
+ *
+ * @see ColumnarExecutionFilePropertiesSerializer
+ */
+public class ExecutionFilePropertiesSerializer extends AbstractSerializer<ExecutionFileProperties> {
+    private final Serializer<FileCollectionFingerprint> fileCollectionFingerprintSerializer;
+    private final Serializer<FileSystemSnapshot> fileSystemSnapshotSerializer;
+
+    public ExecutionFilePropertiesSerializer(
+        Serializer<FileCollectionFingerprint> fileCollectionFingerprintSerializer,
+        Serializer<FileSystemSnapshot> fileSystemSnapshotSerializer
+    ) {
+        this.fileCollectionFingerprintSerializer = fileCollectionFingerprintSerializer;
+        this.fileSystemSnapshotSerializer = fileSystemSnapshotSerializer;
+    }
+
+    @Override
+    public ExecutionFileProperties read(Decoder decoder) throws Exception {
+        ImmutableSortedMap<String, FileCollectionFingerprint> inputFilesFingerprints = readFingerprints(decoder);
+        ImmutableSortedMap<String, FileSystemSnapshot> outputFilesSnapshots = readSnapshots(decoder);
+        return new ExecutionFileProperties(inputFilesFingerprints, outputFilesSnapshots);
+    }
+
+    @Override
+    public void write(Encoder encoder, ExecutionFileProperties value) throws Exception {
+        writeFingerprints(encoder, value.getInputFileProperties());
+        writeSnapshots(encoder, value.getOutputFilesProducedByWork());
+    }
+
+    private ImmutableSortedMap<String, FileCollectionFingerprint> readFingerprints(Decoder decoder) throws Exception {
+        int count = decoder.readSmallInt();
+        ImmutableSortedMap.Builder<String, FileCollectionFingerprint> builder = ImmutableSortedMap.naturalOrder();
+        for (int fingerprintIdx = 0; fingerprintIdx < count; fingerprintIdx++) {
+            String property = decoder.readString();
+            FileCollectionFingerprint fingerprint = fileCollectionFingerprintSerializer.read(decoder);
+            builder.put(property, fingerprint);
+        }
+        return builder.build();
+    }
+
+    private void writeFingerprints(Encoder encoder, Map<String, FileCollectionFingerprint> fingerprints) throws Exception {
+        encoder.writeSmallInt(fingerprints.size());
+        for (Map.Entry<String, FileCollectionFingerprint> entry : fingerprints.entrySet()) {
+            encoder.writeString(entry.getKey());
+            fileCollectionFingerprintSerializer.write(encoder, entry.getValue());
+        }
+    }
+
+    private ImmutableSortedMap<String, FileSystemSnapshot> readSnapshots(Decoder decoder) throws Exception {
+        int count = decoder.readSmallInt();
+        ImmutableSortedMap.Builder<String, FileSystemSnapshot> builder = ImmutableSortedMap.naturalOrder();
+        for (int snapshotIdx = 0; snapshotIdx < count; snapshotIdx++) {
+            String property = decoder.readString();
+            FileSystemSnapshot snapshot = fileSystemSnapshotSerializer.read(decoder);
+            builder.put(property, snapshot);
+        }
+        return builder.build();
+    }
+
+    private void writeSnapshots(Encoder encoder, ImmutableSortedMap<String, FileSystemSnapshot> snapshots) throws Exception {
+        encoder.writeSmallInt(snapshots.size());
+        for (Map.Entry<String, FileSystemSnapshot> entry : snapshots.entrySet()) {
+            encoder.writeString(entry.getKey());
+            fileSystemSnapshotSerializer.write(encoder, entry.getValue());
+        }
+    }
+}
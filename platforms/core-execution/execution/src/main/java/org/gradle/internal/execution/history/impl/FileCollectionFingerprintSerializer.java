@@ -49,7 +49,8 @@ public FileCollectionFingerprint read(Decoder decoder) throws IOException {
         }
         ImmutableMultimap<String, HashCode> rootHashes = readRootHashes(decoder);
         HashCode strategyConfigurationHash = hashCodeSerializer.read(decoder);
-        return new SerializableFileCollectionFingerprint(fingerprints, rootHashes, strategyConfigurationHash);
+        HashCode hash = decoder.readBoolean() ? hashCodeSerializer.read(decoder) : null;
+        return new SerializableFileCollectionFingerprint(fingerprints, rootHashes, strategyConfigurationHash, hash);
     }
 
     private ImmutableMultimap<String, HashCode> readRootHashes(Decoder decoder) throws IOException {
@@ -72,6 +73,11 @@ public void write(Encoder encoder, FileCollectionFingerprint value) throws Excep
         if (!value.getFingerprints().isEmpty()) {
             writeRootHashes(encoder, value.getRootHashes());
             hashCodeSerializer.write(encoder, ((SerializableFileCollectionFingerprint) value).getStrategyConfigurationHash());
+            HashCode hash = value.getHashIfAvailable();
+            encoder.writeBoolean(hash != null);
+            if (hash != null) {
+                hashCodeSerializer.write(encoder, hash);
+            }
         }
     }
 
@@ -59,6 +59,13 @@ public FileSystemSnapshotSerializer(Interner<String> stringInterner) {
 
     @Override
     public FileSystemSnapshot read(Decoder decoder) throws Exception {
+        return read(decoder, FileSystemSnapshotSerializer::readHashCode);
+    }
+
+    /**
+     * Reads a snapshot written by {@link #write(Encoder, FileSystemSnapshot, HashCodeWriter)}, using the given reader for the hashes.
+     */
+    public FileSystemSnapshot read(Decoder decoder, HashCodeReader hashReader) throws Exception {
         SnapshotStack stack = new SnapshotStack();
         stack.push();
         Deque<String> pathTracker = new ArrayDeque<>();
@@ -89,7 +96,7 @@ public FileSystemSnapshot read(Decoder decoder) throws Exception {
             FileMetadata.AccessType accessType = readAccessType(decoder);
             switch (type) {
                 case REGULAR_FILE:
-                    HashCode contentHash = readHashCode(decoder);
+                    HashCode contentHash = hashReader.read(decoder);
                     long lastModified = decoder.readSmallLong();
                     long length = decoder.readSmallLong();
                     stack.add(new RegularFileSnapshot(internedAbsolutePath, internedName, contentHash, DefaultFileMetadata.file(lastModified, length, accessType)));
@@ -98,7 +105,7 @@ public FileSystemSnapshot read(Decoder decoder) throws Exception {
                     stack.add(new MissingFileSnapshot(internedAbsolutePath, internedName, accessType));
                     break;
                 case DIR_CLOSE:
-                    HashCode merkleHash = readHashCode(decoder);
+                    HashCode merkleHash = hashReader.read(decoder);
                     List<FileSystemLocationSnapshot> children = stack.pop();
                     stack.add(new DirectorySnapshot(internedAbsolutePath, internedName, accessType, merkleHash, children));
                     break;
@@ -111,6 +118,13 @@ public FileSystemSnapshot read(Decoder decoder) throws Exception {
 
     @Override
     public void write(Encoder encoder, FileSystemSnapshot value) throws Exception {
+        write(encoder, value, FileSystemSnapshotSerializer::writeHashCode);
+    }
+
+    /**
+     * Writes the given snapshot, using the given writer for the hashes of files and directories.
+     */
+    public void write(Encoder encoder, FileSystemSnapshot value, HashCodeWriter hashWriter) throws Exception {
         value.accept(new RootTrackingFileSystemSnapshotHierarchyVisitor() {
             @Override
             public void enterDirectory(DirectorySnapshot directorySnapshot, boolean isRoot) {
@@ -131,7 +145,7 @@ public void visitRegularFile(RegularFileSnapshot fileSnapshot) {
                             writeEntryType(encoder, EntryType.REGULAR_FILE);
                             writePath(encoder, isRoot, fileSnapshot);
                             writeAccessType(encoder, fileSnapshot.getAccessType());
-                            writeHashCode(encoder, fileSnapshot.getHash());
+                            hashWriter.write(encoder, fileSnapshot.getHash());
                             FileMetadata metadata = fileSnapshot.getMetadata();
                             encoder.writeSmallLong(metadata.getLastModified());
                             encoder.writeSmallLong(metadata.getLength());
@@ -159,7 +173,7 @@ public void leaveDirectory(DirectorySnapshot directorySnapshot, boolean isRoot)
                 try {
                     writeEntryType(encoder, EntryType.DIR_CLOSE);
                     writeAccessType(encoder, directorySnapshot.getAccessType());
-                    writeHashCode(encoder, directorySnapshot.getHash());
+                    hashWriter.write(encoder, directorySnapshot.getHash());
                 } catch (IOException e) {
                     throw new UncheckedIOException(e);
                 }
@@ -196,6 +210,20 @@ private static void writeHashCode(Encoder encoder, HashCode hashCode) throws IOE
         encoder.writeBinary(hashCode.toByteArray());
     }
 
+    /**
+     * Reads the hash of a file or a directory.
+     */
+    public interface HashCodeReader {
+        HashCode read(Decoder decoder) throws IOException;
+    }
+
+    /**
+     * Writes the hash of a file or a directory.
+     */
+    public interface HashCodeWriter {
+        void write(Encoder encoder, HashCode hashCode) throws IOException;
+    }
+
     private static class SnapshotStack {
         private final Deque<List<FileSystemLocationSnapshot>> stack = new ArrayDeque<>();
 
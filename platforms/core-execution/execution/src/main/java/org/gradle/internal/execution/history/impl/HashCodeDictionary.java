@@ -0,0 +1,115 @@
+/*
+ * Copyright 2025 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.internal.execution.history.impl;
+
+import org.gradle.internal.hash.HashCode;
+import org.gradle.internal.serialize.Decoder;
+import org.gradle.internal.serialize.Encoder;
+import org.gradle.internal.serialize.HashCodeSerializer;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * The distinct hashes of an execution history entry, so that each hash is written once and referenced by its index everywhere else.
+ * <p>
+ * When all hashes have the same length, which is the case unless the hash function changed, the hashes are stored back to back
+ * and a hash is only decoded once it is accessed.
+ */
+final class HashCodeDictionary {
+    private static final int VARIABLE_LENGTH = 0;
+    private static final HashCodeSerializer HASH_CODE_SERIALIZER = new HashCodeSerializer();
+
+    private final int hashLength;
+    private final byte[] encodedHashes;
+    private final HashCode[] hashes;
+
+    private HashCodeDictionary(int hashLength, byte[] encodedHashes, HashCode[] hashes) {
+        this.hashLength = hashLength;
+        this.encodedHashes = encodedHashes;
+        this.hashes = hashes;
+    }
+
+    public HashCode get(int index) {
+        HashCode hash = hashes[index];
+        if (hash == null) {
+            int offset = index * hashLength;
+            hash = HashCode.fromBytes(Arrays.copyOfRange(encodedHashes, offset, offset + hashLength));
+            // Racy, but hash codes are immutable, so the worst case is decoding the same hash twice
+            hashes[index] = hash;
+        }
+        return hash;
+    }
+
+    public static HashCodeDictionary read(Decoder decoder) throws IOException {
+        int count = decoder.readSmallInt();
+        int hashLength = decoder.readSmallInt();
+        if (hashLength == VARIABLE_LENGTH) {
+            HashCode[] hashes = new HashCode[count];
+            for (int i = 0; i < count; i++) {
+                hashes[i] = HASH_CODE_SERIALIZER.read(decoder);
+            }
+            return new HashCodeDictionary(VARIABLE_LENGTH, new byte[0], hashes);
+        }
+        byte[] encodedHashes = new byte[count * hashLength];
+        decoder.readBytes(encodedHashes);
+        return new HashCodeDictionary(hashLength, encodedHashes, new HashCode[count]);
+    }
+
+    public static class Builder {
+        private final Map<HashCode, Integer> indexes = new LinkedHashMap<>();
+
+        public void add(HashCode hash) {
+            indexes.putIfAbsent(hash, indexes.size());
+        }
+
+        public int indexOf(HashCode hash) {
+            Integer index = indexes.get(hash);
+            if (index == null) {
+                throw new IllegalStateException("Hash " + hash + " has not been added to the dictionary");
+            }
+            return index;
+        }
+
+        public void write(Encoder encoder) throws IOException {
+            int hashLength = getCommonHashLength();
+            encoder.writeSmallInt(indexes.size());
+            encoder.writeSmallInt(hashLength);
+            for (HashCode hash : indexes.keySet()) {
+                if (hashLength == VARIABLE_LENGTH) {
+                    HASH_CODE_SERIALIZER.write(encoder, hash);
+                } else {
+                    encoder.writeBytes(hash.toByteArray());
+                }
+            }
+        }
+
+        private int getCommonHashLength() {
+            int hashLength = VARIABLE_LENGTH;
+            for (HashCode hash : indexes.keySet()) {
+                if (hashLength == VARIABLE_LENGTH) {
+                    hashLength = hash.length();
+                } else if (hashLength != hash.length()) {
+                    return VARIABLE_LENGTH;
+                }
+            }
+            return hashLength;
+        }
+    }
+}
@@ -16,29 +16,52 @@
 
 package org.gradle.internal.execution.history.impl;
 
+import com.google.common.base.Supplier;
+import com.google.common.base.Suppliers;
 import com.google.common.collect.ImmutableMultimap;
 import org.gradle.internal.fingerprint.FileCollectionFingerprint;
 import org.gradle.internal.fingerprint.FileSystemLocationFingerprint;
 import org.gradle.internal.fingerprint.FingerprintingStrategy;
 import org.gradle.internal.hash.HashCode;
+import org.jspecify.annotations.Nullable;
 
 import java.util.Map;
 
 public class SerializableFileCollectionFingerprint implements FileCollectionFingerprint {
 
-    private final Map<String, FileSystemLocationFingerprint> fingerprints;
+    private final Supplier<Map<String, FileSystemLocationFingerprint>> fingerprints;
     private final ImmutableMultimap<String, HashCode> rootHashes;
     private final HashCode strategyConfigurationHash;
+    @Nullable
+    private final HashCode hash;
 
     public SerializableFileCollectionFingerprint(Map<String, FileSystemLocationFingerprint> fingerprints, ImmutableMultimap<String, HashCode> rootHashes, HashCode strategyConfigurationHash) {
+        this(fingerprints, rootHashes, strategyConfigurationHash, null);
+    }
+
+    public SerializableFileCollectionFingerprint(Map<String, FileSystemLocationFingerprint> fingerprints, ImmutableMultimap<String, HashCode> rootHashes, HashCode strategyConfigurationHash, @Nullable HashCode hash) {
+        this(Suppliers.ofInstance(fingerprints), rootHashes, strategyConfigurationHash, hash);
+    }
+
+    /**
+     * Creates a fingerprint whose entries are only computed once they are first requested.
+     * <p>
+     * Comparing the root hashes or the combined hash, or checking the strategy does not require the entries.
+     */
+    public static SerializableFileCollectionFingerprint lazy(Supplier<Map<String, FileSystemLocationFingerprint>> fingerprints, ImmutableMultimap<String, HashCode> rootHashes, HashCode strategyConfigurationHash, @Nullable HashCode hash) {
+        return new SerializableFileCollectionFingerprint(Suppliers.memoize(fingerprints), rootHashes, strategyConfigurationHash, hash);
+    }
+
+    private SerializableFileCollectionFingerprint(Supplier<Map<String, FileSystemLocationFingerprint>> fingerprints, ImmutableMultimap<String, HashCode> rootHashes, HashCode strategyConfigurationHash, @Nullable HashCode hash) {
         this.fingerprints = fingerprints;
         this.rootHashes = rootHashes;
         this.strategyConfigurationHash = strategyConfigurationHash;
+        this.hash = hash;
     }
 
     @Override
     public Map<String, FileSystemLocationFingerprint> getFingerprints() {
-        return fingerprints;
+        return fingerprints.get();
     }
 
     @Override
@@ -51,6 +74,15 @@ public boolean wasCreatedWithStrategy(FingerprintingStrategy strategy) {
         return strategy.getConfigurationHash().equals(strategyConfigurationHash);
     }
 
+    /**
+     * The combined hash of the fingerprints when they were taken, if it was recorded.
+     */
+    @Nullable
+    @Override
+    public HashCode getHashIfAvailable() {
+        return hash;
+    }
+
     public HashCode getStrategyConfigurationHash() {
         return strategyConfigurationHash;
     }
@@ -296,6 +296,31 @@ class FingerprintCompareStrategyTest extends Specification {
         strategy << ALL_STRATEGIES
     }
 
+    def "does not compare entries when combined hashes are equal (strategy: #strategy)"() {
+        def strategyConfigurationHash = TestHashCodes.hashCodeFrom(5432)
+        def hash = TestHashCodes.hashCodeFrom(1111)
+        def previous = SerializableFileCollectionFingerprint.lazy({ throw new AssertionError("entries should not be loaded") }, ImmutableMultimap.of("some", TestHashCodes.hashCodeFrom(4321)), strategyConfigurationHash, hash)
+        def current = new SerializableFileCollectionFingerprint(["one": fingerprint("one")], ImmutableMultimap.of("some", TestHashCodes.hashCodeFrom(1234)), strategyConfigurationHash, hash)
+
+        expect:
+        changes(strategy, current, previous).empty
+
+        where:
+        strategy << ALL_STRATEGIES
+    }
+
+    def "compares entries when combined hashes differ (strategy: #strategy)"() {
+        def strategyConfigurationHash = TestHashCodes.hashCodeFrom(5432)
+        def previous = new SerializableFileCollectionFingerprint(["one": fingerprint("one", 1)], ImmutableMultimap.of("some", TestHashCodes.hashCodeFrom(4321)), strategyConfigurationHash, TestHashCodes.hashCodeFrom(1111))
+        def current = new SerializableFileCollectionFingerprint(["one": fingerprint("one", 2)], ImmutableMultimap.of("some", TestHashCodes.hashCodeFrom(1234)), strategyConfigurationHash, TestHashCodes.hashCodeFrom(2222))
+
+        expect:
+        changes(strategy, current, previous) == [modified("one")]
+
+        where:
+        strategy << [ABSOLUTE, NORMALIZED]
+    }
+
     def changes(FingerprintCompareStrategy strategy, Map<String, FileSystemLocationFingerprint> current, Map<String, FileSystemLocationFingerprint> previous) {
         def strategyConfigurationHash = TestHashCodes.hashCodeFrom(5432)
         def currentFingerprint = new SerializableFileCollectionFingerprint(current, ImmutableMultimap.of("some", TestHashCodes.hashCodeFrom(1234)), strategyConfigurationHash)
@@ -0,0 +1,162 @@
+/*
+ * Copyright 2025 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.internal.execution.history.impl
+
+import com.google.common.collect.ImmutableMultimap
+import com.google.common.collect.ImmutableSortedMap
+import org.gradle.api.internal.cache.StringInterner
+import org.gradle.internal.file.FileType
+import org.gradle.internal.fingerprint.FileCollectionFingerprint
+import org.gradle.internal.fingerprint.FileSystemLocationFingerprint
+import org.gradle.internal.fingerprint.impl.DefaultFileSystemLocationFingerprint
+import org.gradle.internal.fingerprint.impl.IgnoredPathFileSystemLocationFingerprint
+import org.gradle.internal.serialize.SerializerSpec
+import org.gradle.internal.snapshot.FileSystemSnapshot
+import org.gradle.internal.snapshot.TestSnapshotFixture
+
+import static org.gradle.internal.hash.TestHashCodes.hashCodeFrom
+import static org.gradle.internal.snapshot.SnapshotUtil.indexByAbsolutePath
+
+class ColumnarExecutionFilePropertiesSerializerTest extends SerializerSpec implements TestSnapshotFixture {
+
+    def stringInterner = new StringInterner()
+    def serializer = new ColumnarExecutionFilePropertiesSerializer(stringInterner)
+
+    def "reads and writes empty properties"() {
+        when:
+        def out = serialize(fileProperties(
+            [empty: FileCollectionFingerprint.EMPTY],
+            [empty: FileSystemSnapshot.EMPTY]
+        ), serializer)
+
+        then:
+        out.inputFileProperties == [empty: FileCollectionFingerprint.EMPTY]
+        out.outputFilesProducedByWork == [empty: FileSystemSnapshot.EMPTY]
+    }
+
+    def "reads and writes fingerprints"() {
+        def hash = hashCodeFrom(1234)
+        def rootHashes = ImmutableMultimap.of(
+            "/root/1", FileSystemLocationFingerprint.MISSING_FILE_SIGNATURE,
+            "/root/2", hashCodeFrom(5678))
+        def strategyConfigurationHash = hashCodeFrom(6543)
+
+        when:
+        def out = serialize(fileProperties([
+            files: new SerializableFileCollectionFingerprint(
+                '/root/1': new DefaultFileSystemLocationFingerprint("1", FileType.Directory, FileSystemLocationFingerprint.DIR_SIGNATURE),
+                '/root/1/a.txt': new DefaultFileSystemLocationFingerprint("1/a.txt", FileType.RegularFile, hash),
+                '/root/2': IgnoredPathFileSystemLocationFingerprint.create(FileType.RegularFile, hash),
+                '/root/3': new DefaultFileSystemLocationFingerprint("other/3", FileType.Missing, FileSystemLocationFingerprint.MISSING_FILE_SIGNATURE),
+                '/root/4': new DefaultFileSystemLocationFingerprint("other/4", FileType.RegularFile, hashCodeFrom(4321)),
+                rootHashes,
+                strategyConfigurationHash,
+                hashCodeFrom(9876)
+            )
+        ], [:]), serializer)
+
+        then:
+        def fingerprint = out.inputFileProperties.files as SerializableFileCollectionFingerprint
+        fingerprint.rootHashes == rootHashes
+        fingerprint.strategyConfigurationHash == strategyConfigurationHash
+        fingerprint.hashIfAvailable == hashCodeFrom(9876)
+        fingerprint.fingerprints.keySet() as List == ['/root/1', '/root/1/a.txt', '/root/2', '/root/3', '/root/4']
+        fingerprint.fingerprints['/root/1'].with {
+            assert it instanceof DefaultFileSystemLocationFingerprint
+            assert type == FileType.Directory
+            assert normalizedPath == "1"
+            assert normalizedContentHash == FileSystemLocationFingerprint.DIR_SIGNATURE
+        }
+        fingerprint.fingerprints['/root/1/a.txt'].with {
+            assert type == FileType.RegularFile
+            assert normalizedPath == "1/a.txt"
+            assert normalizedContentHash == hash
+        }
+        fingerprint.fingerprints['/root/2'].with {
+            assert it instanceof IgnoredPathFileSystemLocationFingerprint
+            assert type == FileType.RegularFile
+            assert normalizedPath == ""
+            assert normalizedContentHash == hash
+        }
+        fingerprint.fingerprints['/root/3'].with {
+            assert type == FileType.Missing
+            assert normalizedPath == "other/3"
+            assert normalizedContentHash == FileSystemLocationFingerprint.MISSING_FILE_SIGNATURE
+        }
+        fingerprint.fingerprints['/root/4'].with {
+            assert type == FileType.RegularFile
+            assert normalizedPath == "other/4"
+            assert normalizedContentHash == hashCodeFrom(4321)
+        }
+    }
+
+    def "reads and writes snapshots"() {
+        def snapshot = directory("/home/lptr/dev", [
+            regularFile("/home/lptr/dev/one.txt"),
+            directory("/home/lptr/dev/sub", [
+                regularFile("/home/lptr/dev/sub/two.txt"),
+                missing("/home/lptr/dev/sub/missing.txt"),
+            ]),
+        ])
+
+        when:
+        def out = serialize(fileProperties([:], [output: snapshot]), serializer)
+
+        then:
+        def outputSnapshot = out.outputFilesProducedByWork.output
+        outputSnapshot == snapshot
+        indexByAbsolutePath(outputSnapshot) == indexByAbsolutePath(snapshot)
+    }
+
+    def "writes a hash used by several properties only once"() {
+        def hash = hashCodeFrom(1234)
+        def otherHash = hashCodeFrom(5678)
+
+        when:
+        def sharedLength = toBytes(fileProperties([
+            first: fingerprint('/root/first/a.txt': new DefaultFileSystemLocationFingerprint("a.txt", FileType.RegularFile, hash)),
+            second: fingerprint('/root/second/a.txt': new DefaultFileSystemLocationFingerprint("a.txt", FileType.RegularFile, hash))
+        ], [:]), serializer).length
+        def distinctLength = toBytes(fileProperties([
+            first: fingerprint('/root/first/a.txt': new DefaultFileSystemLocationFingerprint("a.txt", FileType.RegularFile, hash)),
+            second: fingerprint('/root/second/a.txt': new DefaultFileSystemLocationFingerprint("a.txt", FileType.RegularFile, otherHash))
+        ], [:]), serializer).length
+
+        then:
+        distinctLength - sharedLength == otherHash.length()
+    }
+
+    def "fails to read an unknown format version"() {
+        def bytes = toBytes(fileProperties([:], [:]), serializer)
+        bytes[0] = 42
+
+        when:
+        fromBytes(bytes, serializer)
+
+        then:
+        def e = thrown(IOException)
+        e.message == "Unsupported execution history format version 42"
+    }
+
+    private static SerializableFileCollectionFingerprint fingerprint(Map<String, FileSystemLocationFingerprint> entries) {
+        new SerializableFileCollectionFingerprint(entries, ImmutableMultimap.of(entries.keySet().first(), hashCodeFrom(1)), hashCodeFrom(2))
+    }
+
+    private static ExecutionFileProperties fileProperties(Map<String, FileCollectionFingerprint> inputs, Map<String, FileSystemSnapshot> outputs) {
+        new ExecutionFileProperties(ImmutableSortedMap.copyOf(inputs), ImmutableSortedMap.copyOf(outputs))
+    }
+}
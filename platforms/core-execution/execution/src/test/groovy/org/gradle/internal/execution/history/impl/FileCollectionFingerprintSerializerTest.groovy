@@ -93,4 +93,16 @@ class FileCollectionFingerprintSerializerTest extends SerializerSpec {
         out.fingerprints.keySet() as List == ["/3", "/2", "/1"]
         out.rootHashes.keySet() as List == ["/3", "/2", "/1"]
     }
+
+    def "reads and writes combined hash"() {
+        def fingerprints = ["/1": new DefaultFileSystemLocationFingerprint('1', FileType.RegularFile, TestHashCodes.hashCodeFrom(1234))]
+        def rootHashes = ImmutableMultimap.of("/1", TestHashCodes.hashCodeFrom(1234))
+        def strategyConfigurationHash = TestHashCodes.hashCodeFrom(5432)
+
+        expect:
+        serialize(new SerializableFileCollectionFingerprint(fingerprints, rootHashes, strategyConfigurationHash, TestHashCodes.hashCodeFrom(9876)), serializer)
+            .hashIfAvailable == TestHashCodes.hashCodeFrom(9876)
+        serialize(new SerializableFileCollectionFingerprint(fingerprints, rootHashes, strategyConfigurationHash), serializer)
+            .hashIfAvailable == null
+    }
 }
@@ -0,0 +1,165 @@
+/*
+ * Copyright 2025 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.internal.watch.vfs.impl;
+
+import org.gradle.internal.file.FileMetadata;
+import org.gradle.internal.file.FileType;
+import org.gradle.internal.snapshot.DirectorySnapshot;
+import org.gradle.internal.snapshot.FileSystemLocationSnapshot;
+import org.gradle.internal.snapshot.RegularFileSnapshot;
+import org.gradle.internal.snapshot.impl.DirectorySnapshotter;
+import org.jspecify.annotations.Nullable;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Finds the locations where snapshots loaded by {@link VirtualFileSystemSnapshotStore} no longer match the file system.
+ * <p>
+ * This is a stat sweep: regular files are compared by length and modification time, and directories by the names of their children.
+ * A file modified at or after the time the snapshots have been persisted may have changed without its modification time changing,
+ * as file systems only store modification times with a limited precision. Such files are always reported as changed.
+ * Only the locations that changed are reported, so that the rest of the loaded snapshots can be kept.
+ */
+class SnapshotRevalidator {
+    private final DirectorySnapshotter.DefaultExcludes defaultExcludes;
+
+    public SnapshotRevalidator(DirectorySnapshotter.DefaultExcludes defaultExcludes) {
+        this.defaultExcludes = defaultExcludes;
+    }
+
+    /**
+     * Returns the absolute paths of the locations that have changed since the given snapshots were taken.
+     *
+     * @param persistTimestamp the modification time of the file the snapshots have been persisted to.
+     */
+    public List<String> findChangedLocations(Iterable<FileSystemLocationSnapshot> snapshots, long persistTimestamp) {
+        List<String> changedLocations = new ArrayList<>();
+        for (FileSystemLocationSnapshot snapshot : snapshots) {
+            revalidate(snapshot, persistTimestamp, changedLocations);
+        }
+        return changedLocations;
+    }
+
+    private void revalidate(FileSystemLocationSnapshot snapshot, long persistTimestamp, List<String> changedLocations) {
+        String absolutePath = snapshot.getAbsolutePath();
+        if (snapshot.getAccessType() == FileMetadata.AccessType.VIA_SYMLINK) {
+            // Checking the symlink target is not worth it, snapshot it again
+            changedLocations.add(absolutePath);
+            return;
+        }
+        Path path = Paths.get(absolutePath);
+        BasicFileAttributes attributes;
+        try {
+            attributes = readAttributes(path);
+        } catch (IOException e) {
+            changedLocations.add(absolutePath);
+            return;
+        }
+        switch (snapshot.getType()) {
+            case RegularFile:
+                FileMetadata metadata = ((RegularFileSnapshot) snapshot).getMetadata();
+                if (attributes == null
+                    || !attributes.isRegularFile()
+                    || attributes.size() != metadata.getLength()
+                    || !isUnchanged(attributes.lastModifiedTime().toMillis(), metadata.getLastModified(), persistTimestamp)) {
+                    changedLocations.add(absolutePath);
+                }
+                break;
+            case Directory:
+                if (attributes == null || !attributes.isDirectory()) {
+                    changedLocations.add(absolutePath);
+                } else {
+                    revalidateChildren((DirectorySnapshot) snapshot, path, persistTimestamp, changedLocations);
+                }
+                break;
+            case Missing:
+                if (attributes != null) {
+                    changedLocations.add(absolutePath);
+                }
+                break;
+            default:
+                throw new AssertionError();
+        }
+    }
+
+    private void revalidateChildren(DirectorySnapshot snapshot, Path path, long persistTimestamp, List<String> changedLocations) {
+        Set<String> namesOnDisk = new HashSet<>();
+        try (DirectoryStream<Path> entries = Files.newDirectoryStream(path)) {
+            for (Path entry : entries) {
+                String name = entry.getFileName().toString();
+                if (!isExcluded(entry, name)) {
+                    namesOnDisk.add(name);
+                }
+            }
+        } catch (IOException e) {
+            changedLocations.add(snapshot.getAbsolutePath());
+            return;
+        }
+        for (FileSystemLocationSnapshot child : snapshot.getChildren()) {
+            if (namesOnDisk.remove(child.getName())) {
+                revalidate(child, persistTimestamp, changedLocations);
+            } else if (child.getType() != FileType.Missing) {
+                changedLocations.add(child.getAbsolutePath());
+            }
+        }
+        // Whatever is left has been added since the snapshot was taken
+        for (String addedName : namesOnDisk) {
+            changedLocations.add(snapshot.getAbsolutePath() + File.separatorChar + addedName);
+        }
+    }
+
+    /**
+     * Whether the modification time of a file shows that it did not change since it has been snapshotted.
+     * Modification times at or after the time the snapshots have been persisted cannot be trusted.
+     */
+    private static boolean isUnchanged(long lastModified, long snapshotLastModified, long persistTimestamp) {
+        return lastModified == snapshotLastModified && lastModified < persistTimestamp;
+    }
+
+    /**
+     * Whether the directory snapshotter would have skipped the given entry because of the default excludes.
+     */
+    private boolean isExcluded(Path entry, String name) {
+        boolean excludedAsDirectory = defaultExcludes.excludeDir(name);
+        boolean excludedAsFile = defaultExcludes.excludeFile(name);
+        if (excludedAsDirectory == excludedAsFile) {
+            return excludedAsDirectory;
+        }
+        return Files.isDirectory(entry) ? excludedAsDirectory : excludedAsFile;
+    }
+
+    @Nullable
+    private static BasicFileAttributes readAttributes(Path path) throws IOException {
+        try {
+            return Files.readAttributes(path, BasicFileAttributes.class, LinkOption.NOFOLLOW_LINKS);
+        } catch (NoSuchFileException e) {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,268 @@
+/*
+ * Copyright 2025 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.internal.watch.vfs.impl;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Interner;
+import org.gradle.internal.file.FileMetadata;
+import org.gradle.internal.file.impl.DefaultFileMetadata;
+import org.gradle.internal.hash.HashCode;
+import org.gradle.internal.hash.Hashing;
+import org.gradle.internal.snapshot.DirectorySnapshot;
+import org.gradle.internal.snapshot.FileSystemLocationSnapshot;
+import org.gradle.internal.snapshot.MissingFileSnapshot;
+import org.gradle.internal.snapshot.PathUtil;
+import org.gradle.internal.snapshot.RegularFileSnapshot;
+import org.gradle.internal.snapshot.impl.DirectorySnapshotter;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Keeps the snapshots the virtual file system retains for a watchable hierarchy on disk, in the {@code .gradle} directory of the hierarchy.
+ * <p>
+ * This allows a new daemon to start with the snapshots a previous daemon had at the end of its last build of the hierarchy,
+ * instead of snapshotting the hierarchy from scratch.
+ * The stored snapshots may be out of date when they are loaded, see {@link #findChangedLocations(StoredSnapshots)}.
+ */
+public class VirtualFileSystemSnapshotStore {
+    private static final Logger LOGGER = LoggerFactory.getLogger(VirtualFileSystemSnapshotStore.class);
+
+    private static final int MAGIC = 0x47564653;
+    private static final int VERSION = 3;
+    private static final String FILE_NAME = "file-system.snapshots";
+
+    private static final byte REGULAR_FILE = 0;
+    private static final byte DIRECTORY = 1;
+    private static final byte MISSING = 2;
+
+    private final Interner<String> stringInterner;
+    private final SnapshotRevalidator revalidator;
+    private final String gradleVersion;
+    private final String hashAlgorithm;
+
+    public VirtualFileSystemSnapshotStore(Interner<String> stringInterner, Collection<String> defaultExcludes, String gradleVersion) {
+        this.stringInterner = stringInterner;
+        this.gradleVersion = gradleVersion;
+        // Both MD5 and XXH128 hashes are 16 bytes long, so the hashes read back can only be told apart by the function recorded in the file
+        this.hashAlgorithm = Hashing.defaultFunction().getAlgorithm();
+        this.revalidator = new SnapshotRevalidator(new DirectorySnapshotter.DefaultExcludes(defaultExcludes));
+    }
+
+    /**
+     * Loads the snapshots stored for the given hierarchy.
+     * Returns no snapshots when there are none, or when they cannot be read.
+     */
+    public StoredSnapshots load(File watchableHierarchy) {
+        File snapshotFile = snapshotFileFor(watchableHierarchy);
+        try (DataInputStream input = new DataInputStream(new BufferedInputStream(Files.newInputStream(snapshotFile.toPath())))) {
+            if (input.readInt() != MAGIC
+                || input.readInt() != VERSION
+                || !input.readUTF().equals(gradleVersion)
+                || !input.readUTF().equals(hashAlgorithm)
+                || !input.readUTF().equals(watchableHierarchy.getAbsolutePath())) {
+                // Written by a different Gradle version, with a different hash function, or copied from a different location
+                return StoredSnapshots.NONE;
+            }
+            long persistTimestamp = input.readLong();
+            int rootCount = input.readInt();
+            ImmutableList.Builder<FileSystemLocationSnapshot> snapshots = ImmutableList.builderWithExpectedSize(rootCount);
+            for (int i = 0; i < rootCount; i++) {
+                String absolutePath = stringInterner.intern(input.readUTF());
+                snapshots.add(readSnapshot(input, absolutePath, stringInterner.intern(PathUtil.getFileName(absolutePath))));
+            }
+            return new StoredSnapshots(snapshots.build(), persistTimestamp);
+        } catch (NoSuchFileException e) {
+            return StoredSnapshots.NONE;
+        } catch (IOException | RuntimeException e) {
+            LOGGER.debug("Could not read file system snapshots from {}, ignoring them", snapshotFile, e);
+            return StoredSnapshots.NONE;
+        }
+    }
+
+    /**
+     * Returns the absolute paths of the locations that have changed since the given snapshots were taken.
+     */
+    public List<String> findChangedLocations(StoredSnapshots storedSnapshots) {
+        return revalidator.findChangedLocations(storedSnapshots.getSnapshots(), storedSnapshots.getPersistTimestamp());
+    }
+
+    /**
+     * Replaces the snapshots stored for the given hierarchy.
+     */
+    public void store(File watchableHierarchy, List<FileSystemLocationSnapshot> snapshots) {
+        File snapshotFile = snapshotFileFor(watchableHierarchy);
+        try {
+            if (snapshots.isEmpty()) {
+                Files.deleteIfExists(snapshotFile.toPath());
+                return;
+            }
+            File gradleDir = snapshotFile.getParentFile();
+            if (!gradleDir.isDirectory()) {
+                // Don't create the .gradle directory for a hierarchy Gradle never wrote to
+                return;
+            }
+            Path tempFile = Files.createTempFile(gradleDir.toPath(), FILE_NAME, ".tmp");
+            try {
+                // Use the clock of the file system, so the timestamp can be compared to the modification times of files
+                long persistTimestamp = Files.getLastModifiedTime(tempFile).toMillis();
+                try (DataOutputStream output = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(tempFile)))) {
+                    output.writeInt(MAGIC);
+                    output.writeInt(VERSION);
+                    output.writeUTF(gradleVersion);
+                    output.writeUTF(hashAlgorithm);
+                    output.writeUTF(watchableHierarchy.getAbsolutePath());
+                    output.writeLong(persistTimestamp);
+                    output.writeInt(snapshots.size());
+                    for (FileSystemLocationSnapshot snapshot : snapshots) {
+                        output.writeUTF(snapshot.getAbsolutePath());
+                        writeSnapshot(output, snapshot);
+                    }
+                }
+                moveAtomically(tempFile, snapshotFile.toPath());
+            } finally {
+                Files.deleteIfExists(tempFile);
+            }
+        } catch (IOException | RuntimeException e) {
+            LOGGER.debug("Could not write file system snapshots to {}", snapshotFile, e);
+        }
+    }
+
+    /**
+     * Snapshots loaded from the store, together with the time they have been persisted.
+     */
+    public static class StoredSnapshots {
+        public static final StoredSnapshots NONE = new StoredSnapshots(ImmutableList.of(), 0);
+
+        private final List<FileSystemLocationSnapshot> snapshots;
+        private final long persistTimestamp;
+
+        public StoredSnapshots(List<FileSystemLocationSnapshot> snapshots, long persistTimestamp) {
+            this.snapshots = snapshots;
+            this.persistTimestamp = persistTimestamp;
+        }
+
+        public List<FileSystemLocationSnapshot> getSnapshots() {
+            return snapshots;
+        }
+
+        /**
+         * The modification time the file system gave to the stored snapshots when they were written.
+         */
+        public long getPersistTimestamp() {
+            return persistTimestamp;
+        }
+
+        public boolean isEmpty() {
+            return snapshots.isEmpty();
+        }
+    }
+
+    private static File snapshotFileFor(File watchableHierarchy) {
+        return new File(new File(watchableHierarchy, ".gradle"), FILE_NAME);
+    }
+
+    private static void moveAtomically(Path source, Path target) throws IOException {
+        try {
+            Files.move(source, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(source, target, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    private static void writeSnapshot(DataOutputStream output, FileSystemLocationSnapshot snapshot) throws IOException {
+        switch (snapshot.getType()) {
+            case RegularFile:
+                RegularFileSnapshot fileSnapshot = (RegularFileSnapshot) snapshot;
+                FileMetadata metadata = fileSnapshot.getMetadata();
+                output.writeByte(REGULAR_FILE);
+                output.writeByte(metadata.getAccessType().ordinal());
+                writeHash(output, fileSnapshot.getHash());
+                output.writeLong(metadata.getLastModified());
+                output.writeLong(metadata.getLength());
+                break;
+            case Directory:
+                DirectorySnapshot directorySnapshot = (DirectorySnapshot) snapshot;
+                List<FileSystemLocationSnapshot> children = directorySnapshot.getChildren();
+                output.writeByte(DIRECTORY);
+                output.writeByte(directorySnapshot.getAccessType().ordinal());
+                writeHash(output, directorySnapshot.getHash());
+                output.writeInt(children.size());
+                for (FileSystemLocationSnapshot child : children) {
+                    output.writeUTF(child.getName());
+                    writeSnapshot(output, child);
+                }
+                break;
+            case Missing:
+                output.writeByte(MISSING);
+                output.writeByte(snapshot.getAccessType().ordinal());
+                break;
+            default:
+                throw new AssertionError();
+        }
+    }
+
+    private FileSystemLocationSnapshot readSnapshot(DataInputStream input, String absolutePath, String name) throws IOException {
+        byte type = input.readByte();
+        FileMetadata.AccessType accessType = FileMetadata.AccessType.values()[input.readByte()];
+        switch (type) {
+            case REGULAR_FILE:
+                HashCode contentHash = readHash(input);
+                long lastModified = input.readLong();
+                long length = input.readLong();
+                return new RegularFileSnapshot(absolutePath, name, contentHash, DefaultFileMetadata.file(lastModified, length, accessType));
+            case DIRECTORY:
+                HashCode merkleHash = readHash(input);
+                int childCount = input.readInt();
+                ImmutableList.Builder<FileSystemLocationSnapshot> children = ImmutableList.builderWithExpectedSize(childCount);
+                for (int i = 0; i < childCount; i++) {
+                    String childName = stringInterner.intern(input.readUTF());
+                    children.add(readSnapshot(input, stringInterner.intern(absolutePath + File.separatorChar + childName), childName));
+                }
+                return new DirectorySnapshot(absolutePath, name, accessType, merkleHash, children.build());
+            case MISSING:
+                return new MissingFileSnapshot(absolutePath, name, accessType);
+            default:
+                throw new IOException("Unknown snapshot type " + type);
+        }
+    }
+
+    private static void writeHash(DataOutputStream output, HashCode hash) throws IOException {
+        byte[] bytes = hash.toByteArray();
+        output.writeByte(bytes.length);
+        output.write(bytes);
+    }
+
+    private static HashCode readHash(DataInputStream input) throws IOException {
+        byte[] bytes = new byte[input.readUnsignedByte()];
+        input.readFully(bytes);
+        return HashCode.fromBytes(bytes);
+    }
+}
@@ -24,6 +24,7 @@
 import org.gradle.internal.operations.BuildOperationDescriptor;
 import org.gradle.internal.operations.BuildOperationRunner;
 import org.gradle.internal.operations.CallableBuildOperation;
+import org.gradle.internal.snapshot.FileSystemLocationSnapshot;
 import org.gradle.internal.snapshot.FileSystemNode;
 import org.gradle.internal.snapshot.SnapshotHierarchy;
 import org.gradle.internal.vfs.impl.AbstractVirtualFileSystem;
@@ -40,6 +41,7 @@
 import org.gradle.internal.watch.vfs.FileSystemWatchingStatistics;
 import org.gradle.internal.watch.vfs.VfsLogging;
 import org.gradle.internal.watch.vfs.WatchableFileSystemDetector;
+import org.jspecify.annotations.Nullable;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -49,10 +51,16 @@
 import java.io.IOException;
 import java.nio.file.Path;
 import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.function.Supplier;
+import java.util.stream.Collectors;
 
 public class WatchingVirtualFileSystem extends AbstractVirtualFileSystem implements BuildLifecycleAwareVirtualFileSystem, Closeable {
     private static final Logger LOGGER = LoggerFactory.getLogger(WatchingVirtualFileSystem.class);
@@ -64,6 +72,8 @@ public class WatchingVirtualFileSystem extends AbstractVirtualFileSystem impleme
     private final FileWatchingFilter locationsWrittenByCurrentBuild;
     private final WatchableFileSystemDetector watchableFileSystemDetector;
     private final FileChangeListeners fileChangeListeners;
+    @Nullable
+    private final VirtualFileSystemSnapshotStore snapshotStore;
     private final List<File> unsupportedFileSystems = new ArrayList<>();
     private Logger warningLogger = LOGGER;
 
@@ -72,9 +82,20 @@ public class WatchingVirtualFileSystem extends AbstractVirtualFileSystem impleme
      */
     private final Set<File> watchableHierarchiesRegisteredEarly = new LinkedHashSet<>();
 
+    /**
+     * Watchable hierarchies registered during the current build, whose snapshots are persisted after the build finished.
+     */
+    private final Set<File> watchableHierarchiesToPersist = new LinkedHashSet<>();
+
+    /**
+     * The snapshots last written to or read from the {@link #snapshotStore}, so we can skip writing them again when nothing changed.
+     */
+    private final Map<File, List<FileSystemLocationSnapshot>> persistedSnapshots = new ConcurrentHashMap<>();
+
     private FileWatcherRegistry watchRegistry;
     private Exception reasonForNotWatchingFiles;
     private boolean stateInvalidatedAtStartOfBuild;
+    private volatile boolean restoringSnapshotsDisabled;
 
     public WatchingVirtualFileSystem(
         FileWatcherRegistryFactory watcherRegistryFactory,
@@ -83,6 +104,22 @@ public WatchingVirtualFileSystem(
         FileWatchingFilter locationsWrittenByCurrentBuild,
         WatchableFileSystemDetector watchableFileSystemDetector,
         FileChangeListeners fileChangeListeners
+    ) {
+        this(watcherRegistryFactory, root, fileSystemWatchingDocumentationIndex, locationsWrittenByCurrentBuild, watchableFileSystemDetector, fileChangeListeners, null);
+    }
+
+    /**
+     * Creates a virtual file system that persists the snapshots of the watched hierarchies via the given store,
+     * so that a new daemon does not need to start with an empty virtual file system.
+     */
+    public WatchingVirtualFileSystem(
+        FileWatcherRegistryFactory watcherRegistryFactory,
+        SnapshotHierarchy root,
+        FileSystemWatchingDocumentationIndex fileSystemWatchingDocumentationIndex,
+        FileWatchingFilter locationsWrittenByCurrentBuild,
+        WatchableFileSystemDetector watchableFileSystemDetector,
+        FileChangeListeners fileChangeListeners,
+        @Nullable VirtualFileSystemSnapshotStore snapshotStore
     ) {
         super(root);
         this.watcherRegistryFactory = watcherRegistryFactory;
@@ -90,6 +127,7 @@ public WatchingVirtualFileSystem(
         this.locationsWrittenByCurrentBuild = locationsWrittenByCurrentBuild;
         this.watchableFileSystemDetector = watchableFileSystemDetector;
         this.fileChangeListeners = fileChangeListeners;
+        this.snapshotStore = snapshotStore;
     }
 
     @Override
@@ -114,6 +152,7 @@ public boolean afterBuildStarted(
         warningLogger = watchMode.loggerForWarnings(LOGGER);
         stateInvalidatedAtStartOfBuild = false;
         reasonForNotWatchingFiles = null;
+        List<File> hierarchiesRegisteredEarly = new ArrayList<>(watchableHierarchiesRegisteredEarly);
         updateRootUnderLock(currentRoot -> buildOperationRunner.call(new CallableBuildOperation<SnapshotHierarchy>() {
             @Override
             public SnapshotHierarchy call(BuildOperationContext context) {
@@ -192,12 +231,16 @@ public BuildOperationDescriptor.Builder description() {
                     .details(BuildStartedFileSystemWatchingBuildOperationType.Details.INSTANCE);
             }
         }));
+        if (watchRegistry != null) {
+            hierarchiesRegisteredEarly.forEach(this::restoreSnapshots);
+        }
         return watchRegistry != null;
     }
 
     @Override
     public void registerWatchableHierarchy(File watchableHierarchy) {
         updateRootUnderLock(currentRoot -> {
+            watchableHierarchiesToPersist.add(watchableHierarchy);
             if (watchRegistry == null) {
                 watchableHierarchiesRegisteredEarly.add(watchableHierarchy);
                 return currentRoot;
@@ -207,6 +250,63 @@ public void registerWatchableHierarchy(File watchableHierarchy) {
                 () -> watchRegistry.registerWatchableHierarchy(watchableHierarchy, currentRoot)
             );
         });
+        if (watchRegistry != null) {
+            restoreSnapshots(watchableHierarchy);
+        }
+    }
+
+    /**
+     * Fills the virtual file system with the snapshots persisted for the given hierarchy, unless it already knows about the hierarchy.
+     * <p>
+     * The persisted snapshots are checked before taking the lock on the virtual file system, since that requires a stat of every snapshotted location.
+     * The check compares file sizes, modification times and directory listings, since there is no way to ask the
+     * file watcher for the changes that happened while no daemon was running.
+     * The outdated snapshots are removed in the same update that adds the persisted snapshots, so no one ever sees them.
+     * Like for any other snapshot, the locations are watched once they are added, and changes between the check and then are missed.
+     */
+    private void restoreSnapshots(File watchableHierarchy) {
+        VirtualFileSystemSnapshotStore snapshotStore = this.snapshotStore;
+        if (snapshotStore == null || restoringSnapshotsDisabled) {
+            return;
+        }
+        String hierarchyPath = watchableHierarchy.getAbsolutePath();
+        if (root.rootSnapshotsUnder(hierarchyPath).findAny().isPresent()) {
+            return;
+        }
+        VirtualFileSystemSnapshotStore.StoredSnapshots storedSnapshots = snapshotStore.load(watchableHierarchy);
+        if (storedSnapshots.isEmpty()) {
+            return;
+        }
+        List<FileSystemLocationSnapshot> snapshots = storedSnapshots.getSnapshots();
+        List<String> changedLocations = snapshotStore.findChangedLocations(storedSnapshots);
+        AtomicBoolean restored = new AtomicBoolean();
+        updateRootUnderLock(currentRoot -> {
+            if (watchRegistry == null || restoringSnapshotsDisabled || currentRoot.rootSnapshotsUnder(hierarchyPath).findAny().isPresent()) {
+                return currentRoot;
+            }
+            restored.set(true);
+            SnapshotHierarchy newRoot = currentRoot;
+            for (FileSystemLocationSnapshot snapshot : snapshots) {
+                SnapshotHierarchy rootBeforeUpdate = newRoot;
+                newRoot = updateNotifyingListeners(diffListener -> rootBeforeUpdate.store(snapshot.getAbsolutePath(), snapshot, diffListener));
+            }
+            for (String changedLocation : changedLocations) {
+                SnapshotHierarchy rootBeforeUpdate = newRoot;
+                newRoot = updateNotifyingListeners(diffListener -> rootBeforeUpdate.invalidate(changedLocation, diffListener));
+            }
+            return newRoot;
+        });
+        if (restored.get()) {
+            LOGGER.debug("Restored {} snapshots for {}, {} locations changed since they have been persisted", snapshots.size(), watchableHierarchy, changedLocations.size());
+            persistedSnapshots.put(watchableHierarchy, snapshots);
+        }
+    }
+
+    @Override
+    public void invalidateAll() {
+        // Don't bring back state that has been dropped on purpose
+        restoringSnapshotsDisabled = true;
+        super.invalidateAll();
     }
 
     @Override
@@ -298,8 +398,9 @@ public BuildOperationDescriptor.Builder description() {
 
     @Override
     public void afterBuildFinished() {
-        updateRootUnderLock(currentRoot ->
-            withWatcherChangeErrorHandling(currentRoot, () -> {
+        Map<File, List<FileSystemLocationSnapshot>> snapshotsToPersist = new LinkedHashMap<>();
+        updateRootUnderLock(currentRoot -> {
+            SnapshotHierarchy newRoot = withWatcherChangeErrorHandling(currentRoot, () -> {
                 FileWatcherRegistry watchRegistry = this.watchRegistry;
                 if (watchRegistry != null) {
                     return watchRegistry.updateVfsAfterBuildFinished(currentRoot);
@@ -307,7 +408,38 @@ public void afterBuildFinished() {
                     // Drop everything if we can't watch the file system
                     return currentRoot.empty();
                 }
-            }));
+            });
+            if (snapshotStore != null && watchRegistry != null) {
+                watchableHierarchiesToPersist.forEach(watchableHierarchy ->
+                    snapshotsToPersist.put(watchableHierarchy, newRoot.rootSnapshotsUnder(watchableHierarchy.getAbsolutePath()).collect(Collectors.toList())));
+            }
+            watchableHierarchiesToPersist.clear();
+            restoringSnapshotsDisabled = false;
+            return newRoot;
+        });
+        snapshotsToPersist.forEach(this::persistSnapshots);
+    }
+
+    private void persistSnapshots(File watchableHierarchy, List<FileSystemLocationSnapshot> snapshots) {
+        VirtualFileSystemSnapshotStore snapshotStore = Objects.requireNonNull(this.snapshotStore);
+        List<FileSystemLocationSnapshot> previouslyPersisted = persistedSnapshots.get(watchableHierarchy);
+        if (previouslyPersisted != null && containSameInstances(previouslyPersisted, snapshots)) {
+            return;
+        }
+        snapshotStore.store(watchableHierarchy, snapshots);
+        persistedSnapshots.put(watchableHierarchy, snapshots);
+    }
+
+    private static boolean containSameInstances(List<FileSystemLocationSnapshot> first, List<FileSystemLocationSnapshot> second) {
+        if (first.size() != second.size()) {
+            return false;
+        }
+        for (int i = 0; i < first.size(); i++) {
+            if (first.get(i) != second.get(i)) {
+                return false;
+            }
+        }
+        return true;
     }
 
     /**
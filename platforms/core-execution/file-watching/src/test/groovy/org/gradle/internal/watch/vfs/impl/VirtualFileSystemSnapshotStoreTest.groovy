@@ -0,0 +1,200 @@
+/*
+ * Copyright 2025 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.internal.watch.vfs.impl
+
+import com.google.common.collect.Interners
+import org.gradle.internal.file.FileMetadata
+import org.gradle.internal.file.impl.DefaultFileMetadata
+import org.gradle.internal.hash.TestHashCodes
+import org.gradle.internal.snapshot.DirectorySnapshot
+import org.gradle.internal.snapshot.FileSystemLocationSnapshot
+import org.gradle.internal.snapshot.RegularFileSnapshot
+import org.gradle.internal.snapshot.TestSnapshotFixture
+import org.gradle.test.fixtures.file.CleanupTestDirectory
+import org.gradle.test.fixtures.file.TestFile
+import org.gradle.test.fixtures.file.TestNameTestDirectoryProvider
+import org.junit.Rule
+import spock.lang.Specification
+
+@CleanupTestDirectory(fieldName = "tmpDir")
+class VirtualFileSystemSnapshotStoreTest extends Specification implements TestSnapshotFixture {
+    @Rule
+    public final TestNameTestDirectoryProvider tmpDir = new TestNameTestDirectoryProvider(getClass())
+
+    def hierarchy = tmpDir.createDir("project")
+    def store = newStore("1.0")
+
+    def setup() {
+        hierarchy.createDir(".gradle")
+    }
+
+    def "loads the snapshots it stored"() {
+        def snapshots = [
+            directory(hierarchy.file("src").absolutePath, [
+                regularFile(hierarchy.file("src/A.java").absolutePath),
+                directory(hierarchy.file("src/empty").absolutePath, []),
+                missing(hierarchy.file("src/missing").absolutePath)
+            ]),
+            regularFile(hierarchy.file("build.gradle").absolutePath, FileMetadata.AccessType.VIA_SYMLINK)
+        ]
+
+        when:
+        store.store(hierarchy, snapshots)
+        def loaded = store.load(hierarchy).snapshots
+
+        then:
+        loaded.size() == 2
+        loaded*.absolutePath == snapshots*.absolutePath
+        loaded*.hash == snapshots*.hash
+        loaded*.accessType == snapshots*.accessType
+        childrenOf(loaded[0])*.absolutePath == childrenOf(snapshots[0])*.absolutePath
+        childrenOf(loaded[0])*.type == childrenOf(snapshots[0])*.type
+        (loaded[1] as RegularFileSnapshot).metadata.lastModified == (snapshots[1] as RegularFileSnapshot).metadata.lastModified
+    }
+
+    def "ignores snapshots stored for a different location"() {
+        def other = tmpDir.createDir("other")
+        store.store(hierarchy, [regularFile(hierarchy.file("build.gradle").absolutePath)])
+
+        when:
+        hierarchy.file(".gradle").copyTo(other.file(".gradle"))
+
+        then:
+        store.load(other).empty
+    }
+
+    def "ignores snapshots stored by a different Gradle version"() {
+        store.store(hierarchy, [regularFile(hierarchy.file("build.gradle").absolutePath)])
+
+        expect:
+        newStore("1.0").load(hierarchy).snapshots.size() == 1
+        newStore("2.0").load(hierarchy).empty
+    }
+
+    def "ignores corrupt snapshots"() {
+        store.store(hierarchy, [regularFile(hierarchy.file("build.gradle").absolutePath)])
+        def snapshotFile = hierarchy.file(".gradle/file-system.snapshots")
+        snapshotFile.bytes = Arrays.copyOf(snapshotFile.bytes, snapshotFile.bytes.length - 4)
+
+        expect:
+        store.load(hierarchy).empty
+    }
+
+    def "removes the stored snapshots when there is nothing to store"() {
+        store.store(hierarchy, [regularFile(hierarchy.file("build.gradle").absolutePath)])
+
+        when:
+        store.store(hierarchy, [])
+
+        then:
+        !hierarchy.file(".gradle/file-system.snapshots").exists()
+        store.load(hierarchy).empty
+    }
+
+    def "does not create the .gradle directory"() {
+        def other = tmpDir.createDir("other")
+
+        when:
+        store.store(other, [regularFile(other.file("build.gradle").absolutePath)])
+
+        then:
+        !other.file(".gradle").exists()
+    }
+
+    def "finds no changes when nothing changed"() {
+        def file = hierarchy.createFile("src/A.java")
+        hierarchy.createDir(".git")
+        hierarchy.createFile(".gitignore")
+        def snapshots = [
+            directory(hierarchy.absolutePath, [
+                directory(hierarchy.file("src").absolutePath, [regularFileFor(file)]),
+                directory(hierarchy.file(".gradle").absolutePath, [])
+            ]),
+            missing(hierarchy.file("missing").absolutePath)
+        ]
+
+        expect:
+        store.findChangedLocations(storedLater(snapshots)).empty
+    }
+
+    def "finds changed, added and removed locations"() {
+        def changed = hierarchy.createFile("src/Changed.java")
+        def removed = hierarchy.createFile("src/Removed.java")
+        def snapshots = [
+            directory(hierarchy.file("src").absolutePath, [regularFileFor(changed), regularFileFor(removed)]),
+            missing(hierarchy.file("created").absolutePath)
+        ]
+
+        when:
+        changed.text = "changed content"
+        removed.delete()
+        hierarchy.createFile("src/Added.java")
+        hierarchy.createFile("created")
+
+        then:
+        store.findChangedLocations(storedLater(snapshots)) as Set == [
+            changed.absolutePath,
+            removed.absolutePath,
+            hierarchy.file("src/Added.java").absolutePath,
+            hierarchy.file("created").absolutePath
+        ] as Set
+    }
+
+    def "always considers locations accessed via symlinks as changed"() {
+        def file = hierarchy.createFile("linked")
+        def snapshot = new RegularFileSnapshot(file.absolutePath, file.name, TestHashCodes.hashCodeFrom(1234), DefaultFileMetadata.file(file.lastModified(), file.length(), FileMetadata.AccessType.VIA_SYMLINK))
+
+        expect:
+        store.findChangedLocations(storedLater([snapshot])) == [file.absolutePath]
+    }
+
+    def "considers files modified at or after the snapshots have been persisted as changed"() {
+        def file = hierarchy.createFile("src/A.java")
+        def snapshots = [regularFileFor(file)]
+
+        expect:
+        store.findChangedLocations(new VirtualFileSystemSnapshotStore.StoredSnapshots(snapshots, file.lastModified())) == [file.absolutePath]
+        store.findChangedLocations(new VirtualFileSystemSnapshotStore.StoredSnapshots(snapshots, file.lastModified() + 1)).empty
+    }
+
+    def "records when the snapshots have been persisted"() {
+        def file = hierarchy.createFile("build.gradle")
+        store.store(hierarchy, [regularFileFor(file)])
+
+        expect:
+        store.load(hierarchy).persistTimestamp == hierarchy.file(".gradle/file-system.snapshots").lastModified()
+    }
+
+    private static FileSystemLocationSnapshot regularFileFor(TestFile file) {
+        new RegularFileSnapshot(file.absolutePath, file.name, TestHashCodes.hashCodeFrom(1234), DefaultFileMetadata.file(file.lastModified(), file.length(), FileMetadata.AccessType.DIRECT))
+    }
+
+    /**
+     * Snapshots persisted well after the files of the test have been modified.
+     */
+    private static VirtualFileSystemSnapshotStore.StoredSnapshots storedLater(List<FileSystemLocationSnapshot> snapshots) {
+        new VirtualFileSystemSnapshotStore.StoredSnapshots(snapshots, System.currentTimeMillis() + 60_000)
+    }
+
+    private static List<FileSystemLocationSnapshot> childrenOf(FileSystemLocationSnapshot snapshot) {
+        (snapshot as DirectorySnapshot).children
+    }
+
+    private static VirtualFileSystemSnapshotStore newStore(String gradleVersion) {
+        new VirtualFileSystemSnapshotStore(Interners.newStrongInterner(), ["**/.git", "**/.git/**", "**/.gitignore"], gradleVersion)
+    }
+}
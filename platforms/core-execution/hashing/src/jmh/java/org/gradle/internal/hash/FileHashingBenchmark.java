@@ -0,0 +1,99 @@
+/*
+ * Copyright 2025 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.internal.hash;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Compares hashing files of different sizes as a whole via a stream, which is the default, with hashing them in {@link DefaultStreamHasher#chunked() chunks}
+ * via a file channel on the calling thread and via a file channel in parallel.
+ * <p>
+ * Files below {@value DefaultFileHasher#CHANNEL_THRESHOLD} bytes are always hashed via a stream by {@link DefaultFileHasher},
+ * and files need to span multiple chunks of {@value DefaultStreamHasher#DEFAULT_CHUNK_SIZE} bytes to be hashed in parallel.
+ */
+@Fork(1)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@State(Scope.Benchmark)
+public class FileHashingBenchmark {
+    private static final int WRITE_BUFFER_SIZE = 1024 * 1024;
+
+    @Param({"1024", "1048576", "33554432", "268435456", "1073741824"})
+    long fileSize;
+
+    @Param({"stream", "channel", "parallel"})
+    String mode;
+
+    private File file;
+    private ExecutorService executor;
+    private StreamHasher streamHasher;
+    private FileHasher fileHasher;
+
+    @Setup(Level.Trial)
+    public void setup() throws IOException {
+        file = Files.createTempFile("file-hashing-benchmark", ".bin").toFile();
+        Random random = new Random(1234L);
+        byte[] buffer = new byte[WRITE_BUFFER_SIZE];
+        try (OutputStream output = new FileOutputStream(file)) {
+            for (long remaining = fileSize; remaining > 0; remaining -= buffer.length) {
+                random.nextBytes(buffer);
+                output.write(buffer, 0, (int) Math.min(remaining, buffer.length));
+            }
+        }
+        executor = Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors());
+        streamHasher = "stream".equals(mode) ? new DefaultStreamHasher() : DefaultStreamHasher.chunked();
+        fileHasher = "parallel".equals(mode) ? new DefaultFileHasher(streamHasher, executor) : new DefaultFileHasher(streamHasher);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        executor.shutdown();
+        if (!file.delete()) {
+            file.deleteOnExit();
+        }
+    }
+
+    @Benchmark
+    public HashCode hash() throws IOException {
+        if ("stream".equals(mode)) {
+            try (InputStream input = new FileInputStream(file)) {
+                return streamHasher.hash(input);
+            }
+        }
+        return fileHasher.hash(file);
+    }
+}
@@ -16,32 +16,88 @@
 package org.gradle.internal.hash;
 
 import org.gradle.api.UncheckedIOException;
+import org.gradle.internal.UncheckedException;
+import org.jspecify.annotations.Nullable;
 
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.Queue;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
 
+/**
+ * Hashes files using a {@link StreamHasher}.
+ * <p>
+ * When used with a {@link DefaultStreamHasher#chunked() chunked} {@link DefaultStreamHasher}, files of at least {@value #CHANNEL_THRESHOLD} bytes are read via a {@link FileChannel} instead,
+ * one chunk at a time using positional reads.
+ * When an executor is given, the chunks of files spanning multiple chunks are hashed in parallel.
+ * Either way, the hash of a file is the same as the one the stream hasher calculates for its content.
+ */
 public class DefaultFileHasher implements FileHasher {
+    static final long CHANNEL_THRESHOLD = 1024 * 1024;
+    private static final int READ_BUFFER_SIZE = 64 * 1024;
+
     private final StreamHasher streamHasher;
+    @Nullable
+    private final DefaultStreamHasher chunkingStreamHasher;
+    @Nullable
+    private final Executor executor;
+    private final Queue<byte[]> buffers = new ArrayBlockingQueue<byte[]>(16);
 
     public DefaultFileHasher(StreamHasher streamHasher) {
+        this(streamHasher, null);
+    }
+
+    /**
+     * @param executor the executor to hash the chunks of large files with, or {@code null} to hash them on the calling thread.
+     */
+    public DefaultFileHasher(StreamHasher streamHasher, @Nullable Executor executor) {
         this.streamHasher = streamHasher;
+        // Other stream hashers may hash content differently, so we can only bypass the default one when it hashes in chunks
+        this.chunkingStreamHasher = DefaultStreamHasher.isChunked(streamHasher) ? (DefaultStreamHasher) streamHasher : null;
+        this.executor = executor;
     }
 
     @Override
     public HashCode hash(File file) {
+        return hash(file, file.length());
+    }
+
+    @Override
+    public HashCode hash(File file, long length, long lastModified) {
+        return hash(file, length);
+    }
+
+    private HashCode hash(File file, long length) {
+        if (chunkingStreamHasher != null && length >= CHANNEL_THRESHOLD) {
+            return hashChannel(file, chunkingStreamHasher.getChunkSize());
+        }
+        return hashStream(file);
+    }
+
+    private HashCode hashStream(File file) {
         InputStream inputStream;
         try {
             inputStream = new FileInputStream(file);
         } catch (FileNotFoundException e) {
-            throw new UncheckedIOException(String.format("Failed to create MD5 hash for file '%s' as it does not exist.", file), e);
+            throw new UncheckedIOException(String.format("Failed to create hash for file '%s' as it does not exist.", file), e);
         }
         try {
             return streamHasher.hash(inputStream);
         } catch (IOException e) {
-            throw new UncheckedIOException(String.format("Failed to create MD5 hash for file '%s'", file), e);
+            throw new UncheckedIOException(String.format("Failed to create hash for file '%s'", file), e);
         } finally {
             try {
                 inputStream.close();
@@ -51,8 +107,131 @@ public HashCode hash(File file) {
         }
     }
 
-    @Override
-    public HashCode hash(File file, long length, long lastModified) {
-        return hash(file);
+    private HashCode hashChannel(File file, int chunkSize) {
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            // The file may have changed since its length was queried
+            long size = channel.size();
+            if (size <= chunkSize) {
+                byte[] buffer = takeBuffer();
+                try {
+                    return hashChunk(channel, 0, (int) size, buffer);
+                } finally {
+                    returnBuffer(buffer);
+                }
+            }
+            ChunkedFile chunkedFile = new ChunkedFile(channel, size, chunkSize);
+            if (executor != null) {
+                chunkedFile.hashInParallel(executor);
+            }
+            return DefaultStreamHasher.combineChunkHashes(Arrays.asList(chunkedFile.hashChunks()));
+        } catch (NoSuchFileException e) {
+            throw new UncheckedIOException(String.format("Failed to create hash for file '%s' as it does not exist.", file), e);
+        } catch (IOException e) {
+            throw new UncheckedIOException(String.format("Failed to create hash for file '%s'", file), e);
+        }
+    }
+
+    private static HashCode hashChunk(FileChannel channel, long position, int size, byte[] buffer) throws IOException {
+        PrimitiveHasher hasher = DefaultStreamHasher.newChunkHasher();
+        int remaining = size;
+        while (remaining > 0) {
+            int nread = channel.read(ByteBuffer.wrap(buffer, 0, Math.min(remaining, buffer.length)), position);
+            if (nread < 0) {
+                // The file has been truncated, hash what is there
+                break;
+            }
+            hasher.putBytes(buffer, 0, nread);
+            position += nread;
+            remaining -= nread;
+        }
+        return hasher.hash();
+    }
+
+    private void returnBuffer(byte[] buffer) {
+        // Retain buffer if there is capacity in the queue, otherwise discard
+        buffers.offer(buffer);
+    }
+
+    private byte[] takeBuffer() {
+        byte[] buffer = buffers.poll();
+        if (buffer == null) {
+            buffer = new byte[READ_BUFFER_SIZE];
+        }
+        return buffer;
+    }
+
+    /**
+     * The chunks of a file, which can be hashed by multiple threads.
+     * Each thread claims the next chunk that has not been hashed yet, until all chunks have been claimed.
+     */
+    private class ChunkedFile {
+        private final FileChannel channel;
+        private final long size;
+        private final int chunkSize;
+        private final HashCode[] chunkHashes;
+        private final AtomicInteger nextChunk = new AtomicInteger();
+        private final CountDownLatch remainingChunks;
+        private final AtomicReference<Throwable> failure = new AtomicReference<Throwable>();
+
+        ChunkedFile(FileChannel channel, long size, int chunkSize) {
+            this.channel = channel;
+            this.size = size;
+            this.chunkSize = chunkSize;
+            int chunkCount = (int) ((size - 1) / chunkSize + 1);
+            this.chunkHashes = new HashCode[chunkCount];
+            this.remainingChunks = new CountDownLatch(chunkCount);
+        }
+
+        void hashInParallel(Executor executor) {
+            // The calling thread hashes chunks as well, so it does not depend on the executor making progress
+            for (int i = 1; i < chunkHashes.length; i++) {
+                try {
+                    executor.execute(this::hashRemainingChunks);
+                } catch (RejectedExecutionException e) {
+                    break;
+                }
+            }
+        }
+
+        /**
+         * Hashes the remaining chunks on the calling thread and waits for the chunks hashed by other threads.
+         */
+        HashCode[] hashChunks() throws IOException {
+            hashRemainingChunks();
+            try {
+                remainingChunks.await();
+            } catch (InterruptedException e) {
+                throw UncheckedException.throwAsUncheckedException(e);
+            }
+            Throwable failure = this.failure.get();
+            if (failure instanceof IOException) {
+                throw (IOException) failure;
+            }
+            if (failure != null) {
+                throw UncheckedException.throwAsUncheckedException(failure);
+            }
+            return chunkHashes;
+        }
+
+        private void hashRemainingChunks() {
+            byte[] buffer = takeBuffer();
+            try {
+                int chunk;
+                while ((chunk = nextChunk.getAndIncrement()) < chunkHashes.length) {
+                    try {
+                        if (failure.get() == null) {
+                            long position = (long) chunk * chunkSize;
+                            chunkHashes[chunk] = hashChunk(channel, position, (int) Math.min(chunkSize, size - position), buffer);
+                        }
+                    } catch (Throwable t) {
+                        failure.compareAndSet(null, t);
+                    } finally {
+                        remainingChunks.countDown();
+                    }
+                }
+            } finally {
+                returnBuffer(buffer);
+            }
+        }
     }
 }
@@ -20,13 +20,80 @@
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Queue;
 import java.util.concurrent.ArrayBlockingQueue;
 
+/**
+ * Hashes content as a whole, or, when {@link #chunked() chunked}, in chunks of {@value #DEFAULT_CHUNK_SIZE} bytes.
+ * <p>
+ * When hashing in chunks, content that fits into a single chunk is hashed as a whole.
+ * Larger content is hashed chunk by chunk, and the resulting hash is calculated from the hashes of the chunks.
+ * This allows {@link DefaultFileHasher} to hash the chunks of large files independently of each other, while producing the same hash as this class.
+ * Since this changes the hashes of large content, hashes calculated in chunks must not be mixed with hashes calculated as a whole.
+ */
 public class DefaultStreamHasher implements StreamHasher {
+    /**
+     * The system property enabling hashing content in chunks.
+     */
+    public static final String CHUNKED_HASHING_PROPERTY = "org.gradle.unsafe.chunked-file-hashing";
+
+    static final int DEFAULT_CHUNK_SIZE = 32 * 1024 * 1024;
+    private static final int NOT_CHUNKED = 0;
+
     private static final HashCode SIGNATURE = Hashing.signature(DefaultStreamHasher.class);
+    private static final HashCode CHUNKED_SIGNATURE = Hashing.signature(DefaultStreamHasher.class.getName() + " chunks");
 
     private final Queue<byte[]> buffers = new ArrayBlockingQueue<byte[]>(16);
+    private final int chunkSize;
+
+    public DefaultStreamHasher() {
+        this(NOT_CHUNKED);
+    }
+
+    DefaultStreamHasher(int chunkSize) {
+        this.chunkSize = chunkSize;
+    }
+
+    /**
+     * Creates a hasher that hashes content in chunks.
+     */
+    public static DefaultStreamHasher chunked() {
+        return new DefaultStreamHasher(DEFAULT_CHUNK_SIZE);
+    }
+
+    /**
+     * Returns whether the given hasher hashes content in chunks.
+     */
+    public static boolean isChunked(StreamHasher streamHasher) {
+        return streamHasher instanceof DefaultStreamHasher && ((DefaultStreamHasher) streamHasher).chunkSize != NOT_CHUNKED;
+    }
+
+    int getChunkSize() {
+        return chunkSize;
+    }
+
+    /**
+     * Creates a hasher for a single chunk of content.
+     */
+    static PrimitiveHasher newChunkHasher() {
+        PrimitiveHasher hasher = Hashing.newPrimitiveHasher();
+        hasher.putHash(SIGNATURE);
+        return hasher;
+    }
+
+    /**
+     * Calculates the hash of content that spans more than a single chunk.
+     */
+    static HashCode combineChunkHashes(List<HashCode> chunkHashes) {
+        PrimitiveHasher hasher = Hashing.newPrimitiveHasher();
+        hasher.putHash(CHUNKED_SIGNATURE);
+        for (HashCode chunkHash : chunkHashes) {
+            hasher.putHash(chunkHash);
+        }
+        return hasher.hash();
+    }
 
     @Override
     public HashCode hash(InputStream inputStream) throws IOException {
@@ -41,17 +108,49 @@ public HashCode hashCopy(InputStream inputStream, OutputStream outputStream) thr
     private HashCode doHash(InputStream inputStream, OutputStream outputStream) throws IOException {
         byte[] buffer = takeBuffer();
         try {
-            PrimitiveHasher hasher = Hashing.newPrimitiveHasher();
-            hasher.putHash(SIGNATURE);
+            if (chunkSize == NOT_CHUNKED) {
+                PrimitiveHasher hasher = newChunkHasher();
+                while (true) {
+                    int nread = inputStream.read(buffer);
+                    if (nread < 0) {
+                        break;
+                    }
+                    outputStream.write(buffer, 0, nread);
+                    hasher.putBytes(buffer, 0, nread);
+                }
+                return hasher.hash();
+            }
+            PrimitiveHasher chunkHasher = newChunkHasher();
+            int chunkRemaining = chunkSize;
+            List<HashCode> chunkHashes = null;
             while (true) {
                 int nread = inputStream.read(buffer);
                 if (nread < 0) {
                     break;
                 }
                 outputStream.write(buffer, 0, nread);
-                hasher.putBytes(buffer, 0, nread);
+                int offset = 0;
+                while (offset < nread) {
+                    // Only start a new chunk when there is more content, so content that exactly fills a chunk is hashed as a whole
+                    if (chunkRemaining == 0) {
+                        if (chunkHashes == null) {
+                            chunkHashes = new ArrayList<HashCode>();
+                        }
+                        chunkHashes.add(chunkHasher.hash());
+                        chunkHasher = newChunkHasher();
+                        chunkRemaining = chunkSize;
+                    }
+                    int count = Math.min(nread - offset, chunkRemaining);
+                    chunkHasher.putBytes(buffer, offset, count);
+                    offset += count;
+                    chunkRemaining -= count;
+                }
+            }
+            if (chunkHashes == null) {
+                return chunkHasher.hash();
             }
-            return hasher.hash();
+            chunkHashes.add(chunkHasher.hash());
+            return combineChunkHashes(chunkHashes);
         } finally {
             returnBuffer(buffer);
         }
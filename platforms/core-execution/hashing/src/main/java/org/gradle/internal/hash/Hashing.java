@@ -18,6 +18,7 @@
 
 import com.google.common.io.ByteStreams;
 import com.google.common.io.Files;
+import org.jspecify.annotations.Nullable;
 
 import java.io.File;
 import java.io.IOException;
@@ -28,6 +29,7 @@
 import java.nio.charset.StandardCharsets;
 import java.security.MessageDigest;
 import java.security.NoSuchAlgorithmException;
+import java.util.Locale;
 
 import static org.gradle.internal.hash.HashCode.Usage.SAFE_TO_REUSE_BYTES;
 
@@ -47,7 +49,25 @@ private Hashing() {
 
     private static final HashFunction SHA512 = MessageDigestHashFunction.of("SHA-512");
 
-    private static final HashFunction DEFAULT = MD5;
+    private static final HashFunction XXH128 = new Xxh128HashFunction();
+
+    /**
+     * System property to select the default hash function, either {@code MD5} or {@code XXH128}.
+     * As hashes are persisted in caches, the property has to be set when the JVM starts.
+     */
+    public static final String DEFAULT_FUNCTION_PROPERTY = "org.gradle.internal.hash.function";
+
+    private static final HashFunction DEFAULT = selectDefaultFunction(System.getProperty(DEFAULT_FUNCTION_PROPERTY));
+
+    static HashFunction selectDefaultFunction(@Nullable String algorithm) {
+        if (algorithm == null || algorithm.equalsIgnoreCase(MD5.getAlgorithm())) {
+            return MD5;
+        }
+        if (algorithm.equalsIgnoreCase(XXH128.getAlgorithm())) {
+            return XXH128;
+        }
+        throw new IllegalArgumentException(String.format("Unsupported default hash function '%s' set via '%s', supported are %s and %s.", algorithm, DEFAULT_FUNCTION_PROPERTY, MD5.getAlgorithm(), XXH128.getAlgorithm()));
+    }
 
     /**
      * Returns a new {@link Hasher} based on the default hashing implementation.
@@ -124,6 +144,19 @@ public static HashFunction defaultFunction() {
         return DEFAULT;
     }
 
+    /**
+     * Returns the name to use for a persistent cache that stores hashes created by the default hash function.
+     * <p>
+     * The name is qualified with the default hash function when it is not MD5,
+     * so that hashes created by different hash functions are never mixed.
+     */
+    public static String qualifyCacheName(String cacheName) {
+        if (DEFAULT == MD5) {
+            return cacheName;
+        }
+        return cacheName + "-" + DEFAULT.getAlgorithm().toLowerCase(Locale.ROOT);
+    }
+
     /**
      * MD5 hashing function.
      */
@@ -131,6 +164,13 @@ public static HashFunction md5() {
         return MD5;
     }
 
+    /**
+     * XXH128 hashing function, a fast non-cryptographic hash function.
+     */
+    public static HashFunction xxh128() {
+        return XXH128;
+    }
+
     /**
      * SHA1 hashing function.
      */
@@ -362,7 +402,7 @@ public HashCode hash() {
         }
     }
 
-    private static class DefaultHasher implements Hasher {
+    static class DefaultHasher implements Hasher {
         private final PrimitiveHasher hasher;
 
         public DefaultHasher(PrimitiveHasher unsafeHasher) {
@@ -0,0 +1,519 @@
+/*
+ * Copyright 2025 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.internal.hash;
+
+import com.google.common.io.ByteStreams;
+import com.google.common.io.Files;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+import static org.gradle.internal.hash.HashCode.Usage.SAFE_TO_REUSE_BYTES;
+
+/**
+ * The 128-bit variant of the non-cryptographic XXH3 hash function, see https://github.com/Cyan4973/xxHash.
+ * <p>
+ * Produces the same hashes as {@code XXH3_128bits()} with the default secret and seed,
+ * in the canonical big-endian representation of {@code XXH128_canonicalFromHash()}.
+ * Primitives are fed to the hash function in little-endian byte order and strings are encoded as UTF-8,
+ * like the message digest based hash functions do.
+ */
+final class Xxh128HashFunction implements HashFunction {
+    static final String ALGORITHM = "XXH128";
+
+    private static final long PRIME32_1 = 0x9E3779B1L;
+    private static final long PRIME32_2 = 0x85EBCA77L;
+    private static final long PRIME32_3 = 0xC2B2AE3DL;
+    private static final long PRIME64_1 = 0x9E3779B185EBCA87L;
+    private static final long PRIME64_2 = 0xC2B2AE3D27D4EB4FL;
+    private static final long PRIME64_3 = 0x165667B19E3779F9L;
+    private static final long PRIME64_4 = 0x85EBCA77C2B2AE63L;
+    private static final long PRIME64_5 = 0x27D4EB2F165667C5L;
+    private static final long PRIME_MX1 = 0x165667919E3779F9L;
+    private static final long PRIME_MX2 = 0x9FB21C651E98DF25L;
+
+    private static final int STRIPE_LENGTH = 64;
+    private static final int SECRET_SIZE = 192;
+    private static final int STRIPES_PER_BLOCK = (SECRET_SIZE - STRIPE_LENGTH) / 8;
+    private static final int BUFFER_SIZE = 256;
+    private static final int BUFFER_STRIPES = BUFFER_SIZE / STRIPE_LENGTH;
+    private static final int MIDSIZE_MAX = 240;
+
+    private static final ByteBuffer SECRET = ByteBuffer.wrap(decodeHex(
+        "b8fe6c3923a44bbe7c01812cf721ad1cded46de9839097db7240a4a4b7b3671f"
+            + "cb79e64eccc0e578825ad07dccff7221b8084674f743248ee03590e6813a264c"
+            + "3c2852bb91c300cb88d0658b1b532ea371644897a20df94e3819ef46a9deacd8"
+            + "a8fa763fe39c343ff9dcbbc7c70b4f1d8a51e04bcdb45931c89f7ec9d9787364"
+            + "eac5ac8334d3ebc3c581a0fffa1363eb170ddd51b7f0da49d316552629d4689e"
+            + "2b16be587d47a1fc8ff8b8d17ad031ce45cb3a8f95160428afd7fbcabb4b407e"
+    )).asReadOnlyBuffer().order(ByteOrder.LITTLE_ENDIAN);
+
+    // Secret values used by the long hash, read once up front
+    private static final long[] STRIPE_SECRET = secretLongs(0, SECRET_SIZE / 8);
+    private static final long[] SCRAMBLE_SECRET = secretLongs(SECRET_SIZE - STRIPE_LENGTH, 8);
+    private static final long[] LAST_STRIPE_SECRET = secretLongs(SECRET_SIZE - STRIPE_LENGTH - 7, 8);
+    private static final long[] MERGE_LOW_SECRET = secretLongs(11, 8);
+    private static final long[] MERGE_HIGH_SECRET = secretLongs(SECRET_SIZE - STRIPE_LENGTH - 11, 8);
+
+    @Override
+    public String getAlgorithm() {
+        return ALGORITHM;
+    }
+
+    @Override
+    public PrimitiveHasher newPrimitiveHasher() {
+        return new Xxh128Hasher();
+    }
+
+    @Override
+    public Hasher newHasher() {
+        return new Hashing.DefaultHasher(newPrimitiveHasher());
+    }
+
+    @Override
+    public HashCode hashBytes(byte[] bytes) {
+        PrimitiveHasher hasher = newPrimitiveHasher();
+        hasher.putBytes(bytes);
+        return hasher.hash();
+    }
+
+    @Override
+    public HashCode hashString(CharSequence string) {
+        PrimitiveHasher hasher = newPrimitiveHasher();
+        hasher.putString(string);
+        return hasher.hash();
+    }
+
+    @Override
+    public HashCode hashStream(InputStream stream) throws IOException {
+        HashingOutputStream hashingOutputStream = primitiveStreamHasher();
+        ByteStreams.copy(stream, hashingOutputStream);
+        return hashingOutputStream.hash();
+    }
+
+    @Override
+    public HashCode hashFile(File file) throws IOException {
+        HashingOutputStream hashingOutputStream = primitiveStreamHasher();
+        Files.copy(file, hashingOutputStream);
+        return hashingOutputStream.hash();
+    }
+
+    private HashingOutputStream primitiveStreamHasher() {
+        return new HashingOutputStream(this, ByteStreams.nullOutputStream());
+    }
+
+    @Override
+    public int getHexDigits() {
+        return 32;
+    }
+
+    @Override
+    public String toString() {
+        return getAlgorithm();
+    }
+
+    /**
+     * Streaming XXH3 state.
+     * <p>
+     * Input is collected in a buffer, which is consumed a full buffer at a time once more input arrives.
+     * When the hash is calculated, up to {@value #MIDSIZE_MAX} bytes of input are still completely in the buffer, and are hashed with the short input algorithms.
+     * Otherwise, the bytes in front of the buffered bytes are still in the buffer from the previous round, which is used to calculate the last stripe.
+     */
+    private static final class Xxh128Hasher implements PrimitiveHasher {
+        private final byte[] buffer = new byte[BUFFER_SIZE];
+        private final ByteBuffer bufferView = ByteBuffer.wrap(buffer).order(ByteOrder.LITTLE_ENDIAN);
+        private final long[] acc = {PRIME32_3, PRIME64_1, PRIME64_2, PRIME64_3, PRIME64_4, PRIME32_2, PRIME64_5, PRIME32_1};
+        private int bufferedSize;
+        private long totalLength;
+        private int stripesSoFar;
+        private boolean done;
+
+        // Accumulator of the 17 to 240 byte hash
+        private long accLow;
+        private long accHigh;
+
+        private void prepareWrite() {
+            if (done) {
+                throw new IllegalStateException("Cannot reuse hasher!");
+            }
+            if (bufferedSize == BUFFER_SIZE) {
+                consumeStripes(0, BUFFER_STRIPES);
+                bufferedSize = 0;
+            }
+        }
+
+        @Override
+        public void putBytes(byte[] bytes) {
+            putBytes(bytes, 0, bytes.length);
+        }
+
+        @Override
+        public void putBytes(byte[] bytes, int off, int len) {
+            totalLength += len;
+            while (len > 0) {
+                prepareWrite();
+                int count = Math.min(len, BUFFER_SIZE - bufferedSize);
+                System.arraycopy(bytes, off, buffer, bufferedSize, count);
+                bufferedSize += count;
+                off += count;
+                len -= count;
+            }
+        }
+
+        @Override
+        public void putByte(byte value) {
+            prepareWrite();
+            buffer[bufferedSize++] = value;
+            totalLength++;
+        }
+
+        @Override
+        public void putInt(int value) {
+            if (bufferedSize <= BUFFER_SIZE - 4 && !done) {
+                bufferView.putInt(bufferedSize, value);
+                bufferedSize += 4;
+                totalLength += 4;
+            } else {
+                for (int i = 0; i < 4; i++) {
+                    putByte((byte) (value >>> (i * 8)));
+                }
+            }
+        }
+
+        @Override
+        public void putLong(long value) {
+            if (bufferedSize <= BUFFER_SIZE - 8 && !done) {
+                bufferView.putLong(bufferedSize, value);
+                bufferedSize += 8;
+                totalLength += 8;
+            } else {
+                for (int i = 0; i < 8; i++) {
+                    putByte((byte) (value >>> (i * 8)));
+                }
+            }
+        }
+
+        @Override
+        public void putDouble(double value) {
+            putLong(Double.doubleToRawLongBits(value));
+        }
+
+        @Override
+        public void putBoolean(boolean value) {
+            putByte((byte) (value ? 1 : 0));
+        }
+
+        /**
+         * Feeds the UTF-8 encoding of the string, without encoding it into a new array first.
+         * Malformed surrogate pairs are encoded as {@code '?'}, like {@link String#getBytes(java.nio.charset.Charset)} does.
+         */
+        @Override
+        public void putString(CharSequence value) {
+            int length = value.length();
+            for (int i = 0; i < length; i++) {
+                char c = value.charAt(i);
+                if (c < 0x80) {
+                    putByte((byte) c);
+                } else if (c < 0x800) {
+                    putByte((byte) (0xC0 | (c >>> 6)));
+                    putByte((byte) (0x80 | (c & 0x3F)));
+                } else if (Character.isSurrogate(c)) {
+                    if (Character.isHighSurrogate(c) && i + 1 < length && Character.isLowSurrogate(value.charAt(i + 1))) {
+                        int codePoint = Character.toCodePoint(c, value.charAt(++i));
+                        putByte((byte) (0xF0 | (codePoint >>> 18)));
+                        putByte((byte) (0x80 | ((codePoint >>> 12) & 0x3F)));
+                        putByte((byte) (0x80 | ((codePoint >>> 6) & 0x3F)));
+                        putByte((byte) (0x80 | (codePoint & 0x3F)));
+                    } else {
+                        putByte((byte) '?');
+                    }
+                } else {
+                    putByte((byte) (0xE0 | (c >>> 12)));
+                    putByte((byte) (0x80 | ((c >>> 6) & 0x3F)));
+                    putByte((byte) (0x80 | (c & 0x3F)));
+                }
+            }
+        }
+
+        @Override
+        public void putHash(HashCode hashCode) {
+            hashCode.appendToHasher(this);
+        }
+
+        @Override
+        public HashCode hash() {
+            if (done) {
+                throw new IllegalStateException("Cannot reuse hasher!");
+            }
+            done = true;
+            long low;
+            long high;
+            if (totalLength > MIDSIZE_MAX) {
+                hashLong();
+                low = mergeAccumulators(MERGE_LOW_SECRET, totalLength * PRIME64_1);
+                high = mergeAccumulators(MERGE_HIGH_SECRET, ~(totalLength * PRIME64_2));
+            } else {
+                int length = (int) totalLength;
+                if (length > 128) {
+                    hash129To240(length);
+                } else if (length > 16) {
+                    hash17To128(length);
+                } else if (length > 8) {
+                    hash9To16(length);
+                    return toHashCode(accLow, accHigh);
+                } else if (length >= 4) {
+                    hash4To8(length);
+                    return toHashCode(accLow, accHigh);
+                } else if (length > 0) {
+                    hash1To3(length);
+                    return toHashCode(accLow, accHigh);
+                } else {
+                    return toHashCode(
+                        xxh64Avalanche(secretLong(64) ^ secretLong(72)),
+                        xxh64Avalanche(secretLong(80) ^ secretLong(88))
+                    );
+                }
+                low = accLow + accHigh;
+                high = accLow * PRIME64_1 + accHigh * PRIME64_4 + totalLength * PRIME64_2;
+                low = xxh3Avalanche(low);
+                high = -xxh3Avalanche(high);
+            }
+            return toHashCode(low, high);
+        }
+
+        private void hash1To3(int length) {
+            int c1 = buffer[0] & 0xFF;
+            int c2 = buffer[length >> 1] & 0xFF;
+            int c3 = buffer[length - 1] & 0xFF;
+            int combinedLow = (c1 << 16) | (c2 << 24) | c3 | (length << 8);
+            int combinedHigh = Integer.rotateLeft(Integer.reverseBytes(combinedLow), 13);
+            long bitflipLow = secretInt(0) ^ secretInt(4);
+            long bitflipHigh = secretInt(8) ^ secretInt(12);
+            accLow = xxh64Avalanche((combinedLow & 0xFFFFFFFFL) ^ bitflipLow);
+            accHigh = xxh64Avalanche((combinedHigh & 0xFFFFFFFFL) ^ bitflipHigh);
+        }
+
+        private void hash4To8(int length) {
+            long inputLow = bufferView.getInt(0) & 0xFFFFFFFFL;
+            long inputHigh = bufferView.getInt(length - 4) & 0xFFFFFFFFL;
+            long keyed = (inputLow + (inputHigh << 32)) ^ (secretLong(16) ^ secretLong(24));
+            long multiplier = PRIME64_1 + ((long) length << 2);
+            long productLow = keyed * multiplier;
+            long productHigh = unsignedMultiplyHigh(keyed, multiplier);
+            productHigh += productLow << 1;
+            productLow ^= productHigh >>> 3;
+            productLow = xorShift(productLow, 35);
+            productLow *= PRIME_MX2;
+            productLow = xorShift(productLow, 28);
+            accLow = productLow;
+            accHigh = xxh3Avalanche(productHigh);
+        }
+
+        private void hash9To16(int length) {
+            long bitflipLow = secretLong(32) ^ secretLong(40);
+            long bitflipHigh = secretLong(48) ^ secretLong(56);
+            long inputLow = bufferView.getLong(0);
+            long inputHigh = bufferView.getLong(length - 8);
+            long keyed = inputLow ^ inputHigh ^ bitflipLow;
+            long productLow = keyed * PRIME64_1;
+            long productHigh = unsignedMultiplyHigh(keyed, PRIME64_1);
+            productLow += (long) (length - 1) << 54;
+            inputHigh ^= bitflipHigh;
+            productHigh += inputHigh + (inputHigh & 0xFFFFFFFFL) * (PRIME32_2 - 1);
+            productLow ^= Long.reverseBytes(productHigh);
+            long resultLow = productLow * PRIME64_2;
+            long resultHigh = unsignedMultiplyHigh(productLow, PRIME64_2) + productHigh * PRIME64_2;
+            accLow = xxh3Avalanche(resultLow);
+            accHigh = xxh3Avalanche(resultHigh);
+        }
+
+        private void hash17To128(int length) {
+            accLow = length * PRIME64_1;
+            accHigh = 0;
+            if (length > 32) {
+                if (length > 64) {
+                    if (length > 96) {
+                        mix32Bytes(48, length - 64, 96);
+                    }
+                    mix32Bytes(32, length - 48, 64);
+                }
+                mix32Bytes(16, length - 32, 32);
+            }
+            mix32Bytes(0, length - 16, 0);
+        }
+
+        private void hash129To240(int length) {
+            int rounds = length / 32;
+            accLow = length * PRIME64_1;
+            accHigh = 0;
+            for (int i = 0; i < 4; i++) {
+                mix32Bytes(32 * i, 32 * i + 16, 32 * i);
+            }
+            accLow = xxh3Avalanche(accLow);
+            accHigh = xxh3Avalanche(accHigh);
+            for (int i = 4; i < rounds; i++) {
+                mix32Bytes(32 * i, 32 * i + 16, 3 + 32 * (i - 4));
+            }
+            mix32Bytes(length - 16, length - 32, 136 - 17 - 16);
+        }
+
+        private void mix32Bytes(int input1, int input2, int secretOffset) {
+            accLow += mix16Bytes(input1, secretOffset);
+            accLow ^= bufferView.getLong(input2) + bufferView.getLong(input2 + 8);
+            accHigh += mix16Bytes(input2, secretOffset + 16);
+            accHigh ^= bufferView.getLong(input1) + bufferView.getLong(input1 + 8);
+        }
+
+        private long mix16Bytes(int input, int secretOffset) {
+            return multiplyFold(
+                bufferView.getLong(input) ^ secretLong(secretOffset),
+                bufferView.getLong(input + 8) ^ secretLong(secretOffset + 8)
+            );
+        }
+
+        private void hashLong() {
+            int lastStripe;
+            if (bufferedSize >= STRIPE_LENGTH) {
+                consumeStripes(0, (bufferedSize - 1) / STRIPE_LENGTH);
+                lastStripe = bufferedSize - STRIPE_LENGTH;
+            } else {
+                // Assemble the last stripe from the end of the previous buffer content, followed by the buffered bytes
+                int catchUp = STRIPE_LENGTH - bufferedSize;
+                lastStripe = STRIPE_LENGTH;
+                System.arraycopy(buffer, BUFFER_SIZE - catchUp, buffer, lastStripe, catchUp);
+                System.arraycopy(buffer, 0, buffer, lastStripe + catchUp, bufferedSize);
+            }
+            accumulateStripe(lastStripe, LAST_STRIPE_SECRET, 0);
+        }
+
+        private void consumeStripes(int offset, int stripes) {
+            int stripesToEndOfBlock = STRIPES_PER_BLOCK - stripesSoFar;
+            if (stripesToEndOfBlock <= stripes) {
+                accumulate(offset, stripesSoFar, stripesToEndOfBlock);
+                scramble();
+                accumulate(offset + stripesToEndOfBlock * STRIPE_LENGTH, 0, stripes - stripesToEndOfBlock);
+                stripesSoFar = stripes - stripesToEndOfBlock;
+            } else {
+                accumulate(offset, stripesSoFar, stripes);
+                stripesSoFar += stripes;
+            }
+        }
+
+        private void accumulate(int offset, int firstStripe, int stripes) {
+            for (int stripe = 0; stripe < stripes; stripe++) {
+                accumulateStripe(offset + stripe * STRIPE_LENGTH, STRIPE_SECRET, firstStripe + stripe);
+            }
+        }
+
+        private void accumulateStripe(int offset, long[] secret, int secretOffset) {
+            for (int i = 0; i < 8; i++) {
+                long value = bufferView.getLong(offset + 8 * i);
+                long key = value ^ secret[secretOffset + i];
+                acc[i ^ 1] += value;
+                acc[i] += (key & 0xFFFFFFFFL) * (key >>> 32);
+            }
+        }
+
+        private void scramble() {
+            for (int i = 0; i < 8; i++) {
+                long value = acc[i];
+                value ^= value >>> 47;
+                value ^= SCRAMBLE_SECRET[i];
+                value *= PRIME32_1;
+                acc[i] = value;
+            }
+        }
+
+        private long mergeAccumulators(long[] secret, long start) {
+            long result = start;
+            for (int i = 0; i < 4; i++) {
+                result += multiplyFold(acc[2 * i] ^ secret[2 * i], acc[2 * i + 1] ^ secret[2 * i + 1]);
+            }
+            return xxh3Avalanche(result);
+        }
+    }
+
+    private static HashCode toHashCode(long low, long high) {
+        byte[] bytes = new byte[16];
+        ByteBuffer.wrap(bytes).putLong(high).putLong(low);
+        return HashCode.fromBytes(bytes, SAFE_TO_REUSE_BYTES);
+    }
+
+    private static long secretLong(int offset) {
+        return SECRET.getLong(offset);
+    }
+
+    private static long secretInt(int offset) {
+        return SECRET.getInt(offset) & 0xFFFFFFFFL;
+    }
+
+    private static long[] secretLongs(int offset, int count) {
+        long[] values = new long[count];
+        for (int i = 0; i < count; i++) {
+            values[i] = secretLong(offset + 8 * i);
+        }
+        return values;
+    }
+
+    private static long multiplyFold(long x, long y) {
+        return (x * y) ^ unsignedMultiplyHigh(x, y);
+    }
+
+    /**
+     * Returns the upper 64 bits of the unsigned 128-bit product.
+     * Replace with {@code Math.unsignedMultiplyHigh()} once we require Java 18.
+     */
+    private static long unsignedMultiplyHigh(long x, long y) {
+        long lowLow = (x & 0xFFFFFFFFL) * (y & 0xFFFFFFFFL);
+        long highLow = (x >>> 32) * (y & 0xFFFFFFFFL);
+        long lowHigh = (x & 0xFFFFFFFFL) * (y >>> 32);
+        long highHigh = (x >>> 32) * (y >>> 32);
+        long cross = (lowLow >>> 32) + (highLow & 0xFFFFFFFFL) + lowHigh;
+        return (highLow >>> 32) + (cross >>> 32) + highHigh;
+    }
+
+    private static long xorShift(long value, int shift) {
+        return value ^ (value >>> shift);
+    }
+
+    private static long xxh64Avalanche(long hash) {
+        hash ^= hash >>> 33;
+        hash *= PRIME64_2;
+        hash ^= hash >>> 29;
+        hash *= PRIME64_3;
+        hash ^= hash >>> 32;
+        return hash;
+    }
+
+    private static long xxh3Avalanche(long hash) {
+        hash = xorShift(hash, 37);
+        hash *= PRIME_MX1;
+        hash = xorShift(hash, 32);
+        return hash;
+    }
+
+    private static byte[] decodeHex(String hex) {
+        byte[] bytes = new byte[hex.length() / 2];
+        for (int i = 0; i < bytes.length; i++) {
+            bytes[i] = (byte) Integer.parseInt(hex.substring(2 * i, 2 * i + 2), 16);
+        }
+        return bytes;
+    }
+}
@@ -0,0 +1,127 @@
+/*
+ * Copyright 2025 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.internal.hash
+
+import org.gradle.api.UncheckedIOException
+import spock.lang.Specification
+import spock.lang.TempDir
+
+import java.util.concurrent.Executors
+
+class DefaultFileHasherTest extends Specification {
+    static final int CHUNK_SIZE = 64 * 1024
+
+    @TempDir
+    File tmpDir
+
+    def streamHasher = new DefaultStreamHasher(CHUNK_SIZE)
+
+    def "hashes file of #length bytes like its content"() {
+        def content = content(length)
+        def file = file(content)
+        def executor = Executors.newFixedThreadPool(4)
+
+        when:
+        def streamHash = streamHasher.hash(new ByteArrayInputStream(content))
+
+        then:
+        new DefaultFileHasher(streamHasher).hash(file) == streamHash
+        new DefaultFileHasher(streamHasher).hash(file, length, 0) == streamHash
+        new DefaultFileHasher(streamHasher, executor).hash(file) == streamHash
+
+        cleanup:
+        executor.shutdown()
+
+        where:
+        length << [
+            0,
+            1,
+            CHUNK_SIZE,
+            DefaultFileHasher.CHANNEL_THRESHOLD - 1,
+            DefaultFileHasher.CHANNEL_THRESHOLD,
+            DefaultFileHasher.CHANNEL_THRESHOLD + 1,
+            3 * DefaultFileHasher.CHANNEL_THRESHOLD + 17
+        ]
+    }
+
+    def "content of a single chunk is hashed as a whole"() {
+        def content = content(CHUNK_SIZE)
+
+        expect:
+        streamHasher.hash(new ByteArrayInputStream(content)) == hashAsWhole(content)
+        new DefaultStreamHasher().hash(new ByteArrayInputStream(content)) == hashAsWhole(content)
+    }
+
+    def "content spanning multiple chunks is hashed from the hashes of the chunks"() {
+        def content = content(2 * CHUNK_SIZE + 1)
+        def chunks = [
+            Arrays.copyOfRange(content, 0, CHUNK_SIZE),
+            Arrays.copyOfRange(content, CHUNK_SIZE, 2 * CHUNK_SIZE),
+            Arrays.copyOfRange(content, 2 * CHUNK_SIZE, content.length)
+        ]
+
+        expect:
+        streamHasher.hash(new ByteArrayInputStream(content)) == DefaultStreamHasher.combineChunkHashes(chunks.collect { hashAsWhole(it) })
+        streamHasher.hash(new ByteArrayInputStream(content)) != hashAsWhole(content)
+    }
+
+    def "hashes content and files as a whole by default"() {
+        def content = content(3 * DefaultFileHasher.CHANNEL_THRESHOLD + 17)
+        def file = file(content)
+        def executor = Executors.newFixedThreadPool(4)
+        def defaultStreamHasher = new DefaultStreamHasher()
+
+        expect:
+        !DefaultStreamHasher.isChunked(defaultStreamHasher)
+        DefaultStreamHasher.isChunked(DefaultStreamHasher.chunked())
+        defaultStreamHasher.hash(new ByteArrayInputStream(content)) == hashAsWhole(content)
+        new DefaultFileHasher(defaultStreamHasher, executor).hash(file) == hashAsWhole(content)
+
+        cleanup:
+        executor.shutdown()
+    }
+
+    def "reports missing file"() {
+        def file = new File(tmpDir, "missing")
+
+        when:
+        new DefaultFileHasher(streamHasher).hash(file, DefaultFileHasher.CHANNEL_THRESHOLD, 0)
+
+        then:
+        def e = thrown(UncheckedIOException)
+        e.message == "Failed to create hash for file '$file' as it does not exist."
+    }
+
+    private static HashCode hashAsWhole(byte[] content) {
+        def hasher = Hashing.newPrimitiveHasher()
+        hasher.putHash(Hashing.signature(DefaultStreamHasher))
+        hasher.putBytes(content)
+        return hasher.hash()
+    }
+
+    private File file(byte[] content) {
+        def file = new File(tmpDir, "file-${content.length}.bin")
+        file.bytes = content
+        return file
+    }
+
+    private static byte[] content(long length) {
+        def content = new byte[(int) length]
+        new Random(length).nextBytes(content)
+        return content
+    }
+}
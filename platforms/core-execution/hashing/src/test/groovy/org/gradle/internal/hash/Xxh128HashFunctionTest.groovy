@@ -0,0 +1,149 @@
+/*
+ * Copyright 2025 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.internal.hash
+
+import spock.lang.Specification
+
+import java.nio.ByteBuffer
+import java.nio.ByteOrder
+import java.nio.charset.StandardCharsets
+
+class Xxh128HashFunctionTest extends Specification {
+    def hashFunction = Hashing.xxh128()
+
+    def "hashes #length bytes like the reference implementation"() {
+        def input = input(length)
+
+        expect:
+        hashFunction.hashBytes(input).toString() == expected
+        hashInChunks(input, 1) == expected
+        hashInChunks(input, 7) == expected
+        hashInChunks(input, 256) == expected
+        hashInChunks(input, 1000) == expected
+
+        where:
+        length | expected
+        0      | "99aa06d3014798d86001c324468d497f"
+        1      | "495b62073ef70ca44c5cca45d0f4811f"
+        3      | "46f66cb93538156515f7093b173d005c"
+        4      | "7fefeeffb4d0eab3b987ca5d9241572a"
+        8      | "803c675a846cc6c256bb836ceb6d4baa"
+        9      | "d46556872d230f224376673580310154"
+        16     | "650fe308c566747df853dd94614dfa07"
+        17     | "18217300b5132d5a78c349fe81b2f26c"
+        128    | "b4f87b99d2db8a511e04fad9f0cacb4d"
+        129    | "6881633650cd8924c51bc887976aef63"
+        240    | "de57aab31e77a2ff93e173833f75ab66"
+        241    | "92b991a7192f3f080b3b630948ce4a00"
+        1024   | "4c17271c906df79223bc880ebf0d29c6"
+        1025   | "70a4eb1b9691d77fc09fdfbc398c7d82"
+        4097   | "b074f6deb50fbb5eb319759b4671c221"
+        100000 | "8ce7a24d31cd94b1ccf90df7e7e37036"
+    }
+
+    def "hashes streams and strings"() {
+        expect:
+        hashFunction.hashString("abc").toString() == "06b05ab6733a618578af5f94892f3950"
+        hashFunction.hashStream(new ByteArrayInputStream(input(4097))).toString() == "b074f6deb50fbb5eb319759b4671c221"
+    }
+
+    def "feeds primitives in little-endian byte order"() {
+        def bytes = ByteBuffer.allocate(300).order(ByteOrder.LITTLE_ENDIAN)
+        def hasher = hashFunction.newPrimitiveHasher()
+
+        when:
+        // Crosses the internal buffer boundary in the middle of a value
+        (0..<30).each {
+            hasher.putInt(it)
+            bytes.putInt(it)
+            hasher.putLong(-it)
+            bytes.putLong(-it)
+        }
+        hasher.putDouble(1.5d)
+        bytes.putDouble(1.5d)
+        hasher.putBoolean(true)
+        bytes.put((byte) 1)
+        hasher.putByte((byte) 42)
+        bytes.put((byte) 42)
+
+        then:
+        hasher.hash() == hashFunction.hashBytes(Arrays.copyOf(bytes.array(), bytes.position()))
+    }
+
+    def "encodes strings as UTF-8"() {
+        expect:
+        hashFunction.hashString(string) == hashFunction.hashBytes(string.getBytes(StandardCharsets.UTF_8))
+
+        where:
+        string << ["", "plain", "café", "✓ check", "emoji 😀", "unpaired \ud800 high", "unpaired \udc00 low", "trailing \ud800", "x" * 300]
+    }
+
+    def "cannot reuse hasher"() {
+        def hasher = hashFunction.newPrimitiveHasher()
+        hasher.putInt(1)
+        hasher.hash()
+
+        when:
+        hasher.putInt(2)
+
+        then:
+        thrown(IllegalStateException)
+
+        when:
+        hasher.hash()
+
+        then:
+        thrown(IllegalStateException)
+    }
+
+    def "can select as default hash function"() {
+        expect:
+        Hashing.selectDefaultFunction(null) == Hashing.md5()
+        Hashing.selectDefaultFunction("md5") == Hashing.md5()
+        Hashing.selectDefaultFunction("XXH128") == Hashing.xxh128()
+        Hashing.selectDefaultFunction("xxh128") == Hashing.xxh128()
+
+        when:
+        Hashing.selectDefaultFunction("sha1")
+
+        then:
+        def e = thrown(IllegalArgumentException)
+        e.message == "Unsupported default hash function 'sha1' set via 'org.gradle.internal.hash.function', supported are MD5 and XXH128."
+    }
+
+    def "does not qualify cache names when MD5 is the default"() {
+        expect:
+        Hashing.defaultFunction() == Hashing.md5()
+        Hashing.qualifyCacheName("fileHashes") == "fileHashes"
+    }
+
+    private String hashInChunks(byte[] input, int chunkSize) {
+        def hasher = hashFunction.newPrimitiveHasher()
+        for (int offset = 0; offset < input.length; offset += chunkSize) {
+            hasher.putBytes(input, offset, Math.min(chunkSize, input.length - offset))
+        }
+        return hasher.hash().toString()
+    }
+
+    private static byte[] input(int length) {
+        def bytes = new byte[length]
+        for (int i = 0; i < length; i++) {
+            bytes[i] = (byte) (i * 31 + 7)
+        }
+        return bytes
+    }
+}
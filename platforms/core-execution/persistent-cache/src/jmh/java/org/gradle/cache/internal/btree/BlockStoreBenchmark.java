@@ -0,0 +1,168 @@
+/*
+ * Copyright 2025 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.cache.internal.btree;
+
+import com.google.common.collect.ImmutableSet;
+import org.apache.commons.io.FileUtils;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Compares lookups and inserts of blocks in the {@link BlockStore} implementations used by {@link BTreePersistentIndexedCache}.
+ * <p>
+ * The caching variants wrap the store in a {@link CachingBlockStore} that caches the benchmarked block type,
+ * like {@link BTreePersistentIndexedCache} does for its index blocks.
+ * Inserts are flushed one by one, and the store is cleared every {@link #INSERTS_BEFORE_CLEAR} inserts to keep the file size bounded.
+ */
+@Fork(1)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@State(Scope.Benchmark)
+public class BlockStoreBenchmark {
+    private static final int BLOCK_COUNT = 10_000;
+    private static final int INSERTS_BEFORE_CLEAR = 100_000;
+
+    @Param({"file", "caching-file", "mapped", "caching-mapped"})
+    String store;
+
+    @Param({"64", "4096"})
+    int payloadSize;
+
+    private File tempDir;
+    private BlockStore lookupStore;
+    private BlockPointer[] pointers;
+    private BlockStore insertStore;
+    private byte[] insertContent;
+    private int inserts;
+
+    @Setup(Level.Trial)
+    public void setup() throws IOException {
+        tempDir = Files.createTempDirectory("block-store-benchmark").toFile();
+        lookupStore = openStore(new File(tempDir, "lookup.bin"));
+        pointers = new BlockPointer[BLOCK_COUNT];
+        for (int i = 0; i < BLOCK_COUNT; i++) {
+            TestPayload payload = new TestPayload(randomContent());
+            lookupStore.attach(payload);
+            lookupStore.write(payload);
+            pointers[i] = payload.getPos();
+        }
+        lookupStore.flush();
+        insertStore = openStore(new File(tempDir, "insert.bin"));
+        insertContent = randomContent();
+    }
+
+    private byte[] randomContent() {
+        byte[] content = new byte[payloadSize];
+        ThreadLocalRandom.current().nextBytes(content);
+        return content;
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        lookupStore.close();
+        insertStore.close();
+        FileUtils.forceDelete(tempDir);
+    }
+
+    private BlockStore openStore(File file) {
+        BlockStore blockStore;
+        switch (store) {
+            case "file":
+                blockStore = new FileBackedBlockStore(file);
+                break;
+            case "caching-file":
+                blockStore = new CachingBlockStore(new FileBackedBlockStore(file), ImmutableSet.of(TestPayload.class));
+                break;
+            case "mapped":
+                blockStore = new MappedBlockStore(file);
+                break;
+            case "caching-mapped":
+                blockStore = new CachingBlockStore(new MappedBlockStore(file), ImmutableSet.of(TestPayload.class));
+                break;
+            default:
+                throw new IllegalArgumentException(store);
+        }
+        blockStore.open(() -> {}, type -> new TestPayload(new byte[payloadSize]));
+        return blockStore;
+    }
+
+    @Benchmark
+    public BlockPayload lookup() {
+        return lookupStore.read(pointers[ThreadLocalRandom.current().nextInt(BLOCK_COUNT)], TestPayload.class);
+    }
+
+    @Benchmark
+    public BlockPayload insert() {
+        if (++inserts == INSERTS_BEFORE_CLEAR) {
+            insertStore.clear();
+            inserts = 0;
+        }
+        TestPayload payload = new TestPayload(insertContent);
+        insertStore.attach(payload);
+        insertStore.write(payload);
+        insertStore.flush();
+        return payload;
+    }
+
+    private static class TestPayload extends BlockPayload {
+        private final byte[] content;
+
+        TestPayload(byte[] content) {
+            this.content = content;
+        }
+
+        @Override
+        protected int getSize() {
+            return Block.INT_SIZE + content.length;
+        }
+
+        @Override
+        protected byte getType() {
+            return 0x5a;
+        }
+
+        @Override
+        protected void read(DataInputStream inputStream) throws Exception {
+            int length = inputStream.readInt();
+            if (length != content.length) {
+                throw blockCorruptedException();
+            }
+            inputStream.readFully(content);
+        }
+
+        @Override
+        protected void write(DataOutputStream outputStream) throws Exception {
+            outputStream.writeInt(content.length);
+            outputStream.write(content);
+        }
+    }
+}
@@ -16,10 +16,19 @@
 
 package org.gradle.cache;
 
+import org.gradle.internal.serialize.Serializer;
+
 public interface CacheDecorator {
     /**
      * @param cacheId Unique id for this cache instance.
      * @param cacheName Name for the type of contents stored in this cache instance.
      */
     <K, V> MultiProcessSafeIndexedCache<K, V> decorate(String cacheId, String cacheName, MultiProcessSafeIndexedCache<K, V> indexedCache, CrossProcessCacheAccess crossProcessCacheAccess, AsyncCacheAccess asyncCacheAccess);
+
+    /**
+     * Same as {@link #decorate(String, String, MultiProcessSafeIndexedCache, CrossProcessCacheAccess, AsyncCacheAccess)}, for decorators that need to serialize the entries of the cache themselves.
+     */
+    default <K, V> MultiProcessSafeIndexedCache<K, V> decorate(String cacheId, String cacheName, MultiProcessSafeIndexedCache<K, V> indexedCache, Serializer<K> keySerializer, Serializer<V> valueSerializer, CrossProcessCacheAccess crossProcessCacheAccess, AsyncCacheAccess asyncCacheAccess) {
+        return decorate(cacheId, cacheName, indexedCache, crossProcessCacheAccess, asyncCacheAccess);
+    }
 }
@@ -15,8 +15,20 @@
  */
 package org.gradle.cache;
 
+import java.util.Map;
+import java.util.Set;
+
 /**
  * A {@link IndexedCache} implementation that is aware of file locking.
  */
 public interface MultiProcessSafeIndexedCache<K, V> extends IndexedCache<K, V>, UnitOfWorkParticipant {
+    /**
+     * Puts and removes the given entries. A key must not be both put and removed.
+     * <p>
+     * Implementations may apply the whole batch at once, instead of entry by entry.
+     */
+    default void applyBatch(Map<K, V> puts, Set<K> removals) {
+        puts.forEach(this::put);
+        removals.forEach(this::remove);
+    }
 }
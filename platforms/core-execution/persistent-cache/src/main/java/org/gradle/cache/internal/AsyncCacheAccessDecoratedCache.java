@@ -16,16 +16,45 @@
 
 package org.gradle.cache.internal;
 
+import com.google.common.annotations.VisibleForTesting;
 import org.gradle.cache.AsyncCacheAccess;
 import org.gradle.cache.FileLock;
 import org.gradle.cache.MultiProcessSafeIndexedCache;
 import org.jspecify.annotations.Nullable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.function.Function;
 
+/**
+ * Writes to the backing cache asynchronously, in batches.
+ * <p>
+ * Puts and removes are collected into a batch, which is enqueued as a single operation when it receives its first write.
+ * Later writes to the same key in a batch replace earlier ones, and the backing cache applies the whole batch at once,
+ * so the blocks touched by a batch are written only once.
+ * A batch stops accepting writes once the worker starts applying it, or when it holds {@value #MAX_BATCH_SIZE} keys.
+ * <p>
+ * Since a batch is enqueued no later than its first write, a read enqueued after a write is still applied after it.
+ */
 public class AsyncCacheAccessDecoratedCache<K, V> implements MultiProcessSafeAsyncPersistentIndexedCache<K, V> {
+    private static final Logger LOGGER = LoggerFactory.getLogger(AsyncCacheAccessDecoratedCache.class);
+    @VisibleForTesting
+    static final int MAX_BATCH_SIZE = 1000;
+
     private final AsyncCacheAccess asyncCacheAccess;
     private final MultiProcessSafeIndexedCache<K, V> indexedCache;
+    private final Object lock = new Object();
+    private final BatchStatistics statistics = new BatchStatistics();
+    @Nullable
+    private WriteBatch<K, V> currentBatch;
 
     public AsyncCacheAccessDecoratedCache(AsyncCacheAccess asyncCacheAccess, MultiProcessSafeIndexedCache<K, V> indexedCache) {
         this.asyncCacheAccess = asyncCacheAccess;
@@ -50,36 +79,75 @@ public V get(K key, Function<? super K, ? extends V> producer, Runnable completi
 
     @Override
     public void putLater(final K key, final V value, final Runnable completion) {
-        try {
-            asyncCacheAccess.enqueue(() -> {
-                try {
-                    indexedCache.put(key, value);
-                } finally {
-                    completion.run();
-                }
-            });
-        } catch (RuntimeException e) {
-            completion.run();
-            throw e;
+        WriteBatch<K, V> batch;
+        boolean newBatch;
+        synchronized (lock) {
+            batch = batchForWrite();
+            newBatch = batch.isEmpty();
+            batch.put(key, value, completion);
+        }
+        if (newBatch) {
+            enqueue(batch);
         }
     }
 
     @Override
     public void removeLater(final K key, final Runnable completion) {
+        WriteBatch<K, V> batch;
+        boolean newBatch;
+        synchronized (lock) {
+            batch = batchForWrite();
+            newBatch = batch.isEmpty();
+            batch.remove(key, completion);
+        }
+        if (newBatch) {
+            enqueue(batch);
+        }
+    }
+
+    private WriteBatch<K, V> batchForWrite() {
+        WriteBatch<K, V> batch = currentBatch;
+        if (batch == null || batch.size() >= MAX_BATCH_SIZE) {
+            batch = new WriteBatch<>();
+            currentBatch = batch;
+        }
+        return batch;
+    }
+
+    private void enqueue(WriteBatch<K, V> batch) {
         try {
-            asyncCacheAccess.enqueue(() -> {
-                try {
-                    indexedCache.remove(key);
-                } finally {
-                    completion.run();
-                }
-            });
+            asyncCacheAccess.enqueue(() -> apply(batch));
         } catch (RuntimeException e) {
-            completion.run();
+            closeBatch(batch);
+            batch.complete();
             throw e;
         }
     }
 
+    private void apply(WriteBatch<K, V> batch) {
+        closeBatch(batch);
+        long startTime = System.nanoTime();
+        try {
+            indexedCache.applyBatch(batch.puts, batch.removals);
+        } finally {
+            statistics.batchApplied(batch, System.nanoTime() - startTime);
+            batch.complete();
+        }
+    }
+
+    private void closeBatch(WriteBatch<K, V> batch) {
+        synchronized (lock) {
+            if (currentBatch == batch) {
+                currentBatch = null;
+            }
+        }
+    }
+
+    @VisibleForTesting
+    BatchStatistics getStatistics() {
+        return statistics;
+    }
+
     @Override
     public void afterLockAcquire(FileLock.State currentCacheState) {
         indexedCache.afterLockAcquire(currentCacheState);
@@ -88,10 +156,97 @@ public void afterLockAcquire(FileLock.State currentCacheState) {
     @Override
     public void finishWork() {
         indexedCache.finishWork();
+        statistics.logAndReset(indexedCache);
     }
 
     @Override
     public void beforeLockRelease(FileLock.State currentCacheState) {
         indexedCache.beforeLockRelease(currentCacheState);
     }
+
+    private static class WriteBatch<K, V> {
+        private final Map<K, V> puts = new LinkedHashMap<>();
+        private final Set<K> removals = new HashSet<>();
+        private final List<Runnable> completions = new ArrayList<>();
+        private int writeCount;
+
+        void put(K key, V value, Runnable completion) {
+            removals.remove(key);
+            puts.put(key, value);
+            completions.add(completion);
+            writeCount++;
+        }
+
+        void remove(K key, Runnable completion) {
+            puts.remove(key);
+            removals.add(key);
+            completions.add(completion);
+            writeCount++;
+        }
+
+        int size() {
+            return puts.size() + removals.size();
+        }
+
+        boolean isEmpty() {
+            return writeCount == 0;
+        }
+
+        void complete() {
+            for (Runnable completion : completions) {
+                completion.run();
+            }
+        }
+    }
+
+    /**
+     * Counts the batches applied to the backing cache, and how long it took to apply them.
+     */
+    @VisibleForTesting
+    static class BatchStatistics {
+        private final AtomicLong batchCount = new AtomicLong();
+        private final AtomicLong writeCount = new AtomicLong();
+        private final AtomicLong appliedEntryCount = new AtomicLong();
+        private final AtomicLong largestBatchSize = new AtomicLong();
+        private final AtomicLong totalFlushNanos = new AtomicLong();
+        private final AtomicLong longestFlushNanos = new AtomicLong();
+
+        void batchApplied(WriteBatch<?, ?> batch, long flushNanos) {
+            batchCount.incrementAndGet();
+            writeCount.addAndGet(batch.writeCount);
+            appliedEntryCount.addAndGet(batch.size());
+            largestBatchSize.accumulateAndGet(batch.size(), Math::max);
+            totalFlushNanos.addAndGet(flushNanos);
+            longestFlushNanos.accumulateAndGet(flushNanos, Math::max);
+        }
+
+        long getBatchCount() {
+            return batchCount.get();
+        }
+
+        long getWriteCount() {
+            return writeCount.get();
+        }
+
+        long getAppliedEntryCount() {
+            return appliedEntryCount.get();
+        }
+
+        long getLargestBatchSize() {
+            return largestBatchSize.get();
+        }
+
+        void logAndReset(Object cache) {
+            long batches = batchCount.getAndSet(0);
+            long writes = writeCount.getAndSet(0);
+            long entries = appliedEntryCount.getAndSet(0);
+            long largestBatch = largestBatchSize.getAndSet(0);
+            long totalFlushMillis = TimeUnit.NANOSECONDS.toMillis(totalFlushNanos.getAndSet(0));
+            long longestFlushMillis = TimeUnit.NANOSECONDS.toMillis(longestFlushNanos.getAndSet(0));
+            if (batches > 0 && LOGGER.isDebugEnabled()) {
+                LOGGER.debug("Applied {} writes to {} as {} entries in {} batches (largest {} entries), flushing took {} ms (longest {} ms).",
+                    writes, cache, entries, batches, largestBatch, totalFlushMillis, longestFlushMillis);
+            }
+        }
+    }
 }
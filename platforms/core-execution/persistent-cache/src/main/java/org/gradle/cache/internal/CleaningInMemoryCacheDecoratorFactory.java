@@ -15,6 +15,8 @@
  */
 package org.gradle.cache.internal;
 
+import org.jspecify.annotations.Nullable;
+
 import java.lang.ref.WeakReference;
 import java.util.ArrayList;
 import java.util.Iterator;
@@ -28,6 +30,10 @@ public CleaningInMemoryCacheDecoratorFactory(boolean longLivingProcess, CrossBui
         super(longLivingProcess, cacheFactory);
     }
 
+    public CleaningInMemoryCacheDecoratorFactory(boolean longLivingProcess, CrossBuildInMemoryCacheFactory cacheFactory, long offHeapBudgetBytes) {
+        super(longLivingProcess, cacheFactory, offHeapBudgetBytes);
+    }
+
     public void clearCaches(Predicate<InMemoryCacheController> predicate) {
         synchronized (inMemoryCaches) {
             for (Iterator<WeakReference<InMemoryCacheController>> iterator = inMemoryCaches.iterator(); iterator.hasNext();) {
@@ -43,8 +49,8 @@ public void clearCaches(Predicate<InMemoryCacheController> predicate) {
     }
 
     @Override
-    protected <K, V> MultiProcessSafeAsyncPersistentIndexedCache<K, V> applyInMemoryCaching(String cacheId, MultiProcessSafeAsyncPersistentIndexedCache<K, V> backingCache, int maxEntriesToKeepInMemory, boolean cacheInMemoryForShortLivedProcesses) {
-        MultiProcessSafeAsyncPersistentIndexedCache<K, V> delegate = super.applyInMemoryCaching(cacheId, backingCache, maxEntriesToKeepInMemory, cacheInMemoryForShortLivedProcesses);
+    protected <K, V> MultiProcessSafeAsyncPersistentIndexedCache<K, V> applyInMemoryCaching(String cacheId, MultiProcessSafeAsyncPersistentIndexedCache<K, V> backingCache, int maxEntriesToKeepInMemory, boolean cacheInMemoryForShortLivedProcesses, @Nullable OffHeapTierSpec<K, V> offHeapTierSpec) {
+        MultiProcessSafeAsyncPersistentIndexedCache<K, V> delegate = super.applyInMemoryCaching(cacheId, backingCache, maxEntriesToKeepInMemory, cacheInMemoryForShortLivedProcesses, offHeapTierSpec);
         if (delegate instanceof InMemoryCacheController) {
             InMemoryCacheController cimc = (InMemoryCacheController) delegate;
             WeakReference<InMemoryCacheController> ref = new WeakReference<>(cimc);
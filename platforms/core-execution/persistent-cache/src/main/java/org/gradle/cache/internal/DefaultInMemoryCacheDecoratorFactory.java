@@ -16,6 +16,7 @@
 
 package org.gradle.cache.internal;
 
+import com.google.common.annotations.VisibleForTesting;
 import com.google.common.cache.Cache;
 import com.google.common.cache.CacheBuilder;
 import org.gradle.cache.AsyncCacheAccess;
@@ -23,9 +24,14 @@
 import org.gradle.cache.CrossProcessCacheAccess;
 import org.gradle.cache.FileLock;
 import org.gradle.cache.MultiProcessSafeIndexedCache;
+import org.gradle.internal.Cast;
+import org.gradle.internal.serialize.Serializer;
+import org.jspecify.annotations.Nullable;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.util.HashMap;
+import java.util.Map;
 import java.util.concurrent.atomic.AtomicReference;
 
 /**
@@ -33,62 +39,143 @@
  * The in-memory cache is invalidated when the backing cache is changed by another process.
  *
  * Also decorates each cache so that updates to the backing cache are made asynchronously.
+ *
+ * In long-lived processes, caches can also keep the entries evicted from the in-memory cache in an off-heap store,
+ * see {@link #decorator(int, boolean, long)}. Off-heap stores are disabled unless an off-heap budget is given,
+ * see {@link #OFF_HEAP_BUDGET_PROPERTY}. All off-heap stores share the budget, which is never exceeded.
  */
 public class DefaultInMemoryCacheDecoratorFactory implements InMemoryCacheDecoratorFactory {
+    /**
+     * The system property holding the number of megabytes of direct memory that off-heap stores can use in total.
+     */
+    public static final String OFF_HEAP_BUDGET_PROPERTY = "org.gradle.unsafe.in-memory-cache.off-heap-budget";
+
     private final static Logger LOG = LoggerFactory.getLogger(DefaultInMemoryCacheDecoratorFactory.class);
+    // Smaller off-heap stores hold too few entries to be worth it
+    private static final long MIN_OFF_HEAP_BYTES = 1024 * 1024;
     private final boolean longLivingProcess;
     private final HeapProportionalCacheSizer cacheSizer = new HeapProportionalCacheSizer();
     private final CrossBuildInMemoryCache<String, CacheDetails> caches;
+    // Off-heap stores are kept for the lifetime of the process, so that their memory is only ever reserved once per cache
+    private final Map<String, OffHeapEntryStore> offHeapStores = new HashMap<>();
+    private long remainingOffHeapBytes;
 
     public DefaultInMemoryCacheDecoratorFactory(boolean longLivingProcess, CrossBuildInMemoryCacheFactory cacheFactory) {
+        this(longLivingProcess, cacheFactory, 0);
+    }
+
+    public DefaultInMemoryCacheDecoratorFactory(boolean longLivingProcess, CrossBuildInMemoryCacheFactory cacheFactory, long offHeapBudgetBytes) {
         this.longLivingProcess = longLivingProcess;
+        this.remainingOffHeapBytes = offHeapBudgetBytes;
         caches = cacheFactory.newCache();
     }
 
+    /**
+     * Returns the off-heap budget configured by {@link #OFF_HEAP_BUDGET_PROPERTY}, in bytes.
+     */
+    public static long offHeapBudgetFromSystemProperties() {
+        return Math.max(0, Long.getLong(OFF_HEAP_BUDGET_PROPERTY, 0)) * 1024 * 1024;
+    }
+
     @Override
     public CacheDecorator decorator(final int maxEntriesToKeepInMemory, final boolean cacheInMemoryForShortLivedProcesses) {
-        return new InMemoryCacheDecorator(maxEntriesToKeepInMemory, cacheInMemoryForShortLivedProcesses);
+        return new InMemoryCacheDecorator(maxEntriesToKeepInMemory, cacheInMemoryForShortLivedProcesses, 0);
     }
 
-    protected <K, V> MultiProcessSafeAsyncPersistentIndexedCache<K, V> applyInMemoryCaching(String cacheId, MultiProcessSafeAsyncPersistentIndexedCache<K, V> backingCache, int maxEntriesToKeepInMemory, boolean cacheInMemoryForShortLivedProcesses) {
+    @Override
+    public CacheDecorator decorator(int maxEntriesToKeepInMemory, boolean cacheInMemoryForShortLivedProcesses, long maxOffHeapBytes) {
+        return new InMemoryCacheDecorator(maxEntriesToKeepInMemory, cacheInMemoryForShortLivedProcesses, maxOffHeapBytes);
+    }
+
+    protected <K, V> MultiProcessSafeAsyncPersistentIndexedCache<K, V> applyInMemoryCaching(String cacheId, MultiProcessSafeAsyncPersistentIndexedCache<K, V> backingCache, int maxEntriesToKeepInMemory, boolean cacheInMemoryForShortLivedProcesses, @Nullable OffHeapTierSpec<K, V> offHeapTierSpec) {
         if (!longLivingProcess && !cacheInMemoryForShortLivedProcesses) {
             // Short-lived process, don't cache in memory
             LOG.debug("Creating cache {} without in-memory store.", cacheId);
             return backingCache;
         }
         int targetSize = cacheSizer.scaleCacheSize(maxEntriesToKeepInMemory);
-        CacheDetails cacheDetails = getCache(cacheId, targetSize);
-        return new InMemoryDecoratedCache<>(backingCache, cacheDetails.entries, cacheId, cacheDetails.lockState);
+        // Off-heap stores only pay off when they are reused across builds
+        long offHeapBytes = longLivingProcess && offHeapTierSpec != null ? offHeapTierSpec.maxBytes : 0;
+        CacheDetails cacheDetails = getCache(cacheId, targetSize, offHeapBytes, offHeapTierSpec);
+        return new InMemoryDecoratedCache<>(backingCache, cacheDetails.entries, cacheId, cacheDetails.lockState, cacheDetails.offHeapTier);
     }
 
-    private CacheDetails getCache(final String cacheId, final int maxSize) {
+    private CacheDetails getCache(final String cacheId, final int maxSize, long offHeapBytes, @Nullable OffHeapTierSpec<?, ?> offHeapTierSpec) {
         CacheDetails cacheDetails = caches.get(cacheId, () -> {
-            Cache<Object, Object> entries = createInMemoryCache(cacheId, maxSize);
-            CacheDetails details = new CacheDetails(maxSize, entries, new AtomicReference<>());
-            LOG.debug("Creating in-memory store for cache {} (max size: {})", cacheId, maxSize);
+            OffHeapCacheTier<Object, Object> offHeapTier = null;
+            if (offHeapBytes > 0 && offHeapTierSpec != null) {
+                OffHeapEntryStore offHeapStore = offHeapStoreFor(cacheId, offHeapBytes);
+                if (offHeapStore != null) {
+                    offHeapTier = offHeapTierSpec.createTier(offHeapStore);
+                }
+            }
+            Cache<Object, Object> entries = createInMemoryCache(cacheId, maxSize, offHeapTier);
+            CacheDetails details = new CacheDetails(maxSize, offHeapBytes, entries, new AtomicReference<>(), offHeapTier);
+            LOG.debug("Creating in-memory store for cache {} (max size: {}, max off-heap bytes: {})", cacheId, maxSize, offHeapBytes);
             return details;
         });
         if (cacheDetails.maxEntries != maxSize) {
             throw new IllegalStateException("Mismatched in-memory store size for cache " + cacheId + ", expected: " + maxSize + ", found: " + cacheDetails.maxEntries);
         }
+        if (cacheDetails.maxOffHeapBytes != offHeapBytes) {
+            throw new IllegalStateException("Mismatched off-heap store size for cache " + cacheId + ", expected: " + offHeapBytes + ", found: " + cacheDetails.maxOffHeapBytes);
+        }
         return cacheDetails;
     }
 
-    private static Cache<Object, Object> createInMemoryCache(String cacheId, int maxSize) {
+    /**
+     * Returns the off-heap store for the given cache, reserving memory for it from the off-heap budget if it does not exist yet.
+     * Returns {@code null} when the remaining budget is too small.
+     */
+    @Nullable
+    @VisibleForTesting
+    synchronized OffHeapEntryStore offHeapStoreFor(String cacheId, long maxBytes) {
+        OffHeapEntryStore store = offHeapStores.get(cacheId);
+        if (store != null) {
+            // The in-memory store of the cache has been discarded, so the entries of the off-heap store may be stale
+            store.clear();
+            return store;
+        }
+        long bytes = Math.min(maxBytes, remainingOffHeapBytes);
+        if (bytes < MIN_OFF_HEAP_BYTES) {
+            LOG.debug("Not creating off-heap store for cache {}, remaining off-heap budget: {} bytes", cacheId, remainingOffHeapBytes);
+            return null;
+        }
+        remainingOffHeapBytes -= bytes;
+        store = new OffHeapEntryStore(cacheId, bytes);
+        offHeapStores.put(cacheId, store);
+        return store;
+    }
+
+    private static Cache<Object, Object> createInMemoryCache(String cacheId, int maxSize, @Nullable OffHeapCacheTier<Object, Object> offHeapTier) {
         LoggingEvictionListener evictionListener = new LoggingEvictionListener(cacheId, maxSize, LOG);
-        final CacheBuilder<Object, Object> cacheBuilder = CacheBuilder.newBuilder().maximumSize(maxSize).recordStats().removalListener(evictionListener);
+        final CacheBuilder<Object, Object> cacheBuilder = CacheBuilder.newBuilder().maximumSize(maxSize).recordStats();
+        if (offHeapTier != null) {
+            cacheBuilder.removalListener(notification -> {
+                offHeapTier.onRemoval(notification);
+                evictionListener.onRemoval(notification);
+            });
+        } else {
+            cacheBuilder.removalListener(evictionListener);
+        }
         Cache<Object, Object> inMemoryCache = cacheBuilder.build();
         evictionListener.setCache(inMemoryCache);
+        evictionListener.setOffHeapTier(offHeapTier);
+        if (offHeapTier != null) {
+            offHeapTier.setInMemoryCache(inMemoryCache);
+        }
         return inMemoryCache;
     }
 
     private class InMemoryCacheDecorator implements CacheDecorator {
         private final int maxEntriesToKeepInMemory;
         private final boolean cacheInMemoryForShortLivedProcesses;
+        private final long maxOffHeapBytes;
 
-        InMemoryCacheDecorator(int maxEntriesToKeepInMemory, boolean cacheInMemoryForShortLivedProcesses) {
+        InMemoryCacheDecorator(int maxEntriesToKeepInMemory, boolean cacheInMemoryForShortLivedProcesses, long maxOffHeapBytes) {
             this.maxEntriesToKeepInMemory = maxEntriesToKeepInMemory;
             this.cacheInMemoryForShortLivedProcesses = cacheInMemoryForShortLivedProcesses;
+            this.maxOffHeapBytes = maxOffHeapBytes;
         }
 
         @Override
@@ -100,31 +187,63 @@ public boolean equals(Object obj) {
                 return false;
             }
             InMemoryCacheDecorator other = (InMemoryCacheDecorator) obj;
-            return maxEntriesToKeepInMemory == other.maxEntriesToKeepInMemory && cacheInMemoryForShortLivedProcesses == other.cacheInMemoryForShortLivedProcesses;
+            return maxEntriesToKeepInMemory == other.maxEntriesToKeepInMemory && cacheInMemoryForShortLivedProcesses == other.cacheInMemoryForShortLivedProcesses && maxOffHeapBytes == other.maxOffHeapBytes;
         }
 
         @Override
         public int hashCode() {
-            return maxEntriesToKeepInMemory ^ (cacheInMemoryForShortLivedProcesses ? 1 : 0);
+            return maxEntriesToKeepInMemory ^ (cacheInMemoryForShortLivedProcesses ? 1 : 0) ^ Long.hashCode(maxOffHeapBytes);
         }
 
         @Override
         public <K, V> MultiProcessSafeIndexedCache<K, V> decorate(String cacheId, String cacheName, MultiProcessSafeIndexedCache<K, V> indexedCache, CrossProcessCacheAccess crossProcessCacheAccess, AsyncCacheAccess asyncCacheAccess) {
             MultiProcessSafeAsyncPersistentIndexedCache<K, V> asyncCache = new AsyncCacheAccessDecoratedCache<>(asyncCacheAccess, indexedCache);
-            MultiProcessSafeAsyncPersistentIndexedCache<K, V> memCache = applyInMemoryCaching(cacheId, asyncCache, maxEntriesToKeepInMemory, cacheInMemoryForShortLivedProcesses);
+            MultiProcessSafeAsyncPersistentIndexedCache<K, V> memCache = applyInMemoryCaching(cacheId, asyncCache, maxEntriesToKeepInMemory, cacheInMemoryForShortLivedProcesses, null);
+            return new CrossProcessSynchronizingIndexedCache<>(memCache, crossProcessCacheAccess);
+        }
+
+        @Override
+        public <K, V> MultiProcessSafeIndexedCache<K, V> decorate(String cacheId, String cacheName, MultiProcessSafeIndexedCache<K, V> indexedCache, Serializer<K> keySerializer, Serializer<V> valueSerializer, CrossProcessCacheAccess crossProcessCacheAccess, AsyncCacheAccess asyncCacheAccess) {
+            if (maxOffHeapBytes <= 0) {
+                return decorate(cacheId, cacheName, indexedCache, crossProcessCacheAccess, asyncCacheAccess);
+            }
+            MultiProcessSafeAsyncPersistentIndexedCache<K, V> asyncCache = new AsyncCacheAccessDecoratedCache<>(asyncCacheAccess, indexedCache);
+            OffHeapTierSpec<K, V> offHeapTierSpec = new OffHeapTierSpec<>(maxOffHeapBytes, keySerializer, valueSerializer);
+            MultiProcessSafeAsyncPersistentIndexedCache<K, V> memCache = applyInMemoryCaching(cacheId, asyncCache, maxEntriesToKeepInMemory, cacheInMemoryForShortLivedProcesses, offHeapTierSpec);
             return new CrossProcessSynchronizingIndexedCache<>(memCache, crossProcessCacheAccess);
         }
     }
 
+    protected static class OffHeapTierSpec<K, V> {
+        private final long maxBytes;
+        private final Serializer<K> keySerializer;
+        private final Serializer<V> valueSerializer;
+
+        OffHeapTierSpec(long maxBytes, Serializer<K> keySerializer, Serializer<V> valueSerializer) {
+            this.maxBytes = maxBytes;
+            this.keySerializer = keySerializer;
+            this.valueSerializer = valueSerializer;
+        }
+
+        OffHeapCacheTier<Object, Object> createTier(OffHeapEntryStore store) {
+            return Cast.uncheckedCast(new OffHeapCacheTier<>(store, keySerializer, valueSerializer, InMemoryDecoratedCache.NULL));
+        }
+    }
+
     private static class CacheDetails {
         private final int maxEntries;
+        private final long maxOffHeapBytes;
         private final Cache<Object, Object> entries;
         private final AtomicReference<FileLock.State> lockState;
+        @Nullable
+        private final OffHeapCacheTier<Object, Object> offHeapTier;
 
-        CacheDetails(int maxEntries, Cache<Object, Object> entries, AtomicReference<FileLock.State> lockState) {
+        CacheDetails(int maxEntries, long maxOffHeapBytes, Cache<Object, Object> entries, AtomicReference<FileLock.State> lockState, @Nullable OffHeapCacheTier<Object, Object> offHeapTier) {
             this.maxEntries = maxEntries;
+            this.maxOffHeapBytes = maxOffHeapBytes;
             this.entries = entries;
             this.lockState = lockState;
+            this.offHeapTier = offHeapTier;
         }
     }
 }
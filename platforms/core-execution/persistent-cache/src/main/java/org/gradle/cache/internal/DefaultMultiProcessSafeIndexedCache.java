@@ -21,6 +21,8 @@
 import org.gradle.cache.MultiProcessSafeIndexedCache;
 import org.gradle.cache.internal.btree.BTreePersistentIndexedCache;
 
+import java.util.Map;
+import java.util.Set;
 import java.util.function.Function;
 import java.util.function.Supplier;
 
@@ -75,6 +77,14 @@ public void remove(final K key) {
         fileAccess.writeFile(() -> cache.remove(key));
     }
 
+    @Override
+    public void applyBatch(Map<K, V> puts, Set<K> removals) {
+        final BTreePersistentIndexedCache<K, V> cache = getCache();
+        // Use writeFile because the cache can internally recover from datafile
+        // corruption, so we don't care at this level if it's corrupt
+        fileAccess.writeFile(() -> cache.applyBatch(puts, removals));
+    }
+
     @Override
     public void afterLockAcquire(FileLock.State currentCacheState) {
     }
@@ -22,4 +22,13 @@
 @ServiceScope(Scope.Global.class)
 public interface InMemoryCacheDecoratorFactory {
     CacheDecorator decorator(int maxEntriesToKeepInMemory, boolean cacheInMemoryForShortLivedProcesses);
+
+    /**
+     * Same as {@link #decorator(int, boolean)}, but in long-lived processes also keeps the entries that are evicted from the in-memory cache
+     * in an off-heap store of at most the given size, so that they can be read back without going to the backing cache.
+     * Off-heap stores are opt-in and share a single budget, so the store may be smaller than requested or missing altogether.
+     */
+    default CacheDecorator decorator(int maxEntriesToKeepInMemory, boolean cacheInMemoryForShortLivedProcesses, long maxOffHeapBytes) {
+        return decorator(maxEntriesToKeepInMemory, cacheInMemoryForShortLivedProcesses);
+    }
 }
@@ -22,6 +22,7 @@
 import org.gradle.cache.FileLock;
 import org.gradle.internal.Cast;
 import org.gradle.internal.UncheckedException;
+import org.jspecify.annotations.Nullable;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -31,17 +32,24 @@
 
 class InMemoryDecoratedCache<K, V> implements MultiProcessSafeAsyncPersistentIndexedCache<K, V>, InMemoryCacheController {
     private final static Logger LOG = LoggerFactory.getLogger(InMemoryDecoratedCache.class);
-    private final static Object NULL = new Object();
+    final static Object NULL = new Object();
     private final MultiProcessSafeAsyncPersistentIndexedCache<K, V> delegate;
     private final Cache<Object, Object> inMemoryCache;
     private final String cacheId;
     private final AtomicReference<FileLock.State> fileLockStateReference;
+    @Nullable
+    private final OffHeapCacheTier<Object, Object> offHeapTier;
 
     public InMemoryDecoratedCache(MultiProcessSafeAsyncPersistentIndexedCache<K, V> delegate, Cache<Object, Object> inMemoryCache, String cacheId, AtomicReference<FileLock.State> fileLockStateReference) {
+        this(delegate, inMemoryCache, cacheId, fileLockStateReference, null);
+    }
+
+    public InMemoryDecoratedCache(MultiProcessSafeAsyncPersistentIndexedCache<K, V> delegate, Cache<Object, Object> inMemoryCache, String cacheId, AtomicReference<FileLock.State> fileLockStateReference, @Nullable OffHeapCacheTier<Object, Object> offHeapTier) {
         this.delegate = delegate;
         this.inMemoryCache = inMemoryCache;
         this.cacheId = cacheId;
         this.fileLockStateReference = fileLockStateReference;
+        this.offHeapTier = offHeapTier;
     }
 
     @Override
@@ -54,7 +62,7 @@ public V get(final K key) {
         Object value;
         try {
             value = inMemoryCache.get(key, () -> {
-                Object out = delegate.get(key);
+                Object out = getFromBackingCache(key);
                 return out == null ? NULL : out;
             });
         } catch (UncheckedExecutionException | ExecutionException e) {
@@ -81,7 +89,7 @@ public V get(final K key, final Function<? super K, ? extends V> producer, final
             }
             value = inMemoryCache.get(key, () -> {
                 if (!wasNull) {
-                    Object out = delegate.get(key);
+                    Object out = getFromBackingCache(key);
                     if (out != null) {
                         return out;
                     }
@@ -103,18 +111,44 @@ public V get(final K key, final Function<? super K, ? extends V> producer, final
         }
     }
 
+    @Nullable
+    private Object getFromBackingCache(K key) {
+        if (offHeapTier != null) {
+            Object value = offHeapTier.get(key);
+            if (value != null) {
+                return value;
+            }
+        }
+        return delegate.get(key);
+    }
+
     @Override
     public void putLater(K key, V value, Runnable completion) {
+        removeFromOffHeapTier(key);
         inMemoryCache.put(key, value);
         delegate.putLater(key, value, completion);
     }
 
     @Override
     public void removeLater(K key, Runnable completion) {
+        removeFromOffHeapTier(key);
         inMemoryCache.put(key, NULL);
         delegate.removeLater(key, completion);
     }
 
+    private void removeFromOffHeapTier(K key) {
+        if (offHeapTier != null) {
+            offHeapTier.remove(key);
+        }
+    }
+
+    private void invalidateAll() {
+        inMemoryCache.invalidateAll();
+        if (offHeapTier != null) {
+            offHeapTier.clear();
+        }
+    }
+
     @Override
     public void afterLockAcquire(FileLock.State currentCacheState) {
         boolean outOfDate = false;
@@ -126,7 +160,7 @@ public void afterLockAcquire(FileLock.State currentCacheState) {
             outOfDate = true;
         }
         if (outOfDate) {
-            inMemoryCache.invalidateAll();
+            invalidateAll();
         }
         delegate.afterLockAcquire(currentCacheState);
     }
@@ -149,6 +183,6 @@ public String getCacheId() {
 
     @Override
     public void clearInMemoryCache() {
-        inMemoryCache.invalidateAll();
+        invalidateAll();
     }
 }
@@ -20,6 +20,7 @@
 import com.google.common.cache.RemovalCause;
 import com.google.common.cache.RemovalListener;
 import com.google.common.cache.RemovalNotification;
+import org.jspecify.annotations.Nullable;
 import org.slf4j.Logger;
 
 import java.util.concurrent.atomic.AtomicInteger;
@@ -33,6 +34,8 @@ class LoggingEvictionListener implements RemovalListener<Object, Object> {
     private final int logInterval;
     private final Logger logger;
     private Cache<Object, Object> cache;
+    @Nullable
+    private OffHeapCacheTier<?, ?> offHeapTier;
 
     LoggingEvictionListener(String cacheId, int maxSize, Logger logger) {
         this.cacheId = cacheId;
@@ -45,11 +48,19 @@ public void setCache(Cache<Object, Object> cache) {
         this.cache = cache;
     }
 
+    public void setOffHeapTier(@Nullable OffHeapCacheTier<?, ?> offHeapTier) {
+        this.offHeapTier = offHeapTier;
+    }
+
     @Override
     public void onRemoval(RemovalNotification<Object, Object> notification) {
         if (notification.getCause() == RemovalCause.SIZE) {
             if (evictionCounter.get() % logInterval == 0) {
-                logger.info("Cache entries evicted. In-memory cache of {}: Size{{}} MaxSize{{}}, {} {}", cacheId, cache.size(), maxSize, cache.stats(), EVICTION_MITIGATION_MESSAGE);
+                if (offHeapTier != null) {
+                    logger.info("Cache entries evicted. In-memory cache of {}: Size{{}} MaxSize{{}}, {}, {} {}", cacheId, cache.size(), maxSize, cache.stats(), offHeapTier.getStore(), EVICTION_MITIGATION_MESSAGE);
+                } else {
+                    logger.info("Cache entries evicted. In-memory cache of {}: Size{{}} MaxSize{{}}, {} {}", cacheId, cache.size(), maxSize, cache.stats(), EVICTION_MITIGATION_MESSAGE);
+                }
             }
             evictionCounter.incrementAndGet();
         }
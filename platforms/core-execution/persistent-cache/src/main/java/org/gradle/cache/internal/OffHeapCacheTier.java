@@ -0,0 +1,116 @@
+/*
+ * Copyright 2025 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.cache.internal;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.RemovalCause;
+import com.google.common.cache.RemovalListener;
+import com.google.common.cache.RemovalNotification;
+import org.gradle.internal.Cast;
+import org.gradle.internal.UncheckedException;
+import org.gradle.internal.serialize.Serializer;
+import org.gradle.internal.serialize.kryo.KryoBackedDecoder;
+import org.gradle.internal.serialize.kryo.KryoBackedEncoder;
+import org.jspecify.annotations.Nullable;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+
+/**
+ * A second tier for an in-memory cache, that keeps entries evicted from the heap in an {@link OffHeapEntryStore}.
+ * <p>
+ * Entries are demoted to this tier when the in-memory cache evicts them because of its size, and read back from it before falling back to the backing cache.
+ * Entries stay in this tier when they are read, so demoting an entry that has not changed only marks it as referenced.
+ * Writes to the cache must {@link #remove(Object) remove} the entry from this tier.
+ * <p>
+ * The in-memory cache notifies this tier of evictions after it has released its lock, so a write of the entry may happen between the eviction and its demotion.
+ * The evicted value is not demoted when the in-memory cache already holds the entry again, and demoting a value replaces the value held by this tier,
+ * so a value demoted after a concurrent write is replaced once the written value is evicted.
+ */
+class OffHeapCacheTier<K, V> implements RemovalListener<Object, Object> {
+    private final OffHeapEntryStore store;
+    private final Serializer<K> keySerializer;
+    private final Serializer<V> valueSerializer;
+    private final Object nullValue;
+    @Nullable
+    private Cache<Object, Object> inMemoryCache;
+
+    OffHeapCacheTier(OffHeapEntryStore store, Serializer<K> keySerializer, Serializer<V> valueSerializer, Object nullValue) {
+        this.store = store;
+        this.keySerializer = keySerializer;
+        this.valueSerializer = valueSerializer;
+        this.nullValue = nullValue;
+    }
+
+    public void setInMemoryCache(Cache<Object, Object> inMemoryCache) {
+        this.inMemoryCache = inMemoryCache;
+    }
+
+    public OffHeapEntryStore getStore() {
+        return store;
+    }
+
+    @Nullable
+    public V get(K key) {
+        byte[] value = store.get(serialize(keySerializer, key));
+        if (value == null) {
+            return null;
+        }
+        try {
+            return valueSerializer.read(new KryoBackedDecoder(new ByteArrayInputStream(value)));
+        } catch (Exception e) {
+            throw UncheckedException.throwAsUncheckedException(e);
+        }
+    }
+
+    public void demote(K key, V value) {
+        if (inMemoryCache != null && inMemoryCache.asMap().containsKey(key)) {
+            // Written or loaded again since it has been evicted
+            return;
+        }
+        store.put(serialize(keySerializer, key), serialize(valueSerializer, value));
+    }
+
+    public void remove(K key) {
+        store.remove(serialize(keySerializer, key));
+    }
+
+    public void clear() {
+        store.clear();
+    }
+
+    @Override
+    public void onRemoval(RemovalNotification<Object, Object> notification) {
+        Object key = notification.getKey();
+        Object value = notification.getValue();
+        if (notification.getCause() == RemovalCause.SIZE && key != null && value != null && value != nullValue) {
+            demote(Cast.uncheckedCast(key), Cast.uncheckedCast(value));
+        }
+    }
+
+    private static <T> byte[] serialize(Serializer<T> serializer, T value) {
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        KryoBackedEncoder encoder = new KryoBackedEncoder(outputStream);
+        try {
+            serializer.write(encoder, value);
+            encoder.flush();
+        } catch (Exception e) {
+            throw UncheckedException.throwAsUncheckedException(e);
+        }
+        return outputStream.toByteArray();
+    }
+}
@@ -0,0 +1,401 @@
+/*
+ * Copyright 2025 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.cache.internal;
+
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.hash.Hashing;
+import org.jspecify.annotations.Nullable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.nio.ByteBuffer;
+
+/**
+ * A store of serialized entries in direct memory, with a fixed size.
+ * <p>
+ * Entries are appended to a circular log and evicted using the CLOCK algorithm:
+ * reading an entry marks it as referenced, and when space is needed the entry at the head of the log is either evicted,
+ * or, when it has been referenced since it was last visited, moved to the tail of the log and given a second chance.
+ * Moving an entry to the tail compacts the log, so there is no fragmentation.
+ * <p>
+ * Entries are found using an open addressing table, also kept in direct memory, that maps the hash of the serialized key
+ * to the position of the entry in the log. Keys are compared byte by byte, so hash collisions are harmless.
+ * <p>
+ * The direct memory is only allocated when the first entry is stored.
+ */
+class OffHeapEntryStore {
+    private static final Logger LOGGER = LoggerFactory.getLogger(OffHeapEntryStore.class);
+
+    // int key length, int value length, long key hash
+    private static final int HEADER_SIZE = 16;
+    // Marks unused space at the end of the log, followed by an int holding the size of the unused space
+    private static final int PADDING = -1;
+    private static final int ALIGNMENT = 8;
+    // long key hash, long (position + 1) << 1 | referenced
+    private static final int SLOT_SIZE = 16;
+    private static final int BYTES_PER_SLOT = 128;
+    private static final int MIN_SLOT_COUNT = 16;
+
+    private final String name;
+    private final int capacity;
+    private final int slotCount;
+    private final int maxEntries;
+    private final int maxEntrySize;
+
+    private ByteBuffer log;
+    private ByteBuffer slots;
+    private boolean unavailable;
+
+    // The log holds entries in [head, tail), wrapping around at the end of the buffer
+    private int head;
+    private int tail;
+    private int free;
+    private int entryCount;
+
+    private long hitCount;
+    private long missCount;
+    private long evictionCount;
+
+    OffHeapEntryStore(String name, long maxBytes) {
+        this.name = name;
+        this.capacity = (int) Math.min(maxBytes, Integer.MAX_VALUE - ALIGNMENT) & -ALIGNMENT;
+        this.slotCount = Math.max(MIN_SLOT_COUNT, Integer.highestOneBit(Math.max(1, capacity / BYTES_PER_SLOT)));
+        this.maxEntries = slotCount / 4 * 3;
+        this.maxEntrySize = capacity / 4;
+        this.free = capacity;
+    }
+
+    /**
+     * Returns a copy of the value stored for the given key, or {@code null} when there is none.
+     */
+    @Nullable
+    public synchronized byte[] get(byte[] key) {
+        int slot = log == null ? -1 : findSlot(key, hash(key));
+        if (slot < 0) {
+            missCount++;
+            return null;
+        }
+        hitCount++;
+        long location = slots.getLong(slot * SLOT_SIZE + 8);
+        slots.putLong(slot * SLOT_SIZE + 8, location | 1);
+        int position = position(location);
+        int keyLength = log.getInt(position);
+        byte[] value = new byte[log.getInt(position + 4)];
+        ByteBuffer view = log.duplicate();
+        view.position(position + HEADER_SIZE + keyLength);
+        view.get(value);
+        return value;
+    }
+
+    /**
+     * Stores the given value, replacing the value stored for the key.
+     * When the same value is already stored, it is only marked as referenced.
+     * Values that are too large for this store are not stored, and remove the value stored for the key.
+     */
+    public synchronized void put(byte[] key, byte[] value) {
+        int size = align(HEADER_SIZE + key.length + value.length);
+        if (size > maxEntrySize) {
+            remove(key);
+            return;
+        }
+        if (!ensureAllocated()) {
+            return;
+        }
+        long hash = hash(key);
+        int existing = findSlot(key, hash);
+        if (existing >= 0) {
+            long location = slots.getLong(existing * SLOT_SIZE + 8);
+            if (valueEquals(position(location), key.length, value)) {
+                slots.putLong(existing * SLOT_SIZE + 8, location | 1);
+                return;
+            }
+            // The space of the previous value is reclaimed once the head of the log reaches it
+            deleteSlot(existing);
+        }
+        while (entryCount >= maxEntries) {
+            reclaimHead(false);
+        }
+        int position = allocate(size);
+        log.putInt(position, key.length);
+        log.putInt(position + 4, value.length);
+        log.putLong(position + 8, hash);
+        ByteBuffer view = log.duplicate();
+        view.position(position + HEADER_SIZE);
+        view.put(key);
+        view.put(value);
+        insertSlot(hash, position);
+    }
+
+    public synchronized void remove(byte[] key) {
+        if (log == null) {
+            return;
+        }
+        int slot = findSlot(key, hash(key));
+        if (slot >= 0) {
+            // The space of the entry is reclaimed once the head of the log reaches it
+            deleteSlot(slot);
+        }
+    }
+
+    public synchronized void clear() {
+        if (log == null) {
+            return;
+        }
+        for (int i = 0; i < slotCount; i++) {
+            slots.putLong(i * SLOT_SIZE + 8, 0);
+        }
+        head = 0;
+        tail = 0;
+        free = capacity;
+        entryCount = 0;
+    }
+
+    public synchronized long getHitCount() {
+        return hitCount;
+    }
+
+    public synchronized long getMissCount() {
+        return missCount;
+    }
+
+    public synchronized long getEvictionCount() {
+        return evictionCount;
+    }
+
+    public synchronized int getEntryCount() {
+        return entryCount;
+    }
+
+    @VisibleForTesting
+    int getMaxEntries() {
+        return maxEntries;
+    }
+
+    @Override
+    public synchronized String toString() {
+        return String.format("off-heap store of %s: entries: %d, used: %d/%d bytes, hits: %d, misses: %d, evictions: %d",
+            name, entryCount, capacity - free, capacity, hitCount, missCount, evictionCount);
+    }
+
+    private boolean ensureAllocated() {
+        if (log != null) {
+            return true;
+        }
+        if (unavailable || capacity == 0) {
+            return false;
+        }
+        try {
+            log = ByteBuffer.allocateDirect(capacity);
+            slots = ByteBuffer.allocateDirect(slotCount * SLOT_SIZE);
+            return true;
+        } catch (OutOfMemoryError e) {
+            // Not enough direct memory available, so keep working without this store
+            LOGGER.info("Could not allocate {} bytes of direct memory for the off-heap store of {}: {}", capacity, name, e.getMessage());
+            log = null;
+            slots = null;
+            unavailable = true;
+            return false;
+        }
+    }
+
+    /**
+     * Returns the position of a free region of the given size at the tail of the log, reclaiming entries at the head of the log as required.
+     */
+    private int allocate(int size) {
+        while (true) {
+            if (free == capacity) {
+                head = 0;
+                tail = 0;
+            }
+            if (tail + size > capacity) {
+                if (free > 0 && head <= tail) {
+                    // The end of the buffer is free but too small, skip it
+                    int padding = capacity - tail;
+                    log.putInt(tail, PADDING);
+                    log.putInt(tail + 4, padding);
+                    free -= padding;
+                    tail = 0;
+                } else {
+                    reclaimHead(true);
+                }
+                continue;
+            }
+            int contiguousFree = free == 0 ? 0 : head > tail ? head - tail : capacity - tail;
+            if (contiguousFree >= size) {
+                int position = tail;
+                tail = wrap(tail + size);
+                free -= size;
+                return position;
+            }
+            reclaimHead(true);
+        }
+    }
+
+    /**
+     * Reclaims the space used by the entry at the head of the log.
+     * When second chances are allowed, the log must either be full or its free space must directly precede the head.
+     */
+    private void reclaimHead(boolean allowSecondChance) {
+        int keyLength = log.getInt(head);
+        if (keyLength == PADDING) {
+            int size = log.getInt(head + 4);
+            head = wrap(head + size);
+            free += size;
+            return;
+        }
+        int size = align(HEADER_SIZE + keyLength + log.getInt(head + 4));
+        int slot = findSlotAt(log.getLong(head + 8), head);
+        if (slot >= 0) {
+            long location = slots.getLong(slot * SLOT_SIZE + 8);
+            if (allowSecondChance && (location & 1) != 0) {
+                moveHeadToTail(slot, size);
+                return;
+            }
+            deleteSlot(slot);
+            evictionCount++;
+        }
+        head = wrap(head + size);
+        free += size;
+    }
+
+    private void moveHeadToTail(int slot, int size) {
+        if (tail != head) {
+            byte[] entry = new byte[size];
+            ByteBuffer view = log.duplicate();
+            view.position(head);
+            view.get(entry);
+            view.position(tail);
+            view.put(entry);
+        }
+        slots.putLong(slot * SLOT_SIZE + 8, location(tail));
+        tail = wrap(tail + size);
+        head = wrap(head + size);
+    }
+
+    private int findSlot(byte[] key, long hash) {
+        int mask = slotCount - 1;
+        for (int slot = home(hash), probes = 0; probes < slotCount; slot = (slot + 1) & mask, probes++) {
+            long location = slots.getLong(slot * SLOT_SIZE + 8);
+            if (location == 0) {
+                return -1;
+            }
+            if (slots.getLong(slot * SLOT_SIZE) == hash && keyEquals(position(location), key)) {
+                return slot;
+            }
+        }
+        return -1;
+    }
+
+    private int findSlotAt(long hash, int position) {
+        int mask = slotCount - 1;
+        for (int slot = home(hash), probes = 0; probes < slotCount; slot = (slot + 1) & mask, probes++) {
+            long location = slots.getLong(slot * SLOT_SIZE + 8);
+            if (location == 0) {
+                return -1;
+            }
+            if (position(location) == position) {
+                return slot;
+            }
+        }
+        return -1;
+    }
+
+    private boolean keyEquals(int position, byte[] key) {
+        if (log.getInt(position) != key.length) {
+            return false;
+        }
+        int offset = position + HEADER_SIZE;
+        for (int i = 0; i < key.length; i++) {
+            if (log.get(offset + i) != key[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private boolean valueEquals(int position, int keyLength, byte[] value) {
+        if (log.getInt(position + 4) != value.length) {
+            return false;
+        }
+        int offset = position + HEADER_SIZE + keyLength;
+        for (int i = 0; i < value.length; i++) {
+            if (log.get(offset + i) != value[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private void insertSlot(long hash, int position) {
+        int mask = slotCount - 1;
+        int slot = home(hash);
+        while (slots.getLong(slot * SLOT_SIZE + 8) != 0) {
+            slot = (slot + 1) & mask;
+        }
+        slots.putLong(slot * SLOT_SIZE, hash);
+        slots.putLong(slot * SLOT_SIZE + 8, location(position));
+        entryCount++;
+    }
+
+    /**
+     * Deletes the given slot, shifting back the slots that follow it so that no lookup stops at the emptied slot too early.
+     */
+    private void deleteSlot(int slot) {
+        int mask = slotCount - 1;
+        int empty = slot;
+        for (int next = (empty + 1) & mask; ; next = (next + 1) & mask) {
+            long location = slots.getLong(next * SLOT_SIZE + 8);
+            if (location == 0) {
+                break;
+            }
+            long hash = slots.getLong(next * SLOT_SIZE);
+            int home = home(hash);
+            boolean homeBetween = empty <= next ? empty < home && home <= next : empty < home || home <= next;
+            if (!homeBetween) {
+                slots.putLong(empty * SLOT_SIZE, hash);
+                slots.putLong(empty * SLOT_SIZE + 8, location);
+                empty = next;
+            }
+        }
+        slots.putLong(empty * SLOT_SIZE + 8, 0);
+        entryCount--;
+    }
+
+    private int home(long hash) {
+        return (int) (hash ^ (hash >>> 32)) & (slotCount - 1);
+    }
+
+    private int wrap(int position) {
+        return position == capacity ? 0 : position;
+    }
+
+    private static long location(int position) {
+        return ((long) position + 1) << 1;
+    }
+
+    private static int position(long location) {
+        return (int) ((location >>> 1) - 1);
+    }
+
+    private static int align(int size) {
+        return (size + ALIGNMENT - 1) & -ALIGNMENT;
+    }
+
+    private static long hash(byte[] key) {
+        return Hashing.murmur3_128().hashBytes(key).asLong();
+    }
+}
@@ -34,6 +34,8 @@
 import java.util.Collections;
 import java.util.Comparator;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 // todo - stream serialised value to file
 // todo - handle hash collisions (properly, this time)
@@ -58,17 +60,30 @@
     private HeaderBlock header;
 
     public BTreePersistentIndexedCache(File cacheFile, Serializer<K> keySerializer, Serializer<V> valueSerializer) {
-        this(cacheFile, keySerializer, valueSerializer, (short) 512, 512);
+        this(cacheFile, keySerializer, valueSerializer, new FileBackedBlockStore(cacheFile));
+    }
+
+    /**
+     * Creates a cache that stores its blocks in the given backing store, for example a {@link MappedBlockStore}.
+     * The backing store must operate on the given cache file.
+     */
+    public BTreePersistentIndexedCache(File cacheFile, Serializer<K> keySerializer, Serializer<V> valueSerializer, BlockStore backingStore) {
+        this(cacheFile, keySerializer, valueSerializer, (short) 512, 512, backingStore);
     }
 
     public BTreePersistentIndexedCache(File cacheFile, Serializer<K> keySerializer, Serializer<V> valueSerializer,
                                        short maxChildIndexEntries, int maxFreeListEntries) {
+        this(cacheFile, keySerializer, valueSerializer, maxChildIndexEntries, maxFreeListEntries, new FileBackedBlockStore(cacheFile));
+    }
+
+    public BTreePersistentIndexedCache(File cacheFile, Serializer<K> keySerializer, Serializer<V> valueSerializer,
+                                       short maxChildIndexEntries, int maxFreeListEntries, BlockStore backingStore) {
         this.cacheFile = cacheFile;
         this.keyHasher = new KeyHasher<K>(keySerializer);
         this.serializer = valueSerializer;
         this.maxChildIndexEntries = maxChildIndexEntries;
         this.minIndexChildNodes = maxChildIndexEntries / 2;
-        BlockStore cachingStore = new CachingBlockStore(new FileBackedBlockStore(cacheFile), ImmutableSet.of(IndexBlock.class, FreeListBlockStore.FreeListBlock.class));
+        BlockStore cachingStore = new CachingBlockStore(backingStore, ImmutableSet.of(IndexBlock.class, FreeListBlockStore.FreeListBlock.class));
         this.store = new StateCheckBlockStore(new FreeListBlockStore(cachingStore, maxFreeListEntries));
         try {
             open();
@@ -139,6 +154,25 @@ public V get(K key) {
     }
 
     public void put(K key, V value) {
+        doPut(key, value);
+        flush();
+    }
+
+    public void remove(K key) {
+        doRemove(key);
+        flush();
+    }
+
+    /**
+     * Puts and removes the given entries, writing the modified blocks once for the whole batch.
+     */
+    public void applyBatch(Map<K, V> puts, Set<K> removals) {
+        puts.forEach(this::doPut);
+        removals.forEach(this::doRemove);
+        flush();
+    }
+
+    private void doPut(K key, V value) {
         try {
             long hashCode = keyHasher.getHashCode(key);
             Lookup lookup = header.getRoot().find(hashCode);
@@ -157,13 +191,12 @@ public void put(K key, V value) {
                 store.write(newBlock);
                 lookup.indexBlock.put(hashCode, newBlock.getPos());
             }
-            store.flush();
         } catch (Exception e) {
             throw new UncheckedIOException(String.format("Could not add entry '%s' to %s.", key, this), e);
         }
     }
 
-    public void remove(K key) {
+    private void doRemove(K key) {
         try {
             Lookup lookup = header.getRoot().find(key);
             if (lookup.entry == null) {
@@ -172,12 +205,19 @@ public void remove(K key) {
             lookup.indexBlock.remove(lookup.entry);
             DataBlock block = store.read(lookup.entry.dataBlock, DataBlock.class);
             store.remove(block);
-            store.flush();
         } catch (Exception e) {
             throw new UncheckedIOException(String.format("Could not remove entry '%s' from %s.", key, this), e);
         }
     }
 
+    private void flush() {
+        try {
+            store.flush();
+        } catch (Exception e) {
+            throw new UncheckedIOException(String.format("Could not write entries to %s.", this), e);
+        }
+    }
+
     private IndexBlock load(BlockPointer pos, IndexRoot root, IndexBlock parent, int index) {
         IndexBlock block = store.read(pos, IndexBlock.class);
         block.root = root;
@@ -0,0 +1,405 @@
+/*
+ * Copyright 2025 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.cache.internal.btree;
+
+import org.gradle.api.UncheckedIOException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.AccessDeniedException;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * A {@link BlockStore} that accesses the cache file through a memory mapping.
+ * <p>
+ * Uses the same file format as {@link FileBackedBlockStore}, so a cache file can be opened with either store.
+ * Blocks are read directly from the mapping without copying them into an intermediate buffer,
+ * and written without a system call per block.
+ * <p>
+ * The mapping grows in multiples of {@link #getChunkSize()} bytes, by a quarter of its size and at most {@link #MAX_GROWTH} bytes at a time.
+ * The file is truncated to its actual content when the store is closed.
+ * This is not possible on Windows while the file is still mapped, in which case the file keeps some trailing padding.
+ * The padding is never referenced by any block, so it is harmless, but it is not reclaimed either.
+ * <p>
+ * As a single mapping is used, the cache file cannot grow beyond 2GB.
+ */
+public class MappedBlockStore implements BlockStore {
+    private static final Logger LOGGER = LoggerFactory.getLogger(MappedBlockStore.class);
+
+    public static final int DEFAULT_CHUNK_SIZE = 64 * 1024;
+    static final int MAX_GROWTH = 64 * 1024 * 1024;
+
+    private final File cacheFile;
+    private final int chunkSize;
+    private FileChannel channel;
+    private boolean writable;
+    private MappedByteBuffer buffer;
+    private long nextBlock;
+    private Factory factory;
+    private long currentFileSize;
+
+    public MappedBlockStore(File cacheFile) {
+        this(cacheFile, DEFAULT_CHUNK_SIZE);
+    }
+
+    public MappedBlockStore(File cacheFile, int chunkSize) {
+        if (chunkSize < 1) {
+            throw new IllegalArgumentException("Chunk size must be at least 1, but was " + chunkSize);
+        }
+        this.cacheFile = cacheFile;
+        this.chunkSize = chunkSize;
+    }
+
+    public int getChunkSize() {
+        return chunkSize;
+    }
+
+    @Override
+    public String toString() {
+        return "cache '" + cacheFile + "'";
+    }
+
+    @Override
+    public void open(Runnable runnable, Factory factory) {
+        this.factory = factory;
+        try {
+            cacheFile.getParentFile().mkdirs();
+            openChannel();
+            currentFileSize = channel.size();
+            nextBlock = currentFileSize;
+            buffer = channel.map(writable ? FileChannel.MapMode.READ_WRITE : FileChannel.MapMode.READ_ONLY, 0, currentFileSize);
+            if (currentFileSize == 0) {
+                runnable.run();
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private void openChannel() throws IOException {
+        try {
+            channel = FileChannel.open(cacheFile.toPath(), StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+            writable = true;
+        } catch (AccessDeniedException e) {
+            channel = FileChannel.open(cacheFile.toPath(), StandardOpenOption.READ);
+            writable = false;
+        }
+    }
+
+    @Override
+    public void close() {
+        buffer = null;
+        try {
+            try {
+                if (writable && channel.size() > currentFileSize) {
+                    channel.truncate(currentFileSize);
+                }
+            } catch (IOException e) {
+                // Windows does not allow truncating a file that is still mapped, we will try again the next time the cache is closed
+                LOGGER.debug("Could not remove padding from {}.", this, e);
+            }
+            channel.close();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Override
+    public void clear() {
+        // Keep the mapping, any content beyond the end of the file is ignored
+        currentFileSize = 0;
+        nextBlock = 0;
+    }
+
+    @Override
+    public void attach(BlockPayload block) {
+        if (block.getBlock() == null) {
+            block.setBlock(new BlockImpl(block));
+        }
+    }
+
+    @Override
+    public void remove(BlockPayload block) {
+        BlockImpl blockImpl = (BlockImpl) block.getBlock();
+        blockImpl.detach();
+    }
+
+    @Override
+    public void flush() {
+    }
+
+    @Override
+    public <T extends BlockPayload> T readFirst(Class<T> payloadType) {
+        return read(BlockPointer.pos(0), payloadType);
+    }
+
+    @Override
+    public <T extends BlockPayload> T read(BlockPointer pos, Class<T> payloadType) {
+        assert !pos.isNull();
+        try {
+            T payload = payloadType.cast(factory.create(payloadType));
+            BlockImpl block = new BlockImpl(payload, pos);
+            block.read();
+            return payload;
+        } catch (CorruptedCacheException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Override
+    public void write(BlockPayload block) {
+        BlockImpl blockImpl = (BlockImpl) block.getBlock();
+        try {
+            blockImpl.write();
+        } catch (CorruptedCacheException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private long alloc(long length) {
+        long pos = nextBlock;
+        nextBlock += length;
+        return pos;
+    }
+
+    /**
+     * Makes sure that the mapping covers at least the given number of bytes, growing the file if required.
+     */
+    private void ensureMapped(long size) throws IOException {
+        int mappedSize = buffer.capacity();
+        if (size <= mappedSize) {
+            return;
+        }
+        if (!writable) {
+            throw new IOException(String.format("Cannot write to read-only %s.", this));
+        }
+        long growth = Math.min(Math.max(mappedSize / 4, chunkSize), MAX_GROWTH);
+        long newSize = Math.max(size, mappedSize + growth);
+        newSize = (newSize + chunkSize - 1) / chunkSize * chunkSize;
+        if (newSize > Integer.MAX_VALUE) {
+            if (size > Integer.MAX_VALUE) {
+                throw new IOException(String.format("Cannot grow memory mapped %s beyond 2GB.", this));
+            }
+            newSize = Integer.MAX_VALUE;
+        }
+        buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, newSize);
+    }
+
+    private final class BlockImpl extends Block {
+        private static final int HEADER_SIZE = 1 + INT_SIZE; // type, payload size
+        private static final int TAIL_SIZE = INT_SIZE;
+
+        private BlockPointer pos;
+        private int payloadSize;
+
+        private BlockImpl(BlockPayload payload, BlockPointer pos) {
+            this(payload);
+            setPos(pos);
+        }
+
+        public BlockImpl(BlockPayload payload) {
+            super(payload);
+            pos = null;
+            payloadSize = -1;
+        }
+
+        @Override
+        public boolean hasPos() {
+            return pos != null;
+        }
+
+        @Override
+        public BlockPointer getPos() {
+            if (pos == null) {
+                pos = BlockPointer.pos(alloc(getSize()));
+            }
+            return pos;
+        }
+
+        @Override
+        public void setPos(BlockPointer pos) {
+            assert this.pos == null && !pos.isNull();
+            this.pos = pos;
+        }
+
+        @Override
+        public int getSize() {
+            if (payloadSize < 0) {
+                payloadSize = getPayload().getSize();
+            }
+            return payloadSize + HEADER_SIZE + TAIL_SIZE;
+        }
+
+        @Override
+        public void setSize(int size) {
+            int newPayloadSize = size - HEADER_SIZE - TAIL_SIZE;
+            assert newPayloadSize >= payloadSize;
+            payloadSize = newPayloadSize;
+        }
+
+        public void write() throws Exception {
+            long pos = getPos().getPos();
+            long finalSize = pos + HEADER_SIZE + TAIL_SIZE + payloadSize;
+            ensureMapped(finalSize);
+
+            MappedOutputStream output = new MappedOutputStream(pos);
+            DataOutputStream outputStream = new DataOutputStream(output);
+
+            BlockPayload payload = getPayload();
+
+            // Write header
+            outputStream.writeByte(payload.getType());
+            outputStream.writeInt(payloadSize);
+
+            // Write body
+            payload.write(outputStream);
+
+            // Write count
+            long bytesWritten = output.position - pos;
+            if (bytesWritten > Integer.MAX_VALUE) {
+                throw new IllegalArgumentException("Block payload exceeds maximum size");
+            }
+            outputStream.writeInt((int) bytesWritten);
+
+            if (currentFileSize < finalSize) {
+                currentFileSize = finalSize;
+            }
+        }
+
+        public void read() throws Exception {
+            long pos = getPos().getPos();
+            assert pos >= 0;
+            if (pos + HEADER_SIZE >= currentFileSize) {
+                throw blockCorruptedException();
+            }
+
+            ByteBuffer content = buffer.duplicate();
+            content.limit((int) currentFileSize);
+            content.position((int) pos);
+            DataInputStream inputStream = new DataInputStream(new ByteBufferInputStream(content));
+
+            BlockPayload payload = getPayload();
+
+            // Read header
+            byte type = inputStream.readByte();
+            if (type != payload.getType()) {
+                throw blockCorruptedException();
+            }
+
+            // Read body
+            payloadSize = inputStream.readInt();
+            if (pos + HEADER_SIZE + TAIL_SIZE + payloadSize > currentFileSize) {
+                throw blockCorruptedException();
+            }
+            payload.read(inputStream);
+
+            // Read and verify count
+            long actualCount = content.position() - pos;
+            long count = inputStream.readInt();
+            if (actualCount != count) {
+                throw blockCorruptedException();
+            }
+        }
+
+        @Override
+        public RuntimeException blockCorruptedException() {
+            return new CorruptedCacheException(String.format("Corrupted %s found in %s.", this,
+                    MappedBlockStore.this));
+        }
+    }
+
+    /**
+     * Writes to the mapping at a given position, growing the mapping when writing beyond its end.
+     */
+    private final class MappedOutputStream extends OutputStream {
+        private long position;
+
+        MappedOutputStream(long position) {
+            this.position = position;
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            ensureMapped(position + 1);
+            buffer.put((int) position, (byte) b);
+            position++;
+        }
+
+        @Override
+        public void write(byte[] bytes, int offset, int length) throws IOException {
+            ensureMapped(position + length);
+            ByteBuffer target = buffer.duplicate();
+            target.position((int) position);
+            target.put(bytes, offset, length);
+            position += length;
+        }
+    }
+
+    private static final class ByteBufferInputStream extends InputStream {
+        private final ByteBuffer buffer;
+
+        ByteBufferInputStream(ByteBuffer buffer) {
+            this.buffer = buffer;
+        }
+
+        @Override
+        public int read() {
+            if (!buffer.hasRemaining()) {
+                return -1;
+            }
+            return buffer.get() & 0xFF;
+        }
+
+        @Override
+        public int read(byte[] bytes, int offset, int length) {
+            if (length == 0) {
+                return 0;
+            }
+            if (!buffer.hasRemaining()) {
+                return -1;
+            }
+            int count = Math.min(length, buffer.remaining());
+            buffer.get(bytes, offset, count);
+            return count;
+        }
+
+        @Override
+        public long skip(long n) {
+            int count = (int) Math.max(0, Math.min(n, buffer.remaining()));
+            buffer.position(buffer.position() + count);
+            return count;
+        }
+
+        @Override
+        public int available() {
+            return buffer.remaining();
+        }
+    }
+}
@@ -0,0 +1,129 @@
+/*
+ * Copyright 2025 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.cache.internal
+
+import org.gradle.cache.AsyncCacheAccess
+import org.gradle.cache.MultiProcessSafeIndexedCache
+import spock.lang.Specification
+
+class AsyncCacheAccessDecoratedCacheTest extends Specification {
+    def asyncCacheAccess = Mock(AsyncCacheAccess)
+    def backingCache = Mock(MultiProcessSafeIndexedCache)
+    def cache = new AsyncCacheAccessDecoratedCache<String, String>(asyncCacheAccess, backingCache)
+    def enqueued = []
+
+    def "applies writes to the same key once per batch"() {
+        def completion = Mock(Runnable)
+
+        when:
+        cache.putLater("key", "value 1", completion)
+        cache.putLater("key", "value 2", completion)
+        cache.putLater("other", "value", completion)
+        cache.removeLater("other", completion)
+        cache.removeLater("removed", completion)
+
+        then:
+        1 * asyncCacheAccess.enqueue(_) >> { Runnable operation -> enqueued << operation }
+        0 * _
+
+        when:
+        runEnqueued()
+
+        then:
+        1 * backingCache.applyBatch([key: "value 2"], ["other", "removed"] as Set)
+
+        then:
+        5 * completion.run()
+        0 * _
+
+        and:
+        with(cache.statistics) {
+            batchCount == 1
+            writeCount == 5
+            appliedEntryCount == 3
+            largestBatchSize == 3
+        }
+    }
+
+    def "starts a new batch once the current batch is being applied"() {
+        when:
+        cache.putLater("key", "value 1", {})
+        runEnqueued()
+        cache.putLater("key", "value 2", {})
+        runEnqueued()
+
+        then:
+        2 * asyncCacheAccess.enqueue(_) >> { Runnable operation -> enqueued << operation }
+        1 * backingCache.applyBatch([key: "value 1"], [] as Set)
+
+        then:
+        1 * backingCache.applyBatch([key: "value 2"], [] as Set)
+    }
+
+    def "starts a new batch once the current batch is full"() {
+        when:
+        (AsyncCacheAccessDecoratedCache.MAX_BATCH_SIZE + 1).times {
+            cache.putLater("key $it".toString(), "value", {})
+        }
+        runEnqueued()
+
+        then:
+        2 * asyncCacheAccess.enqueue(_) >> { Runnable operation -> enqueued << operation }
+        1 * backingCache.applyBatch({ it.size() == AsyncCacheAccessDecoratedCache.MAX_BATCH_SIZE }, [] as Set)
+
+        then:
+        1 * backingCache.applyBatch([("key ${AsyncCacheAccessDecoratedCache.MAX_BATCH_SIZE}".toString()): "value"], [] as Set)
+    }
+
+    def "marks writes completed when applying batch fails"() {
+        def completion = Mock(Runnable)
+        def failure = new RuntimeException("broken")
+
+        given:
+        asyncCacheAccess.enqueue(_) >> { Runnable operation -> enqueued << operation }
+        cache.putLater("key", "value", completion)
+
+        when:
+        runEnqueued()
+
+        then:
+        def e = thrown(RuntimeException)
+        e == failure
+        1 * backingCache.applyBatch(_, _) >> { throw failure }
+        1 * completion.run()
+    }
+
+    def "marks writes completed when batch cannot be enqueued"() {
+        def completion = Mock(Runnable)
+        def failure = new IllegalStateException("closed")
+
+        when:
+        cache.putLater("key", "value", completion)
+
+        then:
+        def e = thrown(IllegalStateException)
+        e == failure
+        1 * asyncCacheAccess.enqueue(_) >> { throw failure }
+        1 * completion.run()
+    }
+
+    private void runEnqueued() {
+        def operations = new ArrayList(enqueued)
+        enqueued.clear()
+        operations.each { it.run() }
+    }
+}
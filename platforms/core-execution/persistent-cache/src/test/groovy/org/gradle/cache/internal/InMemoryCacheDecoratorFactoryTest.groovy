@@ -24,6 +24,8 @@ import spock.lang.Specification
 import java.util.function.Supplier
 
 class InMemoryCacheDecoratorFactoryTest extends Specification {
+    static final long MB = 1024 * 1024
+
     def cacheFactory = new DefaultInMemoryCacheDecoratorFactory(false, new TestCrossBuildInMemoryCacheFactory())
     def target = Mock(MultiProcessSafeIndexedCache)
     def asyncCacheAccess = Mock(AsyncCacheAccess)
@@ -201,4 +203,29 @@ class InMemoryCacheDecoratorFactoryTest extends Specification {
         0 * target._
     }
 
+
+    def "does not create off-heap stores without an off-heap budget"() {
+        def factory = new DefaultInMemoryCacheDecoratorFactory(true, new TestCrossBuildInMemoryCacheFactory())
+
+        expect:
+        factory.offHeapStoreFor("cache", MB) == null
+    }
+
+    def "off-heap stores share the off-heap budget"() {
+        def factory = new DefaultInMemoryCacheDecoratorFactory(true, new TestCrossBuildInMemoryCacheFactory(), 3 * MB)
+
+        when:
+        def first = factory.offHeapStoreFor("first", 2 * MB)
+        def second = factory.offHeapStoreFor("second", 2 * MB)
+        def third = factory.offHeapStoreFor("third", 2 * MB)
+
+        then:
+        first != null
+        second != null
+        second.toString().contains("/${MB} bytes")
+        third == null
+
+        and:
+        factory.offHeapStoreFor("first", 2 * MB).is(first)
+    }
 }
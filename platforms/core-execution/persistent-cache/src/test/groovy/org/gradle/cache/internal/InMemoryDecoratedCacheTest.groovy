@@ -17,7 +17,9 @@
 package org.gradle.cache.internal
 
 import com.google.common.cache.CacheBuilder
+import com.google.common.cache.RemovalListener
 import org.gradle.cache.FileLock
+import org.gradle.internal.serialize.BaseSerializerFactory
 import org.gradle.test.fixtures.concurrent.ConcurrentSpec
 
 import java.util.concurrent.atomic.AtomicReference
@@ -192,4 +194,127 @@ class InMemoryDecoratedCacheTest extends ConcurrentSpec {
         instant.one_done > instant.two
         instant.two_done > instant.one
     }
+
+    def "reads entries evicted from memory from the off-heap tier"() {
+        def offHeapTier = newOffHeapTier()
+        def cache = newCacheWithOffHeapTier(offHeapTier)
+
+        given:
+        cache.putLater("key1", "value1", Stub(Runnable))
+        cache.putLater("key2", "value2", Stub(Runnable))
+
+        when:
+        def result = cache.get("key1")
+
+        then:
+        result == "value1"
+        offHeapTier.store.hitCount == 1
+
+        and:
+        0 * target.get(_)
+    }
+
+    def "does not read stale entries from the off-heap tier"() {
+        def offHeapTier = newOffHeapTier()
+        def cache = newCacheWithOffHeapTier(offHeapTier)
+
+        given:
+        cache.putLater("key1", "value1", Stub(Runnable))
+        cache.putLater("key2", "value2", Stub(Runnable))
+        cache.putLater("key1", "value3", Stub(Runnable))
+        cache.removeLater("key2", Stub(Runnable))
+
+        when:
+        def result1 = cache.get("key1")
+        def result2 = cache.get("key2")
+
+        then:
+        result1 == "value3"
+        result2 == null
+
+        and:
+        1 * target.get("key2") >> null
+        0 * target.get(_)
+    }
+
+    def "does not read stale entries from the off-heap tier when they are demoted after a concurrent write"() {
+        def offHeapTier = newOffHeapTier()
+        // Delivers eviction notifications later, like the in-memory cache does once it has released its lock
+        def pendingNotifications = []
+        def inMemoryCache = CacheBuilder.newBuilder().concurrencyLevel(1).maximumSize(1).removalListener({ pendingNotifications << it } as RemovalListener).build()
+        offHeapTier.setInMemoryCache(inMemoryCache)
+        def cache = new InMemoryDecoratedCache(target, inMemoryCache, "id", new AtomicReference<FileLock.State>(), offHeapTier)
+
+        given:
+        cache.putLater("key1", "value1", Stub(Runnable))
+        // Evicts value1
+        cache.putLater("key2", "value2", Stub(Runnable))
+        // Writes key1 before value1 has been demoted, and evicts value2
+        cache.putLater("key1", "value3", Stub(Runnable))
+        // Evicts value3 before value1 has been demoted
+        cache.putLater("key2", "value4", Stub(Runnable))
+
+        when:
+        pendingNotifications.each { offHeapTier.onRemoval(it) }
+        pendingNotifications.clear()
+        def result = cache.get("key1")
+
+        then:
+        result == "value3"
+
+        and:
+        0 * target.get(_)
+    }
+
+    def "does not demote entries that have been written again since they were evicted"() {
+        def offHeapTier = newOffHeapTier()
+        def pendingNotifications = []
+        def inMemoryCache = CacheBuilder.newBuilder().concurrencyLevel(1).maximumSize(1).removalListener({ pendingNotifications << it } as RemovalListener).build()
+        offHeapTier.setInMemoryCache(inMemoryCache)
+        def cache = new InMemoryDecoratedCache(target, inMemoryCache, "id", new AtomicReference<FileLock.State>(), offHeapTier)
+
+        given:
+        cache.putLater("key1", "value1", Stub(Runnable))
+        // Evicts value1
+        cache.putLater("key2", "value2", Stub(Runnable))
+        // Writes key1 before value1 has been demoted
+        cache.putLater("key1", "value3", Stub(Runnable))
+
+        when:
+        pendingNotifications.each { offHeapTier.onRemoval(it) }
+
+        then:
+        offHeapTier.get("key1") == null
+        offHeapTier.get("key2") == "value2"
+    }
+
+    def "clears the off-heap tier when the in-memory cache is cleared"() {
+        def offHeapTier = newOffHeapTier()
+        def cache = newCacheWithOffHeapTier(offHeapTier)
+
+        given:
+        cache.putLater("key1", "value1", Stub(Runnable))
+        cache.putLater("key2", "value2", Stub(Runnable))
+
+        when:
+        cache.clearInMemoryCache()
+        def result = cache.get("key1")
+
+        then:
+        result == "value1"
+        offHeapTier.store.entryCount == 0
+
+        and:
+        1 * target.get("key1") >> "value1"
+    }
+
+    private static OffHeapCacheTier<Object, Object> newOffHeapTier() {
+        new OffHeapCacheTier<Object, Object>(new OffHeapEntryStore("id", 1024 * 1024), BaseSerializerFactory.STRING_SERIALIZER, BaseSerializerFactory.STRING_SERIALIZER, InMemoryDecoratedCache.NULL)
+    }
+
+    private InMemoryDecoratedCache newCacheWithOffHeapTier(OffHeapCacheTier<Object, Object> offHeapTier) {
+        // Keeps a single entry on the heap
+        def inMemoryCache = CacheBuilder.newBuilder().concurrencyLevel(1).maximumSize(1).removalListener(offHeapTier).build()
+        new InMemoryDecoratedCache(target, inMemoryCache, "id", new AtomicReference<FileLock.State>(), offHeapTier)
+    }
 }
@@ -78,6 +78,19 @@ class MultiProcessSafeIndexedCacheTest extends Specification {
         0 * _._
     }
 
+    def "holds write lock while applying batch to cache"() {
+        given:
+        cacheOpened()
+
+        when:
+        cache.applyBatch([key: "value"], ["other"] as Set)
+
+        then:
+        1 * fileAccess.writeFile(!null) >> { Runnable action -> action.run() }
+        1 * backingCache.applyBatch([key: "value"], ["other"] as Set)
+        0 * _._
+    }
+
     def "holds write lock while closing cache"() {
         given:
         cacheOpened()
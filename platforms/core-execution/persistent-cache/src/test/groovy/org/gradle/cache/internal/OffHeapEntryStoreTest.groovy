@@ -0,0 +1,155 @@
+/*
+ * Copyright 2025 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.cache.internal
+
+import spock.lang.Specification
+
+class OffHeapEntryStoreTest extends Specification {
+    def store = new OffHeapEntryStore("test", 1024)
+
+    def "stores and reads entries"() {
+        when:
+        store.put(key("a"), value(1, 10))
+        store.put(key("b"), value(2, 20))
+
+        then:
+        store.get(key("a")) == value(1, 10)
+        store.get(key("b")) == value(2, 20)
+        store.get(key("c")) == null
+        store.entryCount == 2
+        store.hitCount == 2
+        store.missCount == 1
+    }
+
+    def "replaces existing value when key is already present"() {
+        when:
+        store.put(key("a"), value(1, 10))
+        store.put(key("a"), value(2, 10))
+
+        then:
+        store.get(key("a")) == value(2, 10)
+        store.entryCount == 1
+
+        when:
+        store.put(key("a"), value(2, 10))
+
+        then:
+        store.get(key("a")) == value(2, 10)
+        store.entryCount == 1
+    }
+
+    def "removes existing value when replacement is too large"() {
+        when:
+        store.put(key("a"), value(1, 10))
+        store.put(key("a"), value(2, 512))
+
+        then:
+        store.get(key("a")) == null
+        store.entryCount == 0
+    }
+
+    def "removes entries"() {
+        given:
+        store.put(key("a"), value(1, 10))
+        store.put(key("b"), value(2, 10))
+
+        when:
+        store.remove(key("a"))
+
+        then:
+        store.get(key("a")) == null
+        store.get(key("b")) == value(2, 10)
+        store.entryCount == 1
+
+        when:
+        store.put(key("a"), value(3, 10))
+
+        then:
+        store.get(key("a")) == value(3, 10)
+    }
+
+    def "evicts entries that have not been read since they were last visited"() {
+        given:
+        // Each entry takes 120 bytes, so 8 entries fit
+        (0..7).each { store.put(key("k$it"), value(it, 100)) }
+        store.get(key("k0"))
+
+        when:
+        store.put(key("k8"), value(8, 100))
+
+        then:
+        store.get(key("k0")) == value(0, 100)
+        store.get(key("k1")) == null
+        (2..8).every { store.get(key("k$it")) == value(it, 100) }
+        store.evictionCount == 1
+    }
+
+    def "keeps working when the log wraps around many times"() {
+        when:
+        (0..<1000).each {
+            store.put(key("k$it"), value(it, it % 150))
+            if (it % 3 == 0) {
+                store.get(key("k${it - 2}"))
+            }
+        }
+
+        then:
+        (0..<1000).every {
+            def stored = store.get(key("k$it"))
+            stored == null || stored == value(it, it % 150)
+        }
+        store.get(key("k999")) == value(999, 999 % 150)
+        store.evictionCount > 0
+    }
+
+    def "ignores values that are too large"() {
+        when:
+        store.put(key("a"), value(1, 512))
+
+        then:
+        store.get(key("a")) == null
+        store.entryCount == 0
+    }
+
+    def "can be cleared"() {
+        given:
+        store.put(key("a"), value(1, 10))
+
+        when:
+        store.clear()
+
+        then:
+        store.get(key("a")) == null
+        store.entryCount == 0
+
+        when:
+        store.put(key("a"), value(2, 10))
+
+        then:
+        store.get(key("a")) == value(2, 10)
+    }
+
+    private static byte[] key(String key) {
+        key.getBytes("UTF-8")
+    }
+
+    private static byte[] value(int seed, int length) {
+        def value = new byte[length]
+        new Random(seed).nextBytes(value)
+        value
+    }
+}
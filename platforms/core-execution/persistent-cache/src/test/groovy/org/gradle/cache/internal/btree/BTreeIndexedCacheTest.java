@@ -31,9 +31,11 @@
 import java.util.Collection;
 import java.util.Collections;
 import java.util.Comparator;
+import java.util.HashSet;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 import static org.hamcrest.CoreMatchers.*;
 import static org.junit.Assert.assertNull;
@@ -204,6 +206,44 @@ public void persistsReplacedEntries() {
         verifyAndCloseCache();
     }
 
+    @Test
+    public void persistsBatchedPutsAndRemoves() {
+        createCache();
+
+        Map<String, Integer> puts = new LinkedHashMap<String, Integer>();
+        for (int i = 0; i < 100; i++) {
+            puts.put(String.format("key_%d", i), i);
+        }
+        cache.applyBatch(puts, Collections.<String>emptySet());
+
+        Map<String, Integer> updates = new LinkedHashMap<String, Integer>();
+        Set<String> removals = new HashSet<String>();
+        for (int i = 0; i < 100; i++) {
+            String key = String.format("key_%d", i);
+            if (i % 3 == 0) {
+                removals.add(key);
+            } else if (i % 3 == 1) {
+                updates.put(key, i + 1000);
+            }
+        }
+        cache.applyBatch(updates, removals);
+
+        cache.reset();
+
+        for (int i = 0; i < 100; i++) {
+            String key = String.format("key_%d", i);
+            if (i % 3 == 0) {
+                assertNull(cache.get(key));
+            } else if (i % 3 == 1) {
+                assertThat(cache.get(key), equalTo(i + 1000));
+            } else {
+                assertThat(cache.get(key), equalTo(i));
+            }
+        }
+
+        verifyAndCloseCache();
+    }
+
     @Test
     public void reusesEmptySpaceWhenPuttingEntries() {
         BTreePersistentIndexedCache<String, String> cache = new BTreePersistentIndexedCache<String, String>(cacheFile, stringSerializer, stringSerializer, (short) 4, 100);
@@ -0,0 +1,144 @@
+/*
+ * Copyright 2025 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.cache.internal.btree
+
+import org.gradle.internal.serialize.DefaultSerializer
+import org.gradle.test.fixtures.file.TestNameTestDirectoryProvider
+import org.junit.Rule
+import spock.lang.Specification
+
+class MappedBlockStoreTest extends Specification {
+    @Rule
+    TestNameTestDirectoryProvider tmpDir = new TestNameTestDirectoryProvider(getClass())
+    def stringSerializer = new DefaultSerializer<String>()
+    def cacheFile = tmpDir.file("cache.bin")
+
+    def "persists entries when cache grows beyond initial mapping"() {
+        def cache = mappedCache()
+
+        when:
+        (0..<1000).each { cache.put("key_$it".toString(), "value_$it".toString()) }
+        cache.close()
+        cache = mappedCache()
+
+        then:
+        (0..<1000).every { cache.get("key_$it".toString()) == "value_$it".toString() }
+        cache.verify()
+
+        cleanup:
+        cache.close()
+    }
+
+    def "writes the same file content as file backed store"() {
+        def otherFile = tmpDir.file("other.bin")
+        def cache = mappedCache()
+        def fileBacked = new BTreePersistentIndexedCache<String, String>(otherFile, stringSerializer, stringSerializer, (short) 4, 100, new FileBackedBlockStore(otherFile))
+
+        when:
+        (0..<100).each {
+            cache.put("key_$it".toString(), "value_$it".toString())
+            fileBacked.put("key_$it".toString(), "value_$it".toString())
+        }
+
+        then:
+        // Padded to the mapping size
+        cacheFile.length() % 256 == 0
+
+        when:
+        cache.close()
+        fileBacked.close()
+
+        then:
+        cacheFile.bytes == otherFile.bytes
+    }
+
+    def "can read cache written by file backed store and vice versa"() {
+        def cache = fileBackedCache()
+
+        when:
+        (0..<200).each { cache.put("key_$it".toString(), "value_$it".toString()) }
+        cache.close()
+        cache = mappedCache()
+
+        then:
+        (0..<200).every { cache.get("key_$it".toString()) == "value_$it".toString() }
+
+        when:
+        (0..<200).each { cache.put("key_$it".toString(), "updated_$it".toString()) }
+        cache.put("new", "value")
+        cache.close()
+        cache = fileBackedCache()
+
+        then:
+        (0..<200).every { cache.get("key_$it".toString()) == "updated_$it".toString() }
+        cache.get("new") == "value"
+        cache.verify()
+
+        cleanup:
+        cache.close()
+    }
+
+    def "discards entries when cleared"() {
+        def cache = mappedCache()
+        (0..<100).each { cache.put("key_$it".toString(), "value_$it".toString()) }
+
+        when:
+        cache.clear()
+        cache.put("new", "value")
+        cache.close()
+        cache = mappedCache()
+
+        then:
+        cache.get("key_1") == null
+        cache.get("new") == "value"
+        cache.verify()
+
+        cleanup:
+        cache.close()
+    }
+
+    def "rebuilds cache when file is corrupted"() {
+        def cache = mappedCache()
+        cache.put("key", "value")
+        cache.close()
+        cacheFile.bytes = cacheFile.bytes[0..<(cacheFile.length() - 10)] as byte[]
+
+        when:
+        cache = mappedCache()
+
+        then:
+        cache.get("key") == null
+
+        when:
+        cache.put("key", "other")
+
+        then:
+        cache.get("key") == "other"
+        cache.verify()
+
+        cleanup:
+        cache.close()
+    }
+
+    private BTreePersistentIndexedCache<String, String> mappedCache() {
+        new BTreePersistentIndexedCache<String, String>(cacheFile, stringSerializer, stringSerializer, (short) 4, 100, new MappedBlockStore(cacheFile, 256))
+    }
+
+    private BTreePersistentIndexedCache<String, String> fileBackedCache() {
+        new BTreePersistentIndexedCache<String, String>(cacheFile, stringSerializer, stringSerializer, (short) 4, 100, new FileBackedBlockStore(cacheFile))
+    }
+}
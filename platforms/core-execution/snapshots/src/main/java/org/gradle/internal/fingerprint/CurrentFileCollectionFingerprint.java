@@ -31,6 +31,11 @@ public interface CurrentFileCollectionFingerprint extends FileCollectionFingerpr
      */
     HashCode getHash();
 
+    @Override
+    default HashCode getHashIfAvailable() {
+        return getHash();
+    }
+
     /**
      * An identifier for the strategy.
      *
@@ -53,6 +58,6 @@ public interface CurrentFileCollectionFingerprint extends FileCollectionFingerpr
     FileCollectionFingerprint archive(ArchivedFileCollectionFingerprintFactory factory);
 
     interface ArchivedFileCollectionFingerprintFactory {
-        FileCollectionFingerprint createArchivedFileCollectionFingerprint(Map<String, FileSystemLocationFingerprint> fingerprints, ImmutableMultimap<String, HashCode> rootHashes, HashCode strategyConfigurationHash);
+        FileCollectionFingerprint createArchivedFileCollectionFingerprint(Map<String, FileSystemLocationFingerprint> fingerprints, ImmutableMultimap<String, HashCode> rootHashes, HashCode strategyConfigurationHash, HashCode hash);
     }
 }
@@ -19,6 +19,7 @@
 import com.google.common.collect.ImmutableMultimap;
 import com.google.common.collect.ImmutableSortedMap;
 import org.gradle.internal.hash.HashCode;
+import org.jspecify.annotations.Nullable;
 
 import java.util.Map;
 
@@ -39,6 +40,16 @@ public interface FileCollectionFingerprint {
 
     boolean wasCreatedWithStrategy(FingerprintingStrategy strategy);
 
+    /**
+     * The combined hash of the fingerprints, if it is available without looking at the fingerprints one by one.
+     *
+     * @see CurrentFileCollectionFingerprint#getHash()
+     */
+    @Nullable
+    default HashCode getHashIfAvailable() {
+        return null;
+    }
+
     FileCollectionFingerprint EMPTY = new FileCollectionFingerprint() {
         @Override
         public Map<String, FileSystemLocationFingerprint> getFingerprints() {
@@ -16,6 +16,8 @@
 
 package org.gradle.internal.fingerprint.impl;
 
+import com.google.common.base.Supplier;
+import com.google.common.base.Suppliers;
 import com.google.common.collect.ImmutableMultimap;
 import com.google.common.collect.Iterables;
 import org.gradle.internal.fingerprint.CurrentFileCollectionFingerprint;
@@ -34,12 +36,13 @@
 
 public class DefaultCurrentFileCollectionFingerprint implements CurrentFileCollectionFingerprint {
 
-    private final Map<String, FileSystemLocationFingerprint> fingerprints;
+    private final Supplier<Map<String, FileSystemLocationFingerprint>> fingerprints;
     private final FingerprintHashingStrategy hashingStrategy;
     private final String identifier;
     private final FileSystemSnapshot roots;
     private final ImmutableMultimap<String, HashCode> rootHashes;
     private final HashCode strategyConfigurationHash;
+    @Nullable
     private HashCode hash;
 
     public static CurrentFileCollectionFingerprint from(FileSystemSnapshot roots, FingerprintingStrategy strategy, @Nullable  FileCollectionFingerprint candidate) {
@@ -48,19 +51,19 @@ public static CurrentFileCollectionFingerprint from(FileSystemSnapshot roots, Fi
         }
 
         ImmutableMultimap<String, HashCode> rootHashes = SnapshotUtil.getRootHashes(roots);
-        Map<String, FileSystemLocationFingerprint> fingerprints;
         if (candidate != null
             && candidate.wasCreatedWithStrategy(strategy)
             && equalRootHashes(candidate.getRootHashes(), rootHashes)
         ) {
-            fingerprints = candidate.getFingerprints();
-        } else {
-            fingerprints = strategy.collectFingerprints(roots);
+            // Only fingerprints with entries have root hashes, so the candidate cannot be empty.
+            // Keep using the candidate's entries and hash without looking at them, as they might not even have been loaded yet.
+            return new DefaultCurrentFileCollectionFingerprint(candidate::getFingerprints, candidate.getHashIfAvailable(), roots, rootHashes, strategy);
         }
+        Map<String, FileSystemLocationFingerprint> fingerprints = strategy.collectFingerprints(roots);
         if (fingerprints.isEmpty()) {
             return strategy.getEmptyFingerprint();
         }
-        return new DefaultCurrentFileCollectionFingerprint(fingerprints, roots, rootHashes, strategy);
+        return new DefaultCurrentFileCollectionFingerprint(Suppliers.ofInstance(fingerprints), null, roots, rootHashes, strategy);
     }
 
     private static boolean equalRootHashes(ImmutableMultimap<String, HashCode> first, ImmutableMultimap<String, HashCode> second) {
@@ -69,12 +72,14 @@ private static boolean equalRootHashes(ImmutableMultimap<String, HashCode> first
     }
 
     private DefaultCurrentFileCollectionFingerprint(
-        Map<String, FileSystemLocationFingerprint> fingerprints,
+        Supplier<Map<String, FileSystemLocationFingerprint>> fingerprints,
+        @Nullable HashCode hash,
         FileSystemSnapshot roots,
         ImmutableMultimap<String, HashCode> rootHashes,
         FingerprintingStrategy strategy
     ) {
         this.fingerprints = fingerprints;
+        this.hash = hash;
         this.identifier = strategy.getIdentifier();
         this.hashingStrategy = strategy.getHashingStrategy();
         this.strategyConfigurationHash = strategy.getConfigurationHash();
@@ -86,7 +91,7 @@ private DefaultCurrentFileCollectionFingerprint(
     public HashCode getHash() {
         if (hash == null) {
             Hasher hasher = Hashing.newHasher();
-            hashingStrategy.appendToHasher(hasher, fingerprints.values());
+            hashingStrategy.appendToHasher(hasher, fingerprints.get().values());
             hash = hasher.hash();
         }
         return hash;
@@ -100,7 +105,7 @@ public boolean isEmpty() {
 
     @Override
     public Map<String, FileSystemLocationFingerprint> getFingerprints() {
-        return fingerprints;
+        return fingerprints.get();
     }
 
     @Override
@@ -125,11 +130,11 @@ public FileSystemSnapshot getSnapshot() {
 
     @Override
     public FileCollectionFingerprint archive(ArchivedFileCollectionFingerprintFactory factory) {
-        return factory.createArchivedFileCollectionFingerprint(fingerprints, rootHashes, strategyConfigurationHash);
+        return factory.createArchivedFileCollectionFingerprint(fingerprints.get(), rootHashes, strategyConfigurationHash, getHash());
     }
 
     @Override
     public String toString() {
-        return identifier + fingerprints;
+        return identifier + fingerprints.get();
     }
 }
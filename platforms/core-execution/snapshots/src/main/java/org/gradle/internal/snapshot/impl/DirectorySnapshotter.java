@@ -16,7 +16,7 @@
 
 package org.gradle.internal.snapshot.impl;
 
-import com.google.common.annotations.VisibleForTesting;
+import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.ImmutableSet;
 import com.google.common.collect.Interner;
@@ -50,12 +50,17 @@
 import java.util.ArrayDeque;
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.Deque;
 import java.util.EnumSet;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
 import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveTask;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.function.Consumer;
 import java.util.function.Predicate;
@@ -64,9 +69,19 @@
 
 /**
  * For creating {@link DirectorySnapshot}s of directories.
+ * <p>
+ * When created with a {@link ForkJoinPool}, sub-directories are walked and hashed in parallel.
+ * The snapshots of the forked sub-directories are joined before their parent directory is left,
+ * so the result is the same as when walking the whole directory on a single thread.
  */
 public class DirectorySnapshotter {
     private static final EnumSet<FileVisitOption> DONT_FOLLOW_SYMLINKS = EnumSet.noneOf(FileVisitOption.class);
+
+    /**
+     * Forked sub-directories wait in the queue of the forking thread until an idle thread steals them.
+     * Once more of them are waiting than this, sub-directories are walked by the current thread instead.
+     */
+    private static final int MAX_SURPLUS_QUEUED_SUBTREES = 3;
     private static final SymbolicLinkMapping EMPTY_SYMBOLIC_LINK_MAPPING = new SymbolicLinkMapping() {
 
         @Override
@@ -89,12 +104,28 @@ public Iterable<String> getRemappedSegments(Iterable<String> segments) {
     private final Interner<String> stringInterner;
     private final DefaultExcludes defaultExcludes;
     private final DirectorySnapshotterStatistics.Collector collector;
+    @Nullable
+    private final ForkJoinPool forkJoinPool;
 
     public DirectorySnapshotter(FileHasher hasher, Interner<String> stringInterner, Collection<String> defaultExcludes, DirectorySnapshotterStatistics.Collector collector) {
+        this(hasher, stringInterner, defaultExcludes, collector, null);
+    }
+
+    /**
+     * @param forkJoinPool the pool to snapshot sub-directories in parallel on, or {@code null} to snapshot on the calling thread only.
+     */
+    public DirectorySnapshotter(
+        FileHasher hasher,
+        Interner<String> stringInterner,
+        Collection<String> defaultExcludes,
+        DirectorySnapshotterStatistics.Collector collector,
+        @Nullable ForkJoinPool forkJoinPool
+    ) {
         this.hasher = hasher;
         this.stringInterner = stringInterner;
         this.defaultExcludes = new DefaultExcludes(defaultExcludes);
         this.collector = collector;
+        this.forkJoinPool = forkJoinPool;
     }
 
     /**
@@ -111,6 +142,7 @@ public DirectorySnapshotter(FileHasher hasher, Interner<String> stringInterner,
      * then this consumer will receive all the unfiltered snapshots within the snapshot directory.
      * For example, if an element of a directory is filtered out, the consumer will receive all the non-filtered out
      * file snapshots and all the non-filtered directory snapshots in the directory.
+     * When snapshotting in parallel, the consumer is called from multiple threads, though never concurrently.
      * @return The (possible filtered) snapshot of the directory.
      */
     public FileSystemLocationSnapshot snapshot(
@@ -118,11 +150,46 @@ public FileSystemLocationSnapshot snapshot(
         SnapshottingFilter.@Nullable DirectoryWalkerPredicate predicate,
         Map<String, ? extends FileSystemLocationSnapshot> previouslyKnownSnapshots,
         Consumer<FileSystemLocationSnapshot> unfilteredSnapshotRecorder
+    ) {
+        ForkJoinPool forkJoinPool = this.forkJoinPool;
+        if (forkJoinPool == null) {
+            return walk(absolutePath, predicate, previouslyKnownSnapshots, unfilteredSnapshotRecorder);
+        }
+        Object recorderLock = new Object();
+        Consumer<FileSystemLocationSnapshot> synchronizedRecorder = snapshot -> {
+            synchronized (recorderLock) {
+                unfilteredSnapshotRecorder.accept(snapshot);
+            }
+        };
+        if (ForkJoinTask.getPool() == forkJoinPool) {
+            return walk(absolutePath, predicate, previouslyKnownSnapshots, synchronizedRecorder);
+        }
+        return forkJoinPool.invoke(ForkJoinTask.adapt(() -> walk(absolutePath, predicate, previouslyKnownSnapshots, synchronizedRecorder)));
+    }
+
+    private FileSystemLocationSnapshot walk(
+        String absolutePath,
+        SnapshottingFilter.@Nullable DirectoryWalkerPredicate predicate,
+        Map<String, ? extends FileSystemLocationSnapshot> previouslyKnownSnapshots,
+        Consumer<FileSystemLocationSnapshot> unfilteredSnapshotRecorder
     ) {
         try {
             AtomicBoolean hasBeenFiltered = new AtomicBoolean();
             Path rootPath = Paths.get(absolutePath);
-            PathVisitor visitor = new PathVisitor(predicate, hasBeenFiltered, hasher, stringInterner, defaultExcludes, collector, EMPTY_SYMBOLIC_LINK_MAPPING, previouslyKnownSnapshots, unfilteredSnapshotRecorder);
+            PathVisitor visitor = new PathVisitor(
+                predicate,
+                hasBeenFiltered,
+                hasher,
+                stringInterner,
+                defaultExcludes,
+                collector,
+                EMPTY_SYMBOLIC_LINK_MAPPING,
+                previouslyKnownSnapshots,
+                unfilteredSnapshotRecorder,
+                forkJoinPool,
+                ImmutableList.of(),
+                ImmutableList.of()
+            );
             Files.walkFileTree(rootPath, DONT_FOLLOW_SYMLINKS, Integer.MAX_VALUE, visitor);
             FileSystemLocationSnapshot result = visitor.getResult();
             if (!hasBeenFiltered.get()) {
@@ -180,8 +247,10 @@ public Iterable<String> getRemappedSegments(Iterable<String> segments) {
         }
     }
 
-    @VisibleForTesting
-    static class DefaultExcludes {
+    /**
+     * The default excludes in a form that is cheap to match against file names.
+     */
+    public static class DefaultExcludes {
         private final ImmutableSet<String> excludeFileNames;
         private final ImmutableSet<String> excludedDirNames;
         private final Predicate<String> excludedFileNameSpec;
@@ -266,7 +335,21 @@ private static class PathVisitor extends DirectorySnapshotterStatistics.Collecti
         private final Set<FileSystemLocationSnapshot> filteredDirectorySnapshots = new HashSet<>();
         private final ImmutableMap<String, ? extends FileSystemLocationSnapshot> previouslyKnownSnapshots;
         private final Consumer<FileSystemLocationSnapshot> unfilteredSnapshotRecorder;
+        @Nullable
+        private final ForkJoinPool forkJoinPool;
+        /**
+         * The sub-directories forked off for each directory level we are in, innermost level first.
+         */
+        private final Deque<List<SubtreeWalk>> forkedSubtrees = new ArrayDeque<>();
+        private final int rootDepth;
+        @Nullable
+        private String walkRootName;
 
+        /**
+         * @param enteredNames the names of the directories from the root of the walk to the parent of the directory this visitor starts at,
+         * when this visitor walks a subtree forked off another walk. Empty otherwise.
+         * @param parentDirectories the directories above the directory this visitor starts at, to detect cycles introduced by symlinks.
+         */
         public PathVisitor(
             SnapshottingFilter.@Nullable DirectoryWalkerPredicate predicate,
             AtomicBoolean hasBeenFiltered,
@@ -276,9 +359,12 @@ public PathVisitor(
             DirectorySnapshotterStatistics.Collector statisticsCollector,
             SymbolicLinkMapping symbolicLinkMapping,
             Map<String, ? extends FileSystemLocationSnapshot> previouslyKnownSnapshots,
-            Consumer<FileSystemLocationSnapshot> unfilteredSnapshotRecorder
+            Consumer<FileSystemLocationSnapshot> unfilteredSnapshotRecorder,
+            @Nullable ForkJoinPool forkJoinPool,
+            List<String> enteredNames,
+            Collection<String> parentDirectories
         ) {
-            super(statisticsCollector);
+            super(statisticsCollector, !enteredNames.isEmpty());
             this.builder = FilteredTrackingMerkleDirectorySnapshotBuilder.sortingRequired(this::recordUnfilteredSnapshot);
             this.predicate = predicate;
             this.hasBeenFiltered = hasBeenFiltered;
@@ -288,6 +374,11 @@ public PathVisitor(
             this.symbolicLinkMapping = symbolicLinkMapping;
             this.previouslyKnownSnapshots = ImmutableMap.copyOf(previouslyKnownSnapshots);
             this.unfilteredSnapshotRecorder = unfilteredSnapshotRecorder;
+            this.forkJoinPool = forkJoinPool;
+            enteredNames.forEach(pathTracker::enter);
+            this.rootDepth = enteredNames.size();
+            this.walkRootName = enteredNames.isEmpty() ? null : enteredNames.get(0);
+            this.parentDirectories.addAll(parentDirectories);
         }
 
         private void recordUnfilteredSnapshot(FileSystemLocationSnapshot snapshot) {
@@ -299,6 +390,9 @@ private void recordUnfilteredSnapshot(FileSystemLocationSnapshot snapshot) {
         @Override
         protected FileVisitResult doPreVisitDirectory(Path dir, BasicFileAttributes attrs) {
             String fileName = getInternedFileName(dir);
+            if (walkRootName == null) {
+                walkRootName = fileName;
+            }
             pathTracker.enter(fileName);
             if (shouldVisitDirectory(dir, fileName)) {
                 String internedRemappedAbsolutePath = intern(symbolicLinkMapping.remapAbsolutePath(dir));
@@ -315,8 +409,15 @@ protected FileVisitResult doPreVisitDirectory(Path dir, BasicFileAttributes attr
                     }
                 }
 
+                if (shouldForkSubtree()) {
+                    forkSubtree(dir);
+                    pathTracker.leave();
+                    return FileVisitResult.SKIP_SUBTREE;
+                }
+
                 builder.enterDirectory(AccessType.DIRECT, internedRemappedAbsolutePath, fileName, INCLUDE_EMPTY_DIRS);
                 parentDirectories.addFirst(dir.toString());
+                forkedSubtrees.addFirst(Collections.emptyList());
                 return FileVisitResult.CONTINUE;
             } else {
                 pathTracker.leave();
@@ -333,6 +434,7 @@ protected FileVisitResult doPostVisitDirectory(Path dir, IOException exc) {
             if (isNotFileSystemLoopException(exc)) {
                 throw new UncheckedIOException(String.format("Could not read directory path '%s'.", dir), exc);
             }
+            joinForkedSubtrees(forkedSubtrees.removeFirst());
             boolean currentLevelComplete = builder.isCurrentLevelUnfiltered();
             FileSystemLocationSnapshot currentLevel = builder.leaveDirectory();
             if (!currentLevelComplete) {
@@ -342,6 +444,70 @@ protected FileVisitResult doPostVisitDirectory(Path dir, IOException exc) {
             return FileVisitResult.CONTINUE;
         }
 
+        /**
+         * Whether to hand off the directory we are about to enter to another thread.
+         * We never fork off the directory the walk starts at, and only fork while other threads are likely to pick up the work.
+         */
+        private boolean shouldForkSubtree() {
+            return forkJoinPool != null
+                && !forkedSubtrees.isEmpty()
+                && ForkJoinTask.getPool() == forkJoinPool
+                && ForkJoinTask.getSurplusQueuedTaskCount() <= MAX_SURPLUS_QUEUED_SUBTREES;
+        }
+
+        private void forkSubtree(Path dir) {
+            ForkJoinPool forkJoinPool = Objects.requireNonNull(this.forkJoinPool);
+            // The forked walk enters the directory itself
+            List<String> enteredNames = new ArrayList<>(pathTracker.getSegments().size());
+            enteredNames.add(Objects.requireNonNull(walkRootName));
+            enteredNames.addAll(pathTracker.getSegments());
+            enteredNames.remove(enteredNames.size() - 1);
+            AtomicBoolean subtreeHasBeenFiltered = new AtomicBoolean();
+            PathVisitor subtreeVisitor = new PathVisitor(
+                predicate,
+                subtreeHasBeenFiltered,
+                hasher,
+                stringInterner,
+                defaultExcludes,
+                collector,
+                symbolicLinkMapping,
+                previouslyKnownSnapshots,
+                unfilteredSnapshotRecorder,
+                forkJoinPool,
+                enteredNames,
+                parentDirectories
+            );
+            SubtreeWalk subtreeWalk = new SubtreeWalk(dir, subtreeVisitor, subtreeHasBeenFiltered, collector);
+            List<SubtreeWalk> siblings = forkedSubtrees.removeFirst();
+            if (siblings.isEmpty()) {
+                siblings = new ArrayList<>();
+            }
+            siblings.add(subtreeWalk);
+            forkedSubtrees.addFirst(siblings);
+            subtreeWalk.fork();
+            collector.recordForkedSubtree(forkJoinPool.getActiveThreadCount());
+        }
+
+        /**
+         * Adds the snapshots of the forked sub-directories to the current directory.
+         * The builder sorts the children, so the order in which the forked walks finish does not matter.
+         */
+        private void joinForkedSubtrees(List<SubtreeWalk> subtreeWalks) {
+            for (SubtreeWalk subtreeWalk : subtreeWalks) {
+                DirectorySnapshot subtreeSnapshot = subtreeWalk.join();
+                if (subtreeSnapshot == null) {
+                    // The directory could not be walked and is ignored, see doVisitFileFailed()
+                    continue;
+                }
+                builder.visitDirectory(subtreeSnapshot);
+                if (subtreeWalk.hasBeenFiltered()) {
+                    filteredDirectorySnapshots.add(subtreeSnapshot);
+                    builder.markCurrentLevelAsFiltered();
+                    hasBeenFiltered.set(true);
+                }
+            }
+        }
+
         @Override
         protected FileVisitResult doVisitFile(Path file, BasicFileAttributes attrs) {
             String internedFileName = getInternedFileName(file);
@@ -395,7 +561,10 @@ private DirectorySnapshot followSymlink(Path file, String internedFileName, Atom
                         collector,
                         symbolicLinkMapping.withNewMapping(file.toString(), targetDirString, pathTracker),
                         previouslyKnownSnapshots,
-                        unfilteredSnapshotRecorder);
+                        unfilteredSnapshotRecorder,
+                        forkJoinPool,
+                        ImmutableList.of(),
+                        ImmutableList.of());
                     Files.walkFileTree(targetDir, EnumSet.noneOf(FileVisitOption.class), Integer.MAX_VALUE, subtreeVisitor);
                     return (DirectorySnapshot) subtreeVisitor.getResult();
                 } else {
@@ -418,7 +587,7 @@ private void visitResolvedFile(Path file, BasicFileAttributes targetAttributes,
         }
 
         private boolean shouldVisitDirectory(Path dir, String internedName) {
-            return pathTracker.isRoot() || shouldVisit(dir, internedName, true);
+            return pathTracker.getSegments().size() == rootDepth || shouldVisit(dir, internedName, true);
         }
 
         private boolean shouldVisitFile(Path file, String internedName) {
@@ -521,4 +690,39 @@ public FileSystemLocationSnapshot getResult() {
             return builder.getResult();
         }
     }
+
+    /**
+     * Walks a sub-directory forked off another walk.
+     */
+    private static class SubtreeWalk extends RecursiveTask<@Nullable DirectorySnapshot> {
+        private final Path dir;
+        private final PathVisitor visitor;
+        private final AtomicBoolean hasBeenFiltered;
+        private final DirectorySnapshotterStatistics.Collector collector;
+        private final Thread forkingThread = Thread.currentThread();
+
+        public SubtreeWalk(Path dir, PathVisitor visitor, AtomicBoolean hasBeenFiltered, DirectorySnapshotterStatistics.Collector collector) {
+            this.dir = dir;
+            this.visitor = visitor;
+            this.hasBeenFiltered = hasBeenFiltered;
+            this.collector = collector;
+        }
+
+        @Override
+        protected @Nullable DirectorySnapshot compute() {
+            if (Thread.currentThread() != forkingThread) {
+                collector.recordStolenSubtree();
+            }
+            try {
+                Files.walkFileTree(dir, DONT_FOLLOW_SYMLINKS, Integer.MAX_VALUE, visitor);
+            } catch (IOException e) {
+                throw new UncheckedIOException(String.format("Could not list contents of directory '%s'.", dir), e);
+            }
+            return (DirectorySnapshot) visitor.getResult();
+        }
+
+        public boolean hasBeenFiltered() {
+            return hasBeenFiltered.get();
+        }
+    }
 }
@@ -25,6 +25,7 @@
 import java.nio.file.Path;
 import java.nio.file.attribute.BasicFileAttributes;
 import java.text.MessageFormat;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicLong;
 
 public interface DirectorySnapshotterStatistics {
@@ -48,12 +49,30 @@ public interface DirectorySnapshotterStatistics {
      */
     long getFailedFiles();
 
+    /**
+     * The number of subtrees that have been handed off to be snapshotted in parallel.
+     */
+    long getForkedSubtreeCount();
+
+    /**
+     * The number of forked subtrees that have been snapshotted by a different thread than the one that forked them.
+     */
+    long getStolenSubtreeCount();
+
+    /**
+     * The highest number of threads seen snapshotting at the same time.
+     */
+    int getMaxActiveThreads();
+
     @ServiceScope(Scope.Global.class)
     class Collector {
         private final AtomicLong hierarchyCount = new AtomicLong();
         private final AtomicLong directoryCount = new AtomicLong();
         private final AtomicLong fileCount = new AtomicLong();
         private final AtomicLong failedFileCount = new AtomicLong();
+        private final AtomicLong forkedSubtreeCount = new AtomicLong();
+        private final AtomicLong stolenSubtreeCount = new AtomicLong();
+        private final AtomicInteger maxActiveThreads = new AtomicInteger();
 
         public void recordVisitHierarchy() {
             hierarchyCount.incrementAndGet();
@@ -71,11 +90,23 @@ public void recordVisitFileFailed() {
             failedFileCount.incrementAndGet();
         }
 
+        public void recordForkedSubtree(int activeThreads) {
+            forkedSubtreeCount.incrementAndGet();
+            maxActiveThreads.accumulateAndGet(activeThreads, Math::max);
+        }
+
+        public void recordStolenSubtree() {
+            stolenSubtreeCount.incrementAndGet();
+        }
+
         public DirectorySnapshotterStatistics collect() {
             long hierarchyCount = this.hierarchyCount.getAndSet(0);
             long directoryCount = this.directoryCount.getAndSet(0);
             long fileCount = this.fileCount.getAndSet(0);
             long failedFileCount = this.failedFileCount.getAndSet(0);
+            long forkedSubtreeCount = this.forkedSubtreeCount.getAndSet(0);
+            long stolenSubtreeCount = this.stolenSubtreeCount.getAndSet(0);
+            int maxActiveThreads = this.maxActiveThreads.getAndSet(0);
 
             return new DirectorySnapshotterStatistics() {
                 @Override
@@ -98,10 +129,30 @@ public long getFailedFiles() {
                     return failedFileCount;
                 }
 
+                @Override
+                public long getForkedSubtreeCount() {
+                    return forkedSubtreeCount;
+                }
+
+                @Override
+                public long getStolenSubtreeCount() {
+                    return stolenSubtreeCount;
+                }
+
+                @Override
+                public int getMaxActiveThreads() {
+                    return maxActiveThreads;
+                }
+
                 @Override
                 public String toString() {
-                    return MessageFormat.format("Snapshot {0,number,integer} directory hierarchies (visited {1,number,integer} directories, {2,number,integer} files and {3,number,integer} failed files)",
+                    String summary = MessageFormat.format("Snapshot {0,number,integer} directory hierarchies (visited {1,number,integer} directories, {2,number,integer} files and {3,number,integer} failed files)",
                         hierarchyCount, directoryCount, fileCount, failedFileCount);
+                    if (forkedSubtreeCount == 0) {
+                        return summary;
+                    }
+                    return summary + MessageFormat.format(", forked {0,number,integer} subtrees ({1,number,integer} snapshotted by another thread, up to {2,number,integer} threads active)",
+                        forkedSubtreeCount, stolenSubtreeCount, maxActiveThreads);
                 }
             };
         }
@@ -109,15 +160,31 @@ public String toString() {
 
     abstract class CollectingFileVisitor implements FileVisitor<Path> {
         protected final Collector collector;
+        private boolean countRootDirectory;
 
         public CollectingFileVisitor(Collector collector) {
+            this(collector, false);
+        }
+
+        /**
+         * @param forkedSubtree whether this visitor walks a subtree forked off another walk.
+         * Such a subtree is part of the hierarchy visited by the other walk, which already counted its root directory.
+         */
+        protected CollectingFileVisitor(Collector collector, boolean forkedSubtree) {
             this.collector = collector;
-            collector.recordVisitHierarchy();
+            this.countRootDirectory = !forkedSubtree;
+            if (!forkedSubtree) {
+                collector.recordVisitHierarchy();
+            }
         }
 
         @Override
         public final FileVisitResult preVisitDirectory(Path dir, BasicFileAttributes attrs) {
-            collector.recordVisitDirectory();
+            if (countRootDirectory) {
+                collector.recordVisitDirectory();
+            } else {
+                countRootDirectory = true;
+            }
             return doPreVisitDirectory(dir, attrs);
         }
 
@@ -0,0 +1,140 @@
+/*
+ * Copyright 2025 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.internal.snapshot.impl
+
+import org.gradle.api.internal.cache.StringInterner
+import org.gradle.api.internal.file.TestFiles
+import org.gradle.api.tasks.util.PatternSet
+import org.gradle.internal.file.FileMetadata.AccessType
+import org.gradle.internal.fingerprint.impl.PatternSetSnapshottingFilter
+import org.gradle.internal.hash.TestFileHasher
+import org.gradle.internal.snapshot.FileSystemLocationSnapshot
+import org.gradle.internal.snapshot.SnapshotVisitorUtil
+import org.gradle.internal.snapshot.SnapshottingFilter
+import org.gradle.test.fixtures.file.CleanupTestDirectory
+import org.gradle.test.fixtures.file.TestFile
+import org.gradle.test.fixtures.file.TestNameTestDirectoryProvider
+import org.gradle.test.precondition.Requires
+import org.gradle.test.preconditions.UnitTestPreconditions
+import org.gradle.util.UsesNativeServices
+import org.junit.Rule
+import spock.lang.AutoCleanup
+import spock.lang.Specification
+
+import java.util.concurrent.ForkJoinPool
+
+@UsesNativeServices
+@CleanupTestDirectory(fieldName = "tmpDir")
+class ParallelDirectorySnapshotterTest extends Specification {
+    @Rule
+    public final TestNameTestDirectoryProvider tmpDir = new TestNameTestDirectoryProvider(getClass())
+
+    @AutoCleanup("shutdown")
+    def pool = new ForkJoinPool(4)
+    def fileHasher = new TestFileHasher()
+    def defaultExcludes = ["**/.git", "**/.git/**"]
+    def sequentialCollector = new DirectorySnapshotterStatistics.Collector()
+    def parallelCollector = new DirectorySnapshotterStatistics.Collector()
+    def sequentialSnapshotter = new DirectorySnapshotter(fileHasher, new StringInterner(), defaultExcludes, sequentialCollector)
+    def parallelSnapshotter = new DirectorySnapshotter(fileHasher, new StringInterner(), defaultExcludes, parallelCollector, pool)
+
+    def "creates the same snapshot as the sequential snapshotter #description"() {
+        def rootDir = createTree(tmpDir.createDir("root"), 4)
+
+        when:
+        def sequential = snapshot(sequentialSnapshotter, rootDir, patterns)
+        def parallel = snapshot(parallelSnapshotter, rootDir, patterns)
+
+        then:
+        parallel.snapshot.hash == sequential.snapshot.hash
+        SnapshotVisitorUtil.getRelativePaths(parallel.snapshot, true) == SnapshotVisitorUtil.getRelativePaths(sequential.snapshot, true)
+        parallel.unfiltered*.absolutePath as Set == sequential.unfiltered*.absolutePath as Set
+        parallel.unfiltered.size() == sequential.unfiltered.size()
+
+        def sequentialStatistics = sequentialCollector.collect()
+        def parallelStatistics = parallelCollector.collect()
+        parallelStatistics.visitedHierarchyCount == sequentialStatistics.visitedHierarchyCount
+        parallelStatistics.visitedDirectoryCount == sequentialStatistics.visitedDirectoryCount
+        parallelStatistics.visitedFiles == sequentialStatistics.visitedFiles
+        parallelStatistics.forkedSubtreeCount > 0
+        sequentialStatistics.forkedSubtreeCount == 0
+
+        where:
+        description                      | patterns
+        "without filters"                | null
+        "when filtering files"           | new PatternSet().include("**/*.txt")
+        "when filtering directories"     | new PatternSet().exclude("**/dir1/**")
+        "when filtering nested elements" | new PatternSet().exclude("dir0/dir2/**", "dir2/dir0/file1.html")
+    }
+
+    @Requires(UnitTestPreconditions.Symlinks)
+    def "follows symlinks the same way as the sequential snapshotter"() {
+        def rootDir = createTree(tmpDir.createDir("root"), 3)
+        rootDir.file("dir0/linkToDir1").createLink(rootDir.file("dir1"))
+        rootDir.file("dir2/dir0/linkToRoot").createLink(rootDir)
+        rootDir.file("dir1/linkToFile").createLink(rootDir.file("dir0/file0.txt"))
+
+        when:
+        def sequential = snapshot(sequentialSnapshotter, rootDir, null)
+        def parallel = snapshot(parallelSnapshotter, rootDir, null)
+
+        then:
+        parallel.snapshot.hash == sequential.snapshot.hash
+        SnapshotVisitorUtil.getRelativePaths(parallel.snapshot, true) == SnapshotVisitorUtil.getRelativePaths(sequential.snapshot, true)
+        (parallel.snapshot.children.find { it.name == "dir0" }.children.find { it.name == "linkToDir1" }).accessType == AccessType.VIA_SYMLINK
+    }
+
+    def "reuses previously known snapshots"() {
+        def rootDir = createTree(tmpDir.createDir("root"), 3)
+        def knownSnapshot = snapshot(sequentialSnapshotter, rootDir.file("dir1"), null).snapshot
+
+        when:
+        def parallel = parallelSnapshotter.snapshot(rootDir.absolutePath, null, [(knownSnapshot.absolutePath): knownSnapshot], {})
+
+        then:
+        parallel.children.find { it.name == "dir1" }.is(knownSnapshot)
+    }
+
+    private static TestFile createTree(TestFile dir, int depth) {
+        3.times { index ->
+            dir.file("file${index}.txt").text = "text ${dir.name} ${index}"
+            dir.file("file${index}.html").text = "html ${dir.name} ${index}"
+        }
+        dir.file(".git/config").text = "excluded"
+        if (depth > 0) {
+            3.times { index ->
+                createTree(dir.file("dir${index}"), depth - 1)
+            }
+        }
+        return dir
+    }
+
+    private static SnapshotResult snapshot(DirectorySnapshotter snapshotter, File rootDir, PatternSet patterns) {
+        def unfiltered = Collections.synchronizedList([])
+        def snapshot = snapshotter.snapshot(rootDir.absolutePath, directoryWalkerPredicate(patterns), [:], { unfiltered.add(it) })
+        return new SnapshotResult(snapshot: snapshot, unfiltered: unfiltered)
+    }
+
+    private static SnapshottingFilter.DirectoryWalkerPredicate directoryWalkerPredicate(PatternSet patternSet) {
+        return patternSet == null ? null : new PatternSetSnapshottingFilter(patternSet, TestFiles.fileSystem()).asDirectoryWalkerPredicate
+    }
+
+    private static class SnapshotResult {
+        FileSystemLocationSnapshot snapshot
+        List<FileSystemLocationSnapshot> unfiltered
+    }
+}
@@ -0,0 +1,130 @@
+/*
+ * Copyright 2025 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.internal.resources;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.gradle.internal.resources.DefaultResourceLockCoordinationService.lock;
+import static org.gradle.internal.resources.DefaultResourceLockCoordinationService.unlock;
+import static org.gradle.internal.resources.ResourceLockState.Disposition.FINISHED;
+import static org.gradle.internal.resources.ResourceLockState.Disposition.RETRY;
+
+/**
+ * Measures how many work items the worker threads can select per second when they compete for worker leases,
+ * in the same way as the plan executor does.
+ *
+ * Run with a different number of threads (for example {@code -t 2}, {@code -t 16}) to measure the selection throughput
+ * against the worker count.
+ */
+@Fork(1)
+@Threads(8)
+@Warmup(iterations = 5)
+@Measurement(iterations = 5)
+@State(Scope.Benchmark)
+public class ResourceLockCoordinationServiceBenchmark {
+
+    @Param({"1", "4", "8"})
+    int maxWorkerCount;
+
+    @Param({"0", "100"})
+    int workTokens;
+
+    DefaultResourceLockCoordinationService coordinationService;
+    LeaseHolder leaseHolder;
+    ResourceLockContainer container;
+    final AtomicInteger selected = new AtomicInteger();
+
+    @Setup(Level.Trial)
+    public void setup() {
+        coordinationService = new DefaultResourceLockCoordinationService();
+        leaseHolder = new LeaseHolder(maxWorkerCount);
+        container = new NoOpResourceLockContainer();
+    }
+
+    @State(Scope.Thread)
+    public static class Worker {
+        DefaultLease workerLease;
+        ExclusiveAccessResourceLock projectLock;
+
+        @Setup(Level.Trial)
+        public void setup(ResourceLockCoordinationServiceBenchmark benchmark) {
+            String name = Thread.currentThread().getName();
+            workerLease = new DefaultLease("worker lease " + name, benchmark.coordinationService, benchmark.container, benchmark.leaseHolder);
+            projectLock = new ExclusiveAccessResourceLock("project " + name, benchmark.coordinationService, benchmark.container);
+        }
+    }
+
+    /**
+     * Selects a work item while holding a worker lease, runs it and then releases the worker lease.
+     */
+    @Benchmark
+    public void selectWithWorkerLease(Worker worker, Blackhole blackhole) {
+        int item = select(worker);
+        Blackhole.consumeCPU(workTokens);
+        blackhole.consume(item);
+        coordinationService.withStateLock(unlock(worker.workerLease));
+    }
+
+    /**
+     * Same as {@link #selectWithWorkerLease(Worker, Blackhole)}, but also locks and releases a project lock that no other
+     * thread waits for, as most work items do.
+     */
+    @Benchmark
+    public void selectWithWorkerLeaseAndProjectLock(Worker worker, Blackhole blackhole) {
+        int item = select(worker);
+        coordinationService.withStateLock(lock(worker.projectLock));
+        Blackhole.consumeCPU(workTokens);
+        blackhole.consume(item);
+        coordinationService.withStateLock(unlock(worker.projectLock));
+        coordinationService.withStateLock(unlock(worker.workerLease));
+    }
+
+    private int select(Worker worker) {
+        int[] item = new int[1];
+        coordinationService.withStateLock(resourceLockState -> {
+            if (!worker.workerLease.tryLock()) {
+                resourceLockState.registerBlocked(worker.workerLease);
+                return RETRY;
+            }
+            item[0] = selected.incrementAndGet();
+            return FINISHED;
+        });
+        return item[0];
+    }
+
+    private static class NoOpResourceLockContainer implements ResourceLockContainer {
+        @Override
+        public void lockAcquired(ResourceLock lock) {
+        }
+
+        @Override
+        public void lockReleased(ResourceLock lock) {
+        }
+    }
+}
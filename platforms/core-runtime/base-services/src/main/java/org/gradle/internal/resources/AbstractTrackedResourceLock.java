@@ -19,6 +19,8 @@
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.util.Collection;
+
 public abstract class AbstractTrackedResourceLock implements ResourceLock {
     private static final Logger LOGGER = LoggerFactory.getLogger(AbstractTrackedResourceLock.class);
 
@@ -90,6 +92,21 @@ private void failIfNotInResourceLockStateChange() {
         }
     }
 
+    /**
+     * Returns the key that identifies the resource guarded by this lock. Releasing this lock wakes up threads
+     * that are blocked on a resource with the same key.
+     */
+    protected Object getContentionKey() {
+        return this;
+    }
+
+    /**
+     * Collects the keys of the resources that may prevent this lock from being acquired.
+     */
+    protected void collectBlockingKeys(Collection<Object> keys) {
+        keys.add(getContentionKey());
+    }
+
     abstract protected boolean acquireLock();
 
     abstract protected void releaseLock();
@@ -25,6 +25,12 @@ public DefaultLease(String displayName, ResourceLockCoordinationService coordina
         this.parent = parent;
     }
 
+    @Override
+    protected Object getContentionKey() {
+        // Any lease granted by the holder can be handed to another thread once released
+        return parent;
+    }
+
     @Override
     protected boolean doIsLocked() {
         return ownerThread != null;
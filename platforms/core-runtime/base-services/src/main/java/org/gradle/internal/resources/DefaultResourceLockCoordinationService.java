@@ -29,44 +29,63 @@
 import java.util.Collection;
 import java.util.Collections;
 import java.util.HashSet;
+import java.util.Iterator;
 import java.util.LinkedHashSet;
 import java.util.Set;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
 
+/**
+ * Coordinates changes to resource locks using a single state lock.
+ *
+ * <p>Threads that need to wait for the lock state to change are parked on their own {@link Condition}. A thread whose transform
+ * registered the locks it is blocked on, via {@link ResourceLockState#registerBlocked(ResourceLock)}, is only woken up when a lock
+ * that may unblock it is released. Other waiting threads are woken up whenever any lock is released. All waiting threads are
+ * woken up by {@link #notifyStateChange()}.</p>
+ */
 public class DefaultResourceLockCoordinationService implements ResourceLockCoordinationService, Closeable {
-    private final Object lock = new Object();
+    private final ReentrantLock lock = new ReentrantLock();
     private final Set<Action<ResourceLock>> releaseHandlers = new LinkedHashSet<Action<ResourceLock>>();
-    private Thread currentOwner;
+    private final Set<Waiter> waiters = new LinkedHashSet<Waiter>();
+    private volatile Thread currentOwner;
     private DefaultResourceLockState currentState;
 
     @Override
     public void close() throws IOException {
-        synchronized (lock) {
+        lock.lock();
+        try {
             if (!releaseHandlers.isEmpty()) {
                 throw new IllegalStateException("Some lock release listeners have not been removed.");
             }
+        } finally {
+            lock.unlock();
         }
     }
 
     @Override
     public void assertHasStateLock() {
-        synchronized (lock) {
-            if (getCurrent() == null) {
-                throw new IllegalStateException();
-            }
+        if (getCurrent() == null) {
+            throw new IllegalStateException();
         }
     }
 
     @Override
     public void addLockReleaseListener(Action<ResourceLock> listener) {
-        synchronized (lock) {
+        lock.lock();
+        try {
             releaseHandlers.add(listener);
+        } finally {
+            lock.unlock();
         }
     }
 
     @Override
     public void removeLockReleaseListener(Action<ResourceLock> listener) {
-        synchronized (lock) {
+        lock.lock();
+        try {
             releaseHandlers.remove(listener);
+        } finally {
+            lock.unlock();
         }
     }
 
@@ -96,7 +115,8 @@ public ResourceLockState.Disposition transform(ResourceLockState resourceLockSta
 
     @Override
     public boolean withStateLock(InternalTransformer<ResourceLockState.Disposition, ResourceLockState> stateLockAction) {
-        synchronized (lock) {
+        lock.lock();
+        try {
             DefaultResourceLockState resourceLockState = new DefaultResourceLockState();
             DefaultResourceLockState previous = startOperation(resourceLockState);
             try {
@@ -105,17 +125,20 @@ public boolean withStateLock(InternalTransformer<ResourceLockState.Disposition,
                     disposition = stateLockAction.transform(resourceLockState);
                     switch (disposition) {
                         case RETRY:
+                            Waiter waiter = new Waiter(lock.newCondition(), resourceLockState.getBlockingKeys());
                             resourceLockState.releaseLocks();
                             maybeNotifyStateChange(resourceLockState);
                             resourceLockState.reset();
                             finishOperation(previous);
+                            waiters.add(waiter);
                             try {
-                                lock.wait();
+                                waiter.condition.await();
                             } catch (InterruptedException e) {
                                 // Interrupting the state lock thread means something changed,
                                 // so let's retry obtaining the lock.
-                                // Clear the interrupted flag.
-                                boolean ignored = Thread.interrupted();
+                                // The interrupted flag has already been cleared.
+                            } finally {
+                                waiters.remove(waiter);
                             }
                             startOperation(resourceLockState);
                             break;
@@ -135,6 +158,8 @@ public boolean withStateLock(InternalTransformer<ResourceLockState.Disposition,
             } finally {
                 finishOperation(previous);
             }
+        } finally {
+            lock.unlock();
         }
     }
 
@@ -161,19 +186,18 @@ private void finishOperation(@Nullable DefaultResourceLockState previous) {
 
     @Override
     public ResourceLockState getCurrent() {
-        synchronized (lock) {
-            if (currentOwner != Thread.currentThread()) {
-                return null;
-            } else {
-                return currentState;
-            }
+        // Only the owner thread can observe itself as the owner, and it is the only thread that changes the current state
+        if (currentOwner != Thread.currentThread()) {
+            return null;
+        } else {
+            return currentState;
         }
     }
 
     private void maybeNotifyStateChange(DefaultResourceLockState resourceLockState) {
         Collection<ResourceLock> unlockedResources = resourceLockState.getUnlockedResources();
         if (!unlockedResources.isEmpty()) {
-            notifyStateChange();
+            signalWaitersBlockedOn(unlockedResources);
             for (ResourceLock resource : unlockedResources) {
                 for (Action<ResourceLock> releaseHandler : releaseHandlers) {
                     releaseHandler.execute(resource);
@@ -182,16 +206,75 @@ private void maybeNotifyStateChange(DefaultResourceLockState resourceLockState)
         }
     }
 
+    private void signalWaitersBlockedOn(Collection<ResourceLock> unlockedResources) {
+        if (waiters.isEmpty()) {
+            return;
+        }
+        Set<Object> releasedKeys = new HashSet<Object>();
+        for (ResourceLock resource : unlockedResources) {
+            releasedKeys.add(contentionKeyOf(resource));
+        }
+        Iterator<Waiter> iterator = waiters.iterator();
+        while (iterator.hasNext()) {
+            Waiter waiter = iterator.next();
+            if (waiter.isBlockedOnAnyOf(releasedKeys)) {
+                iterator.remove();
+                waiter.condition.signal();
+            }
+        }
+    }
+
+    private static Object contentionKeyOf(ResourceLock resourceLock) {
+        if (resourceLock instanceof AbstractTrackedResourceLock) {
+            return ((AbstractTrackedResourceLock) resourceLock).getContentionKey();
+        }
+        return resourceLock;
+    }
+
     @Override
     public void notifyStateChange() {
-        synchronized (lock) {
-            lock.notifyAll();
+        lock.lock();
+        try {
+            for (Waiter waiter : waiters) {
+                waiter.condition.signal();
+            }
+            waiters.clear();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private static class Waiter {
+        final Condition condition;
+        /**
+         * The keys of the resources this waiter is blocked on, or null when it should be woken up by any released lock.
+         */
+        @Nullable
+        final Set<Object> blockingKeys;
+
+        Waiter(Condition condition, @Nullable Set<Object> blockingKeys) {
+            this.condition = condition;
+            this.blockingKeys = blockingKeys;
+        }
+
+        boolean isBlockedOnAnyOf(Set<Object> releasedKeys) {
+            if (blockingKeys == null) {
+                return true;
+            }
+            for (Object key : blockingKeys) {
+                if (releasedKeys.contains(key)) {
+                    return true;
+                }
+            }
+            return false;
         }
     }
 
     private static class DefaultResourceLockState implements ResourceLockState {
         private Set<ResourceLock> lockedResources;
         private Set<ResourceLock> unlockedResources;
+        private Set<Object> blockingKeys;
+        private boolean blockedOnUnknownResource;
         boolean rollback;
 
         @Override
@@ -214,6 +297,30 @@ public void registerUnlocked(ResourceLock resourceLock) {
             }
         }
 
+        @Override
+        public void registerBlocked(ResourceLock resourceLock) {
+            if (resourceLock instanceof AbstractTrackedResourceLock) {
+                if (blockingKeys == null) {
+                    blockingKeys = new HashSet<Object>();
+                }
+                ((AbstractTrackedResourceLock) resourceLock).collectBlockingKeys(blockingKeys);
+            } else {
+                // Don't know what the lock depends on
+                blockedOnUnknownResource = true;
+            }
+        }
+
+        /**
+         * Returns the keys of the resources the transform is blocked on, or null when the transform may be unblocked by any released lock.
+         */
+        @Nullable
+        Set<Object> getBlockingKeys() {
+            if (blockingKeys == null || blockedOnUnknownResource) {
+                return null;
+            }
+            return new HashSet<Object>(blockingKeys);
+        }
+
         Collection<ResourceLock> getUnlockedResources() {
             return unlockedResources == null ? Collections.<ResourceLock>emptyList() : unlockedResources;
         }
@@ -240,6 +347,10 @@ public void reset() {
             if (unlockedResources != null) {
                 unlockedResources.clear();
             }
+            if (blockingKeys != null) {
+                blockingKeys.clear();
+            }
+            blockedOnUnknownResource = false;
             rollback = false;
         }
     }
@@ -299,7 +410,11 @@ private static class AcquireLocks implements InternalTransformer<ResourceLockSta
         public ResourceLockState.Disposition transform(ResourceLockState resourceLockState) {
             for (ResourceLock resourceLock : resourceLocks) {
                 if (!resourceLock.tryLock()) {
-                    return blocking ? ResourceLockState.Disposition.RETRY : ResourceLockState.Disposition.FAILED;
+                    if (blocking) {
+                        resourceLockState.registerBlocked(resourceLock);
+                        return ResourceLockState.Disposition.RETRY;
+                    }
+                    return ResourceLockState.Disposition.FAILED;
                 }
             }
             return ResourceLockState.Disposition.FINISHED;
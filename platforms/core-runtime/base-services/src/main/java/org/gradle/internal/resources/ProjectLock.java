@@ -16,6 +16,8 @@
 
 package org.gradle.internal.resources;
 
+import java.util.Collection;
+
 public class ProjectLock extends ExclusiveAccessResourceLock {
     private final ResourceLock allProjectsLock;
 
@@ -24,6 +26,16 @@ public ProjectLock(String displayName, ResourceLockCoordinationService coordinat
         this.allProjectsLock = allProjectsLock;
     }
 
+    @Override
+    protected void collectBlockingKeys(Collection<Object> keys) {
+        super.collectBlockingKeys(keys);
+        if (allProjectsLock instanceof AbstractTrackedResourceLock) {
+            ((AbstractTrackedResourceLock) allProjectsLock).collectBlockingKeys(keys);
+        } else {
+            keys.add(allProjectsLock);
+        }
+    }
+
     @Override
     protected boolean canAcquire() {
         // Either the "all projects" lock is not held, or it is held by this thread
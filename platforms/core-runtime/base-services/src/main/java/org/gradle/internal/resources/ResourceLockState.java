@@ -34,6 +34,16 @@ enum Disposition { FAILED, FINISHED, RETRY }
      */
     void registerUnlocked(ResourceLock resourceLock);
 
+    /**
+     * Registers a resource lock that could not be acquired during the transform. When a transform that returns
+     * {@link Disposition#RETRY} has registered the locks it is blocked on, the coordination service only wakes it up
+     * when a lock that may unblock it is released, or when {@link ResourceLockCoordinationService#notifyStateChange()}
+     * is called.
+     *
+     * A transform should only register blocked locks when it cannot make progress until one of them is released.
+     */
+    void registerBlocked(ResourceLock resourceLock);
+
     /**
      * Release any locks that have been acquired during the transform.
      */
@@ -16,6 +16,8 @@
 
 package org.gradle.internal.resources;
 
+import java.util.Collection;
+
 public class TaskExecutionLock extends ExclusiveAccessResourceLock {
     private final ProjectLock stateLock;
 
@@ -24,6 +26,12 @@ public TaskExecutionLock(String displayName, ProjectLock stateLock, ResourceLock
         this.stateLock = stateLock;
     }
 
+    @Override
+    protected void collectBlockingKeys(Collection<Object> keys) {
+        super.collectBlockingKeys(keys);
+        stateLock.collectBlockingKeys(keys);
+    }
+
     @Override
     protected boolean canAcquire() {
         return stateLock.isLockedByCurrentThread() || stateLock.tryLock();
@@ -447,6 +447,110 @@ class DefaultResourceLockCoordinationServiceTest extends ConcurrentSpec {
         0 * listener._
     }
 
+    def "thread blocked on a lock is only woken up when that lock is released"() {
+        def lock1 = resourceLock("lock1", true)
+        def lock2 = resourceLock("lock2", false)
+        def count = 0
+
+        when:
+        async {
+            start {
+                coordinationService.withStateLock(new InternalTransformer<ResourceLockState.Disposition, ResourceLockState>() {
+                    @Override
+                    ResourceLockState.Disposition transform(ResourceLockState resourceLockState) {
+                        try {
+                            return lock(lock1).transform(resourceLockState)
+                        } finally {
+                            count++
+                            instant."executed${count}"
+                        }
+                    }
+                })
+            }
+
+            thread.blockUntil.executed1
+
+            coordinationService.withStateLock(lock(lock2))
+            coordinationService.withStateLock(unlock(lock2))
+
+            lock1.lockedState = false
+            coordinationService.withStateLock(new InternalTransformer<ResourceLockState.Disposition, ResourceLockState>() {
+                @Override
+                ResourceLockState.Disposition transform(ResourceLockState resourceLockState) {
+                    resourceLockState.registerUnlocked(lock1)
+                    return FINISHED
+                }
+            })
+
+            thread.blockUntil.executed2
+        }
+
+        then:
+        count == 2
+        lock1.lockedState
+        !lock2.lockedState
+    }
+
+    def "thread blocked on a lease is woken up when another lease from the same holder is released"() {
+        def holder = new LeaseHolder(1)
+        def lease1 = new DefaultLease("lease1", coordinationService, Mock(ResourceLockContainer), holder)
+        def lease2 = new DefaultLease("lease2", coordinationService, Mock(ResourceLockContainer), holder)
+
+        when:
+        async {
+            coordinationService.withStateLock(lock(lease1))
+            start {
+                coordinationService.withStateLock(new InternalTransformer<ResourceLockState.Disposition, ResourceLockState>() {
+                    @Override
+                    ResourceLockState.Disposition transform(ResourceLockState resourceLockState) {
+                        try {
+                            return lock(lease2).transform(resourceLockState)
+                        } finally {
+                            instant.attempted
+                        }
+                    }
+                })
+                instant.acquired
+            }
+
+            thread.blockUntil.attempted
+            coordinationService.withStateLock(unlock(lease1))
+            thread.blockUntil.acquired
+        }
+
+        then:
+        noExceptionThrown()
+    }
+
+    def "thread blocked on a lock is woken up when state change is notified"() {
+        def lock1 = resourceLock("lock1", true)
+        def count = 0
+
+        when:
+        async {
+            start {
+                coordinationService.withStateLock(new InternalTransformer<ResourceLockState.Disposition, ResourceLockState>() {
+                    @Override
+                    ResourceLockState.Disposition transform(ResourceLockState resourceLockState) {
+                        try {
+                            return count == 0 ? lock(lock1).transform(resourceLockState) : FINISHED
+                        } finally {
+                            count++
+                            instant."executed${count}"
+                        }
+                    }
+                })
+            }
+
+            thread.blockUntil.executed1
+            coordinationService.notifyStateChange()
+            thread.blockUntil.executed2
+        }
+
+        then:
+        count == 2
+    }
+
     TestTrackedResourceLock resourceLock(String displayName, boolean locked, boolean hasLock = false) {
         return new TestTrackedResourceLock(displayName, coordinationService, Mock(ResourceLockContainer), locked, hasLock)
     }
@@ -0,0 +1,90 @@
+/*
+ * Copyright 2025 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.caching.internal.operations;
+
+import org.gradle.internal.operations.BuildOperationType;
+
+/**
+ * Waiting for the stores to the remote build cache that were performed in the background to complete.
+ * <p>
+ * This operation is only executed when remote stores are uploaded asynchronously,
+ * and happens when the build cache is closed at the end of the build.
+ *
+ * @since 9.0
+ */
+public final class BuildCacheRemoteStoreQueueDrainBuildOperationType implements BuildOperationType<BuildCacheRemoteStoreQueueDrainBuildOperationType.Details, BuildCacheRemoteStoreQueueDrainBuildOperationType.Result> {
+
+    public interface Details {
+
+        /**
+         * The number of stores that were queued or running when the build started waiting for them.
+         *
+         * @since 9.0
+         */
+        int getPendingStoreCount();
+
+    }
+
+    public interface Result {
+
+        /**
+         * The number of stores that were submitted to the queue during the build.
+         *
+         * @since 9.0
+         */
+        int getSubmittedStoreCount();
+
+        /**
+         * The number of stores that were cancelled because they did not complete in time.
+         *
+         * @since 9.0
+         */
+        int getCancelledStoreCount();
+
+        /**
+         * The maximum number of stores that were queued or running at the same time.
+         *
+         * @since 9.0
+         */
+        int getMaxQueueDepth();
+
+        /**
+         * The accumulated time stores spent waiting in the queue before being uploaded, in milliseconds.
+         *
+         * @since 9.0
+         */
+        long getTotalQueueTimeMillis();
+
+        /**
+         * The accumulated time spent uploading entries, in milliseconds.
+         *
+         * @since 9.0
+         */
+        long getTotalUploadTimeMillis();
+
+        /**
+         * The time spent uploading the slowest entry, in milliseconds.
+         *
+         * @since 9.0
+         */
+        long getMaxUploadTimeMillis();
+
+    }
+
+    private BuildCacheRemoteStoreQueueDrainBuildOperationType() {
+    }
+}
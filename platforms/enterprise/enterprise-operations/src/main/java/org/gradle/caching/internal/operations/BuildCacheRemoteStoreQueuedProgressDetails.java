@@ -0,0 +1,41 @@
+/*
+ * Copyright 2025 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.caching.internal.operations;
+
+/**
+ * Marks that an entry has been queued to be stored in the remote build cache in the background.
+ * <p>
+ * The upload itself is reported as a separate {@link BuildCacheRemoteStoreBuildOperationType} operation once it runs.
+ *
+ * @since 9.0
+ */
+public interface BuildCacheRemoteStoreQueuedProgressDetails {
+
+    /**
+     * The cache key.
+     *
+     * @since 9.0
+     */
+    String getCacheKey();
+
+    /**
+     * The number of stores that are queued or running, including this one.
+     *
+     * @since 9.0
+     */
+    int getQueueDepth();
+}
@@ -47,14 +47,14 @@ public UserHomeScopedCompileCaches(GlobalScopedCacheBuilderFactory cacheBuilderF
             "jarAnalysis",
             new HashCodeSerializer(),
             new ClassSetAnalysisData.Serializer(() -> new HierarchicalNameSerializer(interner))
-        ).withCacheDecorator(inMemoryCacheDecoratorFactory.decorator(20000, true));
+        ).withCacheDecorator(inMemoryCacheDecoratorFactory.decorator(20000, true, 32L * 1024 * 1024));
         this.classpathEntrySnapshotCache = new MinimalPersistentCache<>(cache.createIndexedCache(jarCacheParameters));
 
         IndexedCacheParameters<HashCode, ClassAnalysis> classCacheParameters = IndexedCacheParameters.of(
             "classAnalysis",
             new HashCodeSerializer(),
             new ClassAnalysis.Serializer(interner)
-        ).withCacheDecorator(inMemoryCacheDecoratorFactory.decorator(400000, true));
+        ).withCacheDecorator(inMemoryCacheDecoratorFactory.decorator(400000, true, 64L * 1024 * 1024));
         this.classAnalysisCache = new MinimalPersistentCache<>(cache.createIndexedCache(classCacheParameters));
     }
 
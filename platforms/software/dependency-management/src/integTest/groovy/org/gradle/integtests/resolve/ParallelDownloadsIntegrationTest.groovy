@@ -192,6 +192,55 @@ class ParallelDownloadsIntegrationTest extends AbstractHttpDependencyResolutionT
         build.waitForFinish()
     }
 
+    def "prefetches metadata of transitive dependencies in parallel when enabled"() {
+        def m3 = mavenRepo.module('test', 'test3', '1.0').publish()
+        def m4 = mavenRepo.module('test', 'test4', '1.0').publish()
+        def m1 = mavenRepo.module('test', 'test1', '1.0').dependsOn(m3).publish()
+        def m2 = mavenRepo.module('test', 'test2', '1.0').dependsOn(m4).publish()
+
+        buildFile << """
+            repositories {
+                maven {
+                    url = '$blockingServer.uri'
+                    $authConfig
+                }
+            }
+            configurations { compile }
+            dependencies {
+                compile 'test:test1:1.0'
+                compile 'test:test2:1.0'
+            }
+            task resolve {
+                def files = configurations.compile
+                inputs.files files
+                doLast {
+                    println files.collect { it.name }.sort()
+                }
+            }
+"""
+
+        given:
+        blockingServer.expectConcurrent(
+            blockingServer.get(m1.pom.path).sendFile(m1.pom.file),
+            blockingServer.get(m2.pom.path).sendFile(m2.pom.file))
+        // Without prefetching, the metadata of these is downloaded one at a time while visiting test1 and test2
+        blockingServer.expectConcurrent(
+            blockingServer.get(m3.pom.path).sendFile(m3.pom.file),
+            blockingServer.get(m4.pom.path).sendFile(m4.pom.file))
+        blockingServer.expectConcurrent(
+            blockingServer.get(m1.artifact.path).sendFile(m1.artifact.file),
+            blockingServer.get(m2.artifact.path).sendFile(m2.artifact.file),
+            blockingServer.get(m3.artifact.path).sendFile(m3.artifact.file),
+            blockingServer.get(m4.artifact.path).sendFile(m4.artifact.file))
+
+        when:
+        executer.withArguments('--max-workers', '4', '-Dorg.gradle.internal.dependency-resolution.metadata-prefetch=true')
+        succeeds("resolve")
+
+        then:
+        outputContains("[test1-1.0.jar, test2-1.0.jar, test3-1.0.jar, test4-1.0.jar]")
+    }
+
     def "component metadata rules are executed synchronously"() {
         def m1 = ivyRepo.module('test', 'test1', '1.0').publish()
         def m2 = ivyRepo.module('test', 'test2', '1.0').publish()
@@ -0,0 +1,119 @@
+/*
+ * Copyright 2025 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.integtests.resolve
+
+import org.gradle.integtests.fixtures.AbstractIntegrationSpec
+
+class ResolvedGraphCacheIntegrationTest extends AbstractIntegrationSpec {
+
+    def setup() {
+        executer.withArgument("-Dorg.gradle.internal.dependency-resolution.graph-cache=true")
+        settingsFile << """
+            rootProject.name = 'root'
+            include 'lib'
+        """
+        file("lib/build.gradle") << """
+            plugins {
+                id("java-library")
+            }
+        """
+        buildFile << """
+            plugins {
+                id("java-library")
+            }
+            ${mavenTestRepository()}
+
+            dependencies {
+                implementation project(':lib')
+                implementation 'org:foo:1.0'
+                implementation 'org:bar:1.0'
+            }
+
+            task checkDeps {
+                def runtimeClasspath = configurations.runtimeClasspath
+                def root = runtimeClasspath.incoming.resolutionResult.rootComponent
+                doLast {
+                    println "files: " + runtimeClasspath*.name
+                    root.get().dependencies.each {
+                        println "dependency: \${it.requested} -> \${it.selected.id} (\${it.selected.selectionReason})"
+                    }
+                }
+            }
+        """
+    }
+
+    def "reuses the resolved graph in a later build"() {
+        mavenRepo.module("org", "foo", "1.0").dependsOn("org", "bar", "1.1").publish()
+        mavenRepo.module("org", "bar", "1.0").publish()
+        mavenRepo.module("org", "bar", "1.1").publish()
+
+        when:
+        succeeds("checkDeps")
+
+        then:
+        def firstOutput = output.readLines().findAll { it.startsWith("files: ") || it.startsWith("dependency: ") }
+        firstOutput.contains("files: [lib.jar, foo-1.0.jar, bar-1.1.jar]")
+
+        when:
+        succeeds("checkDeps")
+
+        then:
+        output.readLines().findAll { it.startsWith("files: ") || it.startsWith("dependency: ") } == firstOutput
+    }
+
+    def "resolves the graph again when the metadata of a component changes"() {
+        def foo = mavenRepo.module("org", "foo", "1.0").dependsOn("org", "bar", "1.1").publish()
+        mavenRepo.module("org", "bar", "1.0").publish()
+        mavenRepo.module("org", "bar", "1.1").publish()
+
+        when:
+        succeeds("checkDeps")
+
+        then:
+        outputContains("files: [lib.jar, foo-1.0.jar, bar-1.1.jar]")
+
+        when:
+        foo.pomFile.text = foo.pomFile.text.replace("<version>1.1</version>", "<version>1.0</version>")
+        succeeds("checkDeps")
+
+        then:
+        outputContains("files: [lib.jar, foo-1.0.jar, bar-1.0.jar]")
+    }
+
+    def "resolves the graph again when dependencies change"() {
+        mavenRepo.module("org", "foo", "1.0").publish()
+        mavenRepo.module("org", "bar", "1.0").publish()
+        mavenRepo.module("org", "baz", "1.0").publish()
+
+        when:
+        succeeds("checkDeps")
+
+        then:
+        outputContains("files: [lib.jar, foo-1.0.jar, bar-1.0.jar]")
+
+        when:
+        file("lib/build.gradle") << """
+            dependencies {
+                implementation 'org:baz:1.0'
+            }
+        """
+        succeeds("checkDeps")
+
+        then:
+        outputContains("files: [lib.jar, foo-1.0.jar, bar-1.0.jar, baz-1.0.jar]")
+    }
+}
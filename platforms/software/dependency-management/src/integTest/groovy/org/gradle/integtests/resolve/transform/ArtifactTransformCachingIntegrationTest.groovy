@@ -1991,9 +1991,10 @@ resultsFile:
         output.contains("Transformed lib1-1.0.jar to green")
         output.contains("Transformed lib1-1.0.jar to blue")
 
-        def localBuildCacheDir = executer.gradleUserHomeDir.file("caches/build-cache-1")
-        def localBuildCacheFiles = localBuildCacheDir.list { dir, fileName -> fileName != "gc.properties" && fileName != "build-cache-1.lock" }
-        localBuildCacheFiles.length == entryCount
+        def localBuildCacheDir = executer.gradleUserHomeDir.file("caches/build-cache-1/v2")
+        // Entries are stored in shard directories
+        def localBuildCacheFiles = (localBuildCacheDir.listFiles() ?: []).collectMany { it.listFiles() as List }
+        localBuildCacheFiles.size() == entryCount
 
         where:
         transformsDisabled   | entryCount
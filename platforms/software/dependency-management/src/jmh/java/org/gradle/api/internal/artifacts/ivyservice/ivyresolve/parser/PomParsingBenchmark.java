@@ -0,0 +1,111 @@
+/*
+ * Copyright 2025 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.artifacts.ivyservice.ivyresolve.parser;
+
+import com.google.common.io.ByteStreams;
+import org.gradle.internal.xml.XmlFactories;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.w3c.dom.Document;
+import org.xml.sax.InputSource;
+
+import javax.xml.parsers.DocumentBuilder;
+import javax.xml.parsers.DocumentBuilderFactory;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Compares reading POMs into a DOM, as {@link PomReader} used to, with reading them with {@link PomStreamParser}.
+ * <p>
+ * By default the benchmark reads the POMs bundled with it. These are synthetic, shaped after the library, BOM and parent
+ * POMs commonly found in Maven Central, so numbers from them are only indicative. Set the {@code corpus} parameter to a
+ * directory, such as a local Maven repository, to read real POMs found in it instead.
+ * Run with {@code -prof gc} to compare allocation rates.
+ */
+@Fork(1)
+@Warmup(iterations = 5)
+@Measurement(iterations = 5)
+@State(Scope.Benchmark)
+public class PomParsingBenchmark {
+    private static final String[] BUNDLED_POMS = {"library.pom", "bom.pom", "parent-with-profiles.pom"};
+
+    @Param({""})
+    String corpus;
+
+    private final List<byte[]> poms = new ArrayList<>();
+    private byte[] m2Entities;
+    private DocumentBuilderFactory documentBuilderFactory;
+
+    @Setup
+    public void setup() throws IOException {
+        if (corpus.isEmpty()) {
+            for (String pom : BUNDLED_POMS) {
+                poms.add(readResource(PomParsingBenchmark.class, pom));
+            }
+        } else {
+            try (Stream<Path> files = Files.walk(Paths.get(corpus))) {
+                for (Path file : files.filter(f -> f.toString().endsWith(".pom")).collect(Collectors.toList())) {
+                    poms.add(Files.readAllBytes(file));
+                }
+            }
+        }
+        if (poms.isEmpty()) {
+            throw new IllegalStateException("No POMs found in " + corpus);
+        }
+        m2Entities = readResource(org.apache.ivy.plugins.parser.m2.PomReader.class, "m2-entities.ent");
+        documentBuilderFactory = XmlFactories.newDocumentBuilderFactory();
+        documentBuilderFactory.setValidating(false);
+    }
+
+    @Benchmark
+    public void dom(Blackhole blackhole) throws Exception {
+        for (byte[] pom : poms) {
+            DocumentBuilder documentBuilder = documentBuilderFactory.newDocumentBuilder();
+            documentBuilder.setEntityResolver((publicId, systemId) -> new InputSource(new ByteArrayInputStream(m2Entities)));
+            Document document = documentBuilder.parse(new PomDomParser.AddDTDFilterInputStream(new ByteArrayInputStream(pom)), "file:/pom.xml");
+            blackhole.consume(document);
+        }
+    }
+
+    @Benchmark
+    public void streaming(Blackhole blackhole) throws Exception {
+        for (byte[] pom : poms) {
+            blackhole.consume(PomStreamParser.parse(new ByteArrayInputStream(pom), "file:/pom.xml"));
+        }
+    }
+
+    private static byte[] readResource(Class<?> owner, String name) throws IOException {
+        try (InputStream inputStream = owner.getResourceAsStream(name)) {
+            return ByteStreams.toByteArray(inputStream);
+        }
+    }
+}
@@ -0,0 +1,232 @@
+/*
+ * Copyright 2025 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.artifacts.ivyservice.resolveengine.excludes.factories;
+
+import com.google.common.collect.ImmutableList;
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import org.gradle.api.artifacts.ModuleIdentifier;
+import org.gradle.api.internal.artifacts.DefaultModuleIdentifier;
+import org.gradle.api.internal.artifacts.ivyservice.resolveengine.excludes.simple.DefaultExcludeFactory;
+import org.gradle.api.internal.artifacts.ivyservice.resolveengine.excludes.specs.ExcludeSpec;
+import org.gradle.internal.component.model.DefaultIvyArtifactName;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Function;
+
+/**
+ * Replays exclude merge operations through the exclude factory chain, with and without {@link InterningExcludeFactory}.
+ * <p>
+ * Operations are read from a log recorded by {@link LoggingExcludeFactory}, by resolving with
+ * {@code --debug -Dorg.gradle.internal.dm.trace.excludes=operations}. Set the {@code log} parameter to such a log
+ * to replay it, lines that are not operations are ignored. By default the benchmark replays the small sample bundled with it.
+ * <p>
+ * Each invocation starts from empty caches, like a new build does.
+ */
+@Fork(1)
+@Warmup(iterations = 5)
+@Measurement(iterations = 5)
+@State(Scope.Benchmark)
+public class ExcludeMergingBenchmark {
+    private static final String BUNDLED_LOG = "exclude-operations.log";
+    private static final String OPERATION_PREFIX = "{\"operation\"";
+
+    @Param({""})
+    String log;
+
+    private List<Operation> operations;
+
+    @Setup
+    public void setup() throws IOException {
+        try (BufferedReader reader = new BufferedReader(openLog())) {
+            operations = new ArrayList<>();
+            String line;
+            while ((line = reader.readLine()) != null) {
+                int start = line.indexOf(OPERATION_PREFIX);
+                if (start >= 0) {
+                    operations.add(parseOperation(JsonParser.parseString(line.substring(start)).getAsJsonObject().getAsJsonObject("operation")));
+                }
+            }
+        }
+        if (operations.isEmpty()) {
+            throw new IllegalStateException("No exclude operations found in " + (log.isEmpty() ? BUNDLED_LOG : log));
+        }
+    }
+
+    @Benchmark
+    public void plain(Blackhole blackhole) {
+        replay(createFactory(false), blackhole);
+    }
+
+    @Benchmark
+    public void interned(Blackhole blackhole) {
+        replay(createFactory(true), blackhole);
+    }
+
+    private void replay(ExcludeFactory factory, Blackhole blackhole) {
+        for (Operation operation : operations) {
+            blackhole.consume(operation.apply(factory));
+        }
+    }
+
+    /**
+     * Creates the same chain as {@code ModuleExclusions}, without logging.
+     */
+    private static ExcludeFactory createFactory(boolean interning) {
+        CachingExcludeFactory.MergeCaches mergeCaches = new CachingExcludeFactory.MergeCaches();
+        if (interning) {
+            InterningExcludeFactory interningFactory = new InterningExcludeFactory(new DefaultExcludeFactory());
+            return new OptimizingExcludeFactory(new CachingExcludeFactory(new NormalizingExcludeFactory(new CachingExcludeFactory(interningFactory, mergeCaches), interningFactory), mergeCaches));
+        }
+        return new OptimizingExcludeFactory(new CachingExcludeFactory(new NormalizingExcludeFactory(new CachingExcludeFactory(new DefaultExcludeFactory(), mergeCaches)), mergeCaches));
+    }
+
+    private Reader openLog() throws IOException {
+        if (log.isEmpty()) {
+            return new InputStreamReader(ExcludeMergingBenchmark.class.getResourceAsStream(BUNDLED_LOG), StandardCharsets.UTF_8);
+        }
+        return Files.newBufferedReader(Paths.get(log), StandardCharsets.UTF_8);
+    }
+
+    private static Operation parseOperation(JsonObject operation) {
+        boolean union = operation.get("name").getAsString().equals("anyOf");
+        List<Function<ExcludeFactory, ExcludeSpec>> operands = new ArrayList<>();
+        for (JsonElement operand : operation.getAsJsonArray("operands")) {
+            operands.add(parseSpec(operand));
+        }
+        return new Operation(union, ImmutableList.copyOf(operands));
+    }
+
+    private static Function<ExcludeFactory, ExcludeSpec> parseSpec(JsonElement json) {
+        if (json.isJsonPrimitive()) {
+            String value = json.getAsString();
+            switch (value) {
+                case "excludes none":
+                    return ExcludeFactory::nothing;
+                case "excludes everything":
+                    return ExcludeFactory::everything;
+                default:
+                    throw new IllegalArgumentException("Unsupported exclude: " + value);
+            }
+        }
+        JsonObject object = json.getAsJsonObject();
+        String type = object.keySet().iterator().next();
+        JsonElement value = object.get(type);
+        switch (type) {
+            case "exclude group":
+                String group = value.getAsString();
+                return factory -> factory.group(group);
+            case "exclude module":
+                String module = value.getAsString();
+                return factory -> factory.module(module);
+            case "exclude module id":
+                ModuleIdentifier moduleId = parseModuleId(value.getAsString());
+                return factory -> factory.moduleId(moduleId);
+            case "groups":
+                List<String> groups = strings(value.getAsJsonArray());
+                return factory -> factory.groupSet(new HashSet<>(groups));
+            case "module names":
+                List<String> modules = strings(value.getAsJsonArray());
+                return factory -> factory.moduleSet(new HashSet<>(modules));
+            case "module ids":
+                List<ModuleIdentifier> moduleIds = new ArrayList<>();
+                for (String id : strings(value.getAsJsonArray())) {
+                    moduleIds.add(parseModuleId(id));
+                }
+                return factory -> factory.moduleIdSet(new HashSet<>(moduleIds));
+            case "any of":
+            case "all of":
+                boolean union = type.equals("any of");
+                List<Function<ExcludeFactory, ExcludeSpec>> components = new ArrayList<>();
+                for (JsonElement component : value.getAsJsonArray()) {
+                    components.add(parseSpec(component));
+                }
+                return factory -> {
+                    Set<ExcludeSpec> specs = new HashSet<>();
+                    for (Function<ExcludeFactory, ExcludeSpec> component : components) {
+                        specs.add(component.apply(factory));
+                    }
+                    return union ? factory.anyOf(specs) : factory.allOf(specs);
+                };
+            case "exclude-rule":
+                JsonObject rule = value.getAsJsonObject();
+                ModuleIdentifier ruleModuleId = parseModuleId(rule.get("moduleId").getAsString());
+                DefaultIvyArtifactName artifact = DefaultIvyArtifactName.forFileName(rule.get("artifact").getAsString(), null);
+                String matcher = rule.get("matcher").getAsString();
+                return factory -> factory.ivyPatternExclude(ruleModuleId, artifact, matcher);
+            default:
+                throw new IllegalArgumentException("Unsupported exclude: " + json);
+        }
+    }
+
+    private static ModuleIdentifier parseModuleId(String id) {
+        int separator = id.indexOf(':');
+        return DefaultModuleIdentifier.newId(id.substring(0, separator), id.substring(separator + 1));
+    }
+
+    private static List<String> strings(JsonArray array) {
+        List<String> strings = new ArrayList<>(array.size());
+        for (JsonElement element : array) {
+            strings.add(element.getAsString());
+        }
+        return strings;
+    }
+
+    private static final class Operation {
+        private final boolean union;
+        private final List<Function<ExcludeFactory, ExcludeSpec>> operands;
+
+        Operation(boolean union, List<Function<ExcludeFactory, ExcludeSpec>> operands) {
+            this.union = union;
+            this.operands = operands;
+        }
+
+        ExcludeSpec apply(ExcludeFactory factory) {
+            if (operands.size() == 2) {
+                ExcludeSpec left = operands.get(0).apply(factory);
+                ExcludeSpec right = operands.get(1).apply(factory);
+                return union ? factory.anyOf(left, right) : factory.allOf(left, right);
+            }
+            Set<ExcludeSpec> specs = new HashSet<>();
+            for (Function<ExcludeFactory, ExcludeSpec> operand : operands) {
+                specs.add(operand.apply(factory));
+            }
+            return union ? factory.anyOf(specs) : factory.allOf(specs);
+        }
+    }
+}
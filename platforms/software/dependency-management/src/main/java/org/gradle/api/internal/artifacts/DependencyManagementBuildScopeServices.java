@@ -46,6 +46,7 @@
 import org.gradle.api.internal.artifacts.ivyservice.modulecache.SuppliedComponentMetadataSerializer;
 import org.gradle.api.internal.artifacts.ivyservice.resolveengine.artifact.ResolvedArtifactSetResolver;
 import org.gradle.api.internal.artifacts.ivyservice.resolveengine.excludes.ModuleExclusions;
+import org.gradle.api.internal.artifacts.ivyservice.resolveengine.graph.cache.ResolvedGraphCache;
 import org.gradle.api.internal.artifacts.ivyservice.resolveengine.result.AttributeContainerSerializer;
 import org.gradle.api.internal.artifacts.mvnsettings.DefaultLocalMavenRepositoryLocator;
 import org.gradle.api.internal.artifacts.mvnsettings.DefaultMavenFileLocations;
@@ -86,6 +87,7 @@
 import org.gradle.initialization.DependenciesAccessors;
 import org.gradle.internal.build.BuildModelLifecycleListener;
 import org.gradle.internal.buildoption.FeatureFlags;
+import org.gradle.internal.buildoption.InternalOptions;
 import org.gradle.internal.classpath.ClasspathBuilder;
 import org.gradle.internal.classpath.ClasspathWalker;
 import org.gradle.internal.code.UserCodeApplicationContext;
@@ -136,6 +138,7 @@ void configure(ServiceRegistration registration) {
         registration.add(ResolvedArtifactSetResolver.class);
         registration.add(ExternalModuleComponentResolverFactory.class);
         registration.add(ResolverProviderFactories.class);
+        registration.add(ResolvedGraphCache.class);
     }
 
     @Provides
@@ -248,8 +251,8 @@ RuntimeShadedJarFactory createRuntimeShadedJarFactory(GeneratedGradleJarCache ja
     }
 
     @Provides
-    ModuleExclusions createModuleExclusions() {
-        return new ModuleExclusions();
+    ModuleExclusions createModuleExclusions(InternalOptions internalOptions) {
+        return new ModuleExclusions(internalOptions.getOption(ModuleExclusions.INTERN_EXCLUDES).get());
     }
 
     @Provides
@@ -39,6 +39,10 @@ public ImmutableModuleReplacements(ImmutableMap<ModuleIdentifier, Replacement> r
         return replacements.get(sourceModule);
     }
 
+    public ImmutableMap<ModuleIdentifier, Replacement> getReplacements() {
+        return replacements;
+    }
+
     public static class Replacement {
         private final ModuleIdentifier target;
         private final String reason;
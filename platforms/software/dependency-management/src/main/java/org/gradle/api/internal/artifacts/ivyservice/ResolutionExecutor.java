@@ -59,6 +59,8 @@
 import org.gradle.api.internal.artifacts.ivyservice.resolveengine.graph.CompositeDependencyArtifactsVisitor;
 import org.gradle.api.internal.artifacts.ivyservice.resolveengine.graph.CompositeDependencyGraphVisitor;
 import org.gradle.api.internal.artifacts.ivyservice.resolveengine.graph.DependencyGraphVisitor;
+import org.gradle.api.internal.artifacts.ivyservice.resolveengine.graph.cache.ResolvedGraphCache;
+import org.gradle.api.internal.artifacts.ivyservice.resolveengine.graph.cache.ResolvedGraphRecorder;
 import org.gradle.api.internal.artifacts.ivyservice.resolveengine.graph.results.DefaultVisitedGraphResults;
 import org.gradle.api.internal.artifacts.ivyservice.resolveengine.graph.results.VisitedGraphResults;
 import org.gradle.api.internal.artifacts.ivyservice.resolveengine.oldresult.DefaultResolvedConfigurationBuilder;
@@ -97,6 +99,7 @@
 import org.gradle.internal.component.model.GraphVariantSelector;
 import org.gradle.internal.component.model.LocalComponentDependencyMetadata;
 import org.gradle.internal.component.resolution.failure.ResolutionFailureHandler;
+import org.gradle.internal.hash.HashCode;
 import org.gradle.internal.locking.DependencyLockingGraphVisitor;
 import org.gradle.internal.model.CalculatedValue;
 import org.gradle.internal.model.CalculatedValueContainerFactory;
@@ -161,6 +164,7 @@ public class ResolutionExecutor {
     private final VariantArtifactSetCache variantArtifactSetCache;
     private final VariantTransformRegistry transformRegistry;
     private final ComponentMetadataProcessorFactory componentMetadataProcessorFactory;
+    private final ResolvedGraphCache resolvedGraphCache;
 
     @Inject
     public ResolutionExecutor(
@@ -194,7 +198,8 @@ public ResolutionExecutor(
         ResolutionFailureHandler resolutionFailureHandler,
         VariantArtifactSetCache variantArtifactSetCache,
         VariantTransformRegistry transformRegistry,
-        ComponentMetadataProcessorFactory componentMetadataProcessorFactory
+        ComponentMetadataProcessorFactory componentMetadataProcessorFactory,
+        ResolvedGraphCache resolvedGraphCache
     ) {
         this.dependencyGraphResolver = dependencyGraphResolver;
         this.storeFactory = storeFactory;
@@ -227,6 +232,7 @@ public ResolutionExecutor(
         this.variantArtifactSetCache = variantArtifactSetCache;
         this.transformRegistry = transformRegistry;
         this.componentMetadataProcessorFactory = componentMetadataProcessorFactory;
+        this.resolvedGraphCache = resolvedGraphCache;
     }
 
     /**
@@ -333,7 +339,20 @@ public ResolverResults resolveGraph(
         ));
         graphVisitors.add(artifactVisitorFor(artifactVisitors, params.getArtifactTypeRegistry()));
 
-        doResolve(params, legacyParams, getAllVersionLocks(params), resolvers, Specs.satisfyAll(), graphVisitors.build());
+        ImmutableList<ResolutionParameters.ModuleVersionLock> moduleVersionLocks = getAllVersionLocks(params);
+        ImmutableList<DependencyMetadata> syntheticDependencies = asSyntheticDependencies(moduleVersionLocks);
+        ImmutableList<DependencyGraphVisitor> visitors = graphVisitors.build();
+
+        // Reuse the graph resolved by a previous build when its inputs have not changed
+        HashCode graphCacheKey = resolvedGraphCache.keyFor(params, legacyParams, moduleVersionLocks, syntheticDependencies, repositories);
+        ResolvedGraphRecorder graphRecorder = null;
+        if (graphCacheKey == null || !resolvedGraphCache.replay(graphCacheKey, params, syntheticDependencies, resolvers, new CompositeDependencyGraphVisitor(visitors))) {
+            if (graphCacheKey != null) {
+                graphRecorder = resolvedGraphCache.createRecorder(params, syntheticDependencies);
+                visitors = ImmutableList.<DependencyGraphVisitor>builder().addAll(visitors).add(graphRecorder).build();
+            }
+            doResolve(params, legacyParams, syntheticDependencies, resolvers, Specs.satisfyAll(), visitors);
+        }
         localComponentsVisitor.complete(ConfigurationInternal.InternalState.GRAPH_RESOLVED);
 
         VisitedArtifactResults artifactsResults = artifactsBuilder.complete();
@@ -352,6 +371,10 @@ public ResolverResults resolveGraph(
             lockingVisitor.writeLocks();
         }
 
+        if (graphCacheKey != null && graphRecorder != null && !graphResults.hasAnyFailure()) {
+            resolvedGraphCache.store(graphCacheKey, graphRecorder);
+        }
+
         TransformUpstreamDependenciesResolver.Factory dependenciesResolverFactory = visitedArtifacts -> new DefaultTransformUpstreamDependenciesResolver(
             params.getResolutionHost(),
             params.getConfigurationIdentity(),
@@ -435,20 +458,15 @@ private VisitedArtifactSet getVisitedArtifactSet(
     private void doResolve(
         ResolutionParameters params,
         LegacyResolutionParameters legacyParams,
-        ImmutableList<ResolutionParameters.ModuleVersionLock> moduleVersionLocks,
+        ImmutableList<DependencyMetadata> syntheticDependencies,
         ComponentResolvers resolvers,
         Spec<DependencyMetadata> edgeFilter,
         ImmutableList<DependencyGraphVisitor> visitors
     ) {
-        ImmutableList.Builder<DependencyMetadata> syntheticDependencies = ImmutableList.builderWithExpectedSize(moduleVersionLocks.size());
-        for (ResolutionParameters.ModuleVersionLock lock : moduleVersionLocks) {
-            syntheticDependencies.add(asDependencyConstraintMetadata(lock));
-        }
-
         dependencyGraphResolver.resolve(
             params.getRootComponent(),
             params.getRootVariant(),
-            syntheticDependencies.build(),
+            syntheticDependencies,
             edgeFilter,
             componentSelectorConverter,
             resolvers.getComponentIdResolver(),
@@ -536,6 +554,14 @@ private ImmutableList<ResolutionParameters.ModuleVersionLock> getLockfileLocks(R
         return locks.build();
     }
 
+    private static ImmutableList<DependencyMetadata> asSyntheticDependencies(ImmutableList<ResolutionParameters.ModuleVersionLock> moduleVersionLocks) {
+        ImmutableList.Builder<DependencyMetadata> syntheticDependencies = ImmutableList.builderWithExpectedSize(moduleVersionLocks.size());
+        for (ResolutionParameters.ModuleVersionLock lock : moduleVersionLocks) {
+            syntheticDependencies.add(asDependencyConstraintMetadata(lock));
+        }
+        return syntheticDependencies.build();
+    }
+
     private static LocalComponentDependencyMetadata asDependencyConstraintMetadata(ResolutionParameters.ModuleVersionLock lock) {
         VersionConstraint versionConstraint = lock.isStrict()
             ? DefaultImmutableVersionConstraint.strictly(lock.getVersion())
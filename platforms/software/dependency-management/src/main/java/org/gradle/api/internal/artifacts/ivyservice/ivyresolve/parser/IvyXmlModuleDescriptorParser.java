@@ -1343,6 +1343,12 @@ public static class ParserHelper {
 
         static final String W3C_XML_SCHEMA = "http://www.w3.org/2001/XMLSchema";
 
+        /**
+         * A non-validating parser that is reused by later parses on the same thread, as creating a parser is costly.
+         * Removed while in use, so that nested parses of included or parent descriptors get a parser of their own.
+         */
+        private static final ThreadLocal<SAXParser> NON_VALIDATING_PARSER = new ThreadLocal<>();
+
         private static SAXParser newSAXParser(URL schema, InputStream schemaStream)
                 throws ParserConfigurationException, SAXException {
             if (schema == null) {
@@ -1389,9 +1395,13 @@ public static void parse(
                 ClassLoader original = Thread.currentThread().getContextClassLoader();
                 Thread.currentThread().setContextClassLoader(ClassLoaderUtils.getPlatformClassLoader());
                 try {
-                    SAXParser parser = newSAXParser(schema, schemaStream);
-                    parser.setProperty("http://xml.org/sax/properties/lexical-handler", handler);
-                    parser.parse(xmlStream, handler);
+                    if (schema == null) {
+                        parseWithReusedParser(xmlStream, handler);
+                    } else {
+                        SAXParser parser = newSAXParser(schema, schemaStream);
+                        parser.setProperty("http://xml.org/sax/properties/lexical-handler", handler);
+                        parser.parse(xmlStream, handler);
+                    }
                 } finally {
                     Thread.currentThread().setContextClassLoader(original);
                 }
@@ -1405,6 +1415,26 @@ public static void parse(
                 }
             }
         }
+
+        private static void parseWithReusedParser(InputSource xmlStream, DefaultHandler handler)
+                throws SAXException, IOException, ParserConfigurationException {
+            SAXParser parser = NON_VALIDATING_PARSER.get();
+            if (parser == null) {
+                parser = newSAXParser(null, null);
+            } else {
+                NON_VALIDATING_PARSER.remove();
+            }
+            try {
+                parser.setProperty("http://xml.org/sax/properties/lexical-handler", handler);
+                parser.parse(xmlStream, handler);
+            } finally {
+                // Drops the handlers, so that they are not retained by the cached parser.
+                // Resetting also restores the features changed after the parser was created.
+                parser.reset();
+                parser.getXMLReader().setFeature(XML_NAMESPACE_PREFIXES, true);
+                NON_VALIDATING_PARSER.set(parser);
+            }
+        }
     }
 
     @Override
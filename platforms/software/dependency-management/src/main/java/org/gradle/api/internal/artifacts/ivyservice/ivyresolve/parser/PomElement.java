@@ -0,0 +1,83 @@
+/*
+ * Copyright 2025 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.artifacts.ivyservice.ivyresolve.parser;
+
+import com.google.common.collect.ImmutableList;
+import org.jspecify.annotations.Nullable;
+
+import java.util.List;
+
+/**
+ * An element of a POM, as read by {@link PomStreamParser}.
+ * <p>
+ * Only holds the children, text and comments of the element that {@link PomReader} uses.
+ */
+public final class PomElement {
+    private final String name;
+    private final String text;
+    private final List<PomElement> children;
+    private final List<String> comments;
+
+    PomElement(String name, String text, List<PomElement> children, List<String> comments) {
+        this.name = name;
+        this.text = text;
+        this.children = children;
+        this.comments = comments;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * The text directly contained in this element, including CDATA sections.
+     * Empty for elements whose text is not used.
+     */
+    public String getText() {
+        return text;
+    }
+
+    public List<PomElement> getChildren() {
+        return children;
+    }
+
+    /**
+     * The comments directly contained in this element. Only retained for the root element.
+     */
+    public List<String> getComments() {
+        return comments;
+    }
+
+    @Nullable
+    public PomElement getFirstChild(String name) {
+        for (PomElement child : children) {
+            if (name.equals(child.name)) {
+                return child;
+            }
+        }
+        return null;
+    }
+
+    static PomElement of(String name, String text, ImmutableList.@Nullable Builder<PomElement> children, ImmutableList.@Nullable Builder<String> comments) {
+        return new PomElement(
+            name,
+            text,
+            children == null ? ImmutableList.of() : children.build(),
+            comments == null ? ImmutableList.of() : comments.build()
+        );
+    }
+}
@@ -0,0 +1,257 @@
+/*
+ * Copyright 2025 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.artifacts.ivyservice.ivyresolve.parser;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import org.apache.commons.io.IOUtils;
+import org.gradle.internal.UncheckedException;
+import org.gradle.internal.classloader.ClassLoaderUtils;
+import org.jspecify.annotations.Nullable;
+
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLResolver;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Map;
+
+import static org.gradle.api.internal.artifacts.ivyservice.ivyresolve.parser.PomDomParser.AddDTDFilterInputStream;
+
+/**
+ * Reads a POM with a streaming parser, keeping only the elements that {@link PomReader} uses.
+ * <p>
+ * Build configuration, reporting, developers, licenses and other elements that do not affect dependency
+ * resolution are skipped without being materialized, which makes reading large POMs considerably cheaper
+ * than building a DOM for them.
+ * <p>
+ * Like the DOM based parsing this replaces, the POM is read without namespace processing and with
+ * the Maven entities (such as {@code &nbsp;}) declared.
+ */
+public final class PomStreamParser {
+    private static final byte[] M2_ENTITIES_RESOURCE;
+    private static final XMLResolver M2_ENTITY_RESOLVER;
+    private static final ThreadLocal<XMLInputFactory> INPUT_FACTORY = ThreadLocal.withInitial(PomStreamParser::createInputFactory);
+
+    private static final ElementSchema TEXT = new ElementSchema(ImmutableMap.of(), null, true, false);
+    private static final ElementSchema DEPENDENCIES = ElementSchema.children(ImmutableMap.of(
+        "dependency", ElementSchema.children(ImmutableMap.<String, ElementSchema>builder()
+            .put("groupId", TEXT)
+            .put("artifactId", TEXT)
+            .put("version", TEXT)
+            .put("scope", TEXT)
+            .put("type", TEXT)
+            .put("classifier", TEXT)
+            .put("optional", TEXT)
+            .put("exclusions", ElementSchema.children(ImmutableMap.of(
+                "exclusion", ElementSchema.children(ImmutableMap.of(
+                    "groupId", TEXT,
+                    "artifactId", TEXT
+                ))
+            )))
+            .build())
+    ));
+    private static final ElementSchema DEPENDENCY_MGT = ElementSchema.children(ImmutableMap.of(
+        "dependencies", DEPENDENCIES
+    ));
+    private static final ElementSchema PROPERTIES = new ElementSchema(ImmutableMap.of(), TEXT, false, false);
+    private static final ElementSchema COORDINATES = ElementSchema.children(ImmutableMap.of(
+        "groupId", TEXT,
+        "artifactId", TEXT,
+        "version", TEXT
+    ));
+    private static final ElementSchema PROJECT = new ElementSchema(ImmutableMap.<String, ElementSchema>builder()
+        .put("groupId", TEXT)
+        .put("artifactId", TEXT)
+        .put("version", TEXT)
+        .put("packaging", TEXT)
+        .put("parent", COORDINATES)
+        .put("properties", PROPERTIES)
+        .put("dependencies", DEPENDENCIES)
+        .put("dependencyManagement", DEPENDENCY_MGT)
+        .put("distributionManagement", ElementSchema.children(ImmutableMap.of(
+            "relocation", COORDINATES
+        )))
+        .put("profiles", ElementSchema.children(ImmutableMap.of(
+            "profile", ElementSchema.children(ImmutableMap.of(
+                "id", TEXT,
+                "activation", ElementSchema.children(ImmutableMap.of(
+                    "activeByDefault", TEXT,
+                    "property", ElementSchema.children(ImmutableMap.of(
+                        "name", TEXT
+                    ))
+                )),
+                "properties", PROPERTIES,
+                "dependencies", DEPENDENCIES,
+                "dependencyManagement", DEPENDENCY_MGT
+            ))
+        )))
+        .build(), null, false, true);
+
+    static {
+        byte[] bytes;
+        try {
+            bytes = IOUtils.toByteArray(org.apache.ivy.plugins.parser.m2.PomReader.class.getResourceAsStream("m2-entities.ent"));
+        } catch (IOException e) {
+            throw UncheckedException.throwAsUncheckedException(e);
+        }
+        M2_ENTITIES_RESOURCE = bytes;
+        M2_ENTITY_RESOLVER = (publicId, systemId, baseUri, namespace) -> {
+            if (systemId != null && systemId.endsWith("m2-entities.ent")) {
+                return new ByteArrayInputStream(M2_ENTITIES_RESOURCE);
+            }
+            return null;
+        };
+    }
+
+    private PomStreamParser() {
+    }
+
+    /**
+     * Reads the given POM.
+     * The root element is returned whatever its name, it is up to the caller to check that it is a {@code project}.
+     */
+    public static PomElement parse(InputStream inputStream, String systemId) throws IOException, XMLStreamException {
+        XMLStreamReader reader = INPUT_FACTORY.get().createXMLStreamReader(systemId, new AddDTDFilterInputStream(inputStream));
+        try {
+            while (reader.next() != XMLStreamConstants.START_ELEMENT) {
+                // Skip the prolog
+            }
+            PomElement root = readElement(reader, PROJECT, new StringBuilder());
+            while (reader.hasNext()) {
+                // Make sure that the rest of the document is well-formed
+                reader.next();
+            }
+            return root;
+        } finally {
+            reader.close();
+        }
+    }
+
+    private static PomElement readElement(XMLStreamReader reader, ElementSchema schema, StringBuilder text) throws XMLStreamException {
+        String name = nameOf(reader);
+        ImmutableList.Builder<PomElement> children = null;
+        ImmutableList.Builder<String> comments = null;
+        if (schema.text) {
+            // Elements with text have no retained children, so the buffer is not shared with a nested element
+            text.setLength(0);
+        }
+        while (true) {
+            switch (reader.next()) {
+                case XMLStreamConstants.START_ELEMENT:
+                    ElementSchema childSchema = schema.childSchema(nameOf(reader));
+                    if (childSchema == null) {
+                        skipElement(reader);
+                    } else {
+                        if (children == null) {
+                            children = ImmutableList.builder();
+                        }
+                        children.add(readElement(reader, childSchema, text));
+                    }
+                    break;
+                case XMLStreamConstants.CHARACTERS:
+                case XMLStreamConstants.CDATA:
+                case XMLStreamConstants.SPACE:
+                    if (schema.text) {
+                        text.append(reader.getTextCharacters(), reader.getTextStart(), reader.getTextLength());
+                    }
+                    break;
+                case XMLStreamConstants.COMMENT:
+                    if (schema.comments) {
+                        if (comments == null) {
+                            comments = ImmutableList.builder();
+                        }
+                        comments.add(reader.getText());
+                    }
+                    break;
+                case XMLStreamConstants.END_ELEMENT:
+                    return PomElement.of(name, schema.text ? text.toString() : "", children, comments);
+                default:
+                    break;
+            }
+        }
+    }
+
+    private static void skipElement(XMLStreamReader reader) throws XMLStreamException {
+        int depth = 1;
+        while (depth > 0) {
+            int event = reader.next();
+            if (event == XMLStreamConstants.START_ELEMENT) {
+                depth++;
+            } else if (event == XMLStreamConstants.END_ELEMENT) {
+                depth--;
+            }
+        }
+    }
+
+    private static String nameOf(XMLStreamReader reader) {
+        // Namespace processing is disabled, so the local name is the qualified name
+        String prefix = reader.getPrefix();
+        String localName = reader.getLocalName();
+        return prefix == null || prefix.isEmpty() ? localName : prefix + ":" + localName;
+    }
+
+    private static XMLInputFactory createInputFactory() {
+        // Set the context classloader the bootstrap classloader, to work around the way that JAXP locates implementation classes
+        // This should ensure that the JAXP classes provided by the JVM are used, rather than some other implementation
+        ClassLoader original = Thread.currentThread().getContextClassLoader();
+        Thread.currentThread().setContextClassLoader(ClassLoaderUtils.getPlatformClassLoader());
+        try {
+            XMLInputFactory factory = XMLInputFactory.newFactory();
+            factory.setProperty(XMLInputFactory.IS_NAMESPACE_AWARE, false);
+            factory.setProperty(XMLInputFactory.IS_VALIDATING, false);
+            factory.setProperty(XMLInputFactory.SUPPORT_DTD, true);
+            factory.setProperty(XMLInputFactory.IS_REPLACING_ENTITY_REFERENCES, true);
+            factory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
+            factory.setXMLResolver(M2_ENTITY_RESOLVER);
+            return factory;
+        } finally {
+            Thread.currentThread().setContextClassLoader(original);
+        }
+    }
+
+    /**
+     * Describes which children and content of an element are retained.
+     */
+    private static final class ElementSchema {
+        private final Map<String, ElementSchema> children;
+        @Nullable
+        private final ElementSchema anyChild;
+        private final boolean text;
+        private final boolean comments;
+
+        ElementSchema(Map<String, ElementSchema> children, @Nullable ElementSchema anyChild, boolean text, boolean comments) {
+            this.children = children;
+            this.anyChild = anyChild;
+            this.text = text;
+            this.comments = comments;
+        }
+
+        static ElementSchema children(Map<String, ElementSchema> children) {
+            return new ElementSchema(children, null, false, false);
+        }
+
+        @Nullable
+        ElementSchema childSchema(String name) {
+            ElementSchema schema = children.get(name);
+            return schema != null ? schema : anyChild;
+        }
+    }
+}
@@ -26,9 +26,14 @@
 import org.gradle.internal.resource.local.PathKeyFileStore;
 import org.gradle.internal.serialize.kryo.KryoBackedDecoder;
 import org.gradle.internal.serialize.kryo.KryoBackedEncoder;
+import org.jspecify.annotations.Nullable;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.FileInputStream;
 import java.io.FileOutputStream;
+import java.io.InputStream;
+import java.nio.file.Files;
 import java.util.HashMap;
 
 public class ModuleMetadataStore {
@@ -38,15 +43,26 @@ public class ModuleMetadataStore {
     private final ModuleMetadataSerializer moduleMetadataSerializer;
     private final ImmutableModuleIdentifierFactory moduleIdentifierFactory;
     private final Interner<String> stringInterner;
+    @Nullable
+    private final PackedModuleMetadataStore packedStore;
 
     public ModuleMetadataStore(PathKeyFileStore metaDataStore,
                                ModuleMetadataSerializer moduleMetadataSerializer,
                                ImmutableModuleIdentifierFactory moduleIdentifierFactory,
                                Interner<String> stringInterner) {
+        this(metaDataStore, moduleMetadataSerializer, moduleIdentifierFactory, stringInterner, null);
+    }
+
+    ModuleMetadataStore(PathKeyFileStore metaDataStore,
+                        ModuleMetadataSerializer moduleMetadataSerializer,
+                        ImmutableModuleIdentifierFactory moduleIdentifierFactory,
+                        Interner<String> stringInterner,
+                        @Nullable PackedModuleMetadataStore packedStore) {
         this.metaDataStore = metaDataStore;
         this.moduleMetadataSerializer = moduleMetadataSerializer;
         this.moduleIdentifierFactory = moduleIdentifierFactory;
         this.stringInterner = stringInterner;
+        this.packedStore = packedStore;
     }
 
     public MutableModuleComponentResolveMetadata getModuleDescriptor(ModuleComponentAtRepositoryKey component) {
@@ -54,9 +70,7 @@ public MutableModuleComponentResolveMetadata getModuleDescriptor(ModuleComponent
         LocallyAvailableResource resource = metaDataStore.get(filePath);
         if (resource != null) {
             try {
-                try (StringDeduplicatingDecoder decoder = new StringDeduplicatingDecoder(new KryoBackedDecoder(new FileInputStream(resource.getFile())), stringInterner)) {
-                    return moduleMetadataSerializer.read(decoder, moduleIdentifierFactory, new HashMap<>());
-                }
+                return read(new FileInputStream(resource.getFile()));
             } catch (Exception e) {
                 throw new RuntimeException("Could not load module metadata from " + resource.getDisplayName(), e);
             }
@@ -64,6 +78,39 @@ public MutableModuleComponentResolveMetadata getModuleDescriptor(ModuleComponent
         return null;
     }
 
+    /**
+     * Loads the descriptor of the cache entry created at the given timestamp, using the packed store when there is one.
+     * Descriptors read from their file are added to the packed store, so that later lookups do not need to open the file.
+     */
+    @Nullable
+    public MutableModuleComponentResolveMetadata getModuleDescriptor(ModuleComponentAtRepositoryKey component, long entryTimestamp) {
+        if (packedStore == null) {
+            return getModuleDescriptor(component);
+        }
+        InputStream packed = packedStore.get(component, entryTimestamp);
+        if (packed != null) {
+            try {
+                return read(packed);
+            } catch (Exception e) {
+                throw new RuntimeException("Could not load module metadata for " + component + " from " + packedStore.getPackFile(), e);
+            }
+        }
+        if (!packedStore.isWritable()) {
+            return getModuleDescriptor(component);
+        }
+        LocallyAvailableResource resource = metaDataStore.get(getFilePath(component));
+        if (resource == null) {
+            return null;
+        }
+        try {
+            byte[] descriptor = Files.readAllBytes(resource.getFile().toPath());
+            packedStore.put(component, entryTimestamp, descriptor);
+            return read(new ByteArrayInputStream(descriptor));
+        } catch (Exception e) {
+            throw new RuntimeException("Could not load module metadata from " + resource.getDisplayName(), e);
+        }
+    }
+
     public LocallyAvailableResource putModuleDescriptor(ModuleComponentAtRepositoryKey component, final ModuleComponentResolveMetadata metadata) {
         String[] filePath = getFilePath(component);
         return metaDataStore.add(PATH_JOINER.join(filePath), moduleDescriptorFile -> {
@@ -77,7 +124,40 @@ public LocallyAvailableResource putModuleDescriptor(ModuleComponentAtRepositoryK
         });
     }
 
-    private String[] getFilePath(ModuleComponentAtRepositoryKey componentId) {
+    /**
+     * Stores the descriptor of the cache entry created at the given timestamp, adding it to the packed store when there is one.
+     */
+    public LocallyAvailableResource putModuleDescriptor(ModuleComponentAtRepositoryKey component, long entryTimestamp, final ModuleComponentResolveMetadata metadata) {
+        if (packedStore == null || !packedStore.isWritable()) {
+            return putModuleDescriptor(component, metadata);
+        }
+        ByteArrayOutputStream descriptor = new ByteArrayOutputStream();
+        try {
+            try (KryoBackedEncoder encoder = new KryoBackedEncoder(descriptor)) {
+                moduleMetadataSerializer.write(encoder, metadata, new HashMap<>());
+            }
+        } catch (Exception e) {
+            throw UncheckedException.throwAsUncheckedException(e);
+        }
+        byte[] bytes = descriptor.toByteArray();
+        LocallyAvailableResource resource = metaDataStore.add(PATH_JOINER.join(getFilePath(component)), moduleDescriptorFile -> {
+            try {
+                Files.write(moduleDescriptorFile.toPath(), bytes);
+            } catch (Exception e) {
+                throw UncheckedException.throwAsUncheckedException(e);
+            }
+        });
+        packedStore.put(component, entryTimestamp, bytes);
+        return resource;
+    }
+
+    private MutableModuleComponentResolveMetadata read(InputStream descriptor) throws Exception {
+        try (StringDeduplicatingDecoder decoder = new StringDeduplicatingDecoder(new KryoBackedDecoder(descriptor), stringInterner)) {
+            return moduleMetadataSerializer.read(decoder, moduleIdentifierFactory, new HashMap<>());
+        }
+    }
+
+    static String[] getFilePath(ModuleComponentAtRepositoryKey componentId) {
         ModuleComponentIdentifier moduleComponentIdentifier = componentId.getComponentId();
         return new String[] {
             moduleComponentIdentifier.getGroup(),
@@ -0,0 +1,503 @@
+/*
+ * Copyright 2025 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.artifacts.ivyservice.modulecache;
+
+import com.google.common.annotations.VisibleForTesting;
+import org.gradle.api.artifacts.component.ModuleComponentIdentifier;
+import org.gradle.api.internal.artifacts.DefaultModuleIdentifier;
+import org.gradle.internal.component.external.model.DefaultModuleComponentIdentifier;
+import org.jspecify.annotations.Nullable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Predicate;
+import java.util.zip.CRC32;
+
+/**
+ * An append-only file that packs the serialized module descriptors of a metadata cache, so that they
+ * can be read from a single memory-mapped file instead of opening one descriptor file per module.
+ * <p>
+ * The pack is only an accelerator: the per-module descriptor files stay the source of truth.
+ * Each record carries the creation timestamp of the cache entry it was written for, and a record is only
+ * used when that timestamp matches the entry being looked up. Anything that cannot be read from the pack,
+ * for whatever reason, is read from the descriptor files instead.
+ * <p>
+ * The file starts with a header made of {@link #MAGIC}, {@link #FORMAT_VERSION} and a random generation id, followed by records:
+ * <pre>
+ * int    payload length
+ * long   entry timestamp
+ * UTF    repository id, group, module, version
+ * int    CRC32 of the payload
+ * int    CRC32 of the record header
+ * byte[] payload, the same bytes as the descriptor file
+ * </pre>
+ * Records are only appended while holding the artifact cache lock, a torn record at the end of the file is dropped.
+ * Later records for the same key replace earlier ones. Once the superseded records take up more space than the live ones,
+ * or the pack would grow past {@link #MAX_SIZE}, the pack is rewritten with only the live records whose descriptor files
+ * still exist, and moved over the old one. The rewritten pack gets a new generation id, so that other processes notice
+ * that their offsets are stale when they next map it. When the pack cannot be rewritten, it stops growing but can still be read.
+ */
+class PackedModuleMetadataStore {
+    private static final Logger LOGGER = LoggerFactory.getLogger(PackedModuleMetadataStore.class);
+
+    private static final int MAGIC = 0x474d4450; // 'GMDP'
+    private static final int FORMAT_VERSION = 2;
+    private static final int HEADER_SIZE = 16;
+    private static final long MAX_SIZE = 1L << 30;
+    private static final long MIN_SUPERSEDED_SIZE_TO_COMPACT = 16L << 20;
+
+    private final File packFile;
+    private final boolean readOnly;
+    private final Predicate<ModuleComponentAtRepositoryKey> hasDescriptor;
+    private final long maxSize;
+    private final long minSupersededSizeToCompact;
+    private final Map<ModuleComponentAtRepositoryKey, Location> index = new HashMap<>();
+    @Nullable
+    private MappedByteBuffer mapping;
+    private long generation;
+    private long indexedEnd;
+    private long liveSize;
+    private boolean full;
+    private boolean disabled;
+
+    PackedModuleMetadataStore(File packFile, boolean readOnly) {
+        this(packFile, readOnly, key -> true);
+    }
+
+    /**
+     * @param hasDescriptor whether the descriptor file of a key still exists, records for other keys are dropped when the pack is compacted.
+     */
+    PackedModuleMetadataStore(File packFile, boolean readOnly, Predicate<ModuleComponentAtRepositoryKey> hasDescriptor) {
+        this(packFile, readOnly, hasDescriptor, MAX_SIZE, MIN_SUPERSEDED_SIZE_TO_COMPACT);
+    }
+
+    @VisibleForTesting
+    PackedModuleMetadataStore(File packFile, boolean readOnly, Predicate<ModuleComponentAtRepositoryKey> hasDescriptor, long maxSize, long minSupersededSizeToCompact) {
+        this.packFile = packFile;
+        this.readOnly = readOnly;
+        this.hasDescriptor = hasDescriptor;
+        this.maxSize = maxSize;
+        this.minSupersededSizeToCompact = minSupersededSizeToCompact;
+    }
+
+    File getPackFile() {
+        return packFile;
+    }
+
+    /**
+     * Whether descriptors can be appended to this pack.
+     */
+    synchronized boolean isWritable() {
+        return !readOnly && !disabled && !full;
+    }
+
+    /**
+     * Returns the packed descriptor for the given key, or {@code null} when the pack does not contain
+     * a valid descriptor for the cache entry created at the given timestamp.
+     */
+    @Nullable
+    synchronized InputStream get(ModuleComponentAtRepositoryKey key, long entryTimestamp) {
+        if (disabled) {
+            return null;
+        }
+        Location location = index.get(key);
+        if (location == null || location.timestamp != entryTimestamp) {
+            // Another process may have appended to the pack
+            refresh();
+            location = index.get(key);
+            if (location == null || location.timestamp != entryTimestamp) {
+                return null;
+            }
+        }
+        ByteBuffer payload = payload(location);
+        if (payload == null) {
+            return null;
+        }
+        if (!location.verified) {
+            if (crc(payload.duplicate()) != location.payloadCrc) {
+                LOGGER.debug("Ignoring corrupt descriptor for {} in {}", key, packFile);
+                removeFromIndex(key);
+                return null;
+            }
+            location.verified = true;
+        }
+        return new ByteBufferInputStream(payload);
+    }
+
+    /**
+     * Appends the given descriptor to the pack, unless the pack already contains it.
+     */
+    synchronized void put(ModuleComponentAtRepositoryKey key, long entryTimestamp, byte[] payload) {
+        if (readOnly || disabled || full) {
+            return;
+        }
+        refresh();
+        if (disabled || full) {
+            return;
+        }
+        int payloadCrc = crc(ByteBuffer.wrap(payload));
+        Location existing = index.get(key);
+        if (existing != null && existing.timestamp == entryTimestamp && existing.payloadLength == payload.length && existing.payloadCrc == payloadCrc) {
+            // Entries created during the same build share a timestamp, so also compare the content
+            return;
+        }
+        try {
+            byte[] record = encodeRecord(key, entryTimestamp, payload, payloadCrc);
+            long superseded = indexedEnd - HEADER_SIZE - liveSize;
+            if (indexedEnd + record.length > maxSize || (superseded > minSupersededSizeToCompact && superseded > liveSize)) {
+                compact();
+                if (disabled || full) {
+                    return;
+                }
+                if (indexedEnd + record.length > maxSize) {
+                    LOGGER.debug("Not appending to {} as it reached its maximum size", packFile);
+                    full = true;
+                    return;
+                }
+            }
+            File parent = packFile.getParentFile();
+            if (!parent.isDirectory() && !parent.mkdirs()) {
+                throw new IOException("Could not create directory " + parent);
+            }
+            long start;
+            try (FileChannel channel = FileChannel.open(packFile.toPath(), StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+                if (indexedEnd == 0) {
+                    generation = newGeneration();
+                    writeFully(channel, header(generation), 0);
+                    indexedEnd = HEADER_SIZE;
+                } else if (readGeneration(channel) != generation) {
+                    // Another process has rewritten the pack since it was last mapped, so the indexed offsets are stale
+                    reset();
+                    return;
+                }
+                start = indexedEnd;
+                if (channel.size() > start) {
+                    // Drop a record that was only partially written
+                    channel.truncate(start);
+                }
+                writeFully(channel, ByteBuffer.wrap(record), start);
+            }
+            int payloadOffset = record.length - payload.length;
+            addToIndex(key, new Location(start + payloadOffset, payload.length, payloadCrc, entryTimestamp, record.length));
+            indexedEnd = start + record.length;
+        } catch (IOException e) {
+            disable("write to", e);
+        }
+    }
+
+    /**
+     * Rewrites the pack with the live records whose descriptor files still exist. Must be called while holding the artifact cache lock.
+     */
+    private void compact() throws IOException {
+        List<Map.Entry<ModuleComponentAtRepositoryKey, Location>> live = new ArrayList<>(index.entrySet());
+        live.sort(Comparator.comparingLong(entry -> entry.getValue().offset));
+        MappedByteBuffer mapped = mapping;
+        if (mapped == null || mapped.capacity() < indexedEnd) {
+            mapped = map(indexedEnd);
+        }
+        File compactedFile = new File(packFile.getParentFile(), packFile.getName() + ".tmp");
+        try {
+            try (FileChannel channel = FileChannel.open(compactedFile.toPath(), StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+                writeFully(channel, header(newGeneration()), 0);
+                long position = HEADER_SIZE;
+                for (Map.Entry<ModuleComponentAtRepositoryKey, Location> entry : live) {
+                    Location location = entry.getValue();
+                    if (!hasDescriptor.test(entry.getKey())) {
+                        continue;
+                    }
+                    ByteBuffer record = mapped.duplicate();
+                    record.limit((int) (location.offset + location.payloadLength)).position((int) (location.offset + location.payloadLength - location.recordLength));
+                    if (!location.verified) {
+                        ByteBuffer payload = record.duplicate();
+                        payload.position((int) location.offset);
+                        if (crc(payload) != location.payloadCrc) {
+                            continue;
+                        }
+                    }
+                    writeFully(channel, record, position);
+                    position += location.recordLength;
+                }
+            }
+            Files.move(compactedFile.toPath(), packFile.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            // For example, a mapped file cannot be replaced on Windows
+            LOGGER.debug("Could not compact {}, no longer appending to it", packFile, e);
+            Files.deleteIfExists(compactedFile.toPath());
+            full = true;
+            return;
+        }
+        LOGGER.debug("Compacted {} from {} to {} bytes", packFile, indexedEnd, packFile.length());
+        reset();
+        refresh();
+    }
+
+    private void refresh() {
+        long length = packFile.length();
+        if (length < indexedEnd) {
+            // The pack has been replaced, start over
+            reset();
+        }
+        if (length <= indexedEnd || length < HEADER_SIZE) {
+            return;
+        }
+        try {
+            MappedByteBuffer buffer = map(length);
+            if (indexedEnd != 0 && buffer.getLong(8) != generation) {
+                // The pack has been rewritten by another process, start over
+                reset();
+            }
+            if (indexedEnd == 0) {
+                if (buffer.getInt(0) != MAGIC || buffer.getInt(4) != FORMAT_VERSION) {
+                    LOGGER.debug("Ignoring {} as it has an unsupported format", packFile);
+                    disabled = true;
+                    return;
+                }
+                generation = buffer.getLong(8);
+                indexedEnd = HEADER_SIZE;
+            }
+            indexedEnd = scan(buffer, indexedEnd);
+        } catch (IOException | RuntimeException e) {
+            disable("read", e);
+        }
+    }
+
+    private long scan(ByteBuffer buffer, long from) throws IOException {
+        int limit = buffer.capacity();
+        int position = (int) from;
+        ByteBufferInputStream input = new ByteBufferInputStream(buffer.duplicate());
+        DataInputStream data = new DataInputStream(input);
+        while (position + 4 <= limit) {
+            input.buffer.limit(limit).position(position);
+            int payloadLength;
+            long timestamp;
+            String repositoryId;
+            ModuleComponentIdentifier componentId;
+            int payloadCrc;
+            int headerCrc;
+            try {
+                payloadLength = data.readInt();
+                timestamp = data.readLong();
+                repositoryId = data.readUTF();
+                String group = data.readUTF();
+                String module = data.readUTF();
+                String version = data.readUTF();
+                componentId = DefaultModuleComponentIdentifier.newId(DefaultModuleIdentifier.newId(group, module), version);
+                payloadCrc = data.readInt();
+            } catch (IOException | IllegalArgumentException e) {
+                // Torn or corrupt record
+                break;
+            }
+            int headerEnd = input.buffer.position();
+            if (headerEnd + 4 > limit) {
+                break;
+            }
+            headerCrc = input.buffer.getInt(headerEnd);
+            ByteBuffer header = buffer.duplicate();
+            header.limit(headerEnd).position(position);
+            if (crc(header) != headerCrc) {
+                break;
+            }
+            int payloadOffset = headerEnd + 4;
+            if (payloadLength < 0 || (long) payloadOffset + payloadLength > limit) {
+                break;
+            }
+            addToIndex(new ModuleComponentAtRepositoryKey(repositoryId, componentId), new Location(payloadOffset, payloadLength, payloadCrc, timestamp, payloadOffset + payloadLength - position));
+            position = payloadOffset + payloadLength;
+        }
+        return position;
+    }
+
+    @Nullable
+    private ByteBuffer payload(Location location) {
+        long end = location.offset + location.payloadLength;
+        MappedByteBuffer mapped = mapping;
+        if (mapped == null || mapped.capacity() < end) {
+            // The record has been appended since the pack was last mapped
+            try {
+                mapped = map(packFile.length());
+            } catch (IOException | RuntimeException e) {
+                disable("read", e);
+                return null;
+            }
+            if (mapped.capacity() < HEADER_SIZE || mapped.getLong(8) != generation) {
+                // The pack has been rewritten by another process, the offsets are stale
+                reset();
+                return null;
+            }
+            if (mapped.capacity() < end) {
+                return null;
+            }
+        }
+        ByteBuffer payload = mapped.duplicate();
+        payload.limit((int) end).position((int) location.offset);
+        return payload.slice();
+    }
+
+    private MappedByteBuffer map(long length) throws IOException {
+        // The mapping stays valid once the channel is closed, so no file handle is held
+        try (FileChannel channel = FileChannel.open(packFile.toPath(), StandardOpenOption.READ)) {
+            mapping = channel.map(FileChannel.MapMode.READ_ONLY, 0, Math.min(length, MAX_SIZE));
+        }
+        return mapping;
+    }
+
+    private void addToIndex(ModuleComponentAtRepositoryKey key, Location location) {
+        Location replaced = index.put(key, location);
+        if (replaced != null) {
+            liveSize -= replaced.recordLength;
+        }
+        liveSize += location.recordLength;
+    }
+
+    private void removeFromIndex(ModuleComponentAtRepositoryKey key) {
+        Location removed = index.remove(key);
+        if (removed != null) {
+            liveSize -= removed.recordLength;
+        }
+    }
+
+    private void reset() {
+        index.clear();
+        mapping = null;
+        indexedEnd = 0;
+        liveSize = 0;
+        full = false;
+    }
+
+    private void disable(String operation, Exception e) {
+        LOGGER.debug("Could not {} {}, falling back to descriptor files", operation, packFile, e);
+        disabled = true;
+        index.clear();
+        mapping = null;
+    }
+
+    private static long newGeneration() {
+        return ThreadLocalRandom.current().nextLong();
+    }
+
+    private static ByteBuffer header(long generation) {
+        return (ByteBuffer) ByteBuffer.allocate(HEADER_SIZE).putInt(MAGIC).putInt(FORMAT_VERSION).putLong(generation).flip();
+    }
+
+    private static long readGeneration(FileChannel channel) throws IOException {
+        ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+        while (header.hasRemaining()) {
+            if (channel.read(header, header.position()) < 0) {
+                return 0;
+            }
+        }
+        return header.getLong(8);
+    }
+
+    private static byte[] encodeRecord(ModuleComponentAtRepositoryKey key, long entryTimestamp, byte[] payload, int payloadCrc) throws IOException {
+        ModuleComponentIdentifier componentId = key.getComponentId();
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(payload.length + 128);
+        DataOutputStream data = new DataOutputStream(bytes);
+        data.writeInt(payload.length);
+        data.writeLong(entryTimestamp);
+        data.writeUTF(key.getRepositoryId());
+        data.writeUTF(componentId.getGroup());
+        data.writeUTF(componentId.getModule());
+        data.writeUTF(componentId.getVersion());
+        data.writeInt(payloadCrc);
+        data.flush();
+        int headerCrc = crc(ByteBuffer.wrap(bytes.toByteArray()));
+        data.writeInt(headerCrc);
+        data.write(payload);
+        data.flush();
+        return bytes.toByteArray();
+    }
+
+    private static int crc(ByteBuffer buffer) {
+        CRC32 crc = new CRC32();
+        crc.update(buffer);
+        return (int) crc.getValue();
+    }
+
+    private static void writeFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+        long current = position;
+        while (buffer.hasRemaining()) {
+            current += channel.write(buffer, current);
+        }
+    }
+
+    private static final class Location {
+        private final long offset;
+        private final int payloadLength;
+        private final int payloadCrc;
+        private final long timestamp;
+        private final long recordLength;
+        private boolean verified;
+
+        Location(long offset, int payloadLength, int payloadCrc, long timestamp, long recordLength) {
+            this.offset = offset;
+            this.payloadLength = payloadLength;
+            this.payloadCrc = payloadCrc;
+            this.timestamp = timestamp;
+            this.recordLength = recordLength;
+        }
+    }
+
+    private static final class ByteBufferInputStream extends InputStream {
+        private final ByteBuffer buffer;
+
+        ByteBufferInputStream(ByteBuffer buffer) {
+            this.buffer = buffer;
+        }
+
+        @Override
+        public int read() {
+            return buffer.hasRemaining() ? buffer.get() & 0xff : -1;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) {
+            if (len == 0) {
+                return 0;
+            }
+            if (!buffer.hasRemaining()) {
+                return -1;
+            }
+            int count = Math.min(len, buffer.remaining());
+            buffer.get(b, off, count);
+            return count;
+        }
+
+        @Override
+        public int available() {
+            return buffer.remaining();
+        }
+    }
+}
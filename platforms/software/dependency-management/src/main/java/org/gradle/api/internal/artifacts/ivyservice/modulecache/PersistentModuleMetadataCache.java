@@ -27,6 +27,7 @@
 import org.gradle.api.internal.artifacts.repositories.metadata.IvyMutableModuleMetadataFactory;
 import org.gradle.api.internal.artifacts.repositories.metadata.MavenMutableModuleMetadataFactory;
 import org.gradle.cache.IndexedCache;
+import org.gradle.internal.buildoption.InternalFlag;
 import org.gradle.internal.component.external.model.ModuleComponentResolveMetadata;
 import org.gradle.internal.component.external.model.MutableModuleComponentResolveMetadata;
 import org.gradle.internal.hash.ChecksumService;
@@ -36,8 +37,17 @@
 import org.gradle.internal.serialize.Encoder;
 import org.gradle.util.internal.BuildCommencedTimeProvider;
 
+import java.io.File;
+
 public class PersistentModuleMetadataCache extends AbstractModuleMetadataCache {
 
+    /**
+     * Also keeps module descriptors in a single memory-mapped pack file, see {@link PackedModuleMetadataStore}.
+     */
+    public static final InternalFlag PACKED_METADATA_STORE = new InternalFlag("org.gradle.internal.dependency-resolution.packed-metadata-store");
+
+    private static final String PACK_FILE_NAME = "descriptors.pack";
+
     private IndexedCache<ModuleComponentAtRepositoryKey, ModuleMetadataCacheEntry> cache;
     private final ModuleMetadataStore moduleMetadataStore;
     private final ArtifactCacheLockingAccessCoordinator artifactCacheLockingManager;
@@ -53,10 +63,35 @@ public PersistentModuleMetadataCache(
         IvyMutableModuleMetadataFactory ivyMetadataFactory,
         Interner<String> stringInterner,
         ModuleSourcesSerializer moduleSourcesSerializer,
-        ChecksumService checksumService
+        ChecksumService checksumService,
+        boolean usePackedStore
+    ) {
+        this(timeProvider, cacheAccessCoordinator, artifactCacheMetadata, moduleIdentifierFactory, attributeContainerSerializer, capabilitySelectorSerializer, mavenMetadataFactory, ivyMetadataFactory, stringInterner, moduleSourcesSerializer, checksumService, usePackedStore, false);
+    }
+
+    protected PersistentModuleMetadataCache(
+        BuildCommencedTimeProvider timeProvider,
+        ArtifactCacheLockingAccessCoordinator cacheAccessCoordinator,
+        ArtifactCacheMetadata artifactCacheMetadata,
+        ImmutableModuleIdentifierFactory moduleIdentifierFactory,
+        AttributeContainerSerializer attributeContainerSerializer,
+        CapabilitySelectorSerializer capabilitySelectorSerializer,
+        MavenMutableModuleMetadataFactory mavenMetadataFactory,
+        IvyMutableModuleMetadataFactory ivyMetadataFactory,
+        Interner<String> stringInterner,
+        ModuleSourcesSerializer moduleSourcesSerializer,
+        ChecksumService checksumService,
+        boolean usePackedStore,
+        boolean readOnly
     ) {
         super(timeProvider);
-        moduleMetadataStore = new ModuleMetadataStore(new DefaultPathKeyFileStore(checksumService, artifactCacheMetadata.getMetaDataStoreDirectory()), new ModuleMetadataSerializer(attributeContainerSerializer, capabilitySelectorSerializer, mavenMetadataFactory, ivyMetadataFactory, moduleSourcesSerializer), moduleIdentifierFactory, stringInterner);
+        File descriptorsDirectory = artifactCacheMetadata.getMetaDataStoreDirectory();
+        // The pack lives next to the descriptors, in the versioned metadata directory, so that it is cleaned up along with them
+        DefaultPathKeyFileStore descriptorStore = new DefaultPathKeyFileStore(checksumService, descriptorsDirectory);
+        PackedModuleMetadataStore packedStore = usePackedStore
+            ? new PackedModuleMetadataStore(new File(descriptorsDirectory.getParentFile(), PACK_FILE_NAME), readOnly, key -> descriptorStore.get(ModuleMetadataStore.getFilePath(key)) != null)
+            : null;
+        moduleMetadataStore = new ModuleMetadataStore(descriptorStore, new ModuleMetadataSerializer(attributeContainerSerializer, capabilitySelectorSerializer, mavenMetadataFactory, ivyMetadataFactory, moduleSourcesSerializer), moduleIdentifierFactory, stringInterner, packedStore);
         this.artifactCacheLockingManager = cacheAccessCoordinator;
     }
 
@@ -82,7 +117,7 @@ protected CachedMetadata get(ModuleComponentAtRepositoryKey key) {
             if (entry.isMissing()) {
                 return new DefaultCachedMetadata(entry, null, timeProvider);
             }
-            MutableModuleComponentResolveMetadata metadata = moduleMetadataStore.getModuleDescriptor(key);
+            MutableModuleComponentResolveMetadata metadata = moduleMetadataStore.getModuleDescriptor(key, entry.createTimestamp);
             if (metadata == null) {
                 // Descriptor file has been deleted - ignore the entry
                 cache.remove(key);
@@ -100,7 +135,7 @@ protected CachedMetadata store(final ModuleComponentAtRepositoryKey key, final M
             // Need to lock the cache in order to write to the module metadata store
             artifactCacheLockingManager.useCache(() -> {
                 final ModuleComponentResolveMetadata metadata = cachedMetadata.getMetadata();
-                moduleMetadataStore.putModuleDescriptor(key, metadata);
+                moduleMetadataStore.putModuleDescriptor(key, entry.createTimestamp, metadata);
                 getCache().put(key, entry);
             });
         }
@@ -18,11 +18,13 @@
 import org.gradle.api.artifacts.ModuleIdentifier;
 import org.gradle.api.internal.artifacts.ivyservice.resolveengine.excludes.factories.CachingExcludeFactory;
 import org.gradle.api.internal.artifacts.ivyservice.resolveengine.excludes.factories.ExcludeFactory;
+import org.gradle.api.internal.artifacts.ivyservice.resolveengine.excludes.factories.InterningExcludeFactory;
 import org.gradle.api.internal.artifacts.ivyservice.resolveengine.excludes.factories.LoggingExcludeFactory;
 import org.gradle.api.internal.artifacts.ivyservice.resolveengine.excludes.factories.NormalizingExcludeFactory;
 import org.gradle.api.internal.artifacts.ivyservice.resolveengine.excludes.factories.OptimizingExcludeFactory;
 import org.gradle.api.internal.artifacts.ivyservice.resolveengine.excludes.simple.DefaultExcludeFactory;
 import org.gradle.api.internal.artifacts.ivyservice.resolveengine.excludes.specs.ExcludeSpec;
+import org.gradle.internal.buildoption.InternalFlag;
 import org.gradle.internal.component.model.ExcludeMetadata;
 import org.gradle.internal.component.model.IvyArtifactName;
 import org.gradle.internal.service.scopes.Scope;
@@ -34,25 +36,40 @@
 import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
 
+/**
+ * Creates and merges exclude specs for dependency resolution.
+ * <p>
+ * Interning the specs, so that equal specs are the same instance and sets of the same kind are merged using bit sets,
+ * is experimental and can be enabled with the {@link #INTERN_EXCLUDES} internal flag.
+ */
 @ServiceScope(Scope.Build.class)
 public class ModuleExclusions {
+    public static final InternalFlag INTERN_EXCLUDES = new InternalFlag("org.gradle.internal.dependency-resolution.intern-excludes");
+
     private final CachingExcludeFactory.MergeCaches mergeCaches = new CachingExcludeFactory.MergeCaches();
-    // please keep the formatting below as it helps enabling or disabling stages
-    private final ExcludeFactory factory = new OptimizingExcludeFactory(// optimizes for nulls, 2-params, ... mandatory
-        new CachingExcludeFactory(// caches the result of TL operations
-            LoggingExcludeFactory.maybeLog(new NormalizingExcludeFactory(// performs algebra
-                new CachingExcludeFactory(// caches the result of optimization operations
-                    new DefaultExcludeFactory(), // the end of the chain, mandatory
-                    mergeCaches // shares the same caches as the top level one as after reducing we can find already cached merge operations
-                )
-            )),
-            mergeCaches
-        )
-    );
+    private final ExcludeFactory factory;
     private final Map<ExcludeMetadata, ExcludeSpec> metadataToExcludeCache = new ConcurrentHashMap<>();
     private final ExcludeSpec nothing;
 
     public ModuleExclusions() {
+        this(false);
+    }
+
+    public ModuleExclusions(boolean internExcludes) {
+        InterningExcludeFactory interningFactory = internExcludes ? new InterningExcludeFactory(new DefaultExcludeFactory()) : null;
+        // please keep the formatting below as it helps enabling or disabling stages
+        factory = new OptimizingExcludeFactory(// optimizes for nulls, 2-params, ... mandatory
+            new CachingExcludeFactory(// caches the result of TL operations
+                LoggingExcludeFactory.maybeLog(new NormalizingExcludeFactory(// performs algebra
+                    new CachingExcludeFactory(// caches the result of optimization operations
+                        interningFactory != null ? interningFactory : new DefaultExcludeFactory(), // the end of the chain, mandatory, optionally making equal specs the same instance
+                        mergeCaches // shares the same caches as the top level one as after reducing we can find already cached merge operations
+                    ),
+                    interningFactory // merges interned sets using their bit sets, when interning
+                )),
+                mergeCaches
+            )
+        );
         nothing = factory.nothing();
     }
 
@@ -0,0 +1,295 @@
+/*
+ * Copyright 2025 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.artifacts.ivyservice.resolveengine.excludes.factories;
+
+import org.gradle.api.artifacts.ModuleIdentifier;
+import org.gradle.api.internal.artifacts.ivyservice.resolveengine.excludes.specs.ExcludeSpec;
+import org.gradle.api.internal.artifacts.ivyservice.resolveengine.excludes.specs.GroupExclude;
+import org.gradle.api.internal.artifacts.ivyservice.resolveengine.excludes.specs.GroupSetExclude;
+import org.gradle.api.internal.artifacts.ivyservice.resolveengine.excludes.specs.ModuleExclude;
+import org.gradle.api.internal.artifacts.ivyservice.resolveengine.excludes.specs.ModuleIdExclude;
+import org.gradle.api.internal.artifacts.ivyservice.resolveengine.excludes.specs.ModuleIdSetExclude;
+import org.gradle.api.internal.artifacts.ivyservice.resolveengine.excludes.specs.ModuleSetExclude;
+import org.gradle.internal.Cast;
+import org.gradle.internal.component.model.IvyArtifactName;
+import org.jspecify.annotations.Nullable;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+
+/**
+ * This factory makes sure that equal specs are the same instance. It should be at the end of
+ * the delegation chain, so that every spec created by the chain goes through it. Caches keyed by
+ * interned specs then mostly compare specs by identity.
+ * <p>
+ * Group, module and module id sets are interned by their members, which are numbered in the order
+ * they are first seen. The resulting bit sets are used to compute unions and intersections of sets
+ * without going through the members, and sets computed this way are reused whenever they already exist.
+ * <p>
+ * Every spec created through this factory is kept alive as long as the factory, so it is only part of the
+ * chain when {@link org.gradle.api.internal.artifacts.ivyservice.resolveengine.excludes.ModuleExclusions#INTERN_EXCLUDES} is enabled.
+ */
+public class InterningExcludeFactory extends DelegatingExcludeFactory {
+    private final Map<ExcludeSpec, ExcludeSpec> specs = new ConcurrentHashMap<>();
+    private final InternedSets<String, GroupSetExclude> groupSets = new InternedSets<>();
+    private final InternedSets<String, ModuleSetExclude> moduleSets = new InternedSets<>();
+    private final InternedSets<ModuleIdentifier, ModuleIdSetExclude> moduleIdSets = new InternedSets<>();
+
+    public InterningExcludeFactory(ExcludeFactory delegate) {
+        super(delegate);
+    }
+
+    @Override
+    public GroupExclude group(String group) {
+        return intern(delegate.group(group));
+    }
+
+    @Override
+    public ModuleExclude module(String module) {
+        return intern(delegate.module(module));
+    }
+
+    @Override
+    public ModuleIdExclude moduleId(ModuleIdentifier id) {
+        return intern(delegate.moduleId(id));
+    }
+
+    @Override
+    public ExcludeSpec anyOf(ExcludeSpec one, ExcludeSpec two) {
+        return intern(delegate.anyOf(one, two));
+    }
+
+    @Override
+    public ExcludeSpec allOf(ExcludeSpec one, ExcludeSpec two) {
+        return intern(delegate.allOf(one, two));
+    }
+
+    @Override
+    public ExcludeSpec anyOf(Set<ExcludeSpec> specs) {
+        return intern(delegate.anyOf(specs));
+    }
+
+    @Override
+    public ExcludeSpec allOf(Set<ExcludeSpec> specs) {
+        return intern(delegate.allOf(specs));
+    }
+
+    @Override
+    public ExcludeSpec ivyPatternExclude(ModuleIdentifier moduleId, @Nullable IvyArtifactName artifact, String matcher) {
+        return intern(delegate.ivyPatternExclude(moduleId, artifact, matcher));
+    }
+
+    @Override
+    public ModuleIdSetExclude moduleIdSet(Set<ModuleIdentifier> modules) {
+        return moduleIdSets.intern(modules, delegate::moduleIdSet);
+    }
+
+    @Override
+    public GroupSetExclude groupSet(Set<String> groups) {
+        return groupSets.intern(groups, delegate::groupSet);
+    }
+
+    @Override
+    public ModuleSetExclude moduleSet(Set<String> modules) {
+        return moduleSets.intern(modules, delegate::moduleSet);
+    }
+
+    /**
+     * Returns the intersection of two group sets, or {@code null} if one of them wasn't created by this factory.
+     */
+    @Nullable
+    ExcludeSpec intersectGroupSets(GroupSetExclude left, GroupSetExclude right) {
+        BitSet common = groupSets.intersection(left, right);
+        if (common == null) {
+            return null;
+        }
+        switch (common.cardinality()) {
+            case 0:
+                return nothing();
+            case 1:
+                return group(groupSets.member(common.nextSetBit(0)));
+            default:
+                return groupSets.fromBits(common, delegate::groupSet);
+        }
+    }
+
+    /**
+     * Returns the intersection of two module sets, or {@code null} if one of them wasn't created by this factory.
+     */
+    @Nullable
+    ExcludeSpec intersectModuleSets(ModuleSetExclude left, ModuleSetExclude right) {
+        BitSet common = moduleSets.intersection(left, right);
+        if (common == null) {
+            return null;
+        }
+        switch (common.cardinality()) {
+            case 0:
+                return nothing();
+            case 1:
+                return module(moduleSets.member(common.nextSetBit(0)));
+            default:
+                return moduleSets.fromBits(common, delegate::moduleSet);
+        }
+    }
+
+    /**
+     * Returns the intersection of two module id sets, or {@code null} if one of them wasn't created by this factory.
+     */
+    @Nullable
+    ExcludeSpec intersectModuleIdSets(ModuleIdSetExclude left, ModuleIdSetExclude right) {
+        BitSet common = moduleIdSets.intersection(left, right);
+        if (common == null) {
+            return null;
+        }
+        switch (common.cardinality()) {
+            case 0:
+                return nothing();
+            case 1:
+                return moduleId(moduleIdSets.member(common.nextSetBit(0)));
+            default:
+                return moduleIdSets.fromBits(common, delegate::moduleIdSet);
+        }
+    }
+
+    /**
+     * Returns the union of the given group sets, or {@code null} if one of them wasn't created by this factory.
+     */
+    @Nullable
+    GroupSetExclude unionGroupSets(Collection<GroupSetExclude> sets) {
+        BitSet union = groupSets.union(sets);
+        return union == null ? null : groupSets.fromBits(union, delegate::groupSet);
+    }
+
+    /**
+     * Returns the union of the given module sets, or {@code null} if one of them wasn't created by this factory.
+     */
+    @Nullable
+    ModuleSetExclude unionModuleSets(Collection<ModuleSetExclude> sets) {
+        BitSet union = moduleSets.union(sets);
+        return union == null ? null : moduleSets.fromBits(union, delegate::moduleSet);
+    }
+
+    /**
+     * Returns the union of the given module id sets, or {@code null} if one of them wasn't created by this factory.
+     */
+    @Nullable
+    ModuleIdSetExclude unionModuleIdSets(Collection<ModuleIdSetExclude> sets) {
+        BitSet union = moduleIdSets.union(sets);
+        return union == null ? null : moduleIdSets.fromBits(union, delegate::moduleIdSet);
+    }
+
+    private <T extends ExcludeSpec> T intern(T spec) {
+        ExcludeSpec existing = specs.putIfAbsent(spec, spec);
+        return existing == null ? spec : Cast.uncheckedNonnullCast(existing);
+    }
+
+    /**
+     * Interned sets of a given kind, along with the numbering of their members.
+     * Bit sets are never modified once they have been used as a key.
+     */
+    private static final class InternedSets<T, S extends ExcludeSpec> {
+        private final Map<T, Integer> indices = new HashMap<>();
+        private final List<T> members = new ArrayList<>();
+        private final Map<BitSet, S> setsByBits = new ConcurrentHashMap<>();
+        private final Map<S, BitSet> bitsBySet = new ConcurrentHashMap<>();
+
+        S intern(Set<T> elements, Function<Set<T>, S> factory) {
+            BitSet bits = bitsOf(elements);
+            S set = setsByBits.get(bits);
+            if (set == null) {
+                set = register(bits, factory.apply(elements));
+            }
+            return set;
+        }
+
+        S fromBits(BitSet bits, Function<Set<T>, S> factory) {
+            S set = setsByBits.get(bits);
+            if (set == null) {
+                set = register(bits, factory.apply(membersOf(bits)));
+            }
+            return set;
+        }
+
+        @Nullable
+        BitSet intersection(S left, S right) {
+            BitSet leftBits = bitsBySet.get(left);
+            BitSet rightBits = bitsBySet.get(right);
+            if (leftBits == null || rightBits == null) {
+                return null;
+            }
+            BitSet common = (BitSet) leftBits.clone();
+            common.and(rightBits);
+            return common;
+        }
+
+        @Nullable
+        BitSet union(Collection<S> sets) {
+            BitSet union = new BitSet();
+            for (S set : sets) {
+                BitSet bits = bitsBySet.get(set);
+                if (bits == null) {
+                    return null;
+                }
+                union.or(bits);
+            }
+            return union;
+        }
+
+        synchronized T member(int index) {
+            return members.get(index);
+        }
+
+        private S register(BitSet bits, S created) {
+            S existing = setsByBits.putIfAbsent(bits, created);
+            if (existing != null) {
+                return existing;
+            }
+            bitsBySet.put(created, bits);
+            return created;
+        }
+
+        private synchronized BitSet bitsOf(Set<T> elements) {
+            BitSet bits = new BitSet(members.size());
+            for (T element : elements) {
+                Integer index = indices.get(element);
+                if (index == null) {
+                    index = members.size();
+                    indices.put(element, index);
+                    members.add(element);
+                }
+                bits.set(index);
+            }
+            return bits;
+        }
+
+        private synchronized Set<T> membersOf(BitSet bits) {
+            Set<T> elements = new LinkedHashSet<>(bits.cardinality());
+            for (int i = bits.nextSetBit(0); i >= 0; i = bits.nextSetBit(i + 1)) {
+                elements.add(members.get(i));
+            }
+            return elements;
+        }
+    }
+}
@@ -39,10 +39,17 @@
 @NullMarked
 class Intersections {
     private final ExcludeFactory factory;
+    @Nullable
+    private final InterningExcludeFactory interner;
     private final List<Intersection<? extends ExcludeSpec, ? extends ExcludeSpec>> intersections = new ArrayList<>();
 
     public Intersections(ExcludeFactory factory) {
+        this(factory, null);
+    }
+
+    public Intersections(ExcludeFactory factory, @Nullable InterningExcludeFactory interner) {
         this.factory = factory;
+        this.interner = interner;
 
         // For the Any intersections, be sure to add the more specific type first, so it gets used if applicable
         intersections.add(new IntersectAnyWithAny());
@@ -274,13 +281,17 @@ public ExcludeSpec doIntersect(GroupExclude left, ModuleSetExclude right, Exclud
     }
 
     @NullMarked
-    private static final class IntersectGroupSetWithGroupSet extends AbstractIntersection<GroupSetExclude, GroupSetExclude> {
+    private final class IntersectGroupSetWithGroupSet extends AbstractIntersection<GroupSetExclude, GroupSetExclude> {
         private IntersectGroupSetWithGroupSet() {
             super(GroupSetExclude.class, GroupSetExclude.class);
         }
 
         @Override
         public ExcludeSpec doIntersect(GroupSetExclude left, GroupSetExclude right, ExcludeFactory factory) {
+            ExcludeSpec interned = interner == null ? null : interner.intersectGroupSets(left, right);
+            if (interned != null) {
+                return interned;
+            }
             Set<String> groups = left.getGroups();
             Set<String> common = Sets.newHashSet(right.getGroups());
             common.retainAll(groups);
@@ -433,13 +444,17 @@ public ExcludeSpec doIntersect(ModuleIdExclude left, ModuleSetExclude right, Exc
     }
 
     @NullMarked
-    private static final class IntersectModuleIdSetWithModuleIdSet extends AbstractIntersection<ModuleIdSetExclude, ModuleIdSetExclude> {
+    private final class IntersectModuleIdSetWithModuleIdSet extends AbstractIntersection<ModuleIdSetExclude, ModuleIdSetExclude> {
         private IntersectModuleIdSetWithModuleIdSet() {
             super(ModuleIdSetExclude.class, ModuleIdSetExclude.class);
         }
 
         @Override
         public ExcludeSpec doIntersect(ModuleIdSetExclude left, ModuleIdSetExclude right, ExcludeFactory factory) {
+            ExcludeSpec interned = interner == null ? null : interner.intersectModuleIdSets(left, right);
+            if (interned != null) {
+                return interned;
+            }
             Set<ModuleIdentifier> moduleIds = left.getModuleIds();
             Set<ModuleIdentifier> common = Sets.newHashSet(right.getModuleIds());
             common.retainAll(moduleIds);
@@ -472,13 +487,17 @@ public ExcludeSpec doIntersect(ModuleIdSetExclude left, ModuleSetExclude right,
     }
 
     @NullMarked
-    private static final class IntersectModuleSetWithModuleSet extends AbstractIntersection<ModuleSetExclude, ModuleSetExclude> {
+    private final class IntersectModuleSetWithModuleSet extends AbstractIntersection<ModuleSetExclude, ModuleSetExclude> {
         private IntersectModuleSetWithModuleSet() {
             super(ModuleSetExclude.class, ModuleSetExclude.class);
         }
 
         @Override
         public ExcludeSpec doIntersect(ModuleSetExclude left, ModuleSetExclude right, ExcludeFactory factory) {
+            ExcludeSpec interned = interner == null ? null : interner.intersectModuleSets(left, right);
+            if (interned != null) {
+                return interned;
+            }
             Set<String> modules = Sets.newHashSet(left.getModules());
             modules.retainAll(right.getModules());
             if (modules.isEmpty()) {
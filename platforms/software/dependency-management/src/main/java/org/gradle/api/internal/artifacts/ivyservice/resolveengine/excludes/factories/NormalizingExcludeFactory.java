@@ -31,6 +31,7 @@
 import org.gradle.api.internal.artifacts.ivyservice.resolveengine.excludes.specs.ModuleIdSetExclude;
 import org.gradle.api.internal.artifacts.ivyservice.resolveengine.excludes.specs.ModuleSetExclude;
 import org.gradle.internal.Cast;
+import org.jspecify.annotations.Nullable;
 
 import java.util.Arrays;
 import java.util.Collections;
@@ -54,11 +55,22 @@
 public class NormalizingExcludeFactory extends DelegatingExcludeFactory {
     private final Intersections intersections;
     private final Unions unions;
+    @Nullable
+    private final InterningExcludeFactory interner;
 
     public NormalizingExcludeFactory(ExcludeFactory delegate) {
+        this(delegate, null);
+    }
+
+    /**
+     * Creates a factory which uses the bit sets of the given interning factory to merge
+     * the sets it created. The interning factory is expected to be part of the delegate chain.
+     */
+    public NormalizingExcludeFactory(ExcludeFactory delegate, @Nullable InterningExcludeFactory interner) {
         super(delegate);
-        this.intersections = new Intersections(this);
+        this.intersections = new Intersections(this, interner);
         this.unions = new Unions(this);
+        this.interner = interner;
     }
 
     @Override
@@ -182,13 +194,13 @@ private ExcludeSpec doUnion(Set<ExcludeSpec> specs) {
             }
         }
         if (moduleIdSetsExcludes.size() > 1) {
-            moduleIdSetsExcludes = ImmutableList.of(delegate.moduleIdSet(moduleIdSetsExcludes.stream().flatMap(e -> e.getModuleIds().stream()).collect(toSet())));
+            moduleIdSetsExcludes = ImmutableList.of(unionModuleIdSets(moduleIdSetsExcludes));
         }
         if (groupSetExcludes.size() > 1) {
-            groupSetExcludes = ImmutableList.of(delegate.groupSet(groupSetExcludes.stream().flatMap(e -> e.getGroups().stream()).collect(toSet())));
+            groupSetExcludes = ImmutableList.of(unionGroupSets(groupSetExcludes));
         }
         if (moduleSetExcludes.size() > 1) {
-            moduleSetExcludes = ImmutableList.of(delegate.moduleSet(moduleSetExcludes.stream().flatMap(e -> e.getModules().stream()).collect(toSet())));
+            moduleSetExcludes = ImmutableList.of(unionModuleSets(moduleSetExcludes));
         }
         ImmutableSet.Builder<ExcludeSpec> builder = ImmutableSet.builderWithExpectedSize(
             moduleIdExcludes.size() + groupExcludes.size() + moduleExcludes.size() +
@@ -249,6 +261,30 @@ private ExcludeSpec doUnion(Set<ExcludeSpec> specs) {
         return Optimizations.optimizeCollection(this, elements, delegate::anyOf);
     }
 
+    private ModuleIdSetExclude unionModuleIdSets(List<ModuleIdSetExclude> sets) {
+        ModuleIdSetExclude union = interner == null ? null : interner.unionModuleIdSets(sets);
+        if (union != null) {
+            return union;
+        }
+        return delegate.moduleIdSet(sets.stream().flatMap(e -> e.getModuleIds().stream()).collect(toSet()));
+    }
+
+    private GroupSetExclude unionGroupSets(List<GroupSetExclude> sets) {
+        GroupSetExclude union = interner == null ? null : interner.unionGroupSets(sets);
+        if (union != null) {
+            return union;
+        }
+        return delegate.groupSet(sets.stream().flatMap(e -> e.getGroups().stream()).collect(toSet()));
+    }
+
+    private ModuleSetExclude unionModuleSets(List<ModuleSetExclude> sets) {
+        ModuleSetExclude union = interner == null ? null : interner.unionModuleSets(sets);
+        if (union != null) {
+            return union;
+        }
+        return delegate.moduleSet(sets.stream().flatMap(e -> e.getModules().stream()).collect(toSet()));
+    }
+
     /**
      * Flattens a collection of elements that are going to be joined or intersected. There
      * are 3 possible outcomes:
@@ -47,6 +47,9 @@
 import org.gradle.api.internal.attributes.matching.AttributeMatcher;
 import org.gradle.api.internal.capabilities.CapabilityInternal;
 import org.gradle.api.specs.Spec;
+import org.gradle.internal.buildoption.IntegerInternalOption;
+import org.gradle.internal.buildoption.InternalFlag;
+import org.gradle.internal.buildoption.InternalOptions;
 import org.gradle.internal.component.local.model.LocalComponentGraphResolveState;
 import org.gradle.internal.component.local.model.LocalVariantGraphResolveState;
 import org.gradle.internal.component.model.ComponentGraphResolveMetadata;
@@ -58,11 +61,13 @@
 import org.gradle.internal.component.resolution.failure.exception.AbstractResolutionFailureException;
 import org.gradle.internal.operations.BuildOperationConstraint;
 import org.gradle.internal.operations.BuildOperationExecutor;
+import org.gradle.internal.operations.RunnableBuildOperation;
 import org.gradle.internal.resolve.ModuleVersionResolveException;
 import org.gradle.internal.resolve.resolver.ComponentMetaDataResolver;
 import org.gradle.internal.resolve.resolver.DependencyToComponentIdResolver;
 import org.gradle.internal.service.scopes.Scope;
 import org.gradle.internal.service.scopes.ServiceScope;
+import org.jspecify.annotations.Nullable;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -86,6 +91,12 @@ public class DependencyGraphBuilder {
 
     private static final Logger LOGGER = LoggerFactory.getLogger(DependencyGraphBuilder.class);
 
+    /**
+     * Enables speculative prefetching of the metadata of the whole graph, see {@link MetadataPrefetcher}.
+     */
+    private static final InternalFlag METADATA_PREFETCH = new InternalFlag("org.gradle.internal.dependency-resolution.metadata-prefetch");
+    private static final IntegerInternalOption METADATA_PREFETCH_MAX_COMPONENTS = new IntegerInternalOption("org.gradle.internal.dependency-resolution.metadata-prefetch.max-components", 2000);
+
     private final ModuleExclusions moduleExclusions;
     private final AttributesFactory attributesFactory;
     private final AttributeSchemaServices attributeSchemaServices;
@@ -96,6 +107,7 @@ public class DependencyGraphBuilder {
     private final VersionParser versionParser;
     private final GraphVariantSelector variantSelector;
     private final BuildOperationExecutor buildOperationExecutor;
+    private final InternalOptions internalOptions;
 
     @Inject
     public DependencyGraphBuilder(
@@ -108,7 +120,8 @@ public DependencyGraphBuilder(
         ComponentIdGenerator idGenerator,
         VersionParser versionParser,
         GraphVariantSelector variantSelector,
-        BuildOperationExecutor buildOperationExecutor
+        BuildOperationExecutor buildOperationExecutor,
+        InternalOptions internalOptions
     ) {
         this.moduleExclusions = moduleExclusions;
         this.attributesFactory = attributesFactory;
@@ -120,6 +133,7 @@ public DependencyGraphBuilder(
         this.versionParser = versionParser;
         this.variantSelector = variantSelector;
         this.buildOperationExecutor = buildOperationExecutor;
+        this.internalOptions = internalOptions;
     }
 
     public void resolve(
@@ -179,6 +193,7 @@ public void resolve(
     private void traverseGraph(final ResolveState resolveState) {
         resolveState.onMoreSelected(resolveState.getRoot());
         final List<EdgeState> dependencies = new ArrayList<>();
+        final MetadataPrefetcher prefetcher = createMetadataPrefetcher(resolveState);
 
         ModuleConflictHandler moduleConflictHandler = resolveState.getModuleConflictHandler();
         CapabilitiesConflictHandler capabilitiesConflictHandler = resolveState.getCapabilitiesConflictHandler();
@@ -205,9 +220,9 @@ private void traverseGraph(final ResolveState resolveState) {
                 // Initialize and collect any new outgoing edges of this node
                 dependencies.clear();
                 node.visitOutgoingDependencies(dependencies);
-                boolean edgeWasProcessed = resolveEdges(node, dependencies, ENDORSE_STRICT_VERSIONS_DEPENDENCY_SPEC, false, resolveState);
+                boolean edgeWasProcessed = resolveEdges(node, dependencies, ENDORSE_STRICT_VERSIONS_DEPENDENCY_SPEC, false, resolveState, prefetcher);
                 node.collectEndorsedStrictVersions(dependencies);
-                resolveEdges(node, dependencies, NOT_ENDORSE_STRICT_VERSIONS_DEPENDENCY_SPEC, edgeWasProcessed, resolveState);
+                resolveEdges(node, dependencies, NOT_ENDORSE_STRICT_VERSIONS_DEPENDENCY_SPEC, edgeWasProcessed, resolveState, prefetcher);
             } else {
                 // We have some batched up conflicts. Resolve the first, and continue traversing the graph
                 if (moduleConflictHandler.hasConflicts()) {
@@ -218,6 +233,19 @@ private void traverseGraph(final ResolveState resolveState) {
             }
 
         }
+
+        if (prefetcher != null) {
+            LOGGER.debug("Prefetched metadata of {} components", prefetcher.getPrefetchedCount());
+        }
+    }
+
+    @Nullable
+    private MetadataPrefetcher createMetadataPrefetcher(ResolveState resolveState) {
+        if (!internalOptions.getOption(METADATA_PREFETCH).get()) {
+            return null;
+        }
+        int maxComponents = internalOptions.getOption(METADATA_PREFETCH_MAX_COMPONENTS).get();
+        return new MetadataPrefetcher(resolveState.getComponentMetadataResolver(), versionSelectorScheme, maxComponents);
     }
 
     /**
@@ -275,13 +303,14 @@ private boolean resolveEdges(
         final List<EdgeState> dependencies,
         final Spec<EdgeState> edgeFilter,
         final boolean recomputeSelectors,
-        final ResolveState resolveState
+        final ResolveState resolveState,
+        @Nullable final MetadataPrefetcher prefetcher
     ) {
         if (dependencies.isEmpty()) {
             return false;
         }
         if (performSelectionSerially(dependencies, edgeFilter, resolveState, recomputeSelectors)) {
-            maybeDownloadMetadataInParallel(node, dependencies, edgeFilter, buildOperationExecutor, resolveState.getComponentMetadataResolver());
+            maybeDownloadMetadataInParallel(node, dependencies, edgeFilter, buildOperationExecutor, resolveState.getComponentMetadataResolver(), prefetcher);
             attachToTargetRevisionsSerially(dependencies, edgeFilter);
             return true;
         } else {
@@ -356,8 +385,18 @@ private static void checkForModuleConflicts(ResolveState resolveState, ModuleRes
     /**
      * Prepares the resolution of edges, either serially or concurrently.
      * It uses a simple heuristic to determine if we should perform concurrent resolution, based on the number of edges, and whether they have unresolved metadata.
+     * <p>
+     * When a prefetcher is given, the metadata of the components reachable from the downloaded ones is fetched by the same operations,
+     * so even a single download is worth running this way.
      */
-    private static void maybeDownloadMetadataInParallel(NodeState node, List<EdgeState> edges, Spec<EdgeState> edgeFilter, BuildOperationExecutor buildOperationExecutor, ComponentMetaDataResolver componentMetaDataResolver) {
+    private static void maybeDownloadMetadataInParallel(
+        NodeState node,
+        List<EdgeState> edges,
+        Spec<EdgeState> edgeFilter,
+        BuildOperationExecutor buildOperationExecutor,
+        ComponentMetaDataResolver componentMetaDataResolver,
+        @Nullable MetadataPrefetcher prefetcher
+    ) {
         List<ComponentState> requiringDownload = null;
         for (EdgeState edge : edges) {
             if (!edgeFilter.isSatisfiedBy(edge)) {
@@ -374,13 +413,13 @@ private static void maybeDownloadMetadataInParallel(NodeState node, List<EdgeSta
                 }
             }
         }
-        // Only download in parallel if there is more than 1 component to download
-        if (requiringDownload != null && requiringDownload.size() > 1) {
+        // Only download in parallel if there is more than 1 component to download, or if there are more components to prefetch
+        if (requiringDownload != null && (requiringDownload.size() > 1 || prefetcher != null)) {
             final ImmutableList<ComponentState> toDownloadInParallel = ImmutableList.copyOf(requiringDownload);
             LOGGER.debug("Submitting {} metadata files to resolve in parallel for {}", toDownloadInParallel.size(), node);
-            buildOperationExecutor.runAll(buildOperationQueue -> {
+            buildOperationExecutor.<RunnableBuildOperation>runAll(buildOperationQueue -> {
                 for (final ComponentState componentState : toDownloadInParallel) {
-                    buildOperationQueue.add(new DownloadMetadataOperation(componentState));
+                    buildOperationQueue.add(new DownloadMetadataOperation(componentState, prefetcher, buildOperationQueue));
                 }
             }, BuildOperationConstraint.UNCONSTRAINED);
         }
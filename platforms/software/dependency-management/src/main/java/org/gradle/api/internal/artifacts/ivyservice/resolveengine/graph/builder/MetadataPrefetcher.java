@@ -0,0 +1,148 @@
+/*
+ * Copyright 2025 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.artifacts.ivyservice.resolveengine.graph.builder;
+
+import org.gradle.api.artifacts.component.ComponentSelector;
+import org.gradle.api.artifacts.component.ModuleComponentIdentifier;
+import org.gradle.api.artifacts.component.ModuleComponentSelector;
+import org.gradle.api.internal.artifacts.ivyservice.ivyresolve.strategy.VersionSelectorScheme;
+import org.gradle.internal.component.external.model.DefaultModuleComponentIdentifier;
+import org.gradle.internal.component.external.model.ExternalModuleComponentGraphResolveState;
+import org.gradle.internal.component.model.ComponentGraphResolveState;
+import org.gradle.internal.component.model.DefaultComponentOverrideMetadata;
+import org.gradle.internal.component.model.DependencyMetadata;
+import org.gradle.internal.component.model.GraphSelectionCandidates;
+import org.gradle.internal.component.model.VariantGraphResolveState;
+import org.gradle.internal.operations.BuildOperationContext;
+import org.gradle.internal.operations.BuildOperationDescriptor;
+import org.gradle.internal.operations.BuildOperationQueue;
+import org.gradle.internal.operations.RunnableBuildOperation;
+import org.gradle.internal.resolve.resolver.ComponentMetaDataResolver;
+import org.gradle.internal.resolve.result.DefaultBuildableComponentResolveResult;
+import org.jspecify.annotations.Nullable;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * Speculatively fetches the metadata of the components that are transitively reachable from the components resolved during graph traversal.
+ * <p>
+ * Traversal only downloads the metadata of the targets of a node's outgoing edges once it visits the node, so a deep graph is downloaded
+ * one level at a time. The prefetcher instead follows the dependencies declared by a component as soon as its metadata is available,
+ * adding the downloads to the queue that is already running. This way the metadata of the whole graph is fetched by a single queue,
+ * bounded by the number of workers, and without waiting for the other downloads of the same level.
+ * <p>
+ * Only dependencies on a fixed version of a module are followed, as these select a known component regardless of the rest of the graph.
+ * Prefetching only warms the caches of the metadata resolver: selection, conflict resolution and the attachment of edges still happen
+ * serially during traversal, so the resulting graph does not depend on the order in which the metadata was fetched.
+ */
+class MetadataPrefetcher {
+    private final ComponentMetaDataResolver resolver;
+    private final VersionSelectorScheme versionSelectorScheme;
+    private final int maxComponents;
+    private final Set<ModuleComponentIdentifier> requested = ConcurrentHashMap.newKeySet();
+    // The resolver only keeps weak references to the components it has resolved, so hold on to them until traversal is done
+    private final Queue<ComponentGraphResolveState> prefetched = new ConcurrentLinkedQueue<>();
+
+    MetadataPrefetcher(ComponentMetaDataResolver resolver, VersionSelectorScheme versionSelectorScheme, int maxComponents) {
+        this.resolver = resolver;
+        this.versionSelectorScheme = versionSelectorScheme;
+        this.maxComponents = maxComponents;
+    }
+
+    /**
+     * Queues the download of the metadata of the components the given component depends on, if not already requested.
+     */
+    void prefetchDependenciesOf(@Nullable ComponentGraphResolveState component, BuildOperationQueue<RunnableBuildOperation> queue) {
+        if (!(component instanceof ExternalModuleComponentGraphResolveState)) {
+            // Local and virtual components are resolved by traversal itself
+            return;
+        }
+        for (VariantGraphResolveState variant : variantsOf(component)) {
+            for (DependencyMetadata dependency : variant.getDependencies()) {
+                ModuleComponentIdentifier target = fixedTargetOf(dependency);
+                if (target != null && requested.size() < maxComponents && requested.add(target)) {
+                    queue.add(new PrefetchMetadataOperation(target, queue));
+                }
+            }
+        }
+    }
+
+    int getPrefetchedCount() {
+        return prefetched.size();
+    }
+
+    private static List<? extends VariantGraphResolveState> variantsOf(ComponentGraphResolveState component) {
+        GraphSelectionCandidates candidates = component.getCandidatesForGraphVariantSelection();
+        List<? extends VariantGraphResolveState> variants = candidates.getVariantsForAttributeMatching();
+        if (!variants.isEmpty()) {
+            return variants;
+        }
+        VariantGraphResolveState legacyVariant = candidates.getLegacyVariant();
+        return legacyVariant == null ? Collections.emptyList() : Collections.singletonList(legacyVariant);
+    }
+
+    @Nullable
+    private ModuleComponentIdentifier fixedTargetOf(DependencyMetadata dependency) {
+        if (dependency.isConstraint() || dependency.isChanging() || !dependency.getArtifacts().isEmpty()) {
+            // Constraints do not add components to the graph, and the other dependencies resolve their target with specific overrides
+            return null;
+        }
+        ComponentSelector selector = dependency.getSelector();
+        if (!(selector instanceof ModuleComponentSelector)) {
+            return null;
+        }
+        ModuleComponentSelector moduleSelector = (ModuleComponentSelector) selector;
+        String version = moduleSelector.getVersion();
+        if (version.isEmpty() || versionSelectorScheme.parseSelector(version).isDynamic()) {
+            return null;
+        }
+        return DefaultModuleComponentIdentifier.newId(moduleSelector.getModuleIdentifier(), version);
+    }
+
+    private class PrefetchMetadataOperation implements RunnableBuildOperation {
+        private final ModuleComponentIdentifier id;
+        private final BuildOperationQueue<RunnableBuildOperation> queue;
+
+        PrefetchMetadataOperation(ModuleComponentIdentifier id, BuildOperationQueue<RunnableBuildOperation> queue) {
+            this.id = id;
+            this.queue = queue;
+        }
+
+        @Override
+        public void run(BuildOperationContext context) {
+            DefaultBuildableComponentResolveResult result = new DefaultBuildableComponentResolveResult();
+            resolver.resolve(id, DefaultComponentOverrideMetadata.EMPTY, result);
+            if (result.getFailure() != null) {
+                // Traversal reports the failure if the component turns out to be part of the graph
+                return;
+            }
+            ComponentGraphResolveState state = result.getState();
+            prefetched.add(state);
+            prefetchDependenciesOf(state, queue);
+        }
+
+        @Override
+        public BuildOperationDescriptor.Builder description() {
+            return BuildOperationDescriptor.displayName("Prefetch metadata of " + id.getDisplayName());
+        }
+    }
+}
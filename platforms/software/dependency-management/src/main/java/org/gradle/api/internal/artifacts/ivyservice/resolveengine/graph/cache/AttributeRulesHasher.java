@@ -0,0 +1,122 @@
+/*
+ * Copyright 2025 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.artifacts.ivyservice.resolveengine.graph.cache;
+
+import com.google.common.collect.Ordering;
+import org.gradle.api.Action;
+import org.gradle.api.internal.attributes.DefaultOrderedCompatibilityRule;
+import org.gradle.api.internal.attributes.DefaultOrderedDisambiguationRule;
+import org.gradle.internal.action.ConfigurableRule;
+import org.gradle.internal.action.InstantiatingAction;
+import org.gradle.internal.hash.ClassLoaderHierarchyHasher;
+import org.gradle.internal.hash.HashCode;
+import org.gradle.internal.hash.Hasher;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Hashes the compatibility and disambiguation rules of attributes, so that a recorded graph is not reused once the rules change.
+ * <p>
+ * Rules are hashed by their implementation, that is their class and the class loaders it comes from, and by their parameters.
+ * Rules that are arbitrary actions, or that order values with a comparator that has state, cannot be hashed.
+ */
+class AttributeRulesHasher {
+    private final ClassLoaderHierarchyHasher classLoaderHierarchyHasher;
+
+    AttributeRulesHasher(ClassLoaderHierarchyHasher classLoaderHierarchyHasher) {
+        this.classLoaderHierarchyHasher = classLoaderHierarchyHasher;
+    }
+
+    /**
+     * Hashes the given rules.
+     *
+     * @return false when any of the rules cannot be hashed.
+     */
+    boolean putRules(Hasher hasher, List<? extends Action<?>> rules) {
+        hasher.putInt(rules.size());
+        for (Action<?> rule : rules) {
+            if (!putRule(hasher, rule)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private boolean putRule(Hasher hasher, Action<?> rule) {
+        if (rule instanceof InstantiatingAction) {
+            List<? extends ConfigurableRule<?>> configurableRules = ((InstantiatingAction<?>) rule).getRules().getConfigurableRules();
+            hasher.putInt(configurableRules.size());
+            for (ConfigurableRule<?> configurableRule : configurableRules) {
+                if (!putImplementation(hasher, configurableRule.getRuleClass())) {
+                    return false;
+                }
+                configurableRule.getRuleParams().appendToHasher(hasher);
+            }
+            return true;
+        }
+        if (rule instanceof DefaultOrderedCompatibilityRule) {
+            DefaultOrderedCompatibilityRule<?> orderedRule = (DefaultOrderedCompatibilityRule<?>) rule;
+            hasher.putString("ordered");
+            hasher.putBoolean(orderedRule.isReverse());
+            return putComparator(hasher, orderedRule.getComparator());
+        }
+        if (rule instanceof DefaultOrderedDisambiguationRule) {
+            DefaultOrderedDisambiguationRule<?> orderedRule = (DefaultOrderedDisambiguationRule<?>) rule;
+            hasher.putString("pick");
+            hasher.putBoolean(orderedRule.isPickFirst());
+            return putComparator(hasher, orderedRule.getComparator());
+        }
+        return false;
+    }
+
+    private boolean putComparator(Hasher hasher, Comparator<?> comparator) {
+        if (comparator.equals(Ordering.natural()) || comparator.equals(Comparator.naturalOrder())) {
+            hasher.putString("natural");
+            return true;
+        }
+        if (comparator.equals(Ordering.natural().reverse()) || comparator.equals(Comparator.reverseOrder())) {
+            hasher.putString("reverse natural");
+            return true;
+        }
+        return isStateless(comparator.getClass()) && putImplementation(hasher, comparator.getClass());
+    }
+
+    private boolean putImplementation(Hasher hasher, Class<?> type) {
+        ClassLoader classLoader = type.getClassLoader();
+        HashCode classLoaderHash = classLoader == null ? null : classLoaderHierarchyHasher.getClassLoaderHash(classLoader);
+        if (classLoaderHash == null) {
+            return false;
+        }
+        hasher.putString(type.getName());
+        hasher.putHash(classLoaderHash);
+        return true;
+    }
+
+    private static boolean isStateless(Class<?> type) {
+        for (Class<?> current = type; current != null && current != Object.class; current = current.getSuperclass()) {
+            for (Field field : current.getDeclaredFields()) {
+                if (!Modifier.isStatic(field.getModifiers())) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+}
@@ -0,0 +1,273 @@
+/*
+ * Copyright 2025 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.artifacts.ivyservice.resolveengine.graph.cache;
+
+import com.google.common.collect.ImmutableList;
+import org.gradle.StartParameter;
+import org.gradle.api.artifacts.ModuleIdentifier;
+import org.gradle.api.internal.artifacts.LegacyResolutionParameters;
+import org.gradle.api.internal.artifacts.dsl.ImmutableModuleReplacements;
+import org.gradle.api.internal.artifacts.ivyservice.ResolutionParameters;
+import org.gradle.api.internal.artifacts.ivyservice.ivyresolve.ComponentResolvers;
+import org.gradle.api.internal.artifacts.ivyservice.ivyresolve.strategy.VersionSelectorScheme;
+import org.gradle.api.internal.artifacts.ivyservice.resolveengine.excludes.ModuleExclusions;
+import org.gradle.api.internal.artifacts.ivyservice.resolveengine.graph.DependencyGraphVisitor;
+import org.gradle.api.internal.artifacts.ivyservice.resolveengine.result.ComponentSelectionDescriptorFactory;
+import org.gradle.api.internal.artifacts.repositories.ResolutionAwareRepository;
+import org.gradle.api.internal.artifacts.repositories.descriptor.RepositoryDescriptor;
+import org.gradle.api.internal.attributes.AttributeDesugaring;
+import org.gradle.cache.FileLockManager;
+import org.gradle.cache.IndexedCache;
+import org.gradle.cache.IndexedCacheParameters;
+import org.gradle.cache.PersistentCache;
+import org.gradle.cache.scopes.BuildScopedCacheBuilderFactory;
+import org.gradle.internal.buildoption.InternalFlag;
+import org.gradle.internal.buildoption.InternalOptions;
+import org.gradle.internal.component.model.ComponentIdGenerator;
+import org.gradle.internal.component.model.DependencyMetadata;
+import org.gradle.internal.hash.ClassLoaderHierarchyHasher;
+import org.gradle.internal.hash.HashCode;
+import org.gradle.internal.hash.Hasher;
+import org.gradle.internal.hash.Hashing;
+import org.gradle.internal.serialize.BaseSerializerFactory;
+import org.gradle.internal.serialize.HashCodeSerializer;
+import org.gradle.internal.serialize.kryo.StringDeduplicatingKryoBackedDecoder;
+import org.gradle.internal.serialize.kryo.StringDeduplicatingKryoBackedEncoder;
+import org.gradle.internal.service.scopes.Scope;
+import org.gradle.internal.service.scopes.ServiceScope;
+import org.gradle.util.GradleVersion;
+import org.jspecify.annotations.Nullable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.inject.Inject;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Persists resolved graphs across builds, so that a graph whose inputs have not changed can be replayed
+ * instead of being resolved again.
+ * <p>
+ * Graphs are keyed by a fingerprint of the resolution inputs that are not part of the graph itself: the root variant
+ * and its dependencies, the consumer schema including the implementation and parameters of its attribute rules, the repositories, the conflict resolution strategy, module replacements and
+ * consistent resolution locks. Graphs are not cached when dependency locking, dependency substitution or component
+ * selection rules are in use, or when dependencies are refreshed.
+ * <p>
+ * The rest of the inputs, the metadata of the components in the graph, is checked when the graph is replayed.
+ * See {@link ResolvedGraphReplay}.
+ * <p>
+ * The cache is disabled by default and can be enabled with the {@link #GRAPH_CACHE} internal flag.
+ */
+@ServiceScope(Scope.Build.class)
+public class ResolvedGraphCache implements Closeable {
+    public static final InternalFlag GRAPH_CACHE = new InternalFlag("org.gradle.internal.dependency-resolution.graph-cache");
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(ResolvedGraphCache.class);
+    private static final int FORMAT_VERSION = 2;
+
+    private final BuildScopedCacheBuilderFactory cacheBuilderFactory;
+    private final boolean enabled;
+    private final AttributeDesugaring attributeDesugaring;
+    private final VersionSelectorScheme versionSelectorScheme;
+    private final ResolvedGraphReplay replay;
+    private final ResolvedGraphRecordSerializer serializer;
+    private final AttributeRulesHasher rulesHasher;
+
+    private final Object lock = new Object();
+    private @Nullable PersistentCache store;
+    private @Nullable IndexedCache<HashCode, byte[]> cache;
+
+    @Inject
+    public ResolvedGraphCache(
+        BuildScopedCacheBuilderFactory cacheBuilderFactory,
+        InternalOptions internalOptions,
+        StartParameter startParameter,
+        AttributeDesugaring attributeDesugaring,
+        VersionSelectorScheme versionSelectorScheme,
+        ComponentIdGenerator idGenerator,
+        ModuleExclusions moduleExclusions,
+        ComponentSelectionDescriptorFactory componentSelectionDescriptorFactory,
+        ClassLoaderHierarchyHasher classLoaderHierarchyHasher
+    ) {
+        this.cacheBuilderFactory = cacheBuilderFactory;
+        this.enabled = internalOptions.getOption(GRAPH_CACHE).get() && !startParameter.isRefreshDependencies();
+        this.attributeDesugaring = attributeDesugaring;
+        this.versionSelectorScheme = versionSelectorScheme;
+        this.rulesHasher = new AttributeRulesHasher(classLoaderHierarchyHasher);
+        this.replay = new ResolvedGraphReplay(idGenerator, attributeDesugaring, moduleExclusions.nothing(), rulesHasher);
+        this.serializer = new ResolvedGraphRecordSerializer(componentSelectionDescriptorFactory);
+    }
+
+    /**
+     * Calculates the key of the graph resolved with the given parameters.
+     *
+     * @return null when the graph must not be cached.
+     */
+    @Nullable
+    public HashCode keyFor(
+        ResolutionParameters params,
+        LegacyResolutionParameters legacyParams,
+        List<ResolutionParameters.ModuleVersionLock> moduleVersionLocks,
+        List<? extends DependencyMetadata> syntheticDependencies,
+        List<ResolutionAwareRepository> repositories
+    ) {
+        if (!enabled
+            || params.isDependencyLockingEnabled()
+            || !legacyParams.getDependencySubstitutionRules().isEmpty()
+            || !legacyParams.getComponentSelectionRules().getRules().isEmpty()
+        ) {
+            return null;
+        }
+
+        Hasher hasher = Hashing.newHasher();
+        hasher.putInt(FORMAT_VERSION);
+        hasher.putString(GradleVersion.current().getVersion());
+        hasher.putString(params.getRootComponent().getId().getDisplayName());
+        hasher.putString(params.getRootComponent().getMetadata().getModuleVersionId().toString());
+        hasher.putHash(ResolvedGraphHashing.hashVariant(params.getRootVariant(), rootDependencies(params, syntheticDependencies)));
+        if (!ResolvedGraphHashing.putSchema(hasher, params.getRootComponent().getMetadata().getAttributesSchema(), rulesHasher)) {
+            LOGGER.debug("Not caching the resolved graph of {}: the attribute rules of the consumer cannot be fingerprinted", params.getRootVariant().getName());
+            return null;
+        }
+
+        hasher.putString(params.getModuleConflictResolutionStrategy().name());
+        hasher.putBoolean(params.isFailingOnDynamicVersions());
+        hasher.putBoolean(params.isFailingOnChangingVersions());
+
+        Map<ModuleIdentifier, ImmutableModuleReplacements.Replacement> replacements = params.getModuleReplacements().getReplacements();
+        hasher.putInt(replacements.size());
+        for (Map.Entry<ModuleIdentifier, ImmutableModuleReplacements.Replacement> entry : replacements.entrySet()) {
+            hasher.putString(entry.getKey().toString());
+            hasher.putString(entry.getValue().getTarget().toString());
+        }
+
+        hasher.putInt(moduleVersionLocks.size());
+        for (ResolutionParameters.ModuleVersionLock moduleVersionLock : moduleVersionLocks) {
+            hasher.putString(moduleVersionLock.getModuleId().toString());
+            hasher.putString(moduleVersionLock.getVersion());
+            hasher.putString(moduleVersionLock.getReason());
+            hasher.putBoolean(moduleVersionLock.isStrict());
+        }
+
+        hasher.putInt(repositories.size());
+        for (ResolutionAwareRepository repository : repositories) {
+            RepositoryDescriptor descriptor = repository.getDescriptor();
+            hasher.putString(descriptor.getName());
+            hasher.putString(descriptor.getId());
+            hasher.putString(descriptor.getType().name());
+            hasher.putString(descriptor.getProperties().toString());
+        }
+        return hasher.hash();
+    }
+
+    /**
+     * Creates a visitor that records the graph resolved with the given parameters, to {@link #store(HashCode, ResolvedGraphRecorder) store} it once it is complete.
+     */
+    public ResolvedGraphRecorder createRecorder(ResolutionParameters params, List<? extends DependencyMetadata> syntheticDependencies) {
+        return new ResolvedGraphRecorder(params.getRootVariant(), rootDependencies(params, syntheticDependencies), attributeDesugaring, versionSelectorScheme, rulesHasher);
+    }
+
+    /**
+     * Visits the graph stored with the given key, if there is one and it is still up-to-date.
+     *
+     * @return true when the graph has been visited, false when it needs to be resolved.
+     */
+    public boolean replay(
+        HashCode key,
+        ResolutionParameters params,
+        List<? extends DependencyMetadata> syntheticDependencies,
+        ComponentResolvers resolvers,
+        DependencyGraphVisitor visitor
+    ) {
+        byte[] bytes = getCache().getIfPresent(key);
+        if (bytes == null) {
+            return false;
+        }
+        ResolvedGraphRecord record;
+        try (StringDeduplicatingKryoBackedDecoder decoder = new StringDeduplicatingKryoBackedDecoder(new ByteArrayInputStream(bytes))) {
+            record = serializer.read(decoder);
+        } catch (Exception e) {
+            LOGGER.debug("Could not read the resolved graph of {}", params.getRootVariant().getName(), e);
+            return false;
+        }
+        return replay.replay(
+            record,
+            params.getRootComponent(),
+            params.getRootVariant(),
+            rootDependencies(params, syntheticDependencies),
+            resolvers.getComponentResolver(),
+            visitor
+        );
+    }
+
+    /**
+     * Stores the graph recorded by the given recorder, if it can be replayed.
+     */
+    public void store(HashCode key, ResolvedGraphRecorder recorder) {
+        ResolvedGraphRecord record = recorder.getRecord();
+        if (record == null) {
+            return;
+        }
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (StringDeduplicatingKryoBackedEncoder encoder = new StringDeduplicatingKryoBackedEncoder(bytes)) {
+            serializer.write(encoder, record);
+        } catch (Exception e) {
+            LOGGER.debug("Could not write the resolved graph", e);
+            return;
+        }
+        getCache().put(key, bytes.toByteArray());
+    }
+
+    private static List<? extends DependencyMetadata> rootDependencies(ResolutionParameters params, List<? extends DependencyMetadata> syntheticDependencies) {
+        List<? extends DependencyMetadata> dependencies = params.getRootVariant().getDependencies();
+        if (syntheticDependencies.isEmpty()) {
+            return dependencies;
+        }
+        // Same order as the root node of the graph
+        return ImmutableList.<DependencyMetadata>builderWithExpectedSize(dependencies.size() + syntheticDependencies.size())
+            .addAll(dependencies)
+            .addAll(syntheticDependencies)
+            .build();
+    }
+
+    private IndexedCache<HashCode, byte[]> getCache() {
+        synchronized (lock) {
+            if (cache == null) {
+                store = cacheBuilderFactory.createCacheBuilder("dependency-graphs")
+                    .withDisplayName("Resolved dependency graph cache")
+                    .withInitialLockMode(FileLockManager.LockMode.OnDemand)
+                    .open();
+                cache = store.createIndexedCache(IndexedCacheParameters.of("graphs", new HashCodeSerializer(), BaseSerializerFactory.BYTE_ARRAY_SERIALIZER));
+            }
+            return cache;
+        }
+    }
+
+    @Override
+    public void close() {
+        synchronized (lock) {
+            if (store != null) {
+                store.close();
+                store = null;
+                cache = null;
+            }
+        }
+    }
+}
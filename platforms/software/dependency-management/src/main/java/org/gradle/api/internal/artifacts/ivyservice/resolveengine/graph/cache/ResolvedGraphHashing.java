@@ -0,0 +1,225 @@
+/*
+ * Copyright 2025 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.artifacts.ivyservice.resolveengine.graph.cache;
+
+import org.gradle.api.artifacts.ModuleIdentifier;
+import org.gradle.api.artifacts.VersionConstraint;
+import org.gradle.api.artifacts.capability.CapabilitySelector;
+import org.gradle.api.artifacts.component.ComponentSelector;
+import org.gradle.api.artifacts.component.ModuleComponentSelector;
+import org.gradle.api.artifacts.component.ProjectComponentSelector;
+import org.gradle.api.attributes.Attribute;
+import org.gradle.api.internal.attributes.AttributeContainerInternal;
+import org.gradle.api.internal.attributes.ImmutableAttributes;
+import org.gradle.api.internal.attributes.immutable.ImmutableAttributesSchema;
+import org.gradle.api.internal.capabilities.ImmutableCapability;
+import org.gradle.internal.component.external.model.ImmutableCapabilities;
+import org.gradle.internal.component.model.ComponentGraphResolveMetadata;
+import org.gradle.internal.component.model.ComponentGraphResolveState;
+import org.gradle.internal.component.model.DependencyMetadata;
+import org.gradle.internal.component.model.ExcludeMetadata;
+import org.gradle.internal.component.model.ForcingDependencyMetadata;
+import org.gradle.internal.component.model.GraphSelectionCandidates;
+import org.gradle.internal.component.model.IvyArtifactName;
+import org.gradle.internal.component.model.LocalComponentDependencyMetadata;
+import org.gradle.internal.component.model.VariantGraphResolveState;
+import org.gradle.internal.hash.HashCode;
+import org.gradle.internal.hash.Hasher;
+import org.gradle.internal.hash.Hashing;
+import org.jspecify.annotations.Nullable;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Hashes the parts of components and variants that graph resolution reads, so that a recorded graph
+ * can be checked against the current metadata before it is reused.
+ */
+final class ResolvedGraphHashing {
+
+    private ResolvedGraphHashing() {
+    }
+
+    /**
+     * Hashes everything about a component that can influence which of its variants are selected.
+     *
+     * @return null when the attribute rules of the component cannot be hashed.
+     */
+    @Nullable
+    static HashCode hashComponent(ComponentGraphResolveState component, AttributeRulesHasher rulesHasher) {
+        Hasher hasher = Hashing.newHasher();
+        ComponentGraphResolveMetadata metadata = component.getMetadata();
+        hasher.putString(component.getId().getDisplayName());
+        hasher.putString(metadata.getModuleVersionId().toString());
+        hasher.putBoolean(metadata.isChanging());
+        putNullableString(hasher, metadata.getStatus());
+        hasher.putInt(metadata.getPlatformOwners().size());
+        if (!putSchema(hasher, metadata.getAttributesSchema(), rulesHasher)) {
+            return null;
+        }
+
+        GraphSelectionCandidates candidates = component.getCandidatesForGraphVariantSelection();
+        List<? extends VariantGraphResolveState> variants = candidates.getVariantsForAttributeMatching();
+        hasher.putInt(variants.size());
+        for (VariantGraphResolveState variant : variants) {
+            hasher.putString(variant.getName());
+            putAttributes(hasher, variant.getAttributes());
+            putCapabilities(hasher, variant.getCapabilities());
+        }
+        VariantGraphResolveState legacyVariant = candidates.getLegacyVariant();
+        putNullableString(hasher, legacyVariant == null ? null : legacyVariant.getName());
+        return hasher.hash();
+    }
+
+    /**
+     * Hashes a variant together with the dependencies the graph builder traverses from it.
+     */
+    static HashCode hashVariant(VariantGraphResolveState variant, List<? extends DependencyMetadata> dependencies) {
+        Hasher hasher = Hashing.newHasher();
+        hasher.putString(variant.getName());
+        hasher.putBoolean(variant.getMetadata().isTransitive());
+        hasher.putBoolean(variant.getMetadata().isExternalVariant());
+        putAttributes(hasher, variant.getAttributes());
+        putCapabilities(hasher, variant.getCapabilities());
+        putExcludes(hasher, variant.getExcludes());
+        hasher.putInt(dependencies.size());
+        for (DependencyMetadata dependency : dependencies) {
+            putDependency(hasher, dependency);
+        }
+        return hasher.hash();
+    }
+
+    static void putDependency(Hasher hasher, DependencyMetadata dependency) {
+        putSelector(hasher, dependency.getSelector());
+        hasher.putBoolean(dependency.isConstraint());
+        hasher.putBoolean(dependency.isTransitive());
+        hasher.putBoolean(dependency.isChanging());
+        hasher.putBoolean(dependency.isEndorsingStrictVersions());
+        hasher.putBoolean(dependency instanceof ForcingDependencyMetadata && ((ForcingDependencyMetadata) dependency).isForce());
+        putNullableString(hasher, dependency.getReason());
+        if (dependency instanceof LocalComponentDependencyMetadata) {
+            // Includes the target configuration, which has no accessor
+            hasher.putString(dependency.toString());
+        }
+        List<IvyArtifactName> artifacts = dependency.getArtifacts();
+        hasher.putInt(artifacts.size());
+        for (IvyArtifactName artifact : artifacts) {
+            hasher.putString(artifact.getDisplayName());
+        }
+        putExcludes(hasher, dependency.getExcludes());
+    }
+
+    static void putSelector(Hasher hasher, ComponentSelector selector) {
+        hasher.putString(selector.getClass().getName());
+        if (selector instanceof ModuleComponentSelector) {
+            ModuleComponentSelector moduleSelector = (ModuleComponentSelector) selector;
+            hasher.putString(moduleSelector.getGroup());
+            hasher.putString(moduleSelector.getModule());
+            VersionConstraint version = moduleSelector.getVersionConstraint();
+            hasher.putString(version.getRequiredVersion());
+            hasher.putString(version.getPreferredVersion());
+            hasher.putString(version.getStrictVersion());
+            putNullableString(hasher, version.getBranch());
+            hasher.putInt(version.getRejectedVersions().size());
+            for (String rejected : version.getRejectedVersions()) {
+                hasher.putString(rejected);
+            }
+        } else if (selector instanceof ProjectComponentSelector) {
+            ProjectComponentSelector projectSelector = (ProjectComponentSelector) selector;
+            hasher.putString(projectSelector.getBuildPath());
+            hasher.putString(projectSelector.getProjectPath());
+        } else {
+            hasher.putString(selector.getDisplayName());
+        }
+        putAttributes(hasher, ((AttributeContainerInternal) selector.getAttributes()).asImmutable());
+        List<String> capabilitySelectors = new ArrayList<>();
+        for (CapabilitySelector capabilitySelector : selector.getCapabilitySelectors()) {
+            capabilitySelectors.add(capabilitySelector.getDisplayName());
+        }
+        capabilitySelectors.sort(Comparator.naturalOrder());
+        hasher.putInt(capabilitySelectors.size());
+        for (String capabilitySelector : capabilitySelectors) {
+            hasher.putString(capabilitySelector);
+        }
+    }
+
+    static void putAttributes(Hasher hasher, ImmutableAttributes attributes) {
+        List<Attribute<?>> keys = new ArrayList<>(attributes.keySet());
+        keys.sort(Comparator.comparing(Attribute::getName));
+        hasher.putInt(keys.size());
+        for (Attribute<?> key : keys) {
+            hasher.putString(key.getName());
+            hasher.putString(key.getType().getName());
+            hasher.putString(String.valueOf(attributes.getAttribute(key)));
+        }
+    }
+
+    /**
+     * Hashes the attributes of a schema together with their rules.
+     *
+     * @return false when the rules of the schema cannot be hashed.
+     */
+    static boolean putSchema(Hasher hasher, ImmutableAttributesSchema schema, AttributeRulesHasher rulesHasher) {
+        List<Attribute<?>> attributes = new ArrayList<>(schema.getAttributes());
+        attributes.sort(Comparator.comparing(Attribute::getName));
+        hasher.putInt(attributes.size());
+        for (Attribute<?> attribute : attributes) {
+            hasher.putString(attribute.getName());
+            hasher.putString(attribute.getType().getName());
+            if (!rulesHasher.putRules(hasher, schema.getCompatibilityRuleActions(attribute))
+                || !rulesHasher.putRules(hasher, schema.getDisambiguationRuleActions(attribute))) {
+                return false;
+            }
+        }
+        List<Attribute<?>> precedence = schema.getAttributeDisambiguationPrecedence();
+        hasher.putInt(precedence.size());
+        for (Attribute<?> attribute : precedence) {
+            hasher.putString(attribute.getName());
+        }
+        return true;
+    }
+
+    private static void putCapabilities(Hasher hasher, ImmutableCapabilities capabilities) {
+        hasher.putInt(capabilities.asSet().size());
+        for (ImmutableCapability capability : capabilities) {
+            hasher.putString(capability.getGroup());
+            hasher.putString(capability.getName());
+            putNullableString(hasher, capability.getVersion());
+        }
+    }
+
+    private static void putExcludes(Hasher hasher, List<? extends ExcludeMetadata> excludes) {
+        hasher.putInt(excludes.size());
+        for (ExcludeMetadata exclude : excludes) {
+            ModuleIdentifier moduleId = exclude.getModuleId();
+            hasher.putString(moduleId.getGroup());
+            hasher.putString(moduleId.getName());
+            IvyArtifactName artifact = exclude.getArtifact();
+            putNullableString(hasher, artifact == null ? null : artifact.getDisplayName());
+            putNullableString(hasher, exclude.getMatcher());
+        }
+    }
+
+    static void putNullableString(Hasher hasher, @Nullable String value) {
+        if (value == null) {
+            hasher.putNull();
+        } else {
+            hasher.putString(value);
+        }
+    }
+}
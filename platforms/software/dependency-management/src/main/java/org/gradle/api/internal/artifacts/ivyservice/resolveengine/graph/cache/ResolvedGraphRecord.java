@@ -0,0 +1,109 @@
+/*
+ * Copyright 2025 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.artifacts.ivyservice.resolveengine.graph.cache;
+
+import org.gradle.api.artifacts.component.ComponentIdentifier;
+import org.gradle.api.artifacts.result.ComponentSelectionReason;
+import org.gradle.internal.hash.HashCode;
+
+import java.util.List;
+
+/**
+ * The shape of a resolved graph, as recorded by {@link ResolvedGraphRecorder} and replayed by {@link ResolvedGraphReplay}.
+ * <p>
+ * Components, nodes and edges refer to each other by their index in this record.
+ * Metadata is not part of the record: components are resolved again on replay, and their
+ * variants and dependencies are located by name and position, then checked against the recorded hashes.
+ */
+final class ResolvedGraphRecord {
+    final int rootNode;
+    final List<ComponentRecord> components;
+    /**
+     * The nodes of the graph, in the order they were visited.
+     */
+    final List<NodeRecord> nodes;
+    final List<EdgeRecord> edges;
+    /**
+     * The nodes whose edges were visited, in the order they were visited.
+     */
+    final int[] edgeVisitOrder;
+
+    ResolvedGraphRecord(int rootNode, List<ComponentRecord> components, List<NodeRecord> nodes, List<EdgeRecord> edges, int[] edgeVisitOrder) {
+        this.rootNode = rootNode;
+        this.components = components;
+        this.nodes = nodes;
+        this.edges = edges;
+        this.edgeVisitOrder = edgeVisitOrder;
+    }
+
+    static final class ComponentRecord {
+        final ComponentIdentifier id;
+        final ComponentSelectionReason selectionReason;
+        /**
+         * The hash of the selection candidates of the component. Not calculated for the root component.
+         */
+        final HashCode hash;
+        final int[] selectedNodes;
+
+        ComponentRecord(ComponentIdentifier id, ComponentSelectionReason selectionReason, HashCode hash, int[] selectedNodes) {
+            this.id = id;
+            this.selectionReason = selectionReason;
+            this.hash = hash;
+            this.selectedNodes = selectedNodes;
+        }
+    }
+
+    static final class NodeRecord {
+        final int component;
+        final String variantName;
+        final HashCode hash;
+        final int[] outgoingEdges;
+        final int[] incomingEdges;
+
+        NodeRecord(int component, String variantName, HashCode hash, int[] outgoingEdges, int[] incomingEdges) {
+            this.component = component;
+            this.variantName = variantName;
+            this.hash = hash;
+            this.outgoingEdges = outgoingEdges;
+            this.incomingEdges = incomingEdges;
+        }
+    }
+
+    static final class EdgeRecord {
+        final int from;
+        /**
+         * The position of the dependency in the dependencies of the source node.
+         */
+        final int dependency;
+        final int selectedComponent;
+        /**
+         * The index of the selected node, or -1 when the edge does not select a node.
+         */
+        final int selectedNode;
+        final boolean transitive;
+        final ComponentSelectionReason reason;
+
+        EdgeRecord(int from, int dependency, int selectedComponent, int selectedNode, boolean transitive, ComponentSelectionReason reason) {
+            this.from = from;
+            this.dependency = dependency;
+            this.selectedComponent = selectedComponent;
+            this.selectedNode = selectedNode;
+            this.transitive = transitive;
+            this.reason = reason;
+        }
+    }
+}
@@ -0,0 +1,135 @@
+/*
+ * Copyright 2025 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.artifacts.ivyservice.resolveengine.graph.cache;
+
+import org.gradle.api.artifacts.component.ComponentIdentifier;
+import org.gradle.api.artifacts.result.ComponentSelectionReason;
+import org.gradle.api.internal.artifacts.ivyservice.resolveengine.result.ComponentIdentifierSerializer;
+import org.gradle.api.internal.artifacts.ivyservice.resolveengine.result.ComponentSelectionDescriptorFactory;
+import org.gradle.api.internal.artifacts.ivyservice.resolveengine.result.ComponentSelectionReasonSerializer;
+import org.gradle.internal.hash.HashCode;
+import org.gradle.internal.serialize.AbstractSerializer;
+import org.gradle.internal.serialize.Decoder;
+import org.gradle.internal.serialize.Encoder;
+import org.gradle.internal.serialize.HashCodeSerializer;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Serializes a {@link ResolvedGraphRecord}.
+ */
+final class ResolvedGraphRecordSerializer extends AbstractSerializer<ResolvedGraphRecord> {
+    private final ComponentIdentifierSerializer componentIdSerializer = new ComponentIdentifierSerializer();
+    private final HashCodeSerializer hashCodeSerializer = new HashCodeSerializer();
+    private final ComponentSelectionReasonSerializer reasonSerializer;
+
+    ResolvedGraphRecordSerializer(ComponentSelectionDescriptorFactory componentSelectionDescriptorFactory) {
+        this.reasonSerializer = new ComponentSelectionReasonSerializer(componentSelectionDescriptorFactory);
+    }
+
+    @Override
+    public ResolvedGraphRecord read(Decoder decoder) throws IOException {
+        int rootNode = decoder.readSmallInt();
+
+        int componentCount = decoder.readSmallInt();
+        List<ResolvedGraphRecord.ComponentRecord> components = new ArrayList<>(componentCount);
+        for (int i = 0; i < componentCount; i++) {
+            ComponentIdentifier id = componentIdSerializer.read(decoder);
+            ComponentSelectionReason reason = reasonSerializer.read(decoder);
+            HashCode hash = hashCodeSerializer.read(decoder);
+            int[] selectedNodes = readIndexes(decoder);
+            components.add(new ResolvedGraphRecord.ComponentRecord(id, reason, hash, selectedNodes));
+        }
+
+        int nodeCount = decoder.readSmallInt();
+        List<ResolvedGraphRecord.NodeRecord> nodes = new ArrayList<>(nodeCount);
+        for (int i = 0; i < nodeCount; i++) {
+            int component = decoder.readSmallInt();
+            String variantName = decoder.readString();
+            HashCode hash = hashCodeSerializer.read(decoder);
+            int[] outgoingEdges = readIndexes(decoder);
+            int[] incomingEdges = readIndexes(decoder);
+            nodes.add(new ResolvedGraphRecord.NodeRecord(component, variantName, hash, outgoingEdges, incomingEdges));
+        }
+
+        int edgeCount = decoder.readSmallInt();
+        List<ResolvedGraphRecord.EdgeRecord> edges = new ArrayList<>(edgeCount);
+        for (int i = 0; i < edgeCount; i++) {
+            int from = decoder.readSmallInt();
+            int dependency = decoder.readSmallInt();
+            int selectedComponent = decoder.readSmallInt();
+            int selectedNode = decoder.readInt();
+            boolean transitive = decoder.readBoolean();
+            ComponentSelectionReason reason = reasonSerializer.read(decoder);
+            edges.add(new ResolvedGraphRecord.EdgeRecord(from, dependency, selectedComponent, selectedNode, transitive, reason));
+        }
+
+        int[] edgeVisitOrder = readIndexes(decoder);
+        return new ResolvedGraphRecord(rootNode, components, nodes, edges, edgeVisitOrder);
+    }
+
+    @Override
+    public void write(Encoder encoder, ResolvedGraphRecord value) throws Exception {
+        encoder.writeSmallInt(value.rootNode);
+
+        encoder.writeSmallInt(value.components.size());
+        for (ResolvedGraphRecord.ComponentRecord component : value.components) {
+            componentIdSerializer.write(encoder, component.id);
+            reasonSerializer.write(encoder, component.selectionReason);
+            hashCodeSerializer.write(encoder, component.hash);
+            writeIndexes(encoder, component.selectedNodes);
+        }
+
+        encoder.writeSmallInt(value.nodes.size());
+        for (ResolvedGraphRecord.NodeRecord node : value.nodes) {
+            encoder.writeSmallInt(node.component);
+            encoder.writeString(node.variantName);
+            hashCodeSerializer.write(encoder, node.hash);
+            writeIndexes(encoder, node.outgoingEdges);
+            writeIndexes(encoder, node.incomingEdges);
+        }
+
+        encoder.writeSmallInt(value.edges.size());
+        for (ResolvedGraphRecord.EdgeRecord edge : value.edges) {
+            encoder.writeSmallInt(edge.from);
+            encoder.writeSmallInt(edge.dependency);
+            encoder.writeSmallInt(edge.selectedComponent);
+            encoder.writeInt(edge.selectedNode);
+            encoder.writeBoolean(edge.transitive);
+            reasonSerializer.write(encoder, edge.reason);
+        }
+
+        writeIndexes(encoder, value.edgeVisitOrder);
+    }
+
+    private static int[] readIndexes(Decoder decoder) throws IOException {
+        int[] indexes = new int[decoder.readSmallInt()];
+        for (int i = 0; i < indexes.length; i++) {
+            indexes[i] = decoder.readSmallInt();
+        }
+        return indexes;
+    }
+
+    private static void writeIndexes(Encoder encoder, int[] indexes) throws IOException {
+        encoder.writeSmallInt(indexes.length);
+        for (int index : indexes) {
+            encoder.writeSmallInt(index);
+        }
+    }
+}
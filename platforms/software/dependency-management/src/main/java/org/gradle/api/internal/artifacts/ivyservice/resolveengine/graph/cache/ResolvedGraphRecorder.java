@@ -0,0 +1,344 @@
+/*
+ * Copyright 2025 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.artifacts.ivyservice.resolveengine.graph.cache;
+
+import com.google.common.collect.ImmutableList;
+import org.gradle.api.artifacts.VersionConstraint;
+import org.gradle.api.artifacts.component.ComponentSelector;
+import org.gradle.api.artifacts.component.ModuleComponentSelector;
+import org.gradle.api.artifacts.result.ComponentSelectionCause;
+import org.gradle.api.artifacts.result.ComponentSelectionDescriptor;
+import org.gradle.api.artifacts.result.ComponentSelectionReason;
+import org.gradle.api.internal.artifacts.ivyservice.ivyresolve.strategy.VersionSelectorScheme;
+import org.gradle.api.internal.artifacts.ivyservice.resolveengine.graph.DependencyGraphComponent;
+import org.gradle.api.internal.artifacts.ivyservice.resolveengine.graph.DependencyGraphEdge;
+import org.gradle.api.internal.artifacts.ivyservice.resolveengine.graph.DependencyGraphNode;
+import org.gradle.api.internal.artifacts.ivyservice.resolveengine.graph.DependencyGraphVisitor;
+import org.gradle.api.internal.artifacts.ivyservice.resolveengine.graph.ResolvedGraphVariant;
+import org.gradle.api.internal.artifacts.ivyservice.resolveengine.graph.RootGraphNode;
+import org.gradle.api.internal.artifacts.ivyservice.resolveengine.graph.conflicts.VersionConflictResolutionDetails;
+import org.gradle.api.internal.artifacts.ivyservice.resolveengine.result.ComponentSelectionDescriptorInternal;
+import org.gradle.api.internal.attributes.AttributeContainerInternal;
+import org.gradle.api.internal.attributes.AttributeDesugaring;
+import org.gradle.internal.component.external.model.ExternalModuleComponentGraphResolveState;
+import org.gradle.internal.component.local.model.LocalComponentGraphResolveState;
+import org.gradle.internal.component.local.model.LocalVariantGraphResolveState;
+import org.gradle.internal.component.model.ComponentGraphResolveState;
+import org.gradle.internal.component.model.DependencyMetadata;
+import org.gradle.internal.component.model.VariantGraphResolveState;
+import org.gradle.internal.hash.HashCode;
+import org.jspecify.annotations.Nullable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Records the shape of a resolved graph while it is visited, so that it can be replayed by later builds.
+ * <p>
+ * Only graphs that can be reconstructed from their declared dependencies and the metadata of their components
+ * are recorded. Graphs with failures, virtual platforms, external variants, changing or dynamic versions,
+ * substituted dependencies or selections made by rules are not recorded.
+ */
+public class ResolvedGraphRecorder implements DependencyGraphVisitor {
+    private static final Logger LOGGER = LoggerFactory.getLogger(ResolvedGraphRecorder.class);
+
+    private final LocalVariantGraphResolveState rootVariant;
+    private final List<? extends DependencyMetadata> rootDependencies;
+    private final AttributeDesugaring attributeDesugaring;
+    private final VersionSelectorScheme versionSelectorScheme;
+    private final AttributeRulesHasher rulesHasher;
+
+    private final List<DependencyGraphNode> nodes = new ArrayList<>();
+    private final Map<Long, Integer> nodeIndexes = new HashMap<>();
+    private final List<Integer> edgeVisitOrder = new ArrayList<>();
+    private @Nullable String notReplayableReason;
+    private @Nullable ResolvedGraphRecord record;
+
+    ResolvedGraphRecorder(
+        LocalVariantGraphResolveState rootVariant,
+        List<? extends DependencyMetadata> rootDependencies,
+        AttributeDesugaring attributeDesugaring,
+        VersionSelectorScheme versionSelectorScheme,
+        AttributeRulesHasher rulesHasher
+    ) {
+        this.rootVariant = rootVariant;
+        this.rootDependencies = rootDependencies;
+        this.attributeDesugaring = attributeDesugaring;
+        this.versionSelectorScheme = versionSelectorScheme;
+        this.rulesHasher = rulesHasher;
+    }
+
+    @Override
+    public void start(RootGraphNode root) {
+        if (root.getResolveOptimizations().mayHaveVirtualPlatforms()) {
+            notReplayable("the graph may contain virtual platforms");
+        }
+    }
+
+    @Override
+    public void visitNode(DependencyGraphNode node) {
+        nodeIndexes.put(node.getNodeId(), nodes.size());
+        nodes.add(node);
+    }
+
+    @Override
+    public void visitEdges(DependencyGraphNode node) {
+        Integer index = nodeIndexes.get(node.getNodeId());
+        if (index == null) {
+            notReplayable("edges were visited for a node that is not part of the graph");
+        } else {
+            edgeVisitOrder.add(index);
+        }
+    }
+
+    @Override
+    public void finish(RootGraphNode root) {
+        if (notReplayableReason == null) {
+            record = buildRecord(root);
+        }
+        if (record == null) {
+            LOGGER.debug("Not caching the resolved graph of {}: {}", rootVariant.getName(), notReplayableReason);
+        }
+    }
+
+    /**
+     * Returns the recorded graph, or null when the graph cannot be replayed.
+     */
+    @Nullable
+    ResolvedGraphRecord getRecord() {
+        return record;
+    }
+
+    @Nullable
+    private ResolvedGraphRecord buildRecord(RootGraphNode root) {
+        Integer rootNode = nodeIndexes.get(root.getNodeId());
+        if (rootNode == null) {
+            return notReplayable("the root node was not visited");
+        }
+
+        // Components
+        Map<DependencyGraphComponent, Integer> componentIndexes = new IdentityHashMap<>();
+        Map<Long, Integer> componentIndexesByResultId = new HashMap<>();
+        List<DependencyGraphComponent> components = new ArrayList<>();
+        for (DependencyGraphNode node : nodes) {
+            DependencyGraphComponent owner = node.getOwner();
+            if (!componentIndexes.containsKey(owner)) {
+                componentIndexes.put(owner, components.size());
+                componentIndexesByResultId.put(owner.getResultId(), components.size());
+                components.add(owner);
+            }
+        }
+        DependencyGraphComponent rootComponent = root.getOwner();
+
+        List<ResolvedGraphRecord.ComponentRecord> componentRecords = new ArrayList<>(components.size());
+        for (DependencyGraphComponent component : components) {
+            ComponentGraphResolveState state = component.getResolveState();
+            boolean isRoot = component == rootComponent;
+            if (!isRoot) {
+                if (!(state instanceof ExternalModuleComponentGraphResolveState) && !(state instanceof LocalComponentGraphResolveState)) {
+                    return notReplayable(component.getComponentId() + " is not a module or project component");
+                }
+                if (state.getMetadata().isChanging()) {
+                    return notReplayable(component.getComponentId() + " is changing");
+                }
+                if (!state.getId().equals(component.getComponentId()) || !state.getMetadata().getModuleVersionId().equals(component.getModuleVersion())) {
+                    return notReplayable(component.getComponentId() + " does not match its metadata");
+                }
+            }
+            if (!isReplayable(component.getSelectionReason())) {
+                return notReplayable(component.getComponentId() + " was selected by a rule or by a conflict that is not a version conflict");
+            }
+            List<ResolvedGraphVariant> selectedVariants = component.getSelectedVariants();
+            int[] selectedNodes = new int[selectedVariants.size()];
+            for (int i = 0; i < selectedNodes.length; i++) {
+                Integer index = nodeIndexes.get(selectedVariants.get(i).getNodeId());
+                if (index == null) {
+                    return notReplayable("a selected variant of " + component.getComponentId() + " is not part of the graph");
+                }
+                selectedNodes[i] = index;
+            }
+            HashCode hash = isRoot ? ResolvedGraphHashing.hashVariant(rootVariant, rootDependencies) : ResolvedGraphHashing.hashComponent(state, rulesHasher);
+            if (hash == null) {
+                return notReplayable("the attribute rules of " + component.getComponentId() + " cannot be fingerprinted");
+            }
+            componentRecords.add(new ResolvedGraphRecord.ComponentRecord(component.getComponentId(), component.getSelectionReason(), hash, selectedNodes));
+        }
+
+        // Outgoing edges
+        Map<DependencyGraphEdge, Integer> edgeIndexes = new IdentityHashMap<>();
+        List<ResolvedGraphRecord.EdgeRecord> edgeRecords = new ArrayList<>();
+        List<int[]> outgoingEdges = new ArrayList<>(nodes.size());
+        for (int nodeIndex = 0; nodeIndex < nodes.size(); nodeIndex++) {
+            DependencyGraphNode node = nodes.get(nodeIndex);
+            List<? extends DependencyMetadata> dependencies = dependenciesOf(node, rootNode == nodeIndex);
+            Collection<? extends DependencyGraphEdge> outgoing = node.getOutgoingEdges();
+            int[] edgeIndexesOfNode = new int[outgoing.size()];
+            int i = 0;
+            for (DependencyGraphEdge edge : outgoing) {
+                if (edgeIndexes.containsKey(edge) || edge.getFrom() != node) {
+                    return notReplayable("an edge of " + node + " is shared with another node");
+                }
+                ResolvedGraphRecord.EdgeRecord edgeRecord = recordEdge(nodeIndex, dependencies, edge, componentIndexesByResultId);
+                if (edgeRecord == null) {
+                    return null;
+                }
+                edgeIndexes.put(edge, edgeRecords.size());
+                edgeIndexesOfNode[i++] = edgeRecords.size();
+                edgeRecords.add(edgeRecord);
+            }
+            outgoingEdges.add(edgeIndexesOfNode);
+        }
+
+        // Nodes, with their incoming edges
+        List<ResolvedGraphRecord.NodeRecord> nodeRecords = new ArrayList<>(nodes.size());
+        for (int nodeIndex = 0; nodeIndex < nodes.size(); nodeIndex++) {
+            DependencyGraphNode node = nodes.get(nodeIndex);
+            if (!node.isSelected() || node.getExternalVariant() != null) {
+                return notReplayable(node + " is not selected or is an external variant");
+            }
+            VariantGraphResolveState variant = node.getResolveState();
+            if (nodeIndex == rootNode) {
+                if (variant != rootVariant) {
+                    return notReplayable("the root node does not use the root variant");
+                }
+            } else {
+                VariantGraphResolveState located = ResolvedGraphReplay.findVariant(node.getOwner().getResolveState(), variant.getName());
+                if (located == null || located.getInstanceId() != variant.getInstanceId()) {
+                    return notReplayable(node + " cannot be located by its name");
+                }
+            }
+            Collection<? extends DependencyGraphEdge> incoming = node.getIncomingEdges();
+            int[] incomingEdges = new int[incoming.size()];
+            int i = 0;
+            for (DependencyGraphEdge edge : incoming) {
+                Integer edgeIndex = edgeIndexes.get(edge);
+                if (edgeIndex == null) {
+                    return notReplayable("an incoming edge of " + node + " does not start from a node of the graph");
+                }
+                incomingEdges[i++] = edgeIndex;
+            }
+            HashCode hash = ResolvedGraphHashing.hashVariant(variant, dependenciesOf(node, nodeIndex == rootNode));
+            nodeRecords.add(new ResolvedGraphRecord.NodeRecord(componentIndexes.get(node.getOwner()), variant.getName(), hash, outgoingEdges.get(nodeIndex), incomingEdges));
+        }
+
+        int[] edgeVisitOrder = this.edgeVisitOrder.stream().mapToInt(Integer::intValue).toArray();
+        return new ResolvedGraphRecord(rootNode, ImmutableList.copyOf(componentRecords), ImmutableList.copyOf(nodeRecords), ImmutableList.copyOf(edgeRecords), edgeVisitOrder);
+    }
+
+    private ResolvedGraphRecord.@Nullable EdgeRecord recordEdge(
+        int from,
+        List<? extends DependencyMetadata> dependencies,
+        DependencyGraphEdge edge,
+        Map<Long, Integer> componentIndexesByResultId
+    ) {
+        if (edge.getFailure() != null || edge.isTargetVirtualPlatform()) {
+            return notReplayable("the graph has failed edges or edges to virtual platforms");
+        }
+        DependencyMetadata dependency = edge.getDependencyMetadata();
+        int dependencyIndex = indexOf(dependencies, dependency);
+        if (dependencyIndex < 0) {
+            return notReplayable(dependency.getSelector() + " was substituted");
+        }
+        if (!dependency.getArtifacts().isEmpty() || dependency.isChanging() || edge.isConstraint() != dependency.isConstraint() || isDynamic(dependency.getSelector())) {
+            return notReplayable(dependency.getSelector() + " requests artifacts, is changing or uses a dynamic version");
+        }
+        if (edge.getExclusions().mayExcludeArtifacts()) {
+            return notReplayable(dependency.getSelector() + " excludes artifacts");
+        }
+        ComponentSelector selector = dependency.getSelector();
+        if (!edge.getAttributes().equals(((AttributeContainerInternal) selector.getAttributes()).asImmutable())) {
+            return notReplayable(dependency.getSelector() + " has attributes from constraints");
+        }
+        if (!edge.getRequested().equals(attributeDesugaring.desugarSelector(selector))) {
+            return notReplayable(dependency.getSelector() + " was substituted");
+        }
+        ComponentSelectionReason reason = edge.getReason();
+        if (reason == null || !isReplayable(reason)) {
+            return notReplayable(dependency.getSelector() + " was selected by a rule");
+        }
+        Long selected = edge.getSelected();
+        Integer selectedComponent = selected == null ? null : componentIndexesByResultId.get(selected);
+        if (selectedComponent == null) {
+            return notReplayable(dependency.getSelector() + " does not select a component of the graph");
+        }
+        int selectedNode = -1;
+        Long selectedVariant = edge.getSelectedVariant();
+        if (selectedVariant != null) {
+            Integer index = nodeIndexes.get(selectedVariant);
+            if (index == null) {
+                return notReplayable(dependency.getSelector() + " does not select a node of the graph");
+            }
+            selectedNode = index;
+        }
+        return new ResolvedGraphRecord.EdgeRecord(from, dependencyIndex, selectedComponent, selectedNode, edge.isTransitive(), reason);
+    }
+
+    private List<? extends DependencyMetadata> dependenciesOf(DependencyGraphNode node, boolean isRoot) {
+        return isRoot ? rootDependencies : node.getResolveState().getDependencies();
+    }
+
+    private boolean isDynamic(ComponentSelector selector) {
+        if (!(selector instanceof ModuleComponentSelector)) {
+            return false;
+        }
+        VersionConstraint version = ((ModuleComponentSelector) selector).getVersionConstraint();
+        return version.getBranch() != null
+            || isDynamic(version.getRequiredVersion())
+            || isDynamic(version.getPreferredVersion())
+            || isDynamic(version.getStrictVersion());
+    }
+
+    private boolean isDynamic(String version) {
+        return !version.isEmpty() && versionSelectorScheme.parseSelector(version).isDynamic();
+    }
+
+    private static boolean isReplayable(ComponentSelectionReason reason) {
+        for (ComponentSelectionDescriptor descriptor : reason.getDescriptions()) {
+            ComponentSelectionCause cause = descriptor.getCause();
+            if (cause == ComponentSelectionCause.SELECTED_BY_RULE || cause == ComponentSelectionCause.COMPOSITE_BUILD) {
+                return false;
+            }
+            if (cause == ComponentSelectionCause.CONFLICT_RESOLUTION
+                && !(((ComponentSelectionDescriptorInternal) descriptor).getDescribable() instanceof VersionConflictResolutionDetails)) {
+                // Capability conflicts and module replacements
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static int indexOf(List<? extends DependencyMetadata> dependencies, DependencyMetadata dependency) {
+        for (int i = 0; i < dependencies.size(); i++) {
+            if (dependencies.get(i) == dependency) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    @Nullable
+    private <T> T notReplayable(String reason) {
+        notReplayableReason = reason;
+        return null;
+    }
+}
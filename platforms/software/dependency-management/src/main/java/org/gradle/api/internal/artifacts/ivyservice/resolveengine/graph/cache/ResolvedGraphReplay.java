@@ -0,0 +1,576 @@
+/*
+ * Copyright 2025 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.artifacts.ivyservice.resolveengine.graph.cache;
+
+import com.google.common.collect.ImmutableList;
+import org.gradle.api.artifacts.ModuleVersionIdentifier;
+import org.gradle.api.artifacts.component.ComponentIdentifier;
+import org.gradle.api.artifacts.component.ComponentSelector;
+import org.gradle.api.artifacts.result.ComponentSelectionReason;
+import org.gradle.api.internal.artifacts.ivyservice.resolveengine.ComponentResolutionState;
+import org.gradle.api.internal.artifacts.ivyservice.resolveengine.excludes.specs.ExcludeSpec;
+import org.gradle.api.internal.artifacts.ivyservice.resolveengine.graph.DependencyGraphComponent;
+import org.gradle.api.internal.artifacts.ivyservice.resolveengine.graph.DependencyGraphEdge;
+import org.gradle.api.internal.artifacts.ivyservice.resolveengine.graph.DependencyGraphNode;
+import org.gradle.api.internal.artifacts.ivyservice.resolveengine.graph.DependencyGraphSelector;
+import org.gradle.api.internal.artifacts.ivyservice.resolveengine.graph.DependencyGraphVisitor;
+import org.gradle.api.internal.artifacts.ivyservice.resolveengine.graph.ResolvedGraphVariant;
+import org.gradle.api.internal.artifacts.ivyservice.resolveengine.graph.RootGraphNode;
+import org.gradle.api.internal.artifacts.ivyservice.resolveengine.graph.builder.ResolveOptimizations;
+import org.gradle.api.internal.artifacts.ivyservice.resolveengine.graph.builder.VirtualPlatformState;
+import org.gradle.api.internal.artifacts.ivyservice.resolveengine.result.ComponentSelectionDescriptorInternal;
+import org.gradle.api.internal.attributes.AttributeContainerInternal;
+import org.gradle.api.internal.attributes.AttributeDesugaring;
+import org.gradle.api.internal.attributes.ImmutableAttributes;
+import org.gradle.internal.component.external.model.ivy.IvyComponentGraphResolveState;
+import org.gradle.internal.component.local.model.LocalComponentGraphResolveState;
+import org.gradle.internal.component.local.model.LocalFileDependencyMetadata;
+import org.gradle.internal.component.local.model.LocalVariantGraphResolveMetadata;
+import org.gradle.internal.component.local.model.LocalVariantGraphResolveState;
+import org.gradle.internal.component.model.ComponentGraphResolveMetadata;
+import org.gradle.internal.component.model.ComponentGraphResolveState;
+import org.gradle.internal.component.model.ComponentIdGenerator;
+import org.gradle.internal.component.model.DefaultComponentOverrideMetadata;
+import org.gradle.internal.component.model.DependencyMetadata;
+import org.gradle.internal.component.model.GraphSelectionCandidates;
+import org.gradle.internal.component.model.VariantGraphResolveMetadata;
+import org.gradle.internal.component.model.VariantGraphResolveState;
+import org.gradle.internal.resolve.ModuleVersionResolveException;
+import org.gradle.internal.resolve.resolver.ComponentMetaDataResolver;
+import org.gradle.internal.resolve.result.DefaultBuildableComponentResolveResult;
+import org.jspecify.annotations.Nullable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Replays a {@link ResolvedGraphRecord} to a {@link DependencyGraphVisitor}, in place of resolving the graph.
+ * <p>
+ * The components of the graph are resolved again and the recorded variants are located in them by name.
+ * The graph is only replayed when the metadata of every component and variant still hashes to the recorded value,
+ * so the visitor receives the same graph that resolving it again would have produced.
+ */
+final class ResolvedGraphReplay {
+    private static final Logger LOGGER = LoggerFactory.getLogger(ResolvedGraphReplay.class);
+
+    private final ComponentIdGenerator idGenerator;
+    private final AttributeDesugaring attributeDesugaring;
+    private final ExcludeSpec nothingExcluded;
+    private final AttributeRulesHasher rulesHasher;
+
+    ResolvedGraphReplay(ComponentIdGenerator idGenerator, AttributeDesugaring attributeDesugaring, ExcludeSpec nothingExcluded, AttributeRulesHasher rulesHasher) {
+        this.idGenerator = idGenerator;
+        this.rulesHasher = rulesHasher;
+        this.attributeDesugaring = attributeDesugaring;
+        this.nothingExcluded = nothingExcluded;
+    }
+
+    /**
+     * Visits the recorded graph.
+     *
+     * @return false when the graph no longer matches the metadata of its components. Nothing is visited in this case.
+     */
+    boolean replay(
+        ResolvedGraphRecord record,
+        LocalComponentGraphResolveState rootComponent,
+        LocalVariantGraphResolveState rootVariant,
+        List<? extends DependencyMetadata> rootDependencies,
+        ComponentMetaDataResolver componentResolver,
+        DependencyGraphVisitor visitor
+    ) {
+        ReplayedNode[] nodes;
+        try {
+            nodes = reconstruct(record, rootComponent, rootVariant, rootDependencies, componentResolver);
+        } catch (RuntimeException e) {
+            LOGGER.debug("Could not replay the resolved graph of {}", rootVariant.getName(), e);
+            return false;
+        }
+        if (nodes == null) {
+            return false;
+        }
+
+        ReplayedRootNode root = (ReplayedRootNode) nodes[record.rootNode];
+        visitor.start(root);
+        for (ReplayedNode node : nodes) {
+            visitor.visitNode(node);
+        }
+        for (int node : record.edgeVisitOrder) {
+            visitor.visitEdges(nodes[node]);
+        }
+        visitor.finish(root);
+        return true;
+    }
+
+    private ReplayedNode @Nullable [] reconstruct(
+        ResolvedGraphRecord record,
+        LocalComponentGraphResolveState rootComponent,
+        LocalVariantGraphResolveState rootVariant,
+        List<? extends DependencyMetadata> rootDependencies,
+        ComponentMetaDataResolver componentResolver
+    ) {
+        int rootComponentIndex = record.nodes.get(record.rootNode).component;
+
+        ReplayedComponent[] components = new ReplayedComponent[record.components.size()];
+        for (int i = 0; i < components.length; i++) {
+            ResolvedGraphRecord.ComponentRecord componentRecord = record.components.get(i);
+            ComponentGraphResolveState state;
+            String repositoryName = null;
+            if (i == rootComponentIndex) {
+                state = rootComponent;
+                if (!rootComponent.getId().equals(componentRecord.id) || !ResolvedGraphHashing.hashVariant(rootVariant, rootDependencies).equals(componentRecord.hash)) {
+                    return outdated(rootVariant, "the root component has changed");
+                }
+            } else {
+                DefaultBuildableComponentResolveResult result = new DefaultBuildableComponentResolveResult();
+                componentResolver.resolve(componentRecord.id, DefaultComponentOverrideMetadata.EMPTY, result);
+                if (!result.hasResult() || result.getFailure() != null) {
+                    return outdated(rootVariant, componentRecord.id + " could not be resolved");
+                }
+                state = result.getState();
+                repositoryName = result.getGraphState().getRepositoryName();
+                if (!state.getId().equals(componentRecord.id) || state.getMetadata().isChanging() || !componentRecord.hash.equals(ResolvedGraphHashing.hashComponent(state, rulesHasher))) {
+                    return outdated(rootVariant, componentRecord.id + " has changed");
+                }
+            }
+            components[i] = new ReplayedComponent(idGenerator.nextComponentId(), state, repositoryName, componentRecord.selectionReason);
+        }
+
+        ReplayedNode[] nodes = new ReplayedNode[record.nodes.size()];
+        for (int i = 0; i < nodes.length; i++) {
+            ResolvedGraphRecord.NodeRecord nodeRecord = record.nodes.get(i);
+            ReplayedComponent component = components[nodeRecord.component];
+            if (i == record.rootNode) {
+                nodes[i] = new ReplayedRootNode(idGenerator.nextGraphNodeId(), component, rootVariant, rootDependencies);
+            } else {
+                VariantGraphResolveState variant = findVariant(component.state, nodeRecord.variantName);
+                if (variant == null) {
+                    return outdated(rootVariant, "variant " + nodeRecord.variantName + " of " + component.getComponentId() + " no longer exists");
+                }
+                nodes[i] = new ReplayedNode(idGenerator.nextGraphNodeId(), component, variant, variant.getDependencies());
+            }
+            if (!ResolvedGraphHashing.hashVariant(nodes[i].variant, nodes[i].dependencies).equals(nodeRecord.hash)) {
+                return outdated(rootVariant, "variant " + nodeRecord.variantName + " of " + component.getComponentId() + " has changed");
+            }
+        }
+
+        ReplayedEdge[] edges = new ReplayedEdge[record.edges.size()];
+        for (int i = 0; i < edges.length; i++) {
+            ResolvedGraphRecord.EdgeRecord edgeRecord = record.edges.get(i);
+            ReplayedNode from = nodes[edgeRecord.from];
+            DependencyMetadata dependency = from.dependencies.get(edgeRecord.dependency);
+            ComponentSelector selector = dependency.getSelector();
+            edges[i] = new ReplayedEdge(
+                from,
+                dependency,
+                attributeDesugaring.desugarSelector(selector),
+                ((AttributeContainerInternal) selector.getAttributes()).asImmutable(),
+                nothingExcluded,
+                edgeRecord.transitive,
+                edgeRecord.reason,
+                components[edgeRecord.selectedComponent],
+                edgeRecord.selectedNode < 0 ? null : nodes[edgeRecord.selectedNode]
+            );
+        }
+
+        for (int i = 0; i < nodes.length; i++) {
+            ResolvedGraphRecord.NodeRecord nodeRecord = record.nodes.get(i);
+            nodes[i].outgoingEdges = select(edges, nodeRecord.outgoingEdges);
+            nodes[i].incomingEdges = select(edges, nodeRecord.incomingEdges);
+        }
+        for (int i = 0; i < components.length; i++) {
+            components[i].selectedVariants = select(nodes, record.components.get(i).selectedNodes);
+        }
+        return nodes;
+    }
+
+    /**
+     * Locates the variant with the given name among the variants that graph resolution can select from the given component.
+     */
+    @Nullable
+    static VariantGraphResolveState findVariant(ComponentGraphResolveState component, String name) {
+        GraphSelectionCandidates candidates = component.getCandidatesForGraphVariantSelection();
+        for (VariantGraphResolveState variant : candidates.getVariantsForAttributeMatching()) {
+            if (variant.getName().equals(name)) {
+                return variant;
+            }
+        }
+        // Variants selected by configuration name
+        if (component instanceof LocalComponentGraphResolveState) {
+            return ((LocalComponentGraphResolveState) component).getCandidatesForGraphVariantSelection().getVariantByConfigurationName(name);
+        }
+        if (component instanceof IvyComponentGraphResolveState) {
+            return ((IvyComponentGraphResolveState) component).getCandidatesForGraphVariantSelection().getVariantByConfigurationName(name);
+        }
+        VariantGraphResolveState legacyVariant = candidates.getLegacyVariant();
+        if (legacyVariant != null && legacyVariant.getName().equals(name)) {
+            return legacyVariant;
+        }
+        return null;
+    }
+
+    private static <T> List<T> select(T[] values, int[] indexes) {
+        ImmutableList.Builder<T> builder = ImmutableList.builderWithExpectedSize(indexes.length);
+        for (int index : indexes) {
+            builder.add(values[index]);
+        }
+        return builder.build();
+    }
+
+    @Nullable
+    private static <T> T outdated(LocalVariantGraphResolveState rootVariant, String reason) {
+        LOGGER.debug("Not reusing the resolved graph of {}: {}", rootVariant.getName(), reason);
+        return null;
+    }
+
+    private static class ReplayedComponent implements DependencyGraphComponent, ComponentResolutionState {
+        private final long resultId;
+        private final ComponentGraphResolveState state;
+        private final @Nullable String repositoryName;
+        private final ComponentSelectionReason selectionReason;
+        private List<ReplayedNode> selectedVariants = Collections.emptyList();
+
+        ReplayedComponent(long resultId, ComponentGraphResolveState state, @Nullable String repositoryName, ComponentSelectionReason selectionReason) {
+            this.resultId = resultId;
+            this.state = state;
+            this.repositoryName = repositoryName;
+            this.selectionReason = selectionReason;
+        }
+
+        @Override
+        public long getResultId() {
+            return resultId;
+        }
+
+        @Override
+        public ComponentGraphResolveState getResolveState() {
+            return state;
+        }
+
+        @Nullable
+        @Override
+        public String getRepositoryName() {
+            return repositoryName;
+        }
+
+        @Override
+        public ComponentIdentifier getComponentId() {
+            return state.getId();
+        }
+
+        @Override
+        public ModuleVersionIdentifier getModuleVersion() {
+            return state.getMetadata().getModuleVersionId();
+        }
+
+        @Override
+        public ModuleVersionIdentifier getId() {
+            return getModuleVersion();
+        }
+
+        @Override
+        public String getVersion() {
+            return getModuleVersion().getVersion();
+        }
+
+        @Override
+        public ComponentSelectionReason getSelectionReason() {
+            return selectionReason;
+        }
+
+        @Override
+        public List<ResolvedGraphVariant> getSelectedVariants() {
+            return ImmutableList.copyOf(selectedVariants);
+        }
+
+        @Override
+        public ComponentGraphResolveMetadata getMetadataOrNull() {
+            return state.getMetadata();
+        }
+
+        @Override
+        public Collection<? extends DependencyGraphComponent> getDependents() {
+            List<DependencyGraphComponent> dependents = new ArrayList<>();
+            for (ReplayedNode node : selectedVariants) {
+                for (ReplayedEdge edge : node.incomingEdges) {
+                    dependents.add(edge.from.component);
+                }
+            }
+            return dependents;
+        }
+
+        @Override
+        public void addCause(ComponentSelectionDescriptorInternal componentSelectionDescriptor) {
+            throw new UnsupportedOperationException("A replayed graph cannot be modified");
+        }
+
+        @Override
+        public void reject() {
+            throw new UnsupportedOperationException("A replayed graph cannot be modified");
+        }
+
+        @Override
+        public boolean isRejected() {
+            return false;
+        }
+
+        @Override
+        public Set<VirtualPlatformState> getPlatformOwners() {
+            return Collections.emptySet();
+        }
+
+        @Override
+        public VirtualPlatformState getPlatformState() {
+            throw new UnsupportedOperationException("A replayed graph has no virtual platforms");
+        }
+
+        @Override
+        public String toString() {
+            return getComponentId().getDisplayName();
+        }
+    }
+
+    private static class ReplayedNode implements DependencyGraphNode {
+        private final long nodeId;
+        final ReplayedComponent component;
+        final VariantGraphResolveState variant;
+        final List<? extends DependencyMetadata> dependencies;
+        List<ReplayedEdge> outgoingEdges = Collections.emptyList();
+        List<ReplayedEdge> incomingEdges = Collections.emptyList();
+
+        ReplayedNode(long nodeId, ReplayedComponent component, VariantGraphResolveState variant, List<? extends DependencyMetadata> dependencies) {
+            this.nodeId = nodeId;
+            this.component = component;
+            this.variant = variant;
+            this.dependencies = dependencies;
+        }
+
+        @Override
+        public long getNodeId() {
+            return nodeId;
+        }
+
+        @Override
+        public ComponentGraphResolveState getComponentResolveState() {
+            return component.state;
+        }
+
+        @Override
+        public VariantGraphResolveState getResolveState() {
+            return variant;
+        }
+
+        @Nullable
+        @Override
+        public ResolvedGraphVariant getExternalVariant() {
+            return null;
+        }
+
+        @Override
+        public boolean isRoot() {
+            return false;
+        }
+
+        @Override
+        public DependencyGraphComponent getOwner() {
+            return component;
+        }
+
+        @Override
+        public Collection<? extends DependencyGraphEdge> getIncomingEdges() {
+            return incomingEdges;
+        }
+
+        @Override
+        public Collection<? extends DependencyGraphEdge> getOutgoingEdges() {
+            return outgoingEdges;
+        }
+
+        @Override
+        public Set<? extends LocalFileDependencyMetadata> getOutgoingFileEdges() {
+            if (variant instanceof LocalVariantGraphResolveState) {
+                return ((LocalVariantGraphResolveState) variant).getFiles();
+            }
+            return Collections.emptySet();
+        }
+
+        @Override
+        public VariantGraphResolveMetadata getMetadata() {
+            return variant.getMetadata();
+        }
+
+        @Override
+        public boolean isSelected() {
+            return true;
+        }
+
+        @Override
+        public ComponentResolutionState getComponent() {
+            return component;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%s(%s)", component, variant.getName());
+        }
+    }
+
+    private static class ReplayedRootNode extends ReplayedNode implements RootGraphNode {
+        private final LocalVariantGraphResolveState rootVariant;
+        private final ResolveOptimizations resolveOptimizations = new ResolveOptimizations();
+
+        ReplayedRootNode(long nodeId, ReplayedComponent component, LocalVariantGraphResolveState rootVariant, List<? extends DependencyMetadata> dependencies) {
+            super(nodeId, component, rootVariant, dependencies);
+            this.rootVariant = rootVariant;
+        }
+
+        @Override
+        public boolean isRoot() {
+            return true;
+        }
+
+        @Override
+        public LocalVariantGraphResolveMetadata getMetadata() {
+            return rootVariant.getMetadata();
+        }
+
+        @Override
+        public ResolveOptimizations getResolveOptimizations() {
+            return resolveOptimizations;
+        }
+    }
+
+    private static class ReplayedEdge implements DependencyGraphEdge, DependencyGraphSelector {
+        private final ReplayedNode from;
+        private final DependencyMetadata dependency;
+        private final ComponentSelector requested;
+        private final ImmutableAttributes attributes;
+        private final ExcludeSpec exclusions;
+        private final boolean transitive;
+        private final ComponentSelectionReason reason;
+        private final ReplayedComponent selectedComponent;
+        private final @Nullable ReplayedNode selectedNode;
+
+        ReplayedEdge(
+            ReplayedNode from,
+            DependencyMetadata dependency,
+            ComponentSelector requested,
+            ImmutableAttributes attributes,
+            ExcludeSpec exclusions,
+            boolean transitive,
+            ComponentSelectionReason reason,
+            ReplayedComponent selectedComponent,
+            @Nullable ReplayedNode selectedNode
+        ) {
+            this.from = from;
+            this.dependency = dependency;
+            this.requested = requested;
+            this.attributes = attributes;
+            this.exclusions = exclusions;
+            this.transitive = transitive;
+            this.reason = reason;
+            this.selectedComponent = selectedComponent;
+            this.selectedNode = selectedNode;
+        }
+
+        @Override
+        public DependencyGraphNode getFrom() {
+            return from;
+        }
+
+        @Override
+        public DependencyGraphSelector getSelector() {
+            return this;
+        }
+
+        @Override
+        public ComponentSelector getRequested() {
+            return requested;
+        }
+
+        @Override
+        public boolean isTransitive() {
+            return transitive;
+        }
+
+        @Override
+        public ExcludeSpec getExclusions() {
+            return exclusions;
+        }
+
+        @Override
+        public boolean contributesArtifacts() {
+            return !isConstraint();
+        }
+
+        @Override
+        public DependencyMetadata getDependencyMetadata() {
+            return dependency;
+        }
+
+        @Override
+        public ImmutableAttributes getAttributes() {
+            return attributes;
+        }
+
+        @Override
+        public boolean isTargetVirtualPlatform() {
+            return false;
+        }
+
+        @Nullable
+        @Override
+        public ModuleVersionResolveException getFailure() {
+            return null;
+        }
+
+        @Override
+        public Long getSelected() {
+            return selectedComponent.getResultId();
+        }
+
+        @Override
+        public ComponentSelectionReason getReason() {
+            return reason;
+        }
+
+        @Override
+        public boolean isConstraint() {
+            return dependency.isConstraint();
+        }
+
+        @Override
+        public long getFromVariant() {
+            return from.getNodeId();
+        }
+
+        @Nullable
+        @Override
+        public Long getSelectedVariant() {
+            return selectedNode == null ? null : selectedNode.getNodeId();
+        }
+
+        @Override
+        public String toString() {
+            return from + " -> " + requested.getDisplayName();
+        }
+    }
+}
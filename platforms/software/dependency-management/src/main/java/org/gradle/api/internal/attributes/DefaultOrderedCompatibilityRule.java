@@ -44,6 +44,14 @@ public void execute(CompatibilityCheckDetails<T> details) {
         }
     }
 
+    public Comparator<? super T> getComparator() {
+        return comparator;
+    }
+
+    public boolean isReverse() {
+        return reverse;
+    }
+
     @Override
     public boolean equals(Object o) {
         if (this == o) {
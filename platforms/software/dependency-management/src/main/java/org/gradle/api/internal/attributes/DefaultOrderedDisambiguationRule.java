@@ -53,6 +53,14 @@ public void execute(MultipleCandidatesDetails<T> details) {
         }
     }
 
+    public Comparator<? super T> getComparator() {
+        return comparator;
+    }
+
+    public boolean isPickFirst() {
+        return pickFirst;
+    }
+
     @Override
     public boolean equals(Object o) {
         if (this == o) {
@@ -29,6 +29,7 @@
 import org.gradle.api.internal.attributes.MultipleCandidatesResult;
 import org.jspecify.annotations.Nullable;
 
+import java.util.List;
 import java.util.Objects;
 
 /**
@@ -117,6 +118,22 @@ public <T> CompatibilityRule<T> compatibilityRules(Attribute<T> attribute) {
         return CompatibilityRule.doNothing();
     }
 
+    /**
+     * Get the actions the compatibility rule for the given attribute is made of, in the order they are applied.
+     */
+    public List<? extends Action<?>> getCompatibilityRuleActions(Attribute<?> attribute) {
+        ImmutableAttributeMatchingStrategy<?> matchingStrategy = strategies.get(attribute);
+        return matchingStrategy == null ? ImmutableList.of() : matchingStrategy.compatibilityRules.rules;
+    }
+
+    /**
+     * Get the actions the disambiguation rule for the given attribute is made of, in the order they are applied.
+     */
+    public List<? extends Action<?>> getDisambiguationRuleActions(Attribute<?> attribute) {
+        ImmutableAttributeMatchingStrategy<?> matchingStrategy = strategies.get(attribute);
+        return matchingStrategy == null ? ImmutableList.of() : matchingStrategy.disambiguationRules.rules;
+    }
+
     /**
      * Get an attribute by name.
      */
@@ -1144,4 +1144,69 @@ class PomReaderTest extends AbstractPomReaderTest {
         then:
         pomReader.dependencies[keyGroupTwo].optional
     }
+
+    def "reads CDATA sections and Maven entities"() {
+        when:
+        pomFile << """
+<project>
+    <modelVersion>4.0.0</modelVersion>
+    <groupId><![CDATA[group-one]]></groupId>
+    <artifactId>artifact-one</artifactId>
+    <version>version-one</version>
+    <description>Some&nbsp;description &copy; someone</description>
+    <properties>
+        <some.property>a&nbsp;<![CDATA[b]]></some.property>
+    </properties>
+</project>
+"""
+        pomReader = new PomReader(locallyAvailableExternalResource, moduleIdentifierFactory)
+
+        then:
+        pomReader.groupId == 'group-one'
+        pomReader.properties['some.property'] == 'a\u00a0b'
+    }
+
+    def "ignores elements that are not used for dependency resolution"() {
+        when:
+        pomFile << """
+<project>
+    <modelVersion>4.0.0</modelVersion>
+    <groupId>group-one</groupId>
+    <artifactId>artifact-one</artifactId>
+    <version>version-one</version>
+    <build>
+        <plugins>
+            <plugin>
+                <groupId>group-two</groupId>
+                <artifactId>artifact-two</artifactId>
+                <version>version-two</version>
+                <dependencies>
+                    <dependency>
+                        <groupId>group-three</groupId>
+                        <artifactId>artifact-three</artifactId>
+                        <version>version-three</version>
+                    </dependency>
+                </dependencies>
+            </plugin>
+        </plugins>
+    </build>
+    <dependencies>
+        <dependency>
+            <groupId>group-four</groupId>
+            <artifactId>artifact-four</artifactId>
+            <version>version-four</version>
+            <unknown><groupId>group-five</groupId></unknown>
+        </dependency>
+    </dependencies>
+</project>
+"""
+        pomReader = new PomReader(locallyAvailableExternalResource, moduleIdentifierFactory)
+
+        then:
+        pomReader.groupId == 'group-one'
+        pomReader.dependencies.size() == 1
+        def dependency = pomReader.dependencies[new MavenDependencyKey('group-four', 'artifact-four', 'jar', null)]
+        dependency.groupId == 'group-four'
+        dependency.version == 'version-four'
+    }
 }
@@ -69,4 +69,62 @@ class ModuleMetadataStoreTest extends Specification {
         };
         1 * serializer.write(_, descriptor, _)
     }
+
+    def "putModuleDescriptor also adds descriptor to packed store"() {
+        setup:
+        def packedStore = new PackedModuleMetadataStore(temporaryFolder.file("descriptors.pack"), false)
+        def packingStore = new ModuleMetadataStore(pathKeyFileStore, serializer, moduleIdentifierFactory, SimpleMapInterner.notThreadSafe(), packedStore)
+        def key = new ModuleComponentAtRepositoryKey(repository, moduleComponentIdentifier)
+        File descriptorFile = temporaryFolder.createFile("fileStoreEntry")
+        def descriptor = mavenMetadataFactory.create(moduleComponentIdentifier, [])
+
+        when:
+        packingStore.putModuleDescriptor(key, 100, descriptor.asImmutable())
+        then:
+        1 * serializer.write(_, _, _) >> { encoder, metadata, cache -> encoder.writeString("descriptor") }
+        1 * pathKeyFileStore.add("org.test/testArtifact/1.0/repositoryId/descriptor.bin", _) >> { path, action ->
+            action.execute(descriptorFile); fileStoreEntry
+        }
+        descriptorFile.length() > 0
+
+        when:
+        def result = packingStore.getModuleDescriptor(key, 100)
+        then:
+        result == descriptor
+        0 * pathKeyFileStore._
+        1 * serializer.read(_, _, _) >> { decoder, factory, cache ->
+            assert decoder.readString() == "descriptor"
+            descriptor
+        }
+    }
+
+    def "getModuleDescriptor adds descriptor read from file to packed store"() {
+        setup:
+        def packedStore = new PackedModuleMetadataStore(temporaryFolder.file("descriptors.pack"), false)
+        def packingStore = new ModuleMetadataStore(pathKeyFileStore, serializer, moduleIdentifierFactory, SimpleMapInterner.notThreadSafe(), packedStore)
+        def key = new ModuleComponentAtRepositoryKey(repository, moduleComponentIdentifier)
+        File descriptorFile = temporaryFolder.createFile("fileStoreEntry")
+        descriptorFile.bytes = [1, 2, 3] as byte[]
+        def descriptor = mavenMetadataFactory.create(moduleComponentIdentifier, [])
+
+        when:
+        def result = packingStore.getModuleDescriptor(key, 100)
+        then:
+        result == descriptor
+        1 * pathKeyFileStore.get("org.test", "testArtifact", "1.0", "repositoryId", "descriptor.bin") >> fileStoreEntry
+        _ * fileStoreEntry.getFile() >> descriptorFile
+        1 * serializer.read(_, _, _) >> descriptor
+
+        when:
+        result = packingStore.getModuleDescriptor(key, 100)
+        then:
+        result == descriptor
+        0 * pathKeyFileStore._
+        1 * serializer.read(_, _, _) >> descriptor
+
+        when:
+        packingStore.getModuleDescriptor(key, 101)
+        then:
+        1 * pathKeyFileStore.get("org.test", "testArtifact", "1.0", "repositoryId", "descriptor.bin") >> null
+    }
 }
@@ -0,0 +1,260 @@
+/*
+ * Copyright 2025 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.artifacts.ivyservice.modulecache
+
+import org.gradle.api.internal.artifacts.DefaultModuleIdentifier
+import org.gradle.internal.component.external.model.DefaultModuleComponentIdentifier
+import org.gradle.test.fixtures.file.TestFile
+import org.gradle.test.fixtures.file.TestNameTestDirectoryProvider
+import org.junit.Rule
+import spock.lang.Specification
+
+class PackedModuleMetadataStoreTest extends Specification {
+
+    @Rule TestNameTestDirectoryProvider temporaryFolder = new TestNameTestDirectoryProvider(getClass())
+    TestFile packFile = temporaryFolder.file("metadata/descriptors.pack")
+    def store = new PackedModuleMetadataStore(packFile, false)
+
+    def "returns stored descriptors"() {
+        when:
+        store.put(key("1.0"), 100, bytes("one"))
+        store.put(key("2.0"), 100, bytes("two"))
+
+        then:
+        read(store.get(key("1.0"), 100)) == "one"
+        read(store.get(key("2.0"), 100)) == "two"
+        store.get(key("3.0"), 100) == null
+        packFile.isFile()
+    }
+
+    def "ignores descriptors stored for another cache entry"() {
+        given:
+        store.put(key("1.0"), 100, bytes("one"))
+
+        expect:
+        store.get(key("1.0"), 101) == null
+
+        when:
+        store.put(key("1.0"), 101, bytes("uno"))
+
+        then:
+        read(store.get(key("1.0"), 101)) == "uno"
+    }
+
+    def "does not append a descriptor that is already stored"() {
+        given:
+        store.put(key("1.0"), 100, bytes("one"))
+        def length = packFile.length()
+
+        when:
+        store.put(key("1.0"), 100, bytes("one"))
+
+        then:
+        packFile.length() == length
+
+        when:
+        store.put(key("1.0"), 100, bytes("uno"))
+
+        then:
+        packFile.length() > length
+        read(store.get(key("1.0"), 100)) == "uno"
+    }
+
+    def "sees descriptors appended by another store"() {
+        given:
+        store.put(key("1.0"), 100, bytes("one"))
+        def other = new PackedModuleMetadataStore(packFile, false)
+
+        when:
+        other.put(key("2.0"), 100, bytes("two"))
+        other.put(key("1.0"), 101, bytes("uno"))
+
+        then:
+        read(store.get(key("2.0"), 100)) == "two"
+        read(store.get(key("1.0"), 101)) == "uno"
+        read(new PackedModuleMetadataStore(packFile, true).get(key("1.0"), 101)) == "uno"
+    }
+
+    def "drops a partially written descriptor"() {
+        given:
+        store.put(key("1.0"), 100, bytes("one"))
+        def length = packFile.length()
+        packFile << ([0, 0, 0, 5, 1, 2] as byte[])
+        def other = new PackedModuleMetadataStore(packFile, false)
+
+        expect:
+        read(other.get(key("1.0"), 100)) == "one"
+
+        when:
+        other.put(key("2.0"), 100, bytes("two"))
+
+        then:
+        read(new PackedModuleMetadataStore(packFile, true).get(key("2.0"), 100)) == "two"
+        packFile.length() > length
+    }
+
+    def "read-only store never writes"() {
+        given:
+        def readOnly = new PackedModuleMetadataStore(packFile, true)
+
+        when:
+        readOnly.put(key("1.0"), 100, bytes("one"))
+
+        then:
+        !readOnly.isWritable()
+        !packFile.exists()
+        readOnly.get(key("1.0"), 100) == null
+
+        when:
+        store.put(key("1.0"), 100, bytes("one"))
+        def length = packFile.length()
+        readOnly.put(key("2.0"), 100, bytes("two"))
+
+        then:
+        read(readOnly.get(key("1.0"), 100)) == "one"
+        packFile.length() == length
+    }
+
+    def "ignores corrupt descriptors"() {
+        given:
+        store.put(key("1.0"), 100, bytes("one"))
+        store.put(key("2.0"), 100, bytes("two"))
+        def content = packFile.bytes
+        content[content.length - 1] = (byte) 'x'
+        packFile.bytes = content
+        def other = new PackedModuleMetadataStore(packFile, true)
+
+        expect:
+        read(other.get(key("1.0"), 100)) == "one"
+        other.get(key("2.0"), 100) == null
+    }
+
+    def "ignores a pack with an unknown format"() {
+        given:
+        packFile.text = "not a descriptor pack"
+        def length = packFile.length()
+
+        when:
+        store.put(key("1.0"), 100, bytes("one"))
+
+        then:
+        store.get(key("1.0"), 100) == null
+        !store.isWritable()
+        packFile.length() == length
+    }
+
+    def "keeps reading descriptors once the pack is full"() {
+        given:
+        def store = new PackedModuleMetadataStore(packFile, false, { true }, 200, Long.MAX_VALUE)
+        store.put(key("1.0"), 100, bytes("one"))
+        def length = packFile.length()
+
+        when:
+        store.put(key("2.0"), 100, bytes("two" * 50))
+
+        then:
+        !store.isWritable()
+        packFile.length() == length
+        read(store.get(key("1.0"), 100)) == "one"
+        store.get(key("2.0"), 100) == null
+    }
+
+    def "rewrites the pack without superseded descriptors"() {
+        given:
+        def store = new PackedModuleMetadataStore(packFile, false, { true }, Long.MAX_VALUE, 0)
+        store.put(key("1.0"), 100, bytes("one"))
+        store.put(key("1.0"), 101, bytes("uno"))
+        def length = packFile.length()
+        store.put(key("1.0"), 102, bytes("ein"))
+
+        when:
+        store.put(key("1.0"), 103, bytes("une"))
+
+        then:
+        store.isWritable()
+        packFile.length() == length
+        read(store.get(key("1.0"), 103)) == "une"
+        store.get(key("1.0"), 100) == null
+        read(new PackedModuleMetadataStore(packFile, true).get(key("1.0"), 103)) == "une"
+    }
+
+    def "drops descriptors whose files have been removed when rewriting the pack"() {
+        given:
+        def removed = [key("1.0")] as Set
+        def store = new PackedModuleMetadataStore(packFile, false, { !removed.contains(it) }, Long.MAX_VALUE, 0)
+        store.put(key("1.0"), 100, bytes("one"))
+        store.put(key("2.0"), 100, bytes("two"))
+
+        when:
+        (101..104).each { store.put(key("2.0"), it, bytes("dos")) }
+
+        then:
+        store.get(key("1.0"), 100) == null
+        read(store.get(key("2.0"), 104)) == "dos"
+        read(new PackedModuleMetadataStore(packFile, true).get(key("2.0"), 104)) == "dos"
+    }
+
+    def "compacts a full pack and continues appending"() {
+        given:
+        def store = new PackedModuleMetadataStore(packFile, false, { true }, 140, Long.MAX_VALUE)
+        store.put(key("1.0"), 100, bytes("one"))
+        store.put(key("1.0"), 101, bytes("uno"))
+        store.put(key("1.0"), 102, bytes("eins"))
+
+        when:
+        store.put(key("2.0"), 100, bytes("two"))
+
+        then:
+        store.isWritable()
+        read(store.get(key("1.0"), 102)) == "eins"
+        read(store.get(key("2.0"), 100)) == "two"
+    }
+
+    def "notices when another store rewrites the pack"() {
+        given:
+        store.put(key("1.0"), 100, bytes("one"))
+        store.put(key("2.0"), 100, bytes("two"))
+        def other = new PackedModuleMetadataStore(packFile, false, { true }, Long.MAX_VALUE, 0)
+        (101..104).each { other.put(key("1.0"), it, bytes("uno")) }
+        other.put(key("3.0"), 100, bytes("three"))
+
+        expect:
+        read(store.get(key("1.0"), 104)) == "uno"
+        read(store.get(key("2.0"), 100)) == "two"
+        read(store.get(key("3.0"), 100)) == "three"
+        store.get(key("1.0"), 100) == null
+
+        when:
+        store.put(key("5.0"), 100, bytes("five"))
+
+        then:
+        read(other.get(key("5.0"), 100)) == "five"
+        read(new PackedModuleMetadataStore(packFile, true).get(key("3.0"), 100)) == "three"
+    }
+
+    private static ModuleComponentAtRepositoryKey key(String version) {
+        return new ModuleComponentAtRepositoryKey("repo", DefaultModuleComponentIdentifier.newId(DefaultModuleIdentifier.newId("org.test", "lib"), version))
+    }
+
+    private static byte[] bytes(String text) {
+        return text.getBytes("UTF-8")
+    }
+
+    private static String read(InputStream input) {
+        return input == null ? null : new String(input.bytes, "UTF-8")
+    }
+}
@@ -52,6 +52,7 @@ import org.gradle.api.internal.attributes.immutable.ImmutableAttributesSchema
 import org.gradle.api.internal.initialization.StandaloneDomainObjectContext
 import org.gradle.api.specs.Spec
 import org.gradle.internal.Describables
+import org.gradle.internal.buildoption.DefaultInternalOptions
 import org.gradle.internal.component.external.descriptor.DefaultExclude
 import org.gradle.internal.component.external.model.DefaultModuleComponentIdentifier
 import org.gradle.internal.component.external.model.ImmutableCapabilities
@@ -150,7 +151,8 @@ class DependencyGraphBuilderTest extends Specification {
         new ComponentIdGenerator(),
         new VersionParser(),
         variantSelector,
-        buildOperationProcessor
+        buildOperationProcessor,
+        new DefaultInternalOptions([:])
     )
 
     def root = rootProject()
@@ -49,4 +49,19 @@ class ModuleExclusionsTest extends Specification {
         exclusions.is(moduleExclusions.excludeAny(ex))
     }
 
+    def "creates the same exclude specs when interning them"() {
+        def interningExclusions = new ModuleExclusions(true)
+        def exclude1 = new DefaultExclude(DefaultModuleIdentifier.newId("group1", "*"))
+        def exclude2 = new DefaultExclude(DefaultModuleIdentifier.newId("group2", "*"))
+        def exclude3 = new DefaultExclude(DefaultModuleIdentifier.newId("group1", "module1"))
+
+        when:
+        def exclusions = moduleExclusions.excludeAll(moduleExclusions.excludeAny(ImmutableList.of(exclude1, exclude2)), moduleExclusions.excludeAny(ImmutableList.of(exclude1, exclude3)))
+        def interned = interningExclusions.excludeAll(interningExclusions.excludeAny(ImmutableList.of(exclude1, exclude2)), interningExclusions.excludeAny(ImmutableList.of(exclude1, exclude3)))
+
+        then:
+        interned == exclusions
+        interned.is(interningExclusions.excludeAll(interningExclusions.excludeAny(ImmutableList.of(exclude1, exclude2)), interningExclusions.excludeAny(ImmutableList.of(exclude1, exclude3))))
+    }
+
 }
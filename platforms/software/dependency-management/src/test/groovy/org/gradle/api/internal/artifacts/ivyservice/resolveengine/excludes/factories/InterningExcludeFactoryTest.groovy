@@ -0,0 +1,86 @@
+/*
+ * Copyright 2025 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.artifacts.ivyservice.resolveengine.excludes.factories
+
+import org.gradle.api.internal.artifacts.ivyservice.resolveengine.excludes.simple.DefaultExcludeFactory
+import spock.lang.Specification
+
+class InterningExcludeFactoryTest extends Specification implements ExcludeTestSupport {
+
+    InterningExcludeFactory interningFactory = new InterningExcludeFactory(new DefaultExcludeFactory())
+
+    def setup() {
+        factory = interningFactory
+    }
+
+    def "equal specs are the same instance"() {
+        expect:
+        group("foo").is(group("foo"))
+        module("foo").is(module("foo"))
+        moduleId("org", "foo").is(moduleId("org", "foo"))
+        groupSet("foo", "bar").is(groupSet("bar", "foo"))
+        moduleSet("foo", "bar").is(moduleSet("bar", "foo"))
+        moduleIdSet(["org", "foo"], ["org", "bar"]).is(moduleIdSet(["org", "bar"], ["org", "foo"]))
+        anyOf(group("foo"), module("bar")).is(anyOf(module("bar"), group("foo")))
+        allOf(group("foo"), module("bar"), moduleId("org", "baz")).is(allOf(moduleId("org", "baz"), module("bar"), group("foo")))
+        ivy("org", "foo", artifact("foo"), "exact").is(ivy("org", "foo", artifact("foo"), "exact"))
+
+        and:
+        !groupSet("foo", "bar").is(groupSet("foo", "baz"))
+    }
+
+    def "intersects sets using their members"() {
+        expect:
+        interningFactory.intersectGroupSets(groupSet("a", "b", "c"), groupSet("b", "c", "d")).is(groupSet("b", "c"))
+        interningFactory.intersectGroupSets(groupSet("a", "b"), groupSet("b", "c")).is(group("b"))
+        interningFactory.intersectGroupSets(groupSet("a", "b"), groupSet("c", "d")) == nothing()
+
+        interningFactory.intersectModuleSets(moduleSet("a", "b", "c"), moduleSet("b", "c", "d")).is(moduleSet("b", "c"))
+        interningFactory.intersectModuleSets(moduleSet("a", "b"), moduleSet("b", "c")).is(module("b"))
+        interningFactory.intersectModuleSets(moduleSet("a", "b"), moduleSet("c", "d")) == nothing()
+
+        interningFactory.intersectModuleIdSets(moduleIdSet("org:a", "org:b", "org:c"), moduleIdSet("org:b", "org:c", "org:d")).is(moduleIdSet("org:b", "org:c"))
+        interningFactory.intersectModuleIdSets(moduleIdSet("org:a", "org:b"), moduleIdSet("org:b", "org:c")).is(moduleId("org", "b"))
+        interningFactory.intersectModuleIdSets(moduleIdSet("org:a", "org:b"), moduleIdSet("other:a", "other:b")) == nothing()
+    }
+
+    def "unions sets using their members"() {
+        expect:
+        interningFactory.unionGroupSets([groupSet("a", "b"), groupSet("b", "c")]).is(groupSet("a", "b", "c"))
+        interningFactory.unionModuleSets([moduleSet("a", "b"), moduleSet("c", "d"), moduleSet("a", "d")]).is(moduleSet("a", "b", "c", "d"))
+        interningFactory.unionModuleIdSets([moduleIdSet("org:a", "org:b"), moduleIdSet("other:a", "other:b")]).is(moduleIdSet("org:a", "org:b", "other:a", "other:b"))
+    }
+
+    def "does not merge sets created by another factory"() {
+        def otherFactory = new DefaultExcludeFactory()
+
+        expect:
+        interningFactory.intersectGroupSets(groupSet("a", "b"), otherFactory.groupSet(["b", "c"] as Set)) == null
+        interningFactory.unionModuleSets([moduleSet("a", "b"), otherFactory.moduleSet(["b", "c"] as Set)]) == null
+    }
+
+    def "normalizing factory merges interned sets"() {
+        given:
+        factory = new NormalizingExcludeFactory(interningFactory, interningFactory)
+
+        expect:
+        allOf(groupSet("a", "b", "c"), groupSet("b", "c", "d")).is(groupSet("b", "c"))
+        allOf(moduleSet("a", "b"), moduleSet("b", "c")).is(module("b"))
+        anyOf(groupSet("a", "b"), groupSet("c", "d")).is(groupSet("a", "b", "c", "d"))
+        anyOf(moduleIdSet("org:a", "org:b"), moduleIdSet("org:c", "org:d")).is(moduleIdSet("org:a", "org:b", "org:c", "org:d"))
+    }
+}
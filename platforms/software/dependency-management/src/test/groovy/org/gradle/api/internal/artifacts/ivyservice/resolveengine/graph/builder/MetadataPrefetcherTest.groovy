@@ -0,0 +1,204 @@
+/*
+ * Copyright 2025 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.artifacts.ivyservice.resolveengine.graph.builder
+
+import org.gradle.api.artifacts.component.ModuleComponentIdentifier
+import org.gradle.api.internal.artifacts.DefaultModuleIdentifier
+import org.gradle.api.internal.artifacts.ivyservice.ivyresolve.strategy.DefaultVersionComparator
+import org.gradle.api.internal.artifacts.ivyservice.ivyresolve.strategy.DefaultVersionSelectorScheme
+import org.gradle.api.internal.artifacts.ivyservice.ivyresolve.strategy.VersionParser
+import org.gradle.internal.Factory
+import org.gradle.internal.component.external.model.DefaultModuleComponentIdentifier
+import org.gradle.internal.component.external.model.ExternalModuleComponentGraphResolveState
+import org.gradle.internal.component.model.ComponentGraphSpecificResolveState
+import org.gradle.internal.component.model.DependencyMetadata
+import org.gradle.internal.component.model.GraphSelectionCandidates
+import org.gradle.internal.component.model.VariantGraphResolveState
+import org.gradle.internal.operations.BuildOperationQueue
+import org.gradle.internal.operations.RunnableBuildOperation
+import org.gradle.internal.resolve.ModuleVersionResolveException
+import org.gradle.internal.resolve.resolver.ComponentMetaDataResolver
+import org.gradle.internal.resolve.result.BuildableComponentResolveResult
+import spock.lang.Specification
+
+import static org.gradle.internal.component.external.model.DefaultModuleComponentSelector.newSelector
+
+class MetadataPrefetcherTest extends Specification {
+    def resolver = Mock(ComponentMetaDataResolver)
+    def versionSelectorScheme = new DefaultVersionSelectorScheme(new DefaultVersionComparator(), new VersionParser())
+    def queue = new SerialQueue()
+    def components = [:]
+
+    def "prefetches fixed version dependencies transitively"() {
+        given:
+        def a = component("a", dependency("b", "1.0"), dependency("c", "2.0"))
+        component("b", dependency("d", "1.0"))
+        component("c")
+        component("d")
+
+        when:
+        prefetcher().prefetchDependenciesOf(a, queue)
+        queue.runAll()
+
+        then:
+        1 * resolver.resolve(id("b", "1.0"), _, _) >> { args -> resolve(args) }
+        1 * resolver.resolve(id("c", "2.0"), _, _) >> { args -> resolve(args) }
+        1 * resolver.resolve(id("d", "1.0"), _, _) >> { args -> resolve(args) }
+        0 * resolver._
+    }
+
+    def "does not prefetch dependencies whose target depends on the rest of the graph"() {
+        given:
+        def a = component("a",
+            dependency("dynamic", "1.+"),
+            dependency("range", "[1.0,2.0)"),
+            dependency("unversioned", ""),
+            dependency("constraint", "1.0", constraint: true),
+            dependency("changing", "1.0", changing: true)
+        )
+
+        when:
+        prefetcher().prefetchDependenciesOf(a, queue)
+        queue.runAll()
+
+        then:
+        0 * resolver._
+    }
+
+    def "prefetches each component once"() {
+        given:
+        def a = component("a", dependency("b", "1.0"), dependency("c", "1.0"))
+        component("b", dependency("c", "1.0"))
+        component("c", dependency("a", "1.0"))
+
+        when:
+        prefetcher().prefetchDependenciesOf(a, queue)
+        queue.runAll()
+
+        then:
+        1 * resolver.resolve(id("a", "1.0"), _, _) >> { args -> resolve(args) }
+        1 * resolver.resolve(id("b", "1.0"), _, _) >> { args -> resolve(args) }
+        1 * resolver.resolve(id("c", "1.0"), _, _) >> { args -> resolve(args) }
+        0 * resolver._
+    }
+
+    def "stops prefetching after the maximum number of components"() {
+        given:
+        def a = component("a", dependency("b", "1.0"), dependency("c", "1.0"), dependency("d", "1.0"))
+
+        when:
+        prefetcher(2).prefetchDependenciesOf(a, queue)
+        queue.runAll()
+
+        then:
+        2 * resolver.resolve(_, _, _) >> { args -> resolve(args) }
+        0 * resolver._
+    }
+
+    def "ignores components that cannot be resolved"() {
+        given:
+        def a = component("a", dependency("missing", "1.0"), dependency("b", "1.0"))
+        component("b")
+        def prefetcher = prefetcher()
+
+        when:
+        prefetcher.prefetchDependenciesOf(a, queue)
+        queue.runAll()
+
+        then:
+        1 * resolver.resolve(id("missing", "1.0"), _, _) >> { ModuleComponentIdentifier id, def override, BuildableComponentResolveResult result ->
+            result.failed(new ModuleVersionResolveException(id, { "broken" } as Factory<String>))
+        }
+        1 * resolver.resolve(id("b", "1.0"), _, _) >> { args -> resolve(args) }
+
+        and:
+        prefetcher.prefetchedCount == 1
+    }
+
+    def "does not prefetch dependencies of components that are not external modules"() {
+        when:
+        prefetcher().prefetchDependenciesOf(null, queue)
+        queue.runAll()
+
+        then:
+        0 * resolver._
+    }
+
+    private MetadataPrefetcher prefetcher(int maxComponents = 100) {
+        return new MetadataPrefetcher(resolver, versionSelectorScheme, maxComponents)
+    }
+
+    private void resolve(args) {
+        ModuleComponentIdentifier id = args[0]
+        BuildableComponentResolveResult result = args[2]
+        result.resolved(components[id.module], Mock(ComponentGraphSpecificResolveState))
+    }
+
+    private ExternalModuleComponentGraphResolveState component(String name, DependencyMetadata... dependencies) {
+        def variant = Stub(VariantGraphResolveState) {
+            getDependencies() >> (dependencies as List)
+        }
+        def candidates = Stub(GraphSelectionCandidates) {
+            getVariantsForAttributeMatching() >> [variant]
+        }
+        def component = Stub(ExternalModuleComponentGraphResolveState) {
+            getCandidatesForGraphVariantSelection() >> candidates
+        }
+        components[name] = component
+        return component
+    }
+
+    private DependencyMetadata dependency(Map<String, Boolean> flags = [:], String name, String version) {
+        return Stub(DependencyMetadata) {
+            getSelector() >> newSelector(DefaultModuleIdentifier.newId("org", name), version)
+            getArtifacts() >> []
+            isConstraint() >> flags.get("constraint", false)
+            isChanging() >> flags.get("changing", false)
+        }
+    }
+
+    private static ModuleComponentIdentifier id(String name, String version) {
+        return DefaultModuleComponentIdentifier.newId(DefaultModuleIdentifier.newId("org", name), version)
+    }
+
+    private static class SerialQueue implements BuildOperationQueue<RunnableBuildOperation> {
+        private final List<RunnableBuildOperation> operations = []
+
+        @Override
+        void add(RunnableBuildOperation operation) {
+            operations.add(operation)
+        }
+
+        void runAll() {
+            while (!operations.isEmpty()) {
+                operations.remove(0).run(null)
+            }
+        }
+
+        @Override
+        void cancel() {
+        }
+
+        @Override
+        void waitForCompletion() {
+        }
+
+        @Override
+        void setLogLocation(String logLocation) {
+        }
+    }
+}
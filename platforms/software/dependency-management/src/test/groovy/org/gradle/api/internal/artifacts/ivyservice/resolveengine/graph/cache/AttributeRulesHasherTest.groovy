@@ -0,0 +1,59 @@
+/*
+ * Copyright 2025 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.artifacts.ivyservice.resolveengine.graph.cache
+
+import com.google.common.collect.Ordering
+import org.gradle.api.Action
+import org.gradle.api.internal.attributes.DefaultOrderedCompatibilityRule
+import org.gradle.api.internal.attributes.DefaultOrderedDisambiguationRule
+import org.gradle.internal.hash.ClassLoaderHierarchyHasher
+import org.gradle.internal.hash.Hashing
+import org.gradle.internal.hash.TestHashCodes
+import spock.lang.Specification
+
+class AttributeRulesHasherTest extends Specification {
+    def classLoaderHierarchyHasher = Stub(ClassLoaderHierarchyHasher) {
+        getClassLoaderHash(_) >> TestHashCodes.hashCodeFrom(1)
+    }
+    def rulesHasher = new AttributeRulesHasher(classLoaderHierarchyHasher)
+
+    def "hashes ordered rules by their direction and comparator"() {
+        expect:
+        hash(new DefaultOrderedCompatibilityRule(Ordering.natural(), false)) == hash(new DefaultOrderedCompatibilityRule(Comparator.naturalOrder(), false))
+        hash(new DefaultOrderedCompatibilityRule(Ordering.natural(), false)) != hash(new DefaultOrderedCompatibilityRule(Ordering.natural(), true))
+        hash(new DefaultOrderedDisambiguationRule(Ordering.natural(), true)) != hash(new DefaultOrderedDisambiguationRule(Ordering.natural().reverse(), true))
+        hash(new DefaultOrderedDisambiguationRule(new StatelessComparator(), true)) != null
+    }
+
+    def "cannot hash arbitrary actions or comparators with state"() {
+        expect:
+        hash({ } as Action) == null
+        hash(new DefaultOrderedDisambiguationRule(Ordering.explicit("a", "b"), true)) == null
+    }
+
+    private hash(Action<?> rule) {
+        def hasher = Hashing.newHasher()
+        return rulesHasher.putRules(hasher, [rule]) ? hasher.hash() : null
+    }
+
+    static class StatelessComparator implements Comparator<String> {
+        @Override
+        int compare(String o1, String o2) {
+            return o1.length() <=> o2.length()
+        }
+    }
+}
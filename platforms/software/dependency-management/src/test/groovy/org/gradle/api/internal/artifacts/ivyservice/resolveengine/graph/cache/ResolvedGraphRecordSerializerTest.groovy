@@ -0,0 +1,100 @@
+/*
+ * Copyright 2025 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.artifacts.ivyservice.resolveengine.graph.cache
+
+import org.gradle.api.internal.artifacts.DefaultModuleIdentifier
+import org.gradle.api.internal.artifacts.DependencyManagementTestUtil
+import org.gradle.api.internal.artifacts.ivyservice.resolveengine.result.ComponentSelectionReasons
+import org.gradle.internal.component.external.model.DefaultModuleComponentIdentifier
+import org.gradle.internal.hash.TestHashCodes
+import org.gradle.internal.serialize.AbstractDecoder
+import org.gradle.internal.serialize.AbstractEncoder
+import org.gradle.internal.serialize.SerializerSpec
+import org.gradle.internal.serialize.kryo.StringDeduplicatingKryoBackedDecoder
+import org.gradle.internal.serialize.kryo.StringDeduplicatingKryoBackedEncoder
+
+import static org.gradle.internal.component.local.model.TestComponentIdentifiers.newProjectId
+
+class ResolvedGraphRecordSerializerTest extends SerializerSpec {
+    private serializer = new ResolvedGraphRecordSerializer(DependencyManagementTestUtil.componentSelectionDescriptorFactory())
+
+    @Override
+    Class<? extends AbstractEncoder> getEncoder() {
+        StringDeduplicatingKryoBackedEncoder
+    }
+
+    @Override
+    Class<? extends AbstractDecoder> getDecoder() {
+        StringDeduplicatingKryoBackedDecoder
+    }
+
+    def "serializes graph record"() {
+        def rootId = newProjectId(":root")
+        def moduleId = DefaultModuleComponentIdentifier.newId(DefaultModuleIdentifier.newId("org", "foo"), "1.0")
+        def record = new ResolvedGraphRecord(
+            0,
+            [
+                new ResolvedGraphRecord.ComponentRecord(rootId, ComponentSelectionReasons.root(), TestHashCodes.hashCodeFrom(1), [0] as int[]),
+                new ResolvedGraphRecord.ComponentRecord(moduleId, ComponentSelectionReasons.requested(), TestHashCodes.hashCodeFrom(2), [1, 2] as int[])
+            ],
+            [
+                new ResolvedGraphRecord.NodeRecord(0, "runtimeClasspath", TestHashCodes.hashCodeFrom(3), [0, 1, 2] as int[], [] as int[]),
+                new ResolvedGraphRecord.NodeRecord(1, "runtime", TestHashCodes.hashCodeFrom(4), [] as int[], [0] as int[]),
+                new ResolvedGraphRecord.NodeRecord(1, "apiElements", TestHashCodes.hashCodeFrom(5), [] as int[], [1] as int[])
+            ],
+            [
+                new ResolvedGraphRecord.EdgeRecord(0, 0, 1, 1, true, ComponentSelectionReasons.requested()),
+                new ResolvedGraphRecord.EdgeRecord(0, 1, 1, 2, false, ComponentSelectionReasons.requested()),
+                new ResolvedGraphRecord.EdgeRecord(0, 2, 1, -1, true, ComponentSelectionReasons.of(ComponentSelectionReasons.CONSTRAINT))
+            ],
+            [0, 1, 2] as int[]
+        )
+
+        when:
+        def result = serialize(record, serializer)
+
+        then:
+        result.rootNode == 0
+        result.edgeVisitOrder == [0, 1, 2] as int[]
+
+        result.components.size() == 2
+        result.components[0].id == rootId
+        result.components[0].selectionReason == ComponentSelectionReasons.root()
+        result.components[0].hash == TestHashCodes.hashCodeFrom(1)
+        result.components[0].selectedNodes == [0] as int[]
+        result.components[1].id == moduleId
+        result.components[1].selectionReason == ComponentSelectionReasons.requested()
+        result.components[1].hash == TestHashCodes.hashCodeFrom(2)
+        result.components[1].selectedNodes == [1, 2] as int[]
+
+        result.nodes.size() == 3
+        result.nodes.collect { it.component } == [0, 1, 1]
+        result.nodes.collect { it.variantName } == ["runtimeClasspath", "runtime", "apiElements"]
+        result.nodes.collect { it.hash } == [TestHashCodes.hashCodeFrom(3), TestHashCodes.hashCodeFrom(4), TestHashCodes.hashCodeFrom(5)]
+        result.nodes[0].outgoingEdges == [0, 1, 2] as int[]
+        result.nodes[0].incomingEdges == [] as int[]
+        result.nodes[2].incomingEdges == [1] as int[]
+
+        result.edges.size() == 3
+        result.edges.collect { it.from } == [0, 0, 0]
+        result.edges.collect { it.dependency } == [0, 1, 2]
+        result.edges.collect { it.selectedComponent } == [1, 1, 1]
+        result.edges.collect { it.selectedNode } == [1, 2, -1]
+        result.edges.collect { it.transitive } == [true, false, true]
+        result.edges[2].reason == ComponentSelectionReasons.of(ComponentSelectionReasons.CONSTRAINT)
+    }
+}
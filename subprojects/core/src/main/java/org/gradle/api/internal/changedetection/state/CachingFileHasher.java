@@ -29,11 +29,14 @@
 import org.gradle.internal.serialize.Encoder;
 import org.gradle.internal.serialize.HashCodeSerializer;
 import org.gradle.internal.serialize.InterningStringSerializer;
+import org.jspecify.annotations.Nullable;
 
 import java.io.File;
 
 public class CachingFileHasher implements FileHasher {
     private final IndexedCache<String, FileInfo> cache;
+    @Nullable
+    private final FileHashIndex index;
     private final FileHasher delegate;
     private final FileSystem fileSystem;
     private final StringInterner stringInterner;
@@ -56,6 +59,7 @@ public CachingFileHasher(
             IndexedCacheParameters.of(cacheName, new InterningStringSerializer(stringInterner), new FileInfoSerializer()),
             inMemorySize,
             true);
+        this.index = store.createFileHashIndex(cacheName, cache, inMemorySize);
         this.stringInterner = stringInterner;
         this.timestampInspector = timestampInspector;
         this.statisticsCollector = statisticsCollector;
@@ -84,22 +88,41 @@ private FileInfo snapshot(File file) {
     private FileInfo snapshot(File file, long length, long timestamp) {
         String absolutePath = file.getAbsolutePath();
         if (timestampInspector.timestampCanBeUsedToDetectFileChange(absolutePath, timestamp)) {
+            if (index != null) {
+                FileInfo indexed = index.get(absolutePath);
+                if (indexed != null && length == indexed.length && timestamp == indexed.timestamp) {
+                    statisticsCollector.reportIndexHit();
+                    return indexed;
+                }
+                statisticsCollector.reportIndexMiss();
+            }
+
             FileInfo info = cache.getIfPresent(absolutePath);
 
             if (info != null && length == info.length && timestamp == info.timestamp) {
+                if (index != null) {
+                    index.markUsed(stringInterner.intern(absolutePath));
+                }
                 return info;
             }
         }
 
         HashCode hash = delegate.hash(file);
         FileInfo info = new FileInfo(hash, length, timestamp);
-        cache.put(stringInterner.intern(absolutePath), info);
+        String internedPath = stringInterner.intern(absolutePath);
+        cache.put(internedPath, info);
+        if (index != null) {
+            index.markModified(internedPath);
+        }
         statisticsCollector.reportFileHashed(length);
         return info;
     }
 
     public void discard(String path) {
         cache.remove(path);
+        if (index != null) {
+            index.markModified(path);
+        }
     }
 
     @VisibleForTesting
@@ -117,6 +140,14 @@ public FileInfo(HashCode hash, long length, long timestamp) {
         public HashCode getHash() {
             return hash;
         }
+
+        long getTimestamp() {
+            return timestamp;
+        }
+
+        long getLength() {
+            return length;
+        }
     }
 
     private static class FileInfoSerializer extends AbstractSerializer<FileInfo> {
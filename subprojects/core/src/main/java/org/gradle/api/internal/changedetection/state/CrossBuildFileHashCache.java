@@ -24,14 +24,22 @@
 import org.gradle.cache.scopes.ScopedCacheBuilderFactory;
 import org.gradle.internal.service.scopes.Scope;
 import org.gradle.internal.service.scopes.ServiceScope;
+import org.jspecify.annotations.Nullable;
 
 import java.io.Closeable;
+import java.io.File;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
 
 @ServiceScope({Scope.UserHome.class, Scope.BuildSession.class})
 public class CrossBuildFileHashCache implements Closeable {
+    // Keeps file hashes that do not fit on the heap hot in long-lived daemons, when off-heap stores are enabled
+    private static final long MAX_OFF_HEAP_BYTES = 32L * 1024 * 1024;
 
     private final PersistentCache cache;
     private final InMemoryCacheDecoratorFactory inMemoryCacheDecoratorFactory;
+    private final boolean fileHashIndexEnabled = Boolean.getBoolean(FileHashIndex.ENABLED_PROPERTY);
+    private final List<FileHashIndex> fileHashIndexes = new CopyOnWriteArrayList<>();
 
     public CrossBuildFileHashCache(ScopedCacheBuilderFactory cacheBuilderFactory, InMemoryCacheDecoratorFactory inMemoryCacheDecoratorFactory, Kind cacheKind) {
         this.inMemoryCacheDecoratorFactory = inMemoryCacheDecoratorFactory;
@@ -43,13 +51,33 @@ public CrossBuildFileHashCache(ScopedCacheBuilderFactory cacheBuilderFactory, In
 
     public <K, V> IndexedCache<K, V> createIndexedCache(IndexedCacheParameters<K, V> parameters, int maxEntriesToKeepInMemory, boolean cacheInMemoryForShortLivedProcesses) {
         return cache.createIndexedCache(parameters
-            .withCacheDecorator(inMemoryCacheDecoratorFactory.decorator(maxEntriesToKeepInMemory, cacheInMemoryForShortLivedProcesses))
+            .withCacheDecorator(inMemoryCacheDecoratorFactory.decorator(maxEntriesToKeepInMemory, cacheInMemoryForShortLivedProcesses, MAX_OFF_HEAP_BYTES))
         );
     }
 
+    /**
+     * Opens the {@link FileHashIndex} for the given file hash cache, which is written back when this cache is closed.
+     * Returns {@code null} when the index is not enabled.
+     */
+    @Nullable
+    public FileHashIndex createFileHashIndex(String name, IndexedCache<String, CachingFileHasher.FileInfo> fileHashes, int maxEntries) {
+        if (!fileHashIndexEnabled) {
+            return null;
+        }
+        FileHashIndex index = FileHashIndex.open(new File(cache.getBaseDir(), name + ".idx"), fileHashes, maxEntries);
+        fileHashIndexes.add(index);
+        return index;
+    }
+
     @Override
     public void close() {
-        cache.close();
+        try {
+            for (FileHashIndex index : fileHashIndexes) {
+                cache.useCache(index::write);
+            }
+        } finally {
+            cache.close();
+        }
     }
 
     public enum Kind {
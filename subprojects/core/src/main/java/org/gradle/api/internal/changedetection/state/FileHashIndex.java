@@ -0,0 +1,669 @@
+/*
+ * Copyright 2025 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.changedetection.state;
+
+import com.google.common.annotations.VisibleForTesting;
+import org.gradle.api.internal.changedetection.state.CachingFileHasher.FileInfo;
+import org.gradle.cache.IndexedCache;
+import org.gradle.internal.hash.HashCode;
+import org.gradle.internal.os.OperatingSystem;
+import org.jspecify.annotations.Nullable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * An index of file hashes by absolute path, stored in a single file that is memory mapped when the index is opened.
+ * <p>
+ * Opening the index only maps the file, so it takes the same time regardless of the number of entries.
+ * Entries are looked up directly in the mapped file, which contains an open addressing hash table over the records.
+ * The first build in a new daemon can therefore use the hashes recorded by the previous daemon without loading them from the file hash cache one by one.
+ * Each path is only looked up once, entries found in the index are remembered, and paths served by the file hash cache are not looked up again.
+ * <p>
+ * The mapped file is never modified.
+ * Entries that have been modified since the snapshot was written are appended in batches to a journal next to it, which is read when the index is opened.
+ * {@link #write()} appends the entries modified by this process to the journal, and only replaces the file with a new snapshot once the journal has grown too large.
+ * The new snapshot contains the current entries of the paths used or modified by this process, followed by the untouched entries of the journal and the previous snapshot,
+ * up to the maximum number of entries.
+ * The file is replaced atomically, so other processes keep using the snapshot they have mapped.
+ * <p>
+ * The file hash cache is shared between processes, and the snapshot is only valid as long as no other process has modified the cache since it or the last batch of the journal was written.
+ * When a snapshot or batch is written, an entry identifying it is put into the file hash cache, see {@link #MARKER_PATH}.
+ * A process that modifies the cache replaces that entry with its own, so the snapshot can be validated by comparing the entry with the one it has been written with.
+ * Since the in-memory cache in front of the file hash cache is discarded whenever another process has modified the cache,
+ * this reads the entry from disk every time this process takes over the cache lock.
+ * Once the snapshot is out of date, it is no longer used.
+ * <p>
+ * As with the file hash cache, the caller validates entries against the length and last modified time of the file.
+ * <p>
+ * The index is experimental and only used when the {@value #ENABLED_PROPERTY} system property is set.
+ */
+public class FileHashIndex {
+    private static final Logger LOGGER = LoggerFactory.getLogger(FileHashIndex.class);
+
+    /**
+     * The system property enabling the index.
+     */
+    public static final String ENABLED_PROPERTY = "org.gradle.unsafe.file-hash-index";
+
+    /**
+     * The path of the file hash cache entry identifying the last snapshot or batch written, or the last process that modified the cache.
+     * It cannot clash with an absolute path.
+     */
+    @VisibleForTesting
+    static final String MARKER_PATH = "<file hash index>";
+
+    private static final int MAGIC = 0x46484958;
+    private static final int JOURNAL_MAGIC = 0x4648494A;
+    private static final int VERSION = 2;
+    private static final int ID_SIZE = 16;
+    private static final int HEADER_SIZE = 16 + ID_SIZE;
+    private static final int SLOT_SIZE = 8;
+    private static final int MIN_SLOT_COUNT = 16;
+    // The journal is folded into a new snapshot once it has more records than this, or a quarter of the snapshot
+    private static final int MIN_JOURNAL_RECORDS_BEFORE_COMPACTION = 1024;
+
+    // Values of touchedPaths for paths not served by the index
+    private static final FileInfo USED = new FileInfo(HashCode.fromBytes(new byte[ID_SIZE]), -1, -1);
+    private static final FileInfo MODIFIED = new FileInfo(HashCode.fromBytes(new byte[ID_SIZE]), -1, -1);
+
+    private final File indexFile;
+    private final File journalFile;
+    private final IndexedCache<String, FileInfo> cache;
+    private final int maxEntries;
+    private final Snapshot snapshot;
+    private final HashCode processMarker = randomId();
+    private volatile Journal journal;
+    // Identifies the last snapshot or batch read or written by this process
+    @Nullable
+    private volatile HashCode currentId;
+    // Paths served by the index map to their entry, paths served by the file hash cache to USED, and paths with modified cache entries to MODIFIED
+    private final Map<String, FileInfo> touchedPaths = new ConcurrentHashMap<>();
+    private volatile boolean snapshotOutOfDate;
+    private volatile boolean modified;
+
+    private FileHashIndex(File indexFile, File journalFile, IndexedCache<String, FileInfo> cache, int maxEntries, Snapshot snapshot, Journal journal) {
+        this.indexFile = indexFile;
+        this.journalFile = journalFile;
+        this.cache = cache;
+        this.maxEntries = maxEntries;
+        this.snapshot = snapshot;
+        this.journal = journal;
+        this.currentId = journal.lastBatchId != null ? journal.lastBatchId : snapshot.id;
+    }
+
+    /**
+     * Opens the index stored in the given file for the given file hash cache, or creates an empty index if the file does not exist or cannot be used.
+     */
+    public static FileHashIndex open(File indexFile, IndexedCache<String, FileInfo> cache, int maxEntries) {
+        Snapshot snapshot = Snapshot.load(indexFile);
+        File journalFile = new File(indexFile.getParentFile(), indexFile.getName() + ".journal");
+        return new FileHashIndex(indexFile, journalFile, cache, maxEntries, snapshot, Journal.load(journalFile, snapshot.id));
+    }
+
+    /**
+     * Returns the entry for the given path, if the index has an up-to-date one.
+     * Returns {@code null} for paths whose cache entry has been used or modified since the index was opened, the caller should use the cache for those.
+     */
+    @Nullable
+    public FileInfo get(String path) {
+        FileInfo touched = touchedPaths.get(path);
+        if (touched == USED || touched == MODIFIED) {
+            return null;
+        }
+        FileInfo stored = touched != null ? touched : getStored(path);
+        if (stored == null || !isSnapshotUpToDate()) {
+            return null;
+        }
+        if (touched == null && touchedPaths.size() < maxEntries) {
+            touchedPaths.putIfAbsent(path, stored);
+        }
+        return stored;
+    }
+
+    @Nullable
+    private FileInfo getStored(String path) {
+        FileInfo journaled = journal.entries.get(path);
+        if (journaled != null) {
+            return journaled == Journal.REMOVED ? null : journaled;
+        }
+        return snapshot.get(path);
+    }
+
+    /**
+     * Records that the cache entry for the given path has been used, so it is kept when the index is written.
+     */
+    public void markUsed(String path) {
+        FileInfo touched = touchedPaths.get(path);
+        if (touched == null) {
+            if (touchedPaths.size() < maxEntries && touchedPaths.putIfAbsent(path, USED) == null) {
+                modified = true;
+            }
+        } else if (touched != USED && touched != MODIFIED) {
+            // The entry in the index does not match the file anymore
+            if (touchedPaths.replace(path, touched, USED)) {
+                modified = true;
+            }
+        }
+    }
+
+    /**
+     * Records that the cache entry for the given path has been put or removed.
+     * The entry stored in the index for the path is not used anymore.
+     */
+    public void markModified(String path) {
+        // Modifications are kept even when the index is full, so the stored entry is never used again
+        touchedPaths.put(path, MODIFIED);
+        modified = true;
+        HashCode marker = getMarker();
+        if (!processMarker.equals(marker)) {
+            // Another process modified the cache since the snapshot was written, or the snapshot is about to be replaced by a newer one
+            if (marker == null || !marker.equals(currentId)) {
+                snapshotOutOfDate = true;
+            }
+            // Let other processes know that the cache has been modified
+            cache.put(MARKER_PATH, new FileInfo(processMarker, -1, -1));
+        }
+    }
+
+    private boolean isSnapshotUpToDate() {
+        if (snapshotOutOfDate) {
+            return false;
+        }
+        HashCode marker = getMarker();
+        // Either nobody modified the cache since the snapshot was written, or only this process did, and it tracks its own modifications
+        if (marker != null && (marker.equals(currentId) || marker.equals(processMarker))) {
+            return true;
+        }
+        LOGGER.debug("File hash index '{}' is out of date, as the file hash cache has been modified by another process.", indexFile);
+        snapshotOutOfDate = true;
+        return false;
+    }
+
+    @Nullable
+    private HashCode getMarker() {
+        FileInfo marker = cache.getIfPresent(MARKER_PATH);
+        return marker == null ? null : marker.getHash();
+    }
+
+    /**
+     * Appends the entries used or modified since the index was opened to the journal, or replaces the index file with a new snapshot once the journal has grown too large.
+     * <p>
+     * Must be called while holding the lock of the file hash cache.
+     */
+    public void write() {
+        if (!modified) {
+            return;
+        }
+        boolean snapshotUpToDate = snapshot.entryCount > 0 && isSnapshotUpToDate();
+        try {
+            if (!snapshotUpToDate || !appendToJournal()) {
+                writeSnapshot(snapshotUpToDate);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(String.format("Could not write file hash index to '%s'.", indexFile), e);
+        }
+        modified = false;
+    }
+
+    /**
+     * Appends a batch with the entries that differ from the stored ones, unless the journal would grow too large.
+     */
+    private boolean appendToJournal() throws IOException {
+        Map<String, FileInfo> batch = new LinkedHashMap<>();
+        touchedPaths.forEach((path, touched) -> {
+            if (touched != USED && touched != MODIFIED) {
+                return;
+            }
+            FileInfo info = cache.getIfPresent(path);
+            FileInfo stored = getStored(path);
+            if (info == null ? stored != null && touched == MODIFIED : !sameEntry(info, stored)) {
+                batch.put(path, info == null ? Journal.REMOVED : info);
+            }
+        });
+        int journalRecords = journal.recordCount + batch.size();
+        if (journalRecords > Math.max(MIN_JOURNAL_RECORDS_BEFORE_COMPACTION, snapshot.entryCount / 4) || snapshot.entryCount + journalRecords > maxEntries + maxEntries / 4) {
+            return false;
+        }
+        if (batch.isEmpty()) {
+            if (!Objects.equals(getMarker(), currentId)) {
+                // The modifications of this process did not change any stored entry
+                cache.put(MARKER_PATH, new FileInfo(Objects.requireNonNull(currentId), -1, -1));
+            }
+            return true;
+        }
+        HashCode batchId = randomId();
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream output = new DataOutputStream(bytes);
+        if (journal.length == 0) {
+            output.writeInt(JOURNAL_MAGIC);
+            output.writeInt(VERSION);
+            output.write(Objects.requireNonNull(snapshot.id).toByteArray());
+        }
+        output.writeInt(batch.size());
+        for (Map.Entry<String, FileInfo> entry : batch.entrySet()) {
+            writeRecord(output, entry.getKey(), entry.getValue());
+        }
+        output.write(batchId.toByteArray());
+        ByteBuffer buffer = ByteBuffer.wrap(bytes.toByteArray());
+        try (FileChannel channel = FileChannel.open(journalFile.toPath(), StandardOpenOption.CREATE, StandardOpenOption.WRITE)) {
+            // Drop anything after the last complete batch, left behind by a process that failed while appending
+            channel.truncate(journal.length);
+            long position = journal.length;
+            while (buffer.hasRemaining()) {
+                position += channel.write(buffer, position);
+            }
+        }
+        journal = journal.append(batch, journal.length + bytes.size(), batchId);
+        currentId = batchId;
+        cache.put(MARKER_PATH, new FileInfo(batchId, -1, -1));
+        return true;
+    }
+
+    private void writeSnapshot(boolean snapshotUpToDate) throws IOException {
+        SnapshotWriter writer = new SnapshotWriter(maxEntries);
+        touchedPaths.forEach((path, touched) -> {
+            FileInfo info = snapshotUpToDate && touched != USED && touched != MODIFIED ? touched : cache.getIfPresent(path);
+            if (info != null) {
+                writer.add(path, info);
+            }
+        });
+        if (snapshotUpToDate) {
+            journal.entries.forEach((path, info) -> {
+                if (info != Journal.REMOVED && !touchedPaths.containsKey(path)) {
+                    writer.add(path, info);
+                }
+            });
+            snapshot.forEachEntry((path, info) -> {
+                if (!touchedPaths.containsKey(path) && !journal.entries.containsKey(path)) {
+                    writer.add(path, info);
+                }
+            });
+        }
+        HashCode id = randomId();
+        File tempFile = new File(indexFile.getParentFile(), indexFile.getName() + ".tmp");
+        try (OutputStream output = Files.newOutputStream(tempFile.toPath())) {
+            writer.writeTo(output, id);
+        }
+        Files.move(tempFile.toPath(), indexFile.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        // The journal belongs to the previous snapshot, and would be ignored anyway
+        Files.deleteIfExists(journalFile.toPath());
+        cache.put(MARKER_PATH, new FileInfo(id, -1, -1));
+    }
+
+    private static boolean sameEntry(FileInfo info, @Nullable FileInfo stored) {
+        return stored != null && info.getHash().equals(stored.getHash()) && info.getLength() == stored.getLength() && info.getTimestamp() == stored.getTimestamp();
+    }
+
+    @VisibleForTesting
+    int getStoredEntryCount() {
+        int count = snapshot.entryCount;
+        for (Map.Entry<String, FileInfo> entry : journal.entries.entrySet()) {
+            boolean inSnapshot = snapshot.get(entry.getKey()) != null;
+            if (entry.getValue() == Journal.REMOVED) {
+                count -= inSnapshot ? 1 : 0;
+            } else {
+                count += inSnapshot ? 0 : 1;
+            }
+        }
+        return count;
+    }
+
+    @VisibleForTesting
+    File getJournalFile() {
+        return journalFile;
+    }
+
+    /**
+     * Writes an entry in the record format shared by the snapshot and the journal, where a removed entry has an empty hash.
+     */
+    private static void writeRecord(DataOutputStream output, String path, FileInfo info) throws IOException {
+        byte[] pathBytes = path.getBytes(StandardCharsets.UTF_8);
+        output.writeInt(pathBytes.length);
+        output.write(pathBytes);
+        if (info == Journal.REMOVED) {
+            output.writeByte(0);
+        } else {
+            byte[] hashBytes = info.getHash().toByteArray();
+            output.writeByte(hashBytes.length);
+            output.write(hashBytes);
+        }
+        output.writeLong(info.getTimestamp());
+        output.writeLong(info.getLength());
+    }
+
+    private static HashCode randomId() {
+        byte[] id = new byte[ID_SIZE];
+        ThreadLocalRandom.current().nextBytes(id);
+        return HashCode.fromBytes(id);
+    }
+
+    private static int slotHash(String path) {
+        int hash = path.hashCode();
+        return (hash ^ (hash >>> 16)) * 0x9E3779B9;
+    }
+
+    /**
+     * The entries stored in the index file when the index was opened.
+     */
+    private static class Snapshot {
+        private static final Snapshot EMPTY = new Snapshot(ByteBuffer.allocate(HEADER_SIZE + MIN_SLOT_COUNT * SLOT_SIZE), MIN_SLOT_COUNT, 0, null);
+
+        private final ByteBuffer buffer;
+        private final int slotCount;
+        private final int entryCount;
+        @Nullable
+        private final HashCode id;
+
+        private Snapshot(ByteBuffer buffer, int slotCount, int entryCount, @Nullable HashCode id) {
+            this.buffer = buffer;
+            this.slotCount = slotCount;
+            this.entryCount = entryCount;
+            this.id = id;
+        }
+
+        static Snapshot load(File indexFile) {
+            try (FileChannel channel = FileChannel.open(indexFile.toPath(), StandardOpenOption.READ)) {
+                long size = channel.size();
+                if (size < HEADER_SIZE || size > Integer.MAX_VALUE) {
+                    return EMPTY;
+                }
+                ByteBuffer buffer;
+                if (OperatingSystem.current().isWindows()) {
+                    // Files cannot be replaced while they are mapped on Windows
+                    buffer = ByteBuffer.allocate((int) size);
+                    while (buffer.hasRemaining() && channel.read(buffer) >= 0) {
+                        // Keep reading
+                    }
+                } else {
+                    buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+                }
+                int magic = buffer.getInt(0);
+                int version = buffer.getInt(4);
+                int slotCount = buffer.getInt(8);
+                int entryCount = buffer.getInt(12);
+                if (magic != MAGIC || version != VERSION || slotCount < MIN_SLOT_COUNT || Integer.bitCount(slotCount) != 1 || HEADER_SIZE + (long) slotCount * SLOT_SIZE > size) {
+                    LOGGER.debug("Ignoring file hash index '{}' with unknown format.", indexFile);
+                    return EMPTY;
+                }
+                byte[] id = new byte[ID_SIZE];
+                for (int i = 0; i < ID_SIZE; i++) {
+                    id[i] = buffer.get(16 + i);
+                }
+                return new Snapshot(buffer, slotCount, entryCount, HashCode.fromBytes(id));
+            } catch (NoSuchFileException e) {
+                return EMPTY;
+            } catch (IOException e) {
+                LOGGER.debug("Could not read file hash index '{}'.", indexFile, e);
+                return EMPTY;
+            }
+        }
+
+        @Nullable
+        FileInfo get(String path) {
+            if (entryCount == 0) {
+                return null;
+            }
+            int hash = slotHash(path);
+            byte[] pathBytes = null;
+            int mask = slotCount - 1;
+            try {
+                for (int probe = 0, slot = hash & mask; probe < slotCount; probe++, slot = (slot + 1) & mask) {
+                    int slotPosition = HEADER_SIZE + slot * SLOT_SIZE;
+                    int recordOffset = buffer.getInt(slotPosition + 4);
+                    if (recordOffset == 0) {
+                        return null;
+                    }
+                    if (buffer.getInt(slotPosition) != hash) {
+                        continue;
+                    }
+                    if (pathBytes == null) {
+                        pathBytes = path.getBytes(StandardCharsets.UTF_8);
+                    }
+                    int recordPosition = recordsStart() + recordOffset - 1;
+                    if (pathEquals(recordPosition, pathBytes)) {
+                        return readFileInfo(recordPosition + 4 + pathBytes.length);
+                    }
+                }
+                return null;
+            } catch (IndexOutOfBoundsException | IllegalArgumentException e) {
+                // Corrupt index, don't use it
+                return null;
+            }
+        }
+
+        void forEachEntry(EntryVisitor visitor) {
+            int position = recordsStart();
+            try {
+                for (int i = 0; i < entryCount; i++) {
+                    int pathLength = buffer.getInt(position);
+                    byte[] pathBytes = new byte[pathLength];
+                    for (int j = 0; j < pathLength; j++) {
+                        pathBytes[j] = buffer.get(position + 4 + j);
+                    }
+                    position += 4 + pathLength;
+                    visitor.visit(new String(pathBytes, StandardCharsets.UTF_8), readFileInfo(position));
+                    position += 1 + (buffer.get(position) & 0xFF) + 16;
+                }
+            } catch (IndexOutOfBoundsException | IllegalArgumentException | NegativeArraySizeException e) {
+                // Corrupt index, skip the remaining entries
+            }
+        }
+
+        private int recordsStart() {
+            return HEADER_SIZE + slotCount * SLOT_SIZE;
+        }
+
+        private boolean pathEquals(int recordPosition, byte[] pathBytes) {
+            if (buffer.getInt(recordPosition) != pathBytes.length) {
+                return false;
+            }
+            int pathPosition = recordPosition + 4;
+            for (int i = 0; i < pathBytes.length; i++) {
+                if (buffer.get(pathPosition + i) != pathBytes[i]) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        private FileInfo readFileInfo(int position) {
+            int hashLength = buffer.get(position) & 0xFF;
+            byte[] hashBytes = new byte[hashLength];
+            for (int i = 0; i < hashLength; i++) {
+                hashBytes[i] = buffer.get(position + 1 + i);
+            }
+            int valuesPosition = position + 1 + hashLength;
+            long timestamp = buffer.getLong(valuesPosition);
+            long length = buffer.getLong(valuesPosition + 8);
+            return new FileInfo(HashCode.fromBytes(hashBytes), length, timestamp);
+        }
+    }
+
+    /**
+     * The batches of entries appended since the snapshot was written, read when the index was opened.
+     * Batches that have not been completely written are ignored.
+     */
+    private static class Journal {
+        // Marks paths whose entry has been removed from the file hash cache
+        static final FileInfo REMOVED = new FileInfo(HashCode.fromBytes(new byte[ID_SIZE]), -1, -1);
+        private static final Journal EMPTY = new Journal(Collections.emptyMap(), 0, 0, null);
+
+        private final Map<String, FileInfo> entries;
+        private final int recordCount;
+        private final long length;
+        @Nullable
+        private final HashCode lastBatchId;
+
+        private Journal(Map<String, FileInfo> entries, int recordCount, long length, @Nullable HashCode lastBatchId) {
+            this.entries = entries;
+            this.recordCount = recordCount;
+            this.length = length;
+            this.lastBatchId = lastBatchId;
+        }
+
+        static Journal load(File journalFile, @Nullable HashCode snapshotId) {
+            if (snapshotId == null) {
+                return EMPTY;
+            }
+            ByteBuffer buffer;
+            try {
+                buffer = ByteBuffer.wrap(Files.readAllBytes(journalFile.toPath()));
+            } catch (NoSuchFileException e) {
+                return EMPTY;
+            } catch (IOException e) {
+                LOGGER.debug("Could not read file hash index journal '{}'.", journalFile, e);
+                return EMPTY;
+            }
+            try {
+                if (buffer.getInt() != JOURNAL_MAGIC || buffer.getInt() != VERSION || !snapshotId.equals(readId(buffer))) {
+                    // Written for another snapshot
+                    return EMPTY;
+                }
+            } catch (BufferUnderflowException e) {
+                return EMPTY;
+            }
+            Map<String, FileInfo> entries = new HashMap<>();
+            int recordCount = 0;
+            long length = buffer.position();
+            HashCode lastBatchId = null;
+            try {
+                while (buffer.hasRemaining()) {
+                    int count = buffer.getInt();
+                    Map<String, FileInfo> batch = new HashMap<>();
+                    for (int i = 0; i < count; i++) {
+                        byte[] pathBytes = new byte[buffer.getInt()];
+                        buffer.get(pathBytes);
+                        byte[] hashBytes = new byte[buffer.get() & 0xFF];
+                        buffer.get(hashBytes);
+                        long timestamp = buffer.getLong();
+                        long fileLength = buffer.getLong();
+                        batch.put(new String(pathBytes, StandardCharsets.UTF_8), hashBytes.length == 0 ? REMOVED : new FileInfo(HashCode.fromBytes(hashBytes), fileLength, timestamp));
+                    }
+                    lastBatchId = readId(buffer);
+                    entries.putAll(batch);
+                    recordCount += count;
+                    length = buffer.position();
+                }
+            } catch (BufferUnderflowException | IllegalArgumentException | NegativeArraySizeException e) {
+                // Incomplete or corrupt batch, ignore it and everything after it
+            }
+            return new Journal(entries, recordCount, length, lastBatchId);
+        }
+
+        Journal append(Map<String, FileInfo> batch, long newLength, HashCode batchId) {
+            Map<String, FileInfo> newEntries = new HashMap<>(entries);
+            newEntries.putAll(batch);
+            return new Journal(newEntries, recordCount + batch.size(), newLength, batchId);
+        }
+
+        private static HashCode readId(ByteBuffer buffer) {
+            byte[] id = new byte[ID_SIZE];
+            buffer.get(id);
+            return HashCode.fromBytes(id);
+        }
+    }
+
+    private interface EntryVisitor {
+        void visit(String path, FileInfo info);
+    }
+
+    /**
+     * Collects entries and writes them in the index file format.
+     */
+    private static class SnapshotWriter {
+        private final int maxEntries;
+        private final ByteArrayOutputStream records = new ByteArrayOutputStream();
+        private final DataOutputStream recordsOutput = new DataOutputStream(records);
+        private int[] hashes;
+        private int[] offsets;
+        private int entryCount;
+
+        SnapshotWriter(int maxEntries) {
+            this.maxEntries = maxEntries;
+            this.hashes = new int[MIN_SLOT_COUNT];
+            this.offsets = new int[MIN_SLOT_COUNT];
+        }
+
+        void add(String path, FileInfo info) {
+            if (entryCount >= maxEntries) {
+                return;
+            }
+            try {
+                if (hashes.length == entryCount) {
+                    hashes = Arrays.copyOf(hashes, entryCount * 2);
+                    offsets = Arrays.copyOf(offsets, entryCount * 2);
+                }
+                hashes[entryCount] = slotHash(path);
+                // Offsets are stored incremented by one, so that zero marks an empty slot
+                offsets[entryCount] = records.size() + 1;
+                entryCount++;
+
+                writeRecord(recordsOutput, path, info);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        void writeTo(OutputStream output, HashCode id) throws IOException {
+            // Keep the load factor at or below one half
+            int slotCount = Math.max(MIN_SLOT_COUNT, Integer.highestOneBit(Math.max(1, entryCount) * 4 - 1));
+            int mask = slotCount - 1;
+            ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE + slotCount * SLOT_SIZE);
+            header.putInt(0, MAGIC);
+            header.putInt(4, VERSION);
+            header.putInt(8, slotCount);
+            header.putInt(12, entryCount);
+            byte[] idBytes = id.toByteArray();
+            for (int i = 0; i < ID_SIZE; i++) {
+                header.put(16 + i, idBytes[i]);
+            }
+            for (int i = 0; i < entryCount; i++) {
+                int slot = hashes[i] & mask;
+                while (header.getInt(HEADER_SIZE + slot * SLOT_SIZE + 4) != 0) {
+                    slot = (slot + 1) & mask;
+                }
+                header.putInt(HEADER_SIZE + slot * SLOT_SIZE, hashes[i]);
+                header.putInt(HEADER_SIZE + slot * SLOT_SIZE + 4, offsets[i]);
+            }
+            output.write(header.array());
+            records.writeTo(output);
+        }
+    }
+}
@@ -33,19 +33,41 @@ public interface FileHasherStatistics {
      */
     long getHashedContentLength();
 
+    /**
+     * Number of files whose hash was found in the file hash index.
+     */
+    long getIndexHitCount();
+
+    /**
+     * Number of files whose hash was looked up in the file hash index, but not found.
+     */
+    long getIndexMissCount();
+
     @ServiceScope(Scope.Global.class)
     class Collector {
         private final AtomicLong hashedFileCount = new AtomicLong();
         private final AtomicLong hashedContentLength = new AtomicLong();
+        private final AtomicLong indexHitCount = new AtomicLong();
+        private final AtomicLong indexMissCount = new AtomicLong();
 
         public void reportFileHashed(long length) {
             hashedFileCount.incrementAndGet();
             hashedContentLength.addAndGet(length);
         }
 
+        public void reportIndexHit() {
+            indexHitCount.incrementAndGet();
+        }
+
+        public void reportIndexMiss() {
+            indexMissCount.incrementAndGet();
+        }
+
         public FileHasherStatistics collect() {
             long hashedFileCount = this.hashedFileCount.getAndSet(0);
             long hashedContentLength = this.hashedContentLength.getAndSet(0);
+            long indexHitCount = this.indexHitCount.getAndSet(0);
+            long indexMissCount = this.indexMissCount.getAndSet(0);
             return new FileHasherStatistics() {
                 @Override
                 public long getHashedFileCount() {
@@ -57,10 +79,20 @@ public long getHashedContentLength() {
                     return hashedContentLength;
                 }
 
+                @Override
+                public long getIndexHitCount() {
+                    return indexHitCount;
+                }
+
+                @Override
+                public long getIndexMissCount() {
+                    return indexMissCount;
+                }
+
                 @Override
                 public String toString() {
-                    return MessageFormat.format("Hashed {0,number,integer} files ({1,number,integer} bytes)",
-                        hashedFileCount, hashedContentLength
+                    return MessageFormat.format("Hashed {0,number,integer} files ({1,number,integer} bytes), file hash index hits/misses: {2,number,integer}/{3,number,integer}",
+                        hashedFileCount, hashedContentLength, indexHitCount, indexMissCount
                     );
                 }
             };
@@ -27,9 +27,11 @@
 import org.gradle.caching.internal.controller.impl.LifecycleAwareBuildCacheControllerFactory;
 import org.gradle.caching.internal.origin.OriginMetadataFactory;
 import org.gradle.caching.internal.packaging.BuildCacheEntryPacker;
+import org.gradle.caching.internal.packaging.impl.BuildCacheEntryCodecs;
+import org.gradle.caching.internal.packaging.impl.CompressingBuildCacheEntryPacker;
 import org.gradle.caching.internal.packaging.impl.DefaultTarPackerFileSystemSupport;
 import org.gradle.caching.internal.packaging.impl.FilePermissionAccess;
-import org.gradle.caching.internal.packaging.impl.GZipBuildCacheEntryPacker;
+import org.gradle.caching.internal.packaging.impl.ParallelUnpackSettings;
 import org.gradle.caching.internal.packaging.impl.TarBuildCacheEntryPacker;
 import org.gradle.caching.internal.packaging.impl.TarPackerFileSystemSupport;
 import org.gradle.caching.internal.services.BuildCacheControllerFactory;
@@ -38,6 +40,8 @@
 import org.gradle.caching.local.internal.DirectoryBuildCacheServiceFactory;
 import org.gradle.internal.build.BuildState;
 import org.gradle.internal.build.RootBuildState;
+import org.gradle.internal.concurrent.ExecutorFactory;
+import org.gradle.internal.concurrent.ManagedExecutor;
 import org.gradle.internal.file.BufferProvider;
 import org.gradle.internal.file.Deleter;
 import org.gradle.internal.file.FileException;
@@ -55,8 +59,12 @@
 import org.gradle.internal.service.ServiceRegistrationProvider;
 import org.gradle.internal.service.ServiceRegistry;
 import org.gradle.internal.service.scopes.AbstractGradleModuleServices;
+import org.gradle.internal.service.scopes.Scope;
+import org.gradle.internal.service.scopes.ServiceScope;
 import org.gradle.util.GradleVersion;
+import org.jspecify.annotations.Nullable;
 
+import java.io.Closeable;
 import java.io.File;
 import java.util.List;
 
@@ -64,6 +72,18 @@
  * Build scoped services for build cache usage.
  */
 public final class BuildCacheServices extends AbstractGradleModuleServices {
+
+    /**
+     * Selects the codec used to compress new build cache entries, see {@link BuildCacheEntryCodecs}.
+     * Entries are always readable regardless of this setting.
+     */
+    public static final String ENTRY_COMPRESSION_PROPERTY = "org.gradle.unsafe.build-cache.entry-compression";
+
+    /**
+     * Enables writing the files of unpacked build cache entries concurrently, see {@link ParallelUnpackSettings}.
+     */
+    public static final String PARALLEL_UNPACK_PROPERTY = "org.gradle.unsafe.build-cache.parallel-unpack";
+
     @Override
     public void registerGlobalServices(ServiceRegistration registration) {
         registration.addProvider(new ServiceRegistrationProvider() {
@@ -85,6 +105,14 @@ LifecycleAwareBuildCacheControllerFactory createRootBuildCacheControllerRef() {
                 return new LifecycleAwareBuildCacheControllerFactory();
             }
 
+            @Provides
+            ParallelUnpackExecutor createParallelUnpackExecutor(ExecutorFactory executorFactory) {
+                if (!Boolean.getBoolean(PARALLEL_UNPACK_PROPERTY)) {
+                    return new ParallelUnpackExecutor(null);
+                }
+                return new ParallelUnpackExecutor(executorFactory.create("Build cache entry unpacking", Runtime.getRuntime().availableProcessors()));
+            }
+
             @Provides
             OriginMetadataFactory createOriginMetadataFactory(
                 BuildInvocationScopeId buildInvocationScopeId
@@ -129,10 +157,13 @@ BuildCacheEntryPacker createResultPacker(
                 FileSystem fileSystem,
                 StreamHasher fileHasher,
                 StringInterner stringInterner,
-                BufferProvider bufferProvider
+                BufferProvider bufferProvider,
+                ParallelUnpackExecutor parallelUnpackExecutor
             ) {
-                return new GZipBuildCacheEntryPacker(
-                    new TarBuildCacheEntryPacker(fileSystemSupport, new FilePermissionsAccessAdapter(fileSystem), fileHasher, stringInterner, bufferProvider));
+                String compression = System.getProperty(ENTRY_COMPRESSION_PROPERTY, BuildCacheEntryCodecs.GZIP.getName());
+                return new CompressingBuildCacheEntryPacker(
+                    new TarBuildCacheEntryPacker(fileSystemSupport, new FilePermissionsAccessAdapter(fileSystem), fileHasher, stringInterner, bufferProvider, parallelUnpackExecutor.getSettings()),
+                    BuildCacheEntryCodecs.forName(compression));
             }
 
             @Provides
@@ -159,7 +190,8 @@ BuildCacheControllerFactory createBuildCacheControllerFactory(
                 TemporaryFileProvider temporaryFileProvider,
                 BuildCacheEntryPacker packer,
                 OriginMetadataFactory originMetadataFactory,
-                StringInterner stringInterner
+                StringInterner stringInterner,
+                ExecutorFactory executorFactory
             ) {
                 return new DefaultBuildCacheControllerFactory(
                     startParameter,
@@ -168,12 +200,42 @@ BuildCacheControllerFactory createBuildCacheControllerFactory(
                     originMetadataFactory,
                     stringInterner,
                     temporaryFileProvider,
-                    packer
+                    packer,
+                    executorFactory
                 );
             }
         });
     }
 
+    /**
+     * Owns the executor used to write unpacked files, if parallel unpacking is enabled.
+     */
+    @ServiceScope(Scope.BuildTree.class)
+    private static final class ParallelUnpackExecutor implements Closeable {
+        @Nullable
+        private final ManagedExecutor executor;
+        @Nullable
+        private final ParallelUnpackSettings settings;
+
+        public ParallelUnpackExecutor(@Nullable ManagedExecutor executor) {
+            this.executor = executor;
+            // A single instance, so all unpacks in the build tree share one buffer budget
+            this.settings = executor == null ? null : new ParallelUnpackSettings(executor, ParallelUnpackSettings.DEFAULT_MAX_BUFFERED_BYTES);
+        }
+
+        @Nullable
+        public ParallelUnpackSettings getSettings() {
+            return settings;
+        }
+
+        @Override
+        public void close() {
+            if (executor != null) {
+                executor.stop();
+            }
+        }
+    }
+
     private static final class FilePermissionsAccessAdapter implements FilePermissionAccess {
 
         private final FileSystem fileSystem;
@@ -27,5 +27,12 @@
 public interface BuildCacheControllerFactory {
     String REMOTE_CONTINUE_ON_ERROR_PROPERTY = "org.gradle.unsafe.build-cache.remote-continue-on-error";
 
+    /**
+     * When set to {@code true}, entries are uploaded to the remote build cache in the background and the build waits for them at the end of the build.
+     */
+    String REMOTE_ASYNC_STORE_PROPERTY = "org.gradle.unsafe.build-cache.remote-async-store";
+    String REMOTE_ASYNC_STORE_MAX_CONCURRENCY_PROPERTY = "org.gradle.unsafe.build-cache.remote-async-store.max-concurrency";
+    String REMOTE_ASYNC_STORE_QUEUE_CAPACITY_PROPERTY = "org.gradle.unsafe.build-cache.remote-async-store.queue-capacity";
+
     BuildCacheController createController(Path buildIdentityPath, BuildCacheConfigurationInternal buildCacheConfiguration, InstanceGenerator instanceGenerator);
 }
@@ -22,13 +22,17 @@
 import org.gradle.api.logging.configuration.ShowStacktrace;
 import org.gradle.caching.BuildCacheService;
 import org.gradle.caching.configuration.BuildCache;
+import org.gradle.caching.internal.controller.AsyncRemoteStoreQueue;
 import org.gradle.caching.internal.controller.BuildCacheController;
 import org.gradle.caching.internal.controller.DefaultBuildCacheController;
+import org.gradle.caching.internal.controller.RemoteLoadPrefetcher;
 import org.gradle.caching.internal.controller.service.BuildCacheServicesConfiguration;
 import org.gradle.caching.internal.origin.OriginMetadataFactory;
 import org.gradle.caching.internal.packaging.BuildCacheEntryPacker;
 import org.gradle.caching.local.DirectoryBuildCache;
 import org.gradle.caching.local.internal.DirectoryBuildCacheService;
+import org.gradle.execution.plan.SpeculativeInputSnapshotter;
+import org.gradle.internal.concurrent.ExecutorFactory;
 import org.gradle.internal.operations.BuildOperationProgressEventEmitter;
 import org.gradle.internal.operations.BuildOperationRunner;
 import org.gradle.util.Path;
@@ -36,9 +40,15 @@
 
 public class DefaultBuildCacheControllerFactory extends AbstractBuildCacheControllerFactory<DirectoryBuildCacheService> {
 
+    private static final int DEFAULT_REMOTE_ASYNC_STORE_MAX_CONCURRENCY = 4;
+    private static final int DEFAULT_REMOTE_ASYNC_STORE_QUEUE_CAPACITY = 32;
+    private static final int DEFAULT_REMOTE_PREFETCH_MAX_CONCURRENCY = 4;
+    private static final int DEFAULT_REMOTE_PREFETCH_BATCH_SIZE = 64;
+
     private final TemporaryFileProvider temporaryFileProvider;
     private final BuildCacheEntryPacker packer;
     private final BuildOperationProgressEventEmitter buildOperationProgressEmitter;
+    private final ExecutorFactory executorFactory;
 
     public DefaultBuildCacheControllerFactory(
         StartParameter startParameter,
@@ -47,7 +57,8 @@ public DefaultBuildCacheControllerFactory(
         OriginMetadataFactory originMetadataFactory,
         StringInterner stringInterner,
         TemporaryFileProvider temporaryFileProvider,
-        BuildCacheEntryPacker packer
+        BuildCacheEntryPacker packer,
+        ExecutorFactory executorFactory
     ) {
         super(
             startParameter,
@@ -58,6 +69,7 @@ public DefaultBuildCacheControllerFactory(
         this.temporaryFileProvider = temporaryFileProvider;
         this.packer = packer;
         this.buildOperationProgressEmitter = buildOperationProgressEmitter;
+        this.executorFactory = executorFactory;
     }
 
     @Override
@@ -83,10 +95,29 @@ protected BuildCacheController doCreateController(
             !Boolean.getBoolean(REMOTE_CONTINUE_ON_ERROR_PROPERTY),
             packer,
             originMetadataFactory,
-            stringInterner
+            stringInterner,
+            asyncRemoteStoreSettings(),
+            remotePrefetchSettings()
         );
     }
 
+    private RemoteLoadPrefetcher.@Nullable Settings remotePrefetchSettings() {
+        // Speculative input snapshotting is the only source of keys to prefetch
+        if (!Boolean.getBoolean(SpeculativeInputSnapshotter.ENABLED_PROPERTY)) {
+            return null;
+        }
+        return new RemoteLoadPrefetcher.Settings(executorFactory, DEFAULT_REMOTE_PREFETCH_MAX_CONCURRENCY, DEFAULT_REMOTE_PREFETCH_BATCH_SIZE);
+    }
+
+    private AsyncRemoteStoreQueue.@Nullable Settings asyncRemoteStoreSettings() {
+        if (!Boolean.getBoolean(REMOTE_ASYNC_STORE_PROPERTY)) {
+            return null;
+        }
+        int maxConcurrency = Integer.getInteger(REMOTE_ASYNC_STORE_MAX_CONCURRENCY_PROPERTY, DEFAULT_REMOTE_ASYNC_STORE_MAX_CONCURRENCY);
+        int queueCapacity = Integer.getInteger(REMOTE_ASYNC_STORE_QUEUE_CAPACITY_PROPERTY, Math.max(maxConcurrency, DEFAULT_REMOTE_ASYNC_STORE_QUEUE_CAPACITY));
+        return new AsyncRemoteStoreQueue.Settings(executorFactory, maxConcurrency, queueCapacity, AsyncRemoteStoreQueue.Settings.DEFAULT_DRAIN_TIMEOUT);
+    }
+
     private static BuildCacheServicesConfiguration toConfiguration(
         Path buildPath,
         @Nullable DescribedBuildCacheService<DirectoryBuildCache, DirectoryBuildCacheService> local,
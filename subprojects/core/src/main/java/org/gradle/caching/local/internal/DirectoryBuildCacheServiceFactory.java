@@ -16,12 +16,14 @@
 
 package org.gradle.caching.local.internal;
 
+import com.google.common.collect.Iterables;
 import org.gradle.api.UncheckedIOException;
 import org.gradle.api.internal.cache.CacheConfigurationsInternal;
 import org.gradle.cache.CacheCleanupStrategy;
 import org.gradle.cache.CacheCleanupStrategyFactory;
 import org.gradle.cache.PersistentCache;
 import org.gradle.cache.UnscopedCacheBuilderFactory;
+import org.gradle.cache.internal.FilesFinder;
 import org.gradle.cache.internal.LeastRecentlyUsedCacheCleanup;
 import org.gradle.cache.internal.SingleDepthFilesFinder;
 import org.gradle.cache.scopes.GlobalScopedCacheBuilderFactory;
@@ -35,6 +37,7 @@
 
 import javax.inject.Inject;
 import java.io.File;
+import java.io.FileFilter;
 import java.util.function.Supplier;
 
 import static org.gradle.cache.FileLockManager.LockMode.OnDemand;
@@ -45,7 +48,11 @@ public class DirectoryBuildCacheServiceFactory implements BuildCacheServiceFacto
     private static final String BUILD_CACHE_VERSION = "1";
     private static final String BUILD_CACHE_KEY = "build-cache-" + BUILD_CACHE_VERSION;
     private static final String DIRECTORY_BUILD_CACHE_TYPE = "directory";
-    private static final int FILE_TREE_DEPTH_TO_TRACK_AND_CLEANUP = 1;
+    private static final String SHARDED_ENTRIES_DIRECTORY = org.gradle.caching.local.internal.DirectoryBuildCache.SHARDED_ENTRIES_DIRECTORY;
+    // Entries are stored in shard directories inside SHARDED_ENTRIES_DIRECTORY, see DirectoryBuildCache.getRelativeEntryPath()
+    private static final int FILE_TREE_DEPTH_TO_TRACK_AND_CLEANUP = 2;
+    // Entries stored directly in the cache directory by older Gradle versions
+    private static final int LEGACY_FILE_TREE_DEPTH_TO_TRACK_AND_CLEANUP = 1;
 
     private final UnscopedCacheBuilderFactory unscopedCacheBuilderFactory;
     private final GlobalScopedCacheBuilderFactory cacheBuilderFactory;
@@ -94,7 +101,10 @@ public BuildCacheService createBuildCacheService(DirectoryBuildCache buildCacheC
             .withDisplayName("Build cache")
             .withInitialLockMode(OnDemand)
             .open();
-        FileAccessTracker fileAccessTracker = new SingleDepthFileAccessTracker(fileAccessTimeJournal, target, FILE_TREE_DEPTH_TO_TRACK_AND_CLEANUP);
+        File shardedEntriesDir = new File(target, SHARDED_ENTRIES_DIRECTORY);
+        // Older Gradle versions clean up the directory of sharded entries as a single entry, keep it alive for them
+        fileAccessTimeJournal.setLastAccessTime(shardedEntriesDir, System.currentTimeMillis());
+        FileAccessTracker fileAccessTracker = new ShardedEntriesAccessTracker(target, shardedEntriesDir);
 
         return new DirectoryBuildCacheService(persistentCache, fileAccessTracker, FAILED_READ_SUFFIX);
     }
@@ -107,7 +117,47 @@ private CacheCleanupStrategy createCacheCleanupStrategy(Supplier<Long> removeUnu
     }
 
     private LeastRecentlyUsedCacheCleanup createCleanupAction(Supplier<Long> removeUnusedEntriesTimestamp) {
-        return new LeastRecentlyUsedCacheCleanup(new SingleDepthFilesFinder(FILE_TREE_DEPTH_TO_TRACK_AND_CLEANUP), fileAccessTimeJournal, removeUnusedEntriesTimestamp);
+        return new LeastRecentlyUsedCacheCleanup(new ShardedEntriesFinder(), fileAccessTimeJournal, removeUnusedEntriesTimestamp);
+    }
+
+    /**
+     * Finds entries in shard directories, as well as entries stored directly in the cache directory by older Gradle versions.
+     */
+    private static class ShardedEntriesFinder implements FilesFinder {
+        private final FilesFinder shardedEntriesFinder = new SingleDepthFilesFinder(FILE_TREE_DEPTH_TO_TRACK_AND_CLEANUP);
+        private final FilesFinder legacyEntriesFinder = new SingleDepthFilesFinder(LEGACY_FILE_TREE_DEPTH_TO_TRACK_AND_CLEANUP);
+
+        @Override
+        public Iterable<File> find(File baseDir, FileFilter filter) {
+            return Iterables.concat(
+                shardedEntriesFinder.find(new File(baseDir, SHARDED_ENTRIES_DIRECTORY), filter),
+                Iterables.filter(legacyEntriesFinder.find(baseDir, filter), File::isFile)
+            );
+        }
+    }
+
+    /**
+     * Tracks access to entries in shard directories, as well as to entries stored directly in the cache directory by older Gradle versions.
+     */
+    private class ShardedEntriesAccessTracker implements FileAccessTracker {
+        private final File baseDir;
+        private final FileAccessTracker shardedEntriesTracker;
+        private final FileAccessTracker legacyEntriesTracker;
+
+        ShardedEntriesAccessTracker(File baseDir, File shardedEntriesDir) {
+            this.baseDir = baseDir.getAbsoluteFile();
+            this.shardedEntriesTracker = new SingleDepthFileAccessTracker(fileAccessTimeJournal, shardedEntriesDir, FILE_TREE_DEPTH_TO_TRACK_AND_CLEANUP);
+            this.legacyEntriesTracker = new SingleDepthFileAccessTracker(fileAccessTimeJournal, baseDir, LEGACY_FILE_TREE_DEPTH_TO_TRACK_AND_CLEANUP);
+        }
+
+        @Override
+        public void markAccessed(File file) {
+            if (baseDir.equals(file.getAbsoluteFile().getParentFile())) {
+                legacyEntriesTracker.markAccessed(file);
+            } else {
+                shardedEntriesTracker.markAccessed(file);
+            }
+        }
     }
 
     private static void checkDirectory(File directory) {
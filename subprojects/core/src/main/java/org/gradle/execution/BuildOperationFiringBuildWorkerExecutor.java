@@ -17,22 +17,26 @@
 package org.gradle.execution;
 
 import org.gradle.api.internal.GradleInternal;
+import org.gradle.execution.plan.CriticalPath;
 import org.gradle.execution.plan.FinalizedExecutionPlan;
 import org.gradle.initialization.BuildRequestMetaData;
 import org.gradle.internal.build.ExecutionResult;
 import org.gradle.internal.operations.BuildOperationCategory;
 import org.gradle.internal.operations.BuildOperationContext;
 import org.gradle.internal.operations.BuildOperationDescriptor;
+import org.gradle.internal.operations.BuildOperationProgressEventEmitter;
 import org.gradle.internal.operations.BuildOperationRunner;
 import org.gradle.internal.operations.CallableBuildOperation;
 
 public class BuildOperationFiringBuildWorkerExecutor implements BuildWorkExecutor {
     private final BuildWorkExecutor delegate;
     private final BuildOperationRunner buildOperationRunner;
+    private final BuildOperationProgressEventEmitter progressEventEmitter;
 
-    public BuildOperationFiringBuildWorkerExecutor(BuildWorkExecutor delegate, BuildOperationRunner buildOperationRunner) {
+    public BuildOperationFiringBuildWorkerExecutor(BuildWorkExecutor delegate, BuildOperationRunner buildOperationRunner, BuildOperationProgressEventEmitter progressEventEmitter) {
         this.delegate = delegate;
         this.buildOperationRunner = buildOperationRunner;
+        this.progressEventEmitter = progressEventEmitter;
     }
 
     @Override
@@ -52,6 +56,10 @@ public ExecuteTasks(GradleInternal gradle, FinalizedExecutionPlan plan) {
         @Override
         public ExecutionResult<Void> call(BuildOperationContext context) throws Exception {
             ExecutionResult<Void> result = delegate.execute(gradle, plan);
+            CriticalPath actualCriticalPath = plan.getActualCriticalPath();
+            if (!actualCriticalPath.isEmpty()) {
+                progressEventEmitter.emitNowIfCurrent(new CriticalPathProgressDetails(plan.getPredictedCriticalPath(), actualCriticalPath));
+            }
             if (!result.getFailures().isEmpty()) {
                 context.failed(result.getFailure());
             }
@@ -0,0 +1,47 @@
+/*
+ * Copyright 2025 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.execution;
+
+import org.gradle.execution.plan.CriticalPath;
+
+/**
+ * Emitted as progress of the "Run tasks" build operation once the tasks have been executed, to compare
+ * the critical path that the execution plan was prioritized with to the critical path that was actually executed.
+ */
+public class CriticalPathProgressDetails {
+    private final CriticalPath predicted;
+    private final CriticalPath actual;
+
+    public CriticalPathProgressDetails(CriticalPath predicted, CriticalPath actual) {
+        this.predicted = predicted;
+        this.actual = actual;
+    }
+
+    /**
+     * The critical path estimated from the durations of previous executions.
+     */
+    public CriticalPath getPredicted() {
+        return predicted;
+    }
+
+    /**
+     * The critical path using the durations of this execution.
+     */
+    public CriticalPath getActual() {
+        return actual;
+    }
+}
@@ -0,0 +1,59 @@
+/*
+ * Copyright 2025 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.execution.plan;
+
+import com.google.common.collect.ImmutableList;
+
+import java.util.List;
+
+/**
+ * The chain of dependent nodes of an execution plan with the longest total execution time.
+ */
+public class CriticalPath {
+    public static final CriticalPath EMPTY = new CriticalPath(0, ImmutableList.of());
+
+    private final long durationMillis;
+    private final List<String> nodes;
+
+    public CriticalPath(long durationMillis, List<String> nodes) {
+        this.durationMillis = durationMillis;
+        this.nodes = nodes;
+    }
+
+    /**
+     * The total execution time of the nodes on the path.
+     */
+    public long getDurationMillis() {
+        return durationMillis;
+    }
+
+    /**
+     * The nodes on the path, dependencies first.
+     */
+    public List<String> getNodes() {
+        return nodes;
+    }
+
+    public boolean isEmpty() {
+        return nodes.isEmpty();
+    }
+
+    @Override
+    public String toString() {
+        return durationMillis + "ms " + nodes;
+    }
+}
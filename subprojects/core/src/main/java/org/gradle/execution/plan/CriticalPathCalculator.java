@@ -0,0 +1,128 @@
+/*
+ * Copyright 2025 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.execution.plan;
+
+import com.google.common.collect.ImmutableList;
+import org.jspecify.annotations.Nullable;
+
+import java.util.ArrayDeque;
+import java.util.Collection;
+import java.util.Deque;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.function.ToLongFunction;
+
+/**
+ * Calculates the critical path through a set of nodes, that is the chain of nodes connected by dependency edges with the
+ * longest total execution time.
+ */
+class CriticalPathCalculator {
+    private final Map<Node, Long> remainingMillis = new IdentityHashMap<>();
+    private final Map<Node, Boolean> nodes = new IdentityHashMap<>();
+    private final ToLongFunction<Node> durations;
+
+    private CriticalPathCalculator(Collection<? extends Node> nodes, ToLongFunction<Node> durations) {
+        for (Node node : nodes) {
+            this.nodes.put(node, Boolean.TRUE);
+        }
+        this.durations = durations;
+    }
+
+    /**
+     * Calculates the remaining critical path of each of the given nodes, which is the execution time of the node plus the longest
+     * remaining critical path of the nodes that depend on it. Only considers dependencies between the given nodes.
+     */
+    static CriticalPathCalculator calculate(Collection<? extends Node> nodes, ToLongFunction<Node> durations) {
+        CriticalPathCalculator calculator = new CriticalPathCalculator(nodes, durations);
+        for (Node node : nodes) {
+            calculator.visit(node);
+        }
+        return calculator;
+    }
+
+    long getRemainingMillis(Node node) {
+        Long remaining = remainingMillis.get(node);
+        return remaining == null ? 0 : remaining;
+    }
+
+    CriticalPath getCriticalPath() {
+        Node current = null;
+        long longest = 0;
+        for (Node node : nodes.keySet()) {
+            long remaining = getRemainingMillis(node);
+            if (remaining > longest) {
+                current = node;
+                longest = remaining;
+            }
+        }
+        if (current == null) {
+            return CriticalPath.EMPTY;
+        }
+        ImmutableList.Builder<String> path = ImmutableList.builder();
+        while (current != null) {
+            path.add(current.toString());
+            current = longestDependent(current);
+        }
+        return new CriticalPath(longest, path.build());
+    }
+
+    @Nullable
+    private Node longestDependent(Node node) {
+        Node longestDependent = null;
+        long longest = 0;
+        for (Node dependent : node.getDependencyPredecessors()) {
+            long remaining = getRemainingMillis(dependent);
+            if (remaining > longest) {
+                longestDependent = dependent;
+                longest = remaining;
+            }
+        }
+        return longestDependent;
+    }
+
+    private void visit(Node start) {
+        if (remainingMillis.containsKey(start)) {
+            return;
+        }
+        // Iterative, as the chains of dependent nodes can be long
+        Map<Node, Boolean> visiting = new IdentityHashMap<>();
+        Deque<Node> stack = new ArrayDeque<>();
+        Deque<Iterator<Node>> dependents = new ArrayDeque<>();
+        stack.push(start);
+        dependents.push(start.getDependencyPredecessors().iterator());
+        visiting.put(start, Boolean.TRUE);
+        while (!stack.isEmpty()) {
+            Iterator<Node> iterator = dependents.peek();
+            if (iterator.hasNext()) {
+                Node dependent = iterator.next();
+                if (nodes.containsKey(dependent) && !remainingMillis.containsKey(dependent) && visiting.put(dependent, Boolean.TRUE) == null) {
+                    stack.push(dependent);
+                    dependents.push(dependent.getDependencyPredecessors().iterator());
+                }
+                continue;
+            }
+            Node node = stack.pop();
+            dependents.pop();
+            long longestDependent = 0;
+            for (Node dependent : node.getDependencyPredecessors()) {
+                longestDependent = Math.max(longestDependent, getRemainingMillis(dependent));
+            }
+            remainingMillis.put(node, Math.max(0, durations.applyAsLong(node)) + longestDependent);
+        }
+    }
+}
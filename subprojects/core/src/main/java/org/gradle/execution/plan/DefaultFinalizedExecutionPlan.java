@@ -35,11 +35,13 @@
 import java.util.Comparator;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.IdentityHashMap;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.TreeSet;
+import java.util.concurrent.TimeUnit;
 import java.util.function.BiFunction;
 import java.util.function.Consumer;
 
@@ -57,6 +59,11 @@ public int compare(Node node1, Node node2) {
             } else if (!node1.isPriority() && node2.isPriority()) {
                 return 1;
             }
+            // Start the nodes with the longest remaining critical path first
+            int criticalPathOrder = Long.compare(node2.getRemainingCriticalPathMillis(), node1.getRemainingCriticalPathMillis());
+            if (criticalPathOrder != 0) {
+                return criticalPathOrder;
+            }
             if (node1.getIndex() > node2.getIndex()) {
                 return 1;
             } else if (node1.getIndex() < node2.getIndex()) {
@@ -84,6 +91,11 @@ public int compare(Node node1, Node node2) {
     private final Map<Pair<Node, Node>, Boolean> reachableCache = new HashMap<>();
     private final OrdinalNodeAccess ordinalNodeAccess;
     private final Consumer<LocalTaskNode> completionHandler;
+    private final NodeDurationEstimates durationEstimates;
+    private final ReadyNodeListener readyNodeListener;
+    private final CriticalPath predictedCriticalPath;
+    private final Map<Node, Long> executionStartTimes = new IdentityHashMap<>();
+    private final Map<Node, Long> executionDurations = new IdentityHashMap<>();
 
     // When true, there may be nodes that are both ready and "selectable", which means their project and resources are able to be locked
     // When false, there are definitely no nodes that are "selectable"
@@ -100,7 +112,9 @@ public DefaultFinalizedExecutionPlan(
         List<Node> scheduledNodes,
         boolean continueOnFailure,
         QueryableExecutionPlan contents,
-        Consumer<LocalTaskNode> completionHandler
+        Consumer<LocalTaskNode> completionHandler,
+        NodeDurationEstimates durationEstimates,
+        ReadyNodeListener readyNodeListener
     ) {
         this.displayName = displayName;
         this.outputHierarchy = outputHierarchy;
@@ -110,6 +124,8 @@ public DefaultFinalizedExecutionPlan(
         this.continueOnFailure = continueOnFailure;
         this.contents = contents;
         this.completionHandler = completionHandler;
+        this.durationEstimates = durationEstimates;
+        this.readyNodeListener = readyNodeListener;
 
         SetMultimap<FinalizerGroup, FinalizerGroup> reachableGroups = LinkedHashMultimap.create();
         for (Node node : scheduledNodes) {
@@ -118,9 +134,13 @@ public DefaultFinalizedExecutionPlan(
             }
         }
 
+        CriticalPathCalculator criticalPaths = CriticalPathCalculator.calculate(scheduledNodes, durationEstimates::estimateDurationMillis);
+        this.predictedCriticalPath = criticalPaths.getCriticalPath();
+
         for (int i = 0; i < scheduledNodes.size(); i++) {
             Node node = scheduledNodes.get(i);
             node.setIndex(i);
+            node.setRemainingCriticalPathMillis(criticalPaths.getRemainingMillis(node));
             node.prepareForExecution(this::monitoredNodeReady);
             node.updateAllDependenciesComplete();
             maybeNodeReady(node);
@@ -144,6 +164,16 @@ public WorkSource<Node> asWorkSource() {
         return this;
     }
 
+    @Override
+    public CriticalPath getPredictedCriticalPath() {
+        return predictedCriticalPath;
+    }
+
+    @Override
+    public CriticalPath getActualCriticalPath() {
+        return lockCoordinator.withStateLock(() -> CriticalPathCalculator.calculate(executionDurations.keySet(), executionDurations::get).getCriticalPath());
+    }
+
     @Override
     public void close() {
         lockCoordinator.removeLockReleaseListener(resourceUnlockListener);
@@ -151,6 +181,8 @@ public void close() {
         readyNodes.clear();
         runningNodes.clear();
         reachableCache.clear();
+        executionStartTimes.clear();
+        executionDurations.clear();
     }
 
     private void resourceUnlocked(ResourceLock resourceLock) {
@@ -262,6 +294,7 @@ public Selection<Node> selectNext() {
                     // The node is ready to execute and its pre-execution nodes have not been scheduled, so do this now
                     node.visitPreExecutionNodes(prepareNode -> {
                         prepareNode.setIndex(node.getIndex());
+                        prepareNode.setRemainingCriticalPathMillis(node.getRemainingCriticalPathMillis());
                         prepareNode.require();
                         prepareNode.updateAllDependenciesComplete();
                         node.addDependencySuccessor(prepareNode);
@@ -506,6 +539,17 @@ private boolean doesConsumerDependOnDestroyer(Node consumer, Node destroyer) {
 
     private void recordNodeExecutionStarted(Node node) {
         runningNodes.add(node);
+        executionStartTimes.put(node, System.nanoTime());
+        readyNodeListener.nodeStarted(node);
+    }
+
+    private void recordNodeExecutionFinished(Node node) {
+        Long startTime = executionStartTimes.remove(node);
+        if (startTime != null) {
+            long durationMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startTime);
+            executionDurations.put(node, durationMillis);
+            durationEstimates.recordDuration(node, durationMillis);
+        }
     }
 
     private void recordNodeCompleted(Node node) {
@@ -554,6 +598,7 @@ public void finishedExecuting(Node node, @Nullable Throwable failure) {
             if (!node.isExecuting()) {
                 throw new IllegalStateException(format("Cannot finish executing %s as it is in an unexpected state %s.", node, node.getState()));
             }
+            recordNodeExecutionFinished(node);
 
             if (!readyNodes.isEmpty()) {
                 maybeNodesSelectable = true;
@@ -567,6 +612,7 @@ public void finishedExecuting(Node node, @Nullable Throwable failure) {
                 LOGGER.debug("Node {} finished executing", node);
                 node.visitPostExecutionNodes(postNode -> {
                     postNode.setIndex(node.getIndex());
+                    postNode.setRemainingCriticalPathMillis(node.getRemainingCriticalPathMillis());
                     postNode.require();
                     postNode.updateAllDependenciesComplete();
                     addNodeToPlan(postNode);
@@ -590,6 +636,7 @@ private void maybeNodeReady(Node node) {
         if (node.allDependenciesComplete()) {
             maybeNodesSelectable = true;
             readyNodes.insert(node);
+            readyNodeListener.nodeReady(node);
         }
     }
 
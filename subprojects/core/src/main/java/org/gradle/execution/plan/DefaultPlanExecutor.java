@@ -159,6 +159,7 @@ private void awaitCompletion(WorkSource<?> workSource, WorkerLease workerLease,
                 // Need to hold a worker lease in order to finish up
                 if (!workerLease.isLockedByCurrentThread()) {
                     if (!workerLease.tryLock()) {
+                        resourceLockState.registerBlocked(workerLease);
                         return RETRY;
                     }
                 }
@@ -412,6 +413,8 @@ private WorkItem getNextItem(final WorkerLease workerLease) {
                         // Do not call `startWaitingForNextItem()` as there may be work available but this worker cannot start it, and so should not be considered "waiting for work".
                         // The health monitoring is currently only concerned with whether work can be started.
                         // At some point it could be improved to track the health of all worker threads, not just the plan executor threads
+                        // Only wake up when a worker lease is released, or when the plan state changes
+                        resourceLockState.registerBlocked(workerLease);
                         return RETRY;
                     }
 
@@ -0,0 +1,84 @@
+/*
+ * Copyright 2025 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.execution.plan;
+
+import org.gradle.api.internal.TaskInternal;
+import org.gradle.api.internal.tasks.TaskStateInternal;
+import org.gradle.cache.IndexedCache;
+import org.gradle.cache.IndexedCacheParameters;
+import org.gradle.internal.execution.history.ExecutionHistoryCacheAccess;
+import org.gradle.internal.serialize.BaseSerializerFactory;
+
+import java.io.Closeable;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Estimates the duration of tasks from their previous executions, which are persisted in the execution history cache.
+ *
+ * <p>Only tasks that actually ran are recorded, so that the estimate of a task that is usually up-to-date
+ * reflects the time it takes when it does have to run.</p>
+ */
+public class ExecutionHistoryNodeDurationEstimates implements NodeDurationEstimates, Closeable {
+    private final IndexedCache<String, Long> durations;
+    private final boolean prioritizeCriticalPath;
+    private final Map<String, Long> recordedDurations = new ConcurrentHashMap<>();
+
+    /**
+     * @param prioritizeCriticalPath when false, durations are recorded but no estimates are provided, so that nodes are started in plan order.
+     */
+    public ExecutionHistoryNodeDurationEstimates(ExecutionHistoryCacheAccess cacheAccess, boolean prioritizeCriticalPath) {
+        this.durations = cacheAccess.get().createIndexedCache(
+            IndexedCacheParameters.of("taskDurations", String.class, BaseSerializerFactory.LONG_SERIALIZER)
+        );
+        this.prioritizeCriticalPath = prioritizeCriticalPath;
+    }
+
+    @Override
+    public long estimateDurationMillis(Node node) {
+        if (!prioritizeCriticalPath || !(node instanceof LocalTaskNode)) {
+            return 0;
+        }
+        Long duration = durations.getIfPresent(keyFor(((LocalTaskNode) node).getTask()));
+        return duration == null ? 0 : duration;
+    }
+
+    @Override
+    public void recordDuration(Node node, long durationMillis) {
+        if (!(node instanceof LocalTaskNode)) {
+            return;
+        }
+        TaskInternal task = ((LocalTaskNode) node).getTask();
+        TaskStateInternal state = task.getState();
+        if (state.getFailure() == null && !state.getSkipped()) {
+            recordedDurations.put(keyFor(task), durationMillis);
+        }
+    }
+
+    private static String keyFor(TaskInternal task) {
+        return task.getIdentityPath().toString();
+    }
+
+    @Override
+    public void close() {
+        // Persist at the end of the build, as durations are recorded while holding the state lock
+        for (Map.Entry<String, Long> entry : recordedDurations.entrySet()) {
+            durations.put(entry.getKey(), entry.getValue());
+        }
+        recordedDurations.clear();
+    }
+}
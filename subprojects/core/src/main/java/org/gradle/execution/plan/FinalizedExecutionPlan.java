@@ -37,6 +37,16 @@ public QueryableExecutionPlan getContents() {
             return QueryableExecutionPlan.EMPTY;
         }
 
+        @Override
+        public CriticalPath getPredictedCriticalPath() {
+            return CriticalPath.EMPTY;
+        }
+
+        @Override
+        public CriticalPath getActualCriticalPath() {
+            return CriticalPath.EMPTY;
+        }
+
         @Override
         public String getDisplayName() {
             return "empty";
@@ -57,6 +67,16 @@ public void close() {
      */
     QueryableExecutionPlan getContents();
 
+    /**
+     * Returns the critical path of this plan, as estimated from the durations of previous executions of its nodes.
+     */
+    CriticalPath getPredictedCriticalPath();
+
+    /**
+     * Returns the critical path of this plan, using the durations of the nodes that have executed so far.
+     */
+    CriticalPath getActualCriticalPath();
+
     /**
      * Overridden to remove IOException.
      */
@@ -68,6 +68,7 @@ public enum DependenciesState {
     private Throwable executionFailure;
     private boolean filtered;
     private int index;
+    private long remainingCriticalPathMillis;
     private DependencyNodesSet dependencyNodes = DependencyNodesSet.EMPTY;
     private DependentNodesSet dependentNodes = DependentNodesSet.EMPTY;
     private MutationInfo mutationInfo = MutationInfo.EMPTY;
@@ -334,6 +335,18 @@ public void setIndex(int index) {
         this.index = index;
     }
 
+    /**
+     * Returns the estimated time it takes to execute this node and the longest chain of nodes that depend on it.
+     * Ready nodes with a longer remaining critical path are started first.
+     */
+    public long getRemainingCriticalPathMillis() {
+        return remainingCriticalPathMillis;
+    }
+
+    public void setRemainingCriticalPathMillis(long remainingCriticalPathMillis) {
+        this.remainingCriticalPathMillis = remainingCriticalPathMillis;
+    }
+
     /**
      * Mark this node as filtered from the current plan. The node will be considered complete and successful.
      */
@@ -350,6 +363,7 @@ public void filtered() {
     public void reset() {
         group = NodeGroup.DEFAULT_GROUP;
         index = 0;
+        remainingCriticalPathMillis = 0;
         if (!isCannotRunInAnyPlan()) {
             filtered = false;
             dependenciesProcessed = false;
@@ -0,0 +1,53 @@
+/*
+ * Copyright 2025 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.execution.plan;
+
+import org.gradle.internal.service.scopes.Scope;
+import org.gradle.internal.service.scopes.ServiceScope;
+
+/**
+ * Provides the estimated execution time of the nodes of an execution plan, which is used to start the ready nodes
+ * with the longest remaining critical path first.
+ */
+@ServiceScope(Scope.Build.class)
+public interface NodeDurationEstimates {
+    /**
+     * Does not provide any estimates, so that the ready nodes are started in plan order.
+     */
+    NodeDurationEstimates NONE = new NodeDurationEstimates() {
+        @Override
+        public long estimateDurationMillis(Node node) {
+            return 0;
+        }
+
+        @Override
+        public void recordDuration(Node node, long durationMillis) {
+        }
+    };
+
+    /**
+     * Returns the estimated execution time of the given node in milliseconds, or 0 when no estimate is available.
+     */
+    long estimateDurationMillis(Node node);
+
+    /**
+     * Records the execution time of a node that has finished executing.
+     *
+     * <p>Called while holding the state lock, so should not block.</p>
+     */
+    void recordDuration(Node node, long durationMillis);
+}
@@ -0,0 +1,50 @@
+/*
+ * Copyright 2025 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.execution.plan;
+
+import org.gradle.internal.service.scopes.Scope;
+import org.gradle.internal.service.scopes.ServiceScope;
+
+/**
+ * Notified as the nodes of an execution plan become ready to execute and as they are started.
+ *
+ * <p>A ready node may wait for some time before a worker picks it up, which allows work for the node to be done ahead of time.</p>
+ *
+ * <p>Both methods are called while holding the state lock, so they should not block.</p>
+ */
+@ServiceScope(Scope.Build.class)
+public interface ReadyNodeListener {
+    ReadyNodeListener NONE = new ReadyNodeListener() {
+        @Override
+        public void nodeReady(Node node) {
+        }
+
+        @Override
+        public void nodeStarted(Node node) {
+        }
+    };
+
+    /**
+     * Called when all the dependencies of the given node have completed. May be called more than once for a node.
+     */
+    void nodeReady(Node node);
+
+    /**
+     * Called when a worker starts executing the given node.
+     */
+    void nodeStarted(Node node);
+}
@@ -0,0 +1,187 @@
+/*
+ * Copyright 2025 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.execution.plan;
+
+import org.gradle.caching.internal.SimpleBuildCacheKey;
+import org.gradle.caching.internal.controller.BuildCacheController;
+import org.gradle.internal.concurrent.ExecutorFactory;
+import org.gradle.internal.concurrent.ManagedExecutor;
+import org.gradle.internal.execution.history.ExecutionHistoryStore;
+import org.gradle.internal.execution.history.PreviousExecutionState;
+import org.gradle.internal.file.FileType;
+import org.gradle.internal.fingerprint.FileCollectionFingerprint;
+import org.gradle.internal.fingerprint.FileSystemLocationFingerprint;
+import org.gradle.internal.snapshot.FileSystemLocationSnapshot;
+import org.gradle.internal.snapshot.FileSystemSnapshot;
+import org.gradle.internal.vfs.FileSystemAccess;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.Closeable;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BiFunction;
+
+/**
+ * Snapshots the files of tasks that are ready to execute but are still waiting for a worker, so that
+ * the execution engine finds them in the virtual file system when it fingerprints the task.
+ *
+ * <p>The input files of a task are only known once the task has been resolved by a worker, so the files are taken from the previous execution of the task.
+ * Once all the dependencies of a task have completed, its inputs are final, and the snapshots taken here are the same ones
+ * the task would take itself. When the inputs did change, the task simply snapshots the new locations when it executes.</p>
+ *
+ * <p>When the outputs of the previous execution are gone or have changed, the task cannot be up-to-date,
+ * so its entry in the remote build cache is looked up ahead of time, assuming the cache key did not change.</p>
+ *
+ * <p>Snapshotting stops as soon as the task is started by a worker.
+ * Locations that overlap the outputs or destroyables of a running node are skipped, since they may change while they are snapshotted.
+ * The virtual file system makes sure that a location is not snapshotted by two threads at the same time.</p>
+ */
+public class SpeculativeInputSnapshotter implements ReadyNodeListener, Closeable {
+    /**
+     * When set to {@code true}, the files of ready tasks are snapshotted before the tasks are started.
+     */
+    public static final String ENABLED_PROPERTY = "org.gradle.unsafe.speculative-input-snapshotting";
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(SpeculativeInputSnapshotter.class);
+    private static final BiFunction<Boolean, Node, Boolean> ACCESSED_BY_RUNNING_NODE = (current, candidate) -> current || candidate.isExecuting();
+
+    private final ExecutionHistoryStore executionHistoryStore;
+    private final FileSystemAccess fileSystemAccess;
+    private final BuildCacheController buildCacheController;
+    private final ExecutionNodeAccessHierarchy outputHierarchy;
+    private final ExecutionNodeAccessHierarchy destroyableHierarchy;
+    private final ManagedExecutor executor;
+    private final Map<LocalTaskNode, PendingSnapshot> pendingSnapshots = new ConcurrentHashMap<>();
+    private final AtomicInteger snapshottedTaskCount = new AtomicInteger();
+    private final AtomicInteger snapshottedFileCount = new AtomicInteger();
+    private volatile boolean closed;
+
+    public SpeculativeInputSnapshotter(
+        ExecutionHistoryStore executionHistoryStore,
+        FileSystemAccess fileSystemAccess,
+        BuildCacheController buildCacheController,
+        ExecutionNodeAccessHierarchies accessHierarchies,
+        ExecutorFactory executorFactory,
+        int maxConcurrency
+    ) {
+        this.executionHistoryStore = executionHistoryStore;
+        this.fileSystemAccess = fileSystemAccess;
+        this.buildCacheController = buildCacheController;
+        this.outputHierarchy = accessHierarchies.getOutputHierarchy();
+        this.destroyableHierarchy = accessHierarchies.getDestroyableHierarchy();
+        this.executor = executorFactory.create("Speculative input snapshotting", maxConcurrency);
+    }
+
+    @Override
+    public void nodeReady(Node node) {
+        if (closed || !(node instanceof LocalTaskNode) || node.isExecuting() || node.isComplete()) {
+            return;
+        }
+        LocalTaskNode taskNode = (LocalTaskNode) node;
+        PendingSnapshot snapshot = new PendingSnapshot(taskNode);
+        if (pendingSnapshots.putIfAbsent(taskNode, snapshot) == null) {
+            executor.execute(snapshot);
+        }
+    }
+
+    @Override
+    public void nodeStarted(Node node) {
+        PendingSnapshot snapshot = pendingSnapshots.get(node);
+        if (snapshot != null) {
+            snapshot.cancel();
+        }
+    }
+
+    @Override
+    public void close() {
+        closed = true;
+        for (PendingSnapshot snapshot : pendingSnapshots.values()) {
+            snapshot.cancel();
+        }
+        executor.stop();
+        pendingSnapshots.clear();
+        LOGGER.debug("Speculatively snapshotted {} files for {} tasks.", snapshottedFileCount.get(), snapshottedTaskCount.get());
+    }
+
+    private boolean isAccessedByRunningNode(String location) {
+        return outputHierarchy.visitNodesAccessing(location, false, ACCESSED_BY_RUNNING_NODE)
+            || destroyableHierarchy.visitNodesAccessing(location, false, ACCESSED_BY_RUNNING_NODE);
+    }
+
+    private class PendingSnapshot implements Runnable {
+        private final LocalTaskNode node;
+        private volatile boolean cancelled;
+
+        PendingSnapshot(LocalTaskNode node) {
+            this.node = node;
+        }
+
+        void cancel() {
+            cancelled = true;
+        }
+
+        @Override
+        public void run() {
+            if (cancelled) {
+                return;
+            }
+            try {
+                Optional<PreviousExecutionState> previousExecutionState = executionHistoryStore.load(node.getTask().getPath());
+                previousExecutionState.ifPresent(this::snapshot);
+            } catch (RuntimeException e) {
+                // The task snapshots its files itself when it executes, and reports the failure then
+                LOGGER.debug("Could not speculatively snapshot the files of {}.", node, e);
+            }
+        }
+
+        private void snapshot(PreviousExecutionState previousExecutionState) {
+            snapshottedTaskCount.incrementAndGet();
+            // Only regular files are snapshotted individually, as the directories may be filtered when fingerprinted.
+            // The directory snapshotter reuses the snapshots of the files it finds in the virtual file system.
+            for (FileCollectionFingerprint fingerprint : previousExecutionState.getInputFileProperties().values()) {
+                Iterator<Map.Entry<String, FileSystemLocationFingerprint>> iterator = fingerprint.getFingerprints().entrySet().iterator();
+                while (!cancelled && iterator.hasNext()) {
+                    Map.Entry<String, FileSystemLocationFingerprint> entry = iterator.next();
+                    if (entry.getValue().getType() == FileType.RegularFile && !isAccessedByRunningNode(entry.getKey())) {
+                        fileSystemAccess.readRegularFileContentHash(entry.getKey());
+                        snapshottedFileCount.incrementAndGet();
+                    }
+                }
+            }
+            // Outputs are always snapshotted without a filter
+            boolean outputsChanged = false;
+            for (FileSystemSnapshot outputs : previousExecutionState.getOutputFilesProducedByWork().values()) {
+                Iterator<FileSystemLocationSnapshot> iterator = outputs.roots().iterator();
+                while (!cancelled && iterator.hasNext()) {
+                    FileSystemLocationSnapshot previousOutput = iterator.next();
+                    if (isAccessedByRunningNode(previousOutput.getAbsolutePath())) {
+                        continue;
+                    }
+                    FileSystemLocationSnapshot currentOutput = fileSystemAccess.read(previousOutput.getAbsolutePath());
+                    outputsChanged |= !currentOutput.getHash().equals(previousOutput.getHash());
+                }
+            }
+            if (!cancelled && outputsChanged && previousExecutionState.isSuccessful()) {
+                buildCacheController.prefetch(new SimpleBuildCacheKey(previousExecutionState.getCacheKey()));
+            }
+        }
+    }
+}
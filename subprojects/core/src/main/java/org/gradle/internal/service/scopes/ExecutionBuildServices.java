@@ -24,7 +24,13 @@
 import org.gradle.cache.internal.InMemoryCacheDecoratorFactory;
 import org.gradle.cache.scopes.BuildScopedCacheBuilderFactory;
 import org.gradle.caching.internal.controller.BuildCacheController;
+import org.gradle.execution.plan.ExecutionHistoryNodeDurationEstimates;
+import org.gradle.execution.plan.ExecutionNodeAccessHierarchies;
+import org.gradle.execution.plan.NodeDurationEstimates;
+import org.gradle.execution.plan.ReadyNodeListener;
+import org.gradle.execution.plan.SpeculativeInputSnapshotter;
 import org.gradle.initialization.BuildCancellationToken;
+import org.gradle.internal.concurrent.ExecutorFactory;
 import org.gradle.internal.event.ListenerManager;
 import org.gradle.internal.execution.BuildOutputCleanupRegistry;
 import org.gradle.internal.execution.ExecutionEngine;
@@ -102,6 +108,29 @@ ExecutionHistoryCacheAccess createCacheAccess(BuildScopedCacheBuilderFactory cac
         return new DefaultExecutionHistoryCacheAccess(cacheBuilderFactory);
     }
 
+    @Provides
+    NodeDurationEstimates createNodeDurationEstimates(ExecutionHistoryCacheAccess executionHistoryCacheAccess, StartParameter startParameter) {
+        // Record durations in all builds, but only reorder the ready nodes when projects are executed in parallel
+        return new ExecutionHistoryNodeDurationEstimates(executionHistoryCacheAccess, startParameter.isParallelProjectExecutionEnabled());
+    }
+
+    @Provides
+    ReadyNodeListener createReadyNodeListener(
+        ExecutionHistoryStore executionHistoryStore,
+        FileSystemAccess fileSystemAccess,
+        BuildCacheController buildCacheController,
+        ExecutionNodeAccessHierarchies accessHierarchies,
+        ExecutorFactory executorFactory,
+        StartParameter startParameter
+    ) {
+        if (!Boolean.getBoolean(SpeculativeInputSnapshotter.ENABLED_PROPERTY)) {
+            return ReadyNodeListener.NONE;
+        }
+        // Leave most of the workers' capacity to the tasks themselves
+        int maxConcurrency = Math.max(1, startParameter.getMaxWorkerCount() / 2);
+        return new SpeculativeInputSnapshotter(executionHistoryStore, fileSystemAccess, buildCacheController, accessHierarchies, executorFactory, maxConcurrency);
+    }
+
     @Provides
     ExecutionHistoryStore createExecutionHistoryStore(
         ExecutionHistoryCacheAccess executionHistoryCacheAccess,
@@ -113,7 +142,8 @@ ExecutionHistoryStore createExecutionHistoryStore(
             executionHistoryCacheAccess,
             inMemoryCacheDecoratorFactory,
             stringInterner,
-            classLoaderHasher
+            classLoaderHasher,
+            Boolean.getBoolean(DefaultExecutionHistoryStore.COLUMNAR_FORMAT_PROPERTY)
         );
     }
 
@@ -48,6 +48,7 @@
 import org.gradle.cache.internal.CleaningInMemoryCacheDecoratorFactory;
 import org.gradle.cache.internal.CrossBuildInMemoryCacheFactory;
 import org.gradle.cache.internal.DefaultCacheCleanupStrategyFactory;
+import org.gradle.cache.internal.DefaultInMemoryCacheDecoratorFactory;
 import org.gradle.cache.internal.InMemoryCacheDecoratorFactory;
 import org.gradle.configuration.DefaultImportsReader;
 import org.gradle.configuration.ImportsReader;
@@ -198,7 +199,7 @@ InstanceGenerator createInstantiator(InstantiatorFactory instantiatorFactory) {
 
     @Provides
     InMemoryCacheDecoratorFactory createInMemoryTaskArtifactCache(CrossBuildInMemoryCacheFactory cacheFactory) {
-        return new CleaningInMemoryCacheDecoratorFactory(environment.isLongLivingProcess(), cacheFactory);
+        return new CleaningInMemoryCacheDecoratorFactory(environment.isLongLivingProcess(), cacheFactory, DefaultInMemoryCacheDecoratorFactory.offHeapBudgetFromSystemProperties());
     }
 
     @Provides
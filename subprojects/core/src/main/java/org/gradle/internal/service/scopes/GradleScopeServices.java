@@ -65,6 +65,7 @@
 import org.gradle.internal.event.ListenerManager;
 import org.gradle.internal.instantiation.InstantiatorFactory;
 import org.gradle.internal.logging.text.StyledTextOutputFactory;
+import org.gradle.internal.operations.BuildOperationProgressEventEmitter;
 import org.gradle.internal.operations.BuildOperationRunner;
 import org.gradle.internal.reflect.Instantiator;
 import org.gradle.internal.service.Provides;
@@ -91,11 +92,12 @@ CommandLineTaskParser createCommandLineTaskParser(OptionReader optionReader, Bui
     }
 
     @Provides
-    BuildWorkExecutor createBuildExecuter(StyledTextOutputFactory textOutputFactory, BuildOperationRunner buildOperationRunner) {
+    BuildWorkExecutor createBuildExecuter(StyledTextOutputFactory textOutputFactory, BuildOperationRunner buildOperationRunner, BuildOperationProgressEventEmitter progressEventEmitter) {
         return new BuildOperationFiringBuildWorkerExecutor(
             new DryRunBuildExecutionAction(textOutputFactory,
                 new SelectedTaskExecutionAction()),
-            buildOperationRunner);
+            buildOperationRunner,
+            progressEventEmitter);
     }
 
     @Provides
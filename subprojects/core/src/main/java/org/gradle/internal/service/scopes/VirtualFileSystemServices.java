@@ -17,6 +17,7 @@
 package org.gradle.internal.service.scopes;
 
 import com.google.common.annotations.VisibleForTesting;
+import com.google.common.collect.ImmutableList;
 import net.rubygrapefruit.platform.NativeIntegrationUnavailableException;
 import net.rubygrapefruit.platform.file.FileSystems;
 import org.apache.tools.ant.DirectoryScanner;
@@ -48,6 +49,8 @@
 import org.gradle.internal.buildoption.InternalFlag;
 import org.gradle.internal.buildoption.InternalOptions;
 import org.gradle.internal.classloader.ClasspathHasher;
+import org.gradle.internal.concurrent.ExecutorFactory;
+import org.gradle.internal.concurrent.ManagedExecutor;
 import org.gradle.internal.event.ListenerManager;
 import org.gradle.internal.execution.FileCollectionFingerprinterRegistry;
 import org.gradle.internal.execution.FileCollectionSnapshotter;
@@ -67,8 +70,10 @@
 import org.gradle.internal.fingerprint.impl.DefaultFileCollectionSnapshotter;
 import org.gradle.internal.fingerprint.impl.FileCollectionFingerprinterRegistrations;
 import org.gradle.internal.hash.DefaultFileHasher;
+import org.gradle.internal.hash.DefaultStreamHasher;
 import org.gradle.internal.hash.FileHasher;
 import org.gradle.internal.hash.HashCode;
+import org.gradle.internal.hash.Hashing;
 import org.gradle.internal.hash.StreamHasher;
 import org.gradle.internal.nativeintegration.NativeCapabilities;
 import org.gradle.internal.nativeintegration.filesystem.FileSystem;
@@ -96,11 +101,17 @@
 import org.gradle.internal.watch.vfs.WatchableFileSystemDetector;
 import org.gradle.internal.watch.vfs.impl.DefaultWatchableFileSystemDetector;
 import org.gradle.internal.watch.vfs.impl.FileWatchingFilter;
+import org.gradle.internal.watch.vfs.impl.VirtualFileSystemSnapshotStore;
 import org.gradle.internal.watch.vfs.impl.WatchingNotSupportedVirtualFileSystem;
 import org.gradle.internal.watch.vfs.impl.WatchingVirtualFileSystem;
+import org.gradle.util.GradleVersion;
 
+import java.io.Closeable;
 import java.io.File;
 import java.util.Optional;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.function.Predicate;
 
 import static org.gradle.internal.snapshot.CaseSensitivity.CASE_INSENSITIVE;
@@ -118,6 +129,18 @@ public class VirtualFileSystemServices extends AbstractGradleModuleServices {
     public static final IntegerInternalOption MAX_HIERARCHIES_TO_WATCH_PROPERTY = new IntegerInternalOption("org.gradle.vfs.watch.hierarchies.max", DEFAULT_MAX_HIERARCHIES_TO_WATCH);
     private static final int FILE_HASHER_MEMORY_CACHE_SIZE = 400000;
 
+    /**
+     * When file system watching is enabled, this system property of the daemon enables persisting the snapshots of
+     * the watched hierarchies, so that a new daemon can start with them.
+     */
+    public static final String PERSIST_VFS_PROPERTY = "org.gradle.unsafe.vfs.persist";
+
+    private static String fileHashesCacheName(StreamHasher streamHasher) {
+        String cacheName = Hashing.qualifyCacheName("fileHashes");
+        // Large files hashed in chunks have different hashes than when hashed as a whole
+        return DefaultStreamHasher.isChunked(streamHasher) ? cacheName + "-chunked" : cacheName;
+    }
+
     public static boolean isDropVfs(InternalOptions options) {
         return options.getOption(VFS_DROP_PROPERTY).get();
     }
@@ -151,6 +174,16 @@ FileHasherStatistics.Collector createCachingFileHasherStatisticsCollector() {
         DirectorySnapshotterStatistics.Collector createDirectorySnapshotterStatisticsCollector() {
             return new DirectorySnapshotterStatistics.Collector();
         }
+
+        @Provides
+        LargeFileHashingExecutor createLargeFileHashingExecutor(ExecutorFactory executorFactory) {
+            return new LargeFileHashingExecutor(executorFactory.create("Large file hashing", Runtime.getRuntime().availableProcessors()));
+        }
+
+        @Provides
+        DirectorySnapshottingPool createDirectorySnapshottingPool() {
+            return new DirectorySnapshottingPool(Runtime.getRuntime().availableProcessors());
+        }
     }
 
     @VisibleForTesting
@@ -169,9 +202,10 @@ FileHasher createCachingFileHasher(
             FileSystem fileSystem,
             GradleUserHomeScopeFileTimeStampInspector fileTimeStampInspector,
             StreamHasher streamHasher,
-            StringInterner stringInterner
+            StringInterner stringInterner,
+            LargeFileHashingExecutor largeFileHashingExecutor
         ) {
-            CachingFileHasher fileHasher = new CachingFileHasher(new DefaultFileHasher(streamHasher), fileStore, stringInterner, fileTimeStampInspector, "fileHashes", fileSystem, FILE_HASHER_MEMORY_CACHE_SIZE, statisticsCollector);
+            CachingFileHasher fileHasher = new CachingFileHasher(new DefaultFileHasher(streamHasher, largeFileHashingExecutor.getExecutor()), fileStore, stringInterner, fileTimeStampInspector, fileHashesCacheName(streamHasher), fileSystem, FILE_HASHER_MEMORY_CACHE_SIZE, statisticsCollector);
             fileTimeStampInspector.attach(fileHasher);
             return fileHasher;
         }
@@ -209,7 +243,8 @@ BuildLifecycleAwareVirtualFileSystem createVirtualFileSystem(
             FileChangeListeners fileChangeListeners,
             NativeServices.FileEventFunctionsProvider fileEvents,
             FileSystem fileSystem,
-            WatchableFileSystemDetector watchableFileSystemDetector
+            WatchableFileSystemDetector watchableFileSystemDetector,
+            StringInterner stringInterner
         ) {
             CaseSensitivity caseSensitivity = fileSystem.isCaseSensitive() ? CASE_SENSITIVE : CASE_INSENSITIVE;
             SnapshotHierarchy root = DefaultSnapshotHierarchy.empty(caseSensitivity);
@@ -225,7 +260,10 @@ BuildLifecycleAwareVirtualFileSystem createVirtualFileSystem(
                     sectionId -> documentationRegistry.getDocumentationRecommendationFor("details", "file_system_watching", sectionId),
                     fileWatchingFilter,
                     watchableFileSystemDetector,
-                    fileChangeListeners
+                    fileChangeListeners,
+                    Boolean.getBoolean(PERSIST_VFS_PROPERTY)
+                        ? new VirtualFileSystemSnapshotStore(stringInterner, ImmutableList.copyOf(DirectoryScanner.getDefaultExcludes()), GradleVersion.current().getVersion())
+                        : null
                 ))
                 .orElse(new WatchingNotSupportedVirtualFileSystem(root));
             listenerManager.addListener((BuildAddedListener) buildState -> {
@@ -244,7 +282,8 @@ FileSystemAccess createFileSystemAccess(
             StringInterner stringInterner,
             FileSystemAccess.WriteListener writeListener,
             DirectorySnapshotterStatistics.Collector statisticsCollector,
-            ListenerManager listenerManager
+            ListenerManager listenerManager,
+            DirectorySnapshottingPool directorySnapshottingPool
         ) {
             DefaultFileSystemAccess defaultFileSystemAccess = new DefaultFileSystemAccess(
                 hasher,
@@ -253,6 +292,7 @@ FileSystemAccess createFileSystemAccess(
                 virtualFileSystem,
                 writeListener,
                 statisticsCollector,
+                directorySnapshottingPool.getPool(),
                 DirectoryScanner.getDefaultExcludes()
             );
             listenerManager.addListener(defaultFileSystemAccess);
@@ -290,7 +330,7 @@ FileCollectionSnapshotter createFileCollectionSnapshotter(FileSystemAccess fileS
         @Provides
         ResourceSnapshotterCacheService createResourceSnapshotterCacheService(CrossBuildFileHashCache store) {
             IndexedCache<HashCode, HashCode> resourceHashesCache = store.createIndexedCache(
-                IndexedCacheParameters.of("resourceHashesCache", HashCode.class, new HashCodeSerializer()),
+                IndexedCacheParameters.of(Hashing.qualifyCacheName("resourceHashesCache"), HashCode.class, new HashCodeSerializer()),
                 400000,
                 true);
             return new DefaultResourceSnapshotterCacheService(resourceHashesCache);
@@ -335,9 +375,10 @@ FileHasher createFileHasher(
             FileSystem fileSystem,
             StreamHasher streamHasher,
             StringInterner stringInterner,
-            FileHasherStatistics.Collector statisticsCollector
+            FileHasherStatistics.Collector statisticsCollector,
+            LargeFileHashingExecutor largeFileHashingExecutor
         ) {
-            CachingFileHasher localHasher = new CachingFileHasher(new DefaultFileHasher(streamHasher), cacheAccess, stringInterner, fileTimeStampInspector, "fileHashes", fileSystem, FILE_HASHER_MEMORY_CACHE_SIZE, statisticsCollector);
+            CachingFileHasher localHasher = new CachingFileHasher(new DefaultFileHasher(streamHasher, largeFileHashingExecutor.getExecutor()), cacheAccess, stringInterner, fileTimeStampInspector, fileHashesCacheName(streamHasher), fileSystem, FILE_HASHER_MEMORY_CACHE_SIZE, statisticsCollector);
             return new SplitFileHasher(globalHasher, localHasher, globalCacheLocations);
         }
 
@@ -349,7 +390,8 @@ FileSystemAccess createFileSystemAccess(
             StringInterner stringInterner,
             VirtualFileSystem root,
             FileSystemAccess.WriteListener writeListener,
-            DirectorySnapshotterStatistics.Collector statisticsCollector
+            DirectorySnapshotterStatistics.Collector statisticsCollector,
+            DirectorySnapshottingPool directorySnapshottingPool
         ) {
             DefaultFileSystemAccess buildSessionsScopedVirtualFileSystem = new DefaultFileSystemAccess(
                 hasher,
@@ -358,6 +400,7 @@ FileSystemAccess createFileSystemAccess(
                 root,
                 writeListener,
                 statisticsCollector,
+                directorySnapshottingPool.getPool(),
                 DirectoryScanner.getDefaultExcludes()
             );
 
@@ -413,9 +456,56 @@ ResourceSnapshotterCacheService createResourceSnapshotterCacheService(
             CrossBuildFileHashCache store,
             ResourceSnapshotterCacheService globalCache
         ) {
-            IndexedCache<HashCode, HashCode> resourceHashesCache = store.createIndexedCache(IndexedCacheParameters.of("resourceHashesCache", HashCode.class, new HashCodeSerializer()), 800000, true);
+            IndexedCache<HashCode, HashCode> resourceHashesCache = store.createIndexedCache(IndexedCacheParameters.of(Hashing.qualifyCacheName("resourceHashesCache"), HashCode.class, new HashCodeSerializer()), 800000, true);
             DefaultResourceSnapshotterCacheService localCache = new DefaultResourceSnapshotterCacheService(resourceHashesCache);
             return new SplitResourceSnapshotterCacheService(globalCache, localCache, globalCacheLocations);
         }
     }
+
+    /**
+     * Owns the executor used to hash the chunks of large files in parallel.
+     */
+    @ServiceScope(Scope.Global.class)
+    private static final class LargeFileHashingExecutor implements Closeable {
+        private final ManagedExecutor executor;
+
+        public LargeFileHashingExecutor(ManagedExecutor executor) {
+            this.executor = executor;
+        }
+
+        public ManagedExecutor getExecutor() {
+            return executor;
+        }
+
+        @Override
+        public void close() {
+            executor.stop();
+        }
+    }
+
+    /**
+     * Owns the pool used to snapshot the sub-directories of large directories in parallel.
+     */
+    @ServiceScope(Scope.Global.class)
+    private static final class DirectorySnapshottingPool implements Closeable {
+        private final ForkJoinPool pool;
+
+        public DirectorySnapshottingPool(int parallelism) {
+            AtomicInteger threadCount = new AtomicInteger();
+            this.pool = new ForkJoinPool(parallelism, forkJoinPool -> {
+                ForkJoinWorkerThread thread = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(forkJoinPool);
+                thread.setName("Directory snapshotting Thread " + threadCount.incrementAndGet());
+                return thread;
+            }, null, false);
+        }
+
+        public ForkJoinPool getPool() {
+            return pool;
+        }
+
+        @Override
+        public void close() {
+            pool.shutdownNow();
+        }
+    }
 }
@@ -137,7 +137,7 @@ DefaultFilePropertyFactory createFilePropertyFactory(PropertyHost propertyHost,
 
     @Provides
     StreamHasher createStreamHasher() {
-        return new DefaultStreamHasher();
+        return Boolean.getBoolean(DefaultStreamHasher.CHUNKED_HASHING_PROPERTY) ? DefaultStreamHasher.chunked() : new DefaultStreamHasher();
     }
 
     @Provides
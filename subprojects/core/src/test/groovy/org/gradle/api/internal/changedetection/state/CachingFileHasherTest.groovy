@@ -40,12 +40,34 @@ class CachingFileHasherTest extends Specification {
     def file = tmpDir.createFile("testfile")
     def fileSystem = TestFiles.fileSystem()
     def statisticsCollector = Mock(FileHasherStatistics.Collector)
+    def indexFile = tmpDir.file("fileHashes.idx")
+    // The entries the index sees in the file hash cache
+    def indexedEntries = [:]
+    def indexedCache = Stub(IndexedCache) {
+        getIfPresent(_) >> { String path -> indexedEntries[path] }
+        put(_, _) >> { String path, FileInfo info -> indexedEntries[path] = info }
+    }
+    FileHashIndex index
     CachingFileHasher hasher
 
     def setup() {
         file.write("some-content")
-        1 * cacheAccess.createIndexedCache({ it.cacheName == "fileHashes"  }, _, _) >> cache
-        hasher = new CachingFileHasher(target, cacheAccess, new StringInterner(), timeStampInspector, "fileHashes", fileSystem, 1000, statisticsCollector)
+        index = FileHashIndex.open(indexFile, indexedCache, 1000)
+        _ * cacheAccess.createIndexedCache({ it.cacheName == "fileHashes"  }, _, _) >> cache
+        _ * cacheAccess.createFileHashIndex("fileHashes", cache, 1000) >> { index }
+        hasher = createHasher()
+    }
+
+    private FileHashIndex indexWith(String path, FileInfo info) {
+        def previous = FileHashIndex.open(indexFile, indexedCache, 1000)
+        indexedEntries[path] = info
+        previous.markModified(path)
+        previous.write()
+        return FileHashIndex.open(indexFile, indexedCache, 1000)
+    }
+
+    private CachingFileHasher createHasher() {
+        return new CachingFileHasher(target, cacheAccess, new StringInterner(), timeStampInspector, "fileHashes", fileSystem, 1000, statisticsCollector)
     }
 
     def "hashes file when hash not cached"() {
@@ -59,6 +81,7 @@ class CachingFileHasherTest extends Specification {
 
         and:
         1 * timeStampInspector.timestampCanBeUsedToDetectFileChange(file.absolutePath, stat.lastModified) >> true
+        1 * statisticsCollector.reportIndexMiss()
         1 * cache.getIfPresent(file.absolutePath) >> null
         1 * target.hash(file) >> hash
         1 * cache.put(file.absolutePath, _) >> { String key, FileInfo fileInfo ->
@@ -81,6 +104,7 @@ class CachingFileHasherTest extends Specification {
 
         and:
         1 * timeStampInspector.timestampCanBeUsedToDetectFileChange(file.absolutePath, stat.lastModified) >> true
+        1 * statisticsCollector.reportIndexMiss()
         1 * cache.getIfPresent(file.absolutePath) >> new FileInfo(oldHash, 1024, stat.lastModified)
         1 * target.hash(file) >> hash
         1 * cache.put(file.absolutePath, _) >> { String key, FileInfo fileInfo ->
@@ -103,6 +127,7 @@ class CachingFileHasherTest extends Specification {
 
         and:
         1 * timeStampInspector.timestampCanBeUsedToDetectFileChange(file.absolutePath, stat.lastModified) >> true
+        1 * statisticsCollector.reportIndexMiss()
         1 * cache.getIfPresent(file.absolutePath) >> new FileInfo(oldHash, file.length(), 124)
         1 * target.hash(file) >> hash
         1 * cache.put(file.absolutePath, _) >> { String key, FileInfo fileInfo ->
@@ -125,6 +150,7 @@ class CachingFileHasherTest extends Specification {
 
         and:
         1 * timeStampInspector.timestampCanBeUsedToDetectFileChange(file.absolutePath, stat.lastModified) >> true
+        1 * statisticsCollector.reportIndexMiss()
         1 * cache.getIfPresent(file.absolutePath) >> new FileInfo(hash, stat.length, stat.lastModified)
         0 * _
     }
@@ -163,6 +189,7 @@ class CachingFileHasherTest extends Specification {
 
         and:
         1 * timeStampInspector.timestampCanBeUsedToDetectFileChange(file.absolutePath, lastModified) >> true
+        1 * statisticsCollector.reportIndexMiss()
         1 * cache.getIfPresent(file.absolutePath) >> null
         1 * target.hash(file) >> hash
         1 * cache.put(file.absolutePath, _) >> { String key, FileInfo fileInfo ->
@@ -173,4 +200,90 @@ class CachingFileHasherTest extends Specification {
         1 * statisticsCollector.reportFileHashed(length)
         0 * _
     }
+
+    def "does not use index when it is not enabled"() {
+        def stat = fileSystem.stat(file)
+        index = null
+        hasher = createHasher()
+
+        when:
+        def result = hasher.hash(file)
+
+        then:
+        result == hash
+
+        and:
+        1 * timeStampInspector.timestampCanBeUsedToDetectFileChange(file.absolutePath, stat.lastModified) >> true
+        1 * cache.getIfPresent(file.absolutePath) >> new FileInfo(hash, stat.length, stat.lastModified)
+        0 * _
+    }
+
+    def "does not load cached value when hash is found in index"() {
+        def stat = fileSystem.stat(file)
+        index = indexWith(file.absolutePath, new FileInfo(hash, stat.length, stat.lastModified))
+        hasher = createHasher()
+
+        when:
+        def result = hasher.hash(file)
+
+        then:
+        result == hash
+
+        and:
+        1 * timeStampInspector.timestampCanBeUsedToDetectFileChange(file.absolutePath, stat.lastModified) >> true
+        1 * statisticsCollector.reportIndexHit()
+        0 * _
+    }
+
+    def "uses hashes from index written by previous hasher"() {
+        def stat = fileSystem.stat(file)
+
+        when:
+        hasher.hash(file)
+        index.write()
+        index = FileHashIndex.open(indexFile, indexedCache, 1000)
+        hasher = createHasher()
+        def result = hasher.hash(file)
+
+        then:
+        result == hash
+
+        and:
+        1 * timeStampInspector.timestampCanBeUsedToDetectFileChange(file.absolutePath, stat.lastModified) >> true
+        1 * statisticsCollector.reportIndexMiss()
+        1 * cache.getIfPresent(file.absolutePath) >> null
+        1 * target.hash(file) >> hash
+        1 * cache.put(file.absolutePath, _) >> { String path, FileInfo info -> indexedEntries[path] = info }
+        1 * statisticsCollector.reportFileHashed(file.length())
+
+        then:
+        1 * cacheAccess.createIndexedCache({ it.cacheName == "fileHashes"  }, _, _) >> cache
+        1 * cacheAccess.createFileHashIndex("fileHashes", cache, 1000) >> { index }
+        1 * timeStampInspector.timestampCanBeUsedToDetectFileChange(file.absolutePath, stat.lastModified) >> true
+        1 * statisticsCollector.reportIndexHit()
+        0 * _
+    }
+
+    def "does not use hash from index after discarding it"() {
+        def stat = fileSystem.stat(file)
+        index = indexWith(file.absolutePath, new FileInfo(oldHash, stat.length, stat.lastModified))
+        hasher = createHasher()
+
+        when:
+        hasher.discard(file.absolutePath)
+        def result = hasher.hash(file)
+
+        then:
+        result == hash
+
+        and:
+        1 * cache.remove(file.absolutePath)
+        1 * timeStampInspector.timestampCanBeUsedToDetectFileChange(file.absolutePath, stat.lastModified) >> true
+        1 * statisticsCollector.reportIndexMiss()
+        1 * cache.getIfPresent(file.absolutePath) >> null
+        1 * target.hash(file) >> hash
+        1 * cache.put(file.absolutePath, _)
+        1 * statisticsCollector.reportFileHashed(file.length())
+        0 * _
+    }
 }
@@ -0,0 +1,361 @@
+/*
+ * Copyright 2025 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.api.internal.changedetection.state
+
+import org.gradle.api.internal.changedetection.state.CachingFileHasher.FileInfo
+import org.gradle.cache.IndexedCache
+import org.gradle.internal.hash.TestHashCodes
+import org.gradle.test.fixtures.file.TestNameTestDirectoryProvider
+import org.junit.Rule
+import spock.lang.Specification
+
+import java.util.function.Function
+
+class FileHashIndexTest extends Specification {
+    @Rule
+    TestNameTestDirectoryProvider tmpDir = new TestNameTestDirectoryProvider(getClass())
+    def indexFile = tmpDir.file("fileHashes.idx")
+    def cache = new MapBackedCache()
+
+    def "index without file is empty"() {
+        when:
+        def index = open(10)
+
+        then:
+        index.storedEntryCount == 0
+        index.get("/some/file") == null
+    }
+
+    def "entries are available after reopening"() {
+        def index = open(1000)
+        def paths = (0..<500).collect { "/some/dir/file-${it}-ü.txt".toString() }
+        paths.eachWithIndex { path, i ->
+            put(index, path, new FileInfo(TestHashCodes.hashCodeFrom(i), i, 1000 + i))
+        }
+
+        when:
+        index.write()
+        def reopened = open(1000)
+
+        then:
+        reopened.storedEntryCount == 500
+        paths.eachWithIndex { path, i ->
+            def info = reopened.get(path)
+            assert info.hash == TestHashCodes.hashCodeFrom(i)
+            assert info.length == i
+            assert info.timestamp == 1000 + i
+        }
+        reopened.get("/some/dir/other.txt") == null
+    }
+
+    def "modified entries replace stored entries"() {
+        def index = open(10)
+        put(index, "/file", new FileInfo(TestHashCodes.hashCodeFrom(1), 1, 1))
+        put(index, "/other", new FileInfo(TestHashCodes.hashCodeFrom(2), 2, 2))
+        index.write()
+
+        when:
+        index = open(10)
+        put(index, "/file", new FileInfo(TestHashCodes.hashCodeFrom(3), 3, 3))
+
+        then:
+        index.get("/file") == null
+        index.get("/other").hash == TestHashCodes.hashCodeFrom(2)
+
+        when:
+        index.write()
+        index = open(10)
+
+        then:
+        index.storedEntryCount == 2
+        index.get("/file").hash == TestHashCodes.hashCodeFrom(3)
+        index.get("/other").hash == TestHashCodes.hashCodeFrom(2)
+    }
+
+    def "removed entries are not written"() {
+        def index = open(10)
+        put(index, "/file", new FileInfo(TestHashCodes.hashCodeFrom(1), 1, 1))
+        put(index, "/other", new FileInfo(TestHashCodes.hashCodeFrom(2), 2, 2))
+        index.write()
+
+        when:
+        index = open(10)
+        cache.remove("/file")
+        index.markModified("/file")
+
+        then:
+        index.get("/file") == null
+
+        when:
+        index.write()
+        index = open(10)
+
+        then:
+        index.storedEntryCount == 1
+        index.get("/file") == null
+        index.get("/other") != null
+    }
+
+    def "keeps recently used entries when index is full"() {
+        def index = open(3)
+        ["/a", "/b", "/c"].eachWithIndex { path, i ->
+            put(index, path, new FileInfo(TestHashCodes.hashCodeFrom(i), i, i))
+        }
+        index.write()
+
+        when:
+        index = open(3)
+        index.get("/b")
+        put(index, "/d", new FileInfo(TestHashCodes.hashCodeFrom(3), 3, 3))
+        index.write()
+        index = open(3)
+
+        then:
+        index.storedEntryCount == 3
+        index.get("/b") != null
+        index.get("/d") != null
+    }
+
+    def "does not use snapshot after another process modified the cache"() {
+        def index = open(10)
+        put(index, "/file", new FileInfo(TestHashCodes.hashCodeFrom(1), 1, 1))
+        put(index, "/other", new FileInfo(TestHashCodes.hashCodeFrom(2), 2, 2))
+        index.write()
+        index = open(10)
+        def otherProcess = open(10)
+
+        expect:
+        index.get("/file") != null
+
+        when:
+        cache.remove("/file")
+        otherProcess.markModified("/file")
+
+        then:
+        index.get("/file") == null
+        index.get("/other") == null
+
+        when:
+        put(index, "/new", new FileInfo(TestHashCodes.hashCodeFrom(3), 3, 3))
+
+        then:
+        index.get("/other") == null
+    }
+
+    def "writes only validated entries after another process modified the cache"() {
+        def index = open(10)
+        put(index, "/file", new FileInfo(TestHashCodes.hashCodeFrom(1), 1, 1))
+        put(index, "/other", new FileInfo(TestHashCodes.hashCodeFrom(2), 2, 2))
+        index.write()
+        index = open(10)
+        index.get("/file")
+        index.get("/other")
+        def otherProcess = open(10)
+
+        when:
+        cache.remove("/file")
+        otherProcess.markModified("/file")
+        index.write()
+        index = open(10)
+
+        then:
+        index.storedEntryCount == 1
+        index.get("/file") == null
+        index.get("/other").hash == TestHashCodes.hashCodeFrom(2)
+    }
+
+    def "keeps using snapshot after modifying the cache itself"() {
+        def index = open(10)
+        put(index, "/file", new FileInfo(TestHashCodes.hashCodeFrom(1), 1, 1))
+        index.write()
+        index = open(10)
+        def otherProcess = open(10)
+
+        when:
+        put(index, "/new", new FileInfo(TestHashCodes.hashCodeFrom(2), 2, 2))
+
+        then:
+        index.get("/file") != null
+        otherProcess.get("/file") == null
+    }
+
+    def "does not use snapshot when cache does not identify it"() {
+        def index = open(10)
+        put(index, "/file", new FileInfo(TestHashCodes.hashCodeFrom(1), 1, 1))
+        index.write()
+        cache.remove(FileHashIndex.MARKER_PATH)
+
+        when:
+        index = open(10)
+
+        then:
+        index.storedEntryCount == 1
+        index.get("/file") == null
+    }
+
+    def "appends modified entries to the journal instead of rewriting the index"() {
+        def index = open(10)
+        put(index, "/file", new FileInfo(TestHashCodes.hashCodeFrom(1), 1, 1))
+        index.write()
+        def snapshotBytes = indexFile.bytes
+
+        when:
+        index = open(10)
+        put(index, "/new", new FileInfo(TestHashCodes.hashCodeFrom(2), 2, 2))
+        index.write()
+
+        then:
+        indexFile.bytes == snapshotBytes
+        index.journalFile.exists()
+
+        when:
+        index = open(10)
+
+        then:
+        index.storedEntryCount == 2
+        index.get("/file").hash == TestHashCodes.hashCodeFrom(1)
+        index.get("/new").hash == TestHashCodes.hashCodeFrom(2)
+    }
+
+    def "does not write index when only stored entries have been used"() {
+        def index = open(10)
+        put(index, "/file", new FileInfo(TestHashCodes.hashCodeFrom(1), 1, 1))
+        index.write()
+        def snapshotBytes = indexFile.bytes
+
+        when:
+        index = open(10)
+        index.get("/file")
+        index.write()
+
+        then:
+        indexFile.bytes == snapshotBytes
+        !index.journalFile.exists()
+    }
+
+    def "folds the journal into a new snapshot once it grows too large"() {
+        def index = open(10000)
+        put(index, "/file", new FileInfo(TestHashCodes.hashCodeFrom(1), 1, 1))
+        index.write()
+
+        when:
+        index = open(10000)
+        (0..<2000).each {
+            put(index, "/file-${it}".toString(), new FileInfo(TestHashCodes.hashCodeFrom(it), it, it))
+        }
+        index.write()
+        index = open(10000)
+
+        then:
+        !index.journalFile.exists()
+        index.storedEntryCount == 2001
+        index.get("/file-1999").hash == TestHashCodes.hashCodeFrom(1999)
+    }
+
+    def "ignores incomplete batch at the end of the journal"() {
+        def index = open(10)
+        put(index, "/file", new FileInfo(TestHashCodes.hashCodeFrom(1), 1, 1))
+        index.write()
+        index = open(10)
+        put(index, "/first", new FileInfo(TestHashCodes.hashCodeFrom(2), 2, 2))
+        index.write()
+        index.journalFile << [0, 0, 0, 1, 0, 0] as byte[]
+
+        when:
+        index = open(10)
+
+        then:
+        index.get("/first").hash == TestHashCodes.hashCodeFrom(2)
+
+        when:
+        put(index, "/second", new FileInfo(TestHashCodes.hashCodeFrom(3), 3, 3))
+        index.write()
+        index = open(10)
+
+        then:
+        index.storedEntryCount == 3
+        index.get("/first").hash == TestHashCodes.hashCodeFrom(2)
+        index.get("/second").hash == TestHashCodes.hashCodeFrom(3)
+    }
+
+    def "does not look up paths served by the file hash cache"() {
+        def index = open(10)
+        put(index, "/file", new FileInfo(TestHashCodes.hashCodeFrom(1), 1, 1))
+        index.write()
+
+        when:
+        index = open(10)
+        index.markUsed("/file")
+
+        then:
+        index.get("/file") == null
+    }
+
+    def "does not write index without changes"() {
+        def index = open(10)
+
+        when:
+        index.write()
+
+        then:
+        !indexFile.exists()
+    }
+
+    def "ignores index with unknown format"() {
+        indexFile.bytes = "not an index, but long enough for a header".bytes
+
+        when:
+        def index = open(10)
+
+        then:
+        index.storedEntryCount == 0
+        index.get("/file") == null
+    }
+
+    private FileHashIndex open(int maxEntries) {
+        FileHashIndex.open(indexFile, cache, maxEntries)
+    }
+
+    private void put(FileHashIndex index, String path, FileInfo info) {
+        cache.put(path, info)
+        index.markModified(path)
+    }
+
+    private static class MapBackedCache implements IndexedCache<String, FileInfo> {
+        private final Map<String, FileInfo> entries = [:]
+
+        @Override
+        FileInfo getIfPresent(String key) {
+            entries[key]
+        }
+
+        @Override
+        FileInfo get(String key, Function<? super String, ? extends FileInfo> producer) {
+            entries.computeIfAbsent(key, producer)
+        }
+
+        @Override
+        void put(String key, FileInfo value) {
+            entries[key] = value
+        }
+
+        @Override
+        void remove(String key) {
+            entries.remove(key)
+        }
+    }
+}
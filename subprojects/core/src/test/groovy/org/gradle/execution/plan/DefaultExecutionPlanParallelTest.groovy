@@ -1831,6 +1831,53 @@ class DefaultExecutionPlanParallelTest extends AbstractExecutionPlanSpec {
         assertAllWorkComplete()
     }
 
+    def "runs ready node with the longest remaining critical path first"() {
+        def estimates = [a: 1L, b: 1L, c: 100L, d: 100L]
+        def durationEstimates = Stub(NodeDurationEstimates) {
+            estimateDurationMillis(_) >> { Node node -> estimates[node.toString()] ?: 0L }
+        }
+        def dependencyResolver = new TaskDependencyResolver([new TaskNodeDependencyResolver(taskNodeFactory)])
+        executionPlan = new DefaultExecutionPlan(Path.ROOT.toString(), taskNodeFactory, new OrdinalGroupFactory(), dependencyResolver, accessHierarchies.outputHierarchy, accessHierarchies.destroyableHierarchy, coordinator, durationEstimates)
+
+        def a = node("a")
+        def b = node("b")
+        def c = node("c")
+        def d = node("d", dependsOn: [c])
+
+        when:
+        addToGraph(a, b, d)
+        populateGraph()
+
+        then:
+        finalizedPlan.predictedCriticalPath.nodes == ["c", "d"]
+        finalizedPlan.predictedCriticalPath.durationMillis == 200
+
+        when:
+        def first = selectNextNode()
+        def second = selectNextNode()
+
+        then:
+        first == c
+        second == a
+
+        when:
+        finishedExecuting(first)
+        finishedExecuting(second)
+        def third = selectNextNode()
+        def fourth = selectNextNode()
+
+        then:
+        third == d
+        fourth == b
+
+        when:
+        finishedExecuting(third)
+        finishedExecuting(fourth)
+
+        then:
+        assertAllWorkComplete()
+    }
+
     @Issue("https://github.com/gradle/gradle/issues/20508")
     def "stops executing nodes after failure when priority node has already executed"() {
         def node = priorityNode()
@@ -0,0 +1,203 @@
+/*
+ * Copyright 2025 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.gradle.execution.plan
+
+import com.google.common.collect.ImmutableSortedMap
+import org.gradle.api.internal.TaskInternal
+import org.gradle.caching.internal.controller.BuildCacheController
+import org.gradle.internal.concurrent.ExecutorFactory
+import org.gradle.internal.concurrent.ManagedExecutor
+import org.gradle.internal.execution.history.ExecutionHistoryStore
+import org.gradle.internal.execution.history.PreviousExecutionState
+import org.gradle.internal.file.FileType
+import org.gradle.internal.file.Stat
+import org.gradle.internal.fingerprint.FileCollectionFingerprint
+import org.gradle.internal.fingerprint.FileSystemLocationFingerprint
+import org.gradle.internal.hash.TestHashCodes
+import org.gradle.internal.snapshot.CaseSensitivity
+import org.gradle.internal.snapshot.FileSystemLocationSnapshot
+import org.gradle.internal.snapshot.FileSystemSnapshot
+import org.gradle.internal.vfs.FileSystemAccess
+import spock.lang.Specification
+
+import java.util.stream.Stream
+
+class SpeculativeInputSnapshotterTest extends Specification {
+    def executionHistoryStore = Mock(ExecutionHistoryStore)
+    def fileSystemAccess = Mock(FileSystemAccess)
+    def buildCacheController = Mock(BuildCacheController)
+    def executor = Mock(ManagedExecutor)
+    def executorFactory = Stub(ExecutorFactory) {
+        create(_ as String, _ as Integer) >> executor
+    }
+    def accessHierarchies = new ExecutionNodeAccessHierarchies(CaseSensitivity.CASE_SENSITIVE, Stub(Stat))
+    def snapshotter = new SpeculativeInputSnapshotter(executionHistoryStore, fileSystemAccess, buildCacheController, accessHierarchies, executorFactory, 1)
+    def queued = []
+
+    def setup() {
+        _ * executor.execute(_) >> { Runnable runnable -> queued << runnable }
+    }
+
+    def "snapshots the files of the previous execution of a ready task"() {
+        def node = taskNode(":a")
+        def outputRoot = outputSnapshot("/out", 1)
+        def previousExecution = previousExecution(outputRoot)
+
+        when:
+        snapshotter.nodeReady(node)
+        snapshotter.nodeReady(node)
+
+        then:
+        queued.size() == 1
+
+        when:
+        queued.each { it.run() }
+
+        then:
+        1 * executionHistoryStore.load(":a") >> Optional.of(previousExecution)
+        1 * fileSystemAccess.readRegularFileContentHash("/src/A.java")
+        1 * fileSystemAccess.readRegularFileContentHash("/src/B.java")
+        1 * fileSystemAccess.read("/out") >> outputRoot
+        0 * fileSystemAccess._
+        0 * buildCacheController._
+    }
+
+    def "looks up the cache entry of the previous execution when the outputs have changed"() {
+        def node = taskNode(":a")
+        def previousExecution = previousExecution(outputSnapshot("/out", 1))
+
+        when:
+        snapshotter.nodeReady(node)
+        queued.each { it.run() }
+
+        then:
+        1 * executionHistoryStore.load(":a") >> Optional.of(previousExecution)
+        1 * fileSystemAccess.read("/out") >> outputSnapshot("/out", 2)
+        1 * buildCacheController.prefetch({ it.hashCode == TestHashCodes.hashCodeFrom(42).toString() })
+    }
+
+    def "does not snapshot locations accessed by running nodes"() {
+        def node = taskNode(":a")
+        def outputRoot = outputSnapshot("/out", 1)
+        def previousExecution = previousExecution(outputRoot)
+        def runningNode = Stub(Node) {
+            isExecuting() >> true
+        }
+        def waitingNode = Stub(Node) {
+            isExecuting() >> false
+        }
+        accessHierarchies.outputHierarchy.recordNodeAccessingLocations(runningNode, ["/src/A.java"])
+        accessHierarchies.destroyableHierarchy.recordNodeAccessingLocations(runningNode, ["/out"])
+        accessHierarchies.outputHierarchy.recordNodeAccessingLocations(waitingNode, ["/src/B.java"])
+
+        when:
+        snapshotter.nodeReady(node)
+        queued.each { it.run() }
+
+        then:
+        1 * executionHistoryStore.load(":a") >> Optional.of(previousExecution)
+        1 * fileSystemAccess.readRegularFileContentHash("/src/B.java")
+        0 * fileSystemAccess._
+        0 * buildCacheController._
+    }
+
+    def "does not snapshot a task that has been started"() {
+        def node = taskNode(":a")
+
+        when:
+        snapshotter.nodeReady(node)
+        snapshotter.nodeStarted(node)
+        queued.each { it.run() }
+
+        then:
+        0 * executionHistoryStore._
+        0 * fileSystemAccess._
+    }
+
+    def "does not snapshot a task without a previous execution"() {
+        def node = taskNode(":a")
+
+        when:
+        snapshotter.nodeReady(node)
+        queued.each { it.run() }
+
+        then:
+        1 * executionHistoryStore.load(":a") >> Optional.empty()
+        0 * fileSystemAccess._
+    }
+
+    def "ignores failures to snapshot"() {
+        def node = taskNode(":a")
+
+        when:
+        snapshotter.nodeReady(node)
+        queued.each { it.run() }
+
+        then:
+        1 * executionHistoryStore.load(":a") >> { throw new RuntimeException("broken") }
+        noExceptionThrown()
+    }
+
+    def "does not snapshot after being closed"() {
+        when:
+        snapshotter.close()
+        snapshotter.nodeReady(taskNode(":a"))
+
+        then:
+        1 * executor.stop()
+        queued.empty
+    }
+
+    private LocalTaskNode taskNode(String path) {
+        def task = Stub(TaskInternal) {
+            getPath() >> path
+        }
+        return Stub(LocalTaskNode) {
+            getTask() >> task
+        }
+    }
+
+    private PreviousExecutionState previousExecution(FileSystemLocationSnapshot outputRoot) {
+        def outputs = Stub(FileSystemSnapshot) {
+            roots() >> { Stream.of(outputRoot) }
+        }
+        return Stub(PreviousExecutionState) {
+            getCacheKey() >> TestHashCodes.hashCodeFrom(42)
+            isSuccessful() >> true
+            getInputFileProperties() >> ImmutableSortedMap.of("sources", fingerprint("/src": FileType.Directory, "/src/A.java": FileType.RegularFile, "/src/B.java": FileType.RegularFile))
+            getOutputFilesProducedByWork() >> ImmutableSortedMap.of("classes", outputs)
+        }
+    }
+
+    private FileSystemLocationSnapshot outputSnapshot(String path, int hash) {
+        return Stub(FileSystemLocationSnapshot) {
+            getAbsolutePath() >> path
+            getHash() >> TestHashCodes.hashCodeFrom(hash)
+        }
+    }
+
+    private FileCollectionFingerprint fingerprint(Map<String, FileType> files) {
+        def fingerprints = files.collectEntries { path, type ->
+            [(path): Stub(FileSystemLocationFingerprint) {
+                getType() >> type
+            }]
+        }
+        return Stub(FileCollectionFingerprint) {
+            getFingerprints() >> fingerprints
+        }
+    }
+}
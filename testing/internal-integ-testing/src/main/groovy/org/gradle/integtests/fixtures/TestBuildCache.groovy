@@ -17,6 +17,7 @@
 package org.gradle.integtests.fixtures
 
 import org.gradle.caching.local.internal.BuildCacheTempFileStore
+import org.gradle.caching.local.internal.DirectoryBuildCache
 import org.gradle.caching.local.internal.DirectoryBuildCacheServiceFactory
 import org.gradle.internal.hash.Hashing
 import org.gradle.test.fixtures.file.TestFile
@@ -63,11 +64,15 @@ class TestBuildCache {
     }
 
     List<TestFile> listCacheFailedFiles() {
-        cacheDir.listFiles().findAll { it.name.endsWith(DirectoryBuildCacheServiceFactory.FAILED_READ_SUFFIX) }.sort()
+        listShardedFiles().findAll { it.name.endsWith(DirectoryBuildCacheServiceFactory.FAILED_READ_SUFFIX) }.sort()
     }
 
     List<TestFile> listCacheFiles() {
-        cacheDir.listFiles().findAll { it.name ==~ /\p{XDigit}{${Hashing.defaultFunction().hexDigits}}/ }.sort()
+        listShardedFiles().findAll { it.name ==~ /\p{XDigit}{${Hashing.defaultFunction().hexDigits}}/ }.sort()
+    }
+
+    private List<TestFile> listShardedFiles() {
+        cacheDir.listFiles().findAll { it.directory }.collectMany { it.listFiles() as List<TestFile> }
     }
 
     void deleteCacheEntry(String cacheKey) {
@@ -92,7 +97,7 @@ class TestBuildCache {
     }
 
     private TestFileCacheEntry getTestFileCacheEntry(String cacheKey) {
-        return new TestFileCacheEntry(cacheKey, new TestFile(cacheDir, cacheKey))
+        return new TestFileCacheEntry(cacheKey, cacheDir.file(DirectoryBuildCache.getRelativeEntryPath(cacheKey)))
     }
 
     interface TestCacheEntry {
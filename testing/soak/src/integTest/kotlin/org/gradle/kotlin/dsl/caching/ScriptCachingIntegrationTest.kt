@@ -329,8 +329,9 @@ class ScriptCachingIntegrationTest : AbstractScriptCachingIntegrationTest() {
                 result.assertNotOutput("Caching of Kotlin script compilation disabled by property")
             }
 
-            val localBuildCacheDir = executer.gradleUserHomeDir.resolve("caches/build-cache-1")
-            val localBuildCacheFiles = localBuildCacheDir.list { _, fileName -> fileName != "gc.properties" && fileName != "build-cache-1.lock" }
+            val localBuildCacheDir = executer.gradleUserHomeDir.resolve("caches/build-cache-1/v2")
+            // Entries are stored in shard directories
+            val localBuildCacheFiles = localBuildCacheDir.listFiles().orEmpty().flatMap { it.listFiles()!!.toList() }
 
             assertThat(localBuildCacheFiles).hasSize(expectedEntryCount)
             result